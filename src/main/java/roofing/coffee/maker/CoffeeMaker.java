@@ -1,11 +1,31 @@
 package roofing.coffee.maker;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import lombok.NonNull;
 import lombok.ToString;
+import roofing.coffee.maker.alerts.MakerAlerts;
 import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.busses.ClockMetrics;
+import roofing.coffee.maker.changes.ChangeFeed;
 import roofing.coffee.maker.components.BrewButton;
 import roofing.coffee.maker.components.CoffeePot;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.components.DormantState;
+import roofing.coffee.maker.components.SteadyState;
 import roofing.coffee.maker.components.WarmerPlate;
 import roofing.coffee.maker.components.WaterReservoir;
+import roofing.coffee.maker.history.StateHistory;
+import roofing.coffee.maker.indexes.FleetIndex;
+import roofing.coffee.maker.streams.CoffeeMakerState;
+import roofing.coffee.maker.streams.ConflatingPublisher;
+import roofing.coffee.maker.streams.StateFlow;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateField;
+import roofing.coffee.maker.subscriptions.Subscription;
+import roofing.coffee.maker.subscriptions.SubscriptionIndex;
+import roofing.coffee.maker.timers.Timeout;
+import roofing.coffee.maker.timers.TimerWheel;
 
 /**
  * CoffeeMaker represents an actual coffee maker's basic capabilities - e.g. brewing coffee, warming
@@ -83,6 +103,73 @@ public class CoffeeMaker {
     private final CoffeePot pot;
     private final WarmerPlate warmer;
 
+    @ToString.Exclude
+    private final ClockMetrics clockMetrics = new ClockMetrics();
+
+    // Runs after each user command. CoffeeMakerCreator may replace this no-op so that commands
+    // take effect immediately rather than on the clock's next tick.
+    @ToString.Exclude
+    private volatile Runnable commandEvaluation = () -> { };
+
+    // Runs before each read and command. CoffeeMakerCreator may replace this no-op so that a
+    // CoffeeMaker without a scheduled clock catches up to the current tick first.
+    @ToString.Exclude
+    private volatile Runnable catchUp = () -> { };
+
+    // Stops the clock that ticks this CoffeeMaker, if any. See shutdown().
+    @ToString.Exclude
+    private volatile Runnable clockShutdown = () -> { };
+
+    // Releases whatever else this CoffeeMaker holds within its fleet. See shutdown().
+    @ToString.Exclude
+    private volatile Runnable shutdownRelease = () -> { };
+
+    // When a fleet last looked this CoffeeMaker up. See CoffeeMakerFleet.
+    @ToString.Exclude
+    private volatile long lastTouchedNanos = System.nanoTime();
+
+    @ToString.Exclude
+    private final CoffeeMakerNotifier notifier;
+
+    @ToString.Exclude
+    private final SubscriptionIndex subscriptions;
+
+    @ToString.Exclude
+    private final ConflatingPublisher<CoffeeMaker, CoffeeMakerState> stateStream;
+
+    // Records this CoffeeMaker's state changes, if CoffeeMakerCreator gave it a history
+    @ToString.Exclude
+    private volatile StateHistory history;
+
+    // Indexes this CoffeeMaker's state under deviceId, if its fleet has an index
+    @ToString.Exclude
+    private volatile FleetIndex index;
+
+    // Feeds this CoffeeMaker's state changes under deviceId, if its fleet has a change feed
+    @ToString.Exclude
+    private volatile ChangeFeed changeFeed;
+
+    // Runs the automata of this CoffeeMaker's alert rules, if its fleet has an alert engine
+    @ToString.Exclude
+    private volatile MakerAlerts alerts;
+
+    @ToString.Exclude
+    private int deviceId;
+
+    // Holds the deadlines of this CoffeeMaker's components, by the ticks of its Clock
+    @ToString.Exclude
+    private final TimerWheel timers;
+
+    // Guarded by this. A scheduled brew and an idle reset are pending until they run.
+    @ToString.Exclude
+    private Timeout scheduledBrew;
+
+    @ToString.Exclude
+    private long idleResetTicks = 0;
+
+    @ToString.Exclude
+    private Timeout idleReset;
+
     /**
      * Construct a CoffeeMaker with its components.
      * 
@@ -96,12 +183,26 @@ public class CoffeeMaker {
      * @param button enables the user to start brewing coffee.
      * @param pot holds coffee.
      * @param warmer warms the coffee.
+     * @param timers holds the deadlines of the CoffeeMaker and its components, and advances by
+     *        one per tick of the CoffeeMaker's Clock.
+     * @param notificationExecutor completes the futures returned by {@code onBrewComplete()} and
+     *        {@code onCupsAvailable(int)}.
      */
-    CoffeeMaker(WaterReservoir reservoir, BrewButton button, CoffeePot pot, WarmerPlate warmer) {
+    CoffeeMaker(WaterReservoir reservoir,
+            BrewButton button,
+            CoffeePot pot,
+            WarmerPlate warmer,
+            TimerWheel timers,
+            Executor notificationExecutor) {
+
         this.reservoir = reservoir;
         this.button = button;
         this.pot = pot;
         this.warmer = warmer;
+        this.timers = timers;
+        this.notifier = new CoffeeMakerNotifier(pot.maxCapacityCups(), notificationExecutor);
+        this.subscriptions = new SubscriptionIndex(notificationExecutor);
+        this.stateStream = new ConflatingPublisher<>(notificationExecutor);
     }
 
     /**
@@ -131,7 +232,10 @@ public class CoffeeMaker {
      * @throws IllegalArgumentException if {@code cupsOfwater} would over-fill the CoffeeMaker.
      */
     public void fill(int cupsOfwater) {
+        catchUp.run();
         reservoir.fill(cupsOfwater);
+        restartIdleReset();
+        commandEvaluation.run();
     }
 
     /**
@@ -151,7 +255,10 @@ public class CoffeeMaker {
      * @see roofing.coffee.maker.CoffeeMaker#isBrewing()
      */
     public void pressBrewButton() {
+        catchUp.run();
         button.pressBrewButton();
+        restartIdleReset();
+        commandEvaluation.run();
     }
 
     /**
@@ -166,6 +273,7 @@ public class CoffeeMaker {
      * @return the cups of water currently present in the CoffeeMaker
      */
     public int cupsOfWater() {
+        catchUp.run();
         return reservoir.cupsOfWater();
     }
 
@@ -180,6 +288,7 @@ public class CoffeeMaker {
      * @return the cups of coffee currently present in the CoffeeMaker
      */
     public int cupsOfCoffee() {
+        catchUp.run();
         return pot.cupsOfCoffee();
     }
 
@@ -194,6 +303,7 @@ public class CoffeeMaker {
      * @return the cups of coffee currently present in the CoffeeMaker
      */
     public boolean isWarmerPlateOn() {
+        catchUp.run();
         return warmer.isHot();
     }
 
@@ -220,6 +330,7 @@ public class CoffeeMaker {
      * @return the cups of coffee currently present in the CoffeeMaker
      */
     public boolean isBrewing() {
+        catchUp.run();
         return reservoir.isBrewing();
     }
 
@@ -247,8 +358,11 @@ public class CoffeeMaker {
      *         removed.
      */
     public CoffeePot removePot() {
+        catchUp.run();
         if (warmer.hasPot()) {
             warmer.removePot();
+            restartIdleReset();
+            commandEvaluation.run();
             return pot;
         }
 
@@ -269,8 +383,11 @@ public class CoffeeMaker {
      *         present.
      */
     public void replacePot() {
+        catchUp.run();
         if (!warmer.hasPot()) {
             warmer.replacePot();
+            restartIdleReset();
+            commandEvaluation.run();
 
         } else {
             throw new IllegalStateException(
@@ -279,6 +396,620 @@ public class CoffeeMaker {
         }
     }
 
+    /**
+     * Returns true when the CoffeePot sits on the WarmerPlate, and false once the user removes it.
+     * 
+     * @see roofing.coffee.maker.CoffeeMaker#removePot()
+     * @return true when the CoffeePot sits on the WarmerPlate; false otherwise.
+     */
+    public boolean hasPot() {
+        catchUp.run();
+        return warmer.hasPot();
+    }
+
+    /**
+     * Pour {@code cups} cups of coffee out of the removed CoffeePot - as per
+     * {@code removePot().pourOutCoffee(cups)}, for clients that no longer hold the CoffeePot that
+     * {@code removePot()} returned - e.g. remote ones.
+     * 
+     * <p>
+     * Pouring out more cups than the CoffeePot holds empties it.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.components.CoffeePot#pourOutCoffee(int)
+     * @param cups the cups of coffee to pour out
+     * @throws IllegalArgumentException if {@code cups} is negative.
+     * @throws IllegalStateException if the CoffeePot sits on the WarmerPlate.
+     */
+    public void pourOutCoffee(int cups) {
+        if (cups < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot pour out %d cups of coffee. "
+                            + "Please pour out a non-negative number of cups.",
+                    cups));
+        }
+
+        catchUp.run();
+        if (warmer.hasPot()) {
+            throw new IllegalStateException(
+                    "The coffee pot is currently on the warmer plate. Please remove the pot via "
+                            + "removePot() before pouring out coffee.");
+        }
+
+        pot.pourOutCoffee(cups);
+    }
+
+    /**
+     * Press the brew button {@code ticksFromNow} ticks of the Clock from now - e.g. the ticks until
+     * 7:00 tomorrow morning - unless a brew is already requested or under way by then.
+     * 
+     * <p>
+     * The CoffeeMaker keeps one scheduled brew at a time: scheduling another cancels the first.
+     * The scheduled brew waits on the CoffeeMaker's TimerWheel, so it costs nothing until it runs.
+     * Fill the CoffeeMaker beforehand, as for {@code pressBrewButton()}.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.plugins.properties.CoffeeMakerProperties#getClockTicksPerMinute()
+     * @param ticksFromNow the ticks of the Clock to wait before brewing
+     * @return the Timeout that presses the brew button, which the client may cancel.
+     * @throws IllegalArgumentException if {@code ticksFromNow} is not positive.
+     */
+    public Timeout scheduleBrew(long ticksFromNow) {
+        if (ticksFromNow < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot schedule a brew %d ticks from now. Please schedule it at least 1 tick "
+                            + "from now.",
+                    ticksFromNow));
+        }
+
+        catchUp.run();
+
+        synchronized (this) {
+            if (scheduledBrew != null) {
+                scheduledBrew.cancel();
+            }
+
+            scheduledBrew = timers.schedule(timers.now() + ticksFromNow, this::brewAsScheduled);
+            return scheduledBrew;
+        }
+    }
+
+    /**
+     * Reset this CoffeeMaker once it has sat idle for {@code idleTicks} ticks of the Clock - e.g.
+     * half an hour after the last cup - like a real coffee maker that cleans up after itself.
+     * 
+     * <p>
+     * The CoffeeMaker is idle while it neither brews nor receives any command - i.e.
+     * {@code fill()}, {@code pressBrewButton()}, {@code removePot()}, or {@code replacePot()}. Each
+     * command restarts the wait, and a wait that ends mid-brew starts over. A reset throws out the
+     * coffee in the pot and cancels any brew request that is still waiting for water. The reset
+     * waits on the CoffeeMaker's TimerWheel, so idling costs nothing per tick.
+     * </p>
+     * 
+     * @param idleTicks the ticks of idleness after which to reset, or {@code 0} to never reset
+     * @throws IllegalArgumentException if {@code idleTicks} is negative.
+     */
+    public void resetAfterIdle(long idleTicks) {
+        if (idleTicks < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot reset a coffee maker after %d idle ticks. Please provide a positive "
+                            + "number of ticks, or 0 to never reset.",
+                    idleTicks));
+        }
+
+        catchUp.run();
+
+        synchronized (this) {
+            idleResetTicks = idleTicks;
+        }
+
+        restartIdleReset();
+    }
+
+    private void brewAsScheduled() {
+        synchronized (this) {
+            scheduledBrew = null;
+        }
+
+        if (!button.isBrewRequested()) {
+            pressBrewButton();
+        }
+    }
+
+    private synchronized void restartIdleReset() {
+        if (idleReset != null) {
+            idleReset.cancel();
+            idleReset = null;
+        }
+
+        if (idleResetTicks > 0) {
+            idleReset = timers.schedule(timers.now() + idleResetTicks, this::resetIfIdle);
+        }
+    }
+
+    private void resetIfIdle() {
+        synchronized (this) {
+            idleReset = null;
+        }
+
+        if (isBrewing()) {
+            restartIdleReset();
+            return;
+        }
+
+        pot.pourOutCoffee(pot.cupsOfCoffee());
+        if (button.isBrewRequested()) {
+            button.pressBrewButton();
+        }
+
+        commandEvaluation.run();
+    }
+
+    /**
+     * Returns a future that completes the next time that the CoffeeMaker stops brewing.
+     * 
+     * <p>
+     * Clients should prefer this method to polling {@code isBrewing()}. Brewing stops once the
+     * reservoir runs out of water, once the user presses the brew button again, or once the user
+     * removes the pot. The future completes with the cups of coffee in the CoffeeMaker at that
+     * time.
+     * </p>
+     * 
+     * <p>
+     * The future completes on the notification executor that CoffeeMakerCreator provided, never
+     * on the Clock's thread. Note that if the CoffeeMaker is idle, the future waits for the next
+     * brew to finish - e.g. call this method right after {@code pressBrewButton()}.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.CoffeeMakerCreator#create(CoffeeMakerProperties, Executor)
+     * @return a future that completes with the cups of coffee brewed once brewing stops.
+     */
+    public CompletableFuture<Integer> onBrewComplete() {
+        catchUp.run();
+        return notifier.onBrewComplete();
+    }
+
+    /**
+     * Returns a future that completes once the CoffeeMaker holds at least {@code cups} cups of
+     * coffee.
+     * 
+     * <p>
+     * Clients should prefer this method to polling {@code cupsOfCoffee()}. If the CoffeeMaker
+     * already holds {@code cups} cups, the future completes right away. Otherwise, it completes on
+     * the first tick that brews the {@code cups}-th cup. Either way, the future completes with the
+     * cups of coffee in the CoffeeMaker at that time.
+     * </p>
+     * 
+     * <p>
+     * The future completes on the notification executor that CoffeeMakerCreator provided, never
+     * on the Clock's thread.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.CoffeeMakerCreator#create(CoffeeMakerProperties, Executor)
+     * @param cups the cups of coffee to wait for
+     * @return a future that completes with the cups of coffee available.
+     * @throws IllegalArgumentException if {@code cups} is not positive or exceeds the CoffeePot's
+     *         max capacity.
+     */
+    public CompletableFuture<Integer> onCupsAvailable(int cups) {
+        if (cups < 1 || cups > pot.maxCapacityCups()) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot wait for %d cups of coffee. Please wait for between 1 and %d cups.",
+                    cups,
+                    pot.maxCapacityCups()));
+        }
+
+        return notifier.onCupsAvailable(cups, cupsOfCoffee());
+    }
+
+    /**
+     * Run {@code listener} each time that {@code condition} becomes true.
+     * 
+     * <p>
+     * Clients may watch thousands of conditions - e.g. "the pot has at least 4 cups", "the warmer
+     * plate turned off", or "the reservoir is empty while a brew is requested" - at little cost to
+     * the Clock. The CoffeeMaker indexes each condition by the state it watches, and each tick
+     * evaluates only the conditions whose thresholds a change crosses.
+     * </p>
+     * 
+     * <p>
+     * The subscription takes effect on the Clock's next tick or evaluation. Listeners run on the
+     * notification executor that CoffeeMakerCreator provided, never on the Clock's thread.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.subscriptions.SubscriptionIndex
+     * @param condition the condition to watch
+     * @param listener what to run each time that {@code condition} becomes true
+     * @return a Subscription, which the client may cancel.
+     */
+    public Subscription subscribe(StateCondition condition, Runnable listener) {
+        return subscriptions.subscribe(condition, listener);
+    }
+
+    /**
+     * Returns a live stream of this CoffeeMaker's state.
+     * 
+     * <p>
+     * The stream publishes a CoffeeMakerState after every tick and every evaluation. It honors
+     * each Subscriber's demand. A Subscriber that is slower than the Clock receives only the latest
+     * state once it requests more, rather than a backlog of every state that it missed.
+     * Subscribers receive their signals on the notification executor that CoffeeMakerCreator
+     * provided.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.streams.ConflatingPublisher
+     * @return a Publisher of this CoffeeMaker's state.
+     */
+    public StateFlow.Publisher<CoffeeMakerState> stateStream() {
+        return stateStream;
+    }
+
+    /**
+     * Returns the history of this CoffeeMaker's state changes.
+     * 
+     * <p>
+     * Only CoffeeMakers of a fleet created with a HistoryBudget keep a history - see
+     * {@code CoffeeMakerCreator::createFleet(int, CoffeeMakerProperties, FleetOptions)}. The
+     * history measures time in ticks of this CoffeeMaker's Clock - see
+     * {@code clockMetrics().ticks()}.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.history.StateHistory
+     * @return the history of this CoffeeMaker's state changes.
+     * @throws IllegalStateException if this CoffeeMaker keeps no history.
+     */
+    public StateHistory history() {
+        StateHistory current = history;
+        if (current == null) {
+            throw new IllegalStateException("This coffee maker keeps no history of its state");
+        }
+
+        return current;
+    }
+
+    /**
+     * Returns the settings of this CoffeeMaker's components.
+     * 
+     * <p>
+     * Every CoffeeMaker created from the same CoffeeMakerProperties shares the same settings,
+     * unless it overrides them via {@code overrideSettings(ComponentSettings)}.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.components.ComponentSettings
+     * @return the settings of this CoffeeMaker's components.
+     */
+    public ComponentSettings settings() {
+        return pot.settings();
+    }
+
+    /**
+     * Give this CoffeeMaker's components {@code settings} - e.g.
+     * {@code settings().withTicksPerCupBrewed(2)} - without affecting any other CoffeeMaker that
+     * shares the current settings.
+     * 
+     * <p>
+     * The components adopt the new settings one at a time, so the Clock's current tick may see a
+     * mix of old and new settings. Its next tick sees only the new ones.
+     * </p>
+     * 
+     * <p>
+     * The settings may change the CoffeePot's max capacity - and with it the WaterReservoir's. A
+     * component that shrinks keeps what it already holds, but takes no more until it holds less
+     * than its new capacity. Clients may then wait for up to the new capacity's cups via
+     * {@code onCupsAvailable(int)}.
+     * </p>
+     * 
+     * @param settings the settings to give this CoffeeMaker's components
+     */
+    public void overrideSettings(@NonNull ComponentSettings settings) {
+        reservoir.overrideSettings(settings);
+        pot.overrideSettings(settings);
+        warmer.overrideSettings(settings);
+    }
+
+    /**
+     * Shut this CoffeeMaker down - e.g. once its fleet decommissions it.
+     * 
+     * <p>
+     * Shutting down stops the Clock that ticks this CoffeeMaker, which releases the Clock's
+     * thread, completes its {@code stateStream()}, returns its history's memory to the fleet's
+     * budget, removes it from the fleet's index and aggregate groups, reports its removal to the
+     * fleet's change feed, clears its alerts, and cancels its scheduled brew and idle reset. The
+     * CoffeeMaker no longer brews, warms, or notifies anyone. Shutting down a CoffeeMaker more than
+     * once does nothing more.
+     * </p>
+     */
+    public void shutdown() {
+        goDormant();
+
+        FleetIndex currentIndex = index;
+        if (currentIndex != null) {
+            currentIndex.remove(deviceId);
+        }
+
+        ChangeFeed currentFeed = changeFeed;
+        if (currentFeed != null) {
+            currentFeed.remove(deviceId);
+        }
+
+        shutdownRelease.run();
+    }
+
+    /**
+     * Shut this CoffeeMaker down, as per {@code shutdown()}, once its fleet packed it into its
+     * dormant state - but leave it in the fleet's index, change feed, and aggregate groups, where
+     * its at-rest state stays current while it is dormant.
+     * 
+     * @see roofing.coffee.maker.FleetWiring#release(int)
+     */
+    void goDormant() {
+        clockShutdown.run();
+        stateStream.complete();
+
+        synchronized (this) {
+            if (scheduledBrew != null) {
+                scheduledBrew.cancel();
+            }
+
+            idleResetTicks = 0;
+        }
+
+        restartIdleReset();
+
+        StateHistory current = history;
+        if (current != null) {
+            current.release();
+        }
+
+        MakerAlerts currentAlerts = alerts;
+        if (currentAlerts != null) {
+            currentAlerts.stop();
+        }
+    }
+
+    /**
+     * Complete the futures, run the subscriptions, record the state in this CoffeeMaker's history,
+     * index, change feed, and alert rules, if any, and stream the state to any clients that are
+     * waiting on this CoffeeMaker.
+     * 
+     * <p>
+     * CoffeeMakerCreator registers this method as an update listener on the CoffeeMaker's Bus, so
+     * that it runs after every tick and every evaluation.
+     * </p>
+     */
+    void publishNotifications() {
+        notifier.publish(isBrewing(), cupsOfCoffee());
+        subscriptions.publish(this::stateOf);
+
+        StateHistory current = history;
+        if (current != null) {
+            current.record(clockMetrics.ticks(),
+                    cupsOfWater(),
+                    cupsOfCoffee(),
+                    isBrewing(),
+                    isWarmerPlateOn(),
+                    warmer.hasPot());
+        }
+
+        FleetIndex currentIndex = index;
+        if (currentIndex != null) {
+            currentIndex.update(deviceId, isBrewing(), cupsOfCoffee(), warmer.hasPot());
+        }
+
+        ChangeFeed currentFeed = changeFeed;
+        if (currentFeed != null) {
+            currentFeed.update(deviceId,
+                    cupsOfWater(),
+                    cupsOfCoffee(),
+                    isBrewing(),
+                    isWarmerPlateOn(),
+                    warmer.hasPot());
+        }
+
+        MakerAlerts currentAlerts = alerts;
+        if (currentAlerts != null) {
+            currentAlerts.publish(clockMetrics.ticks(), this::stateOf);
+        }
+
+        if (stateStream.hasSubscribers()) {
+            stateStream.publish(this, new CoffeeMakerState(
+                    clockMetrics.ticks(),
+                    cupsOfWater(),
+                    cupsOfCoffee(),
+                    isBrewing(),
+                    isWarmerPlateOn(),
+                    warmer.hasPot()));
+        }
+    }
+
+    private int stateOf(StateField field) {
+        switch (field) {
+            case CUPS_OF_COFFEE:
+                return cupsOfCoffee();
+            case CUPS_OF_WATER:
+                return cupsOfWater();
+            case IS_BREWING:
+                return StateField.flag(isBrewing());
+            case IS_HOT:
+                return StateField.flag(isWarmerPlateOn());
+            case HAS_POT:
+                return StateField.flag(warmer.hasPot());
+            default:
+                return StateField.flag(button.isBrewRequested());
+        }
+    }
+
+    /**
+     * Run {@code evaluation} after each user command - i.e. {@code fill()},
+     * {@code pressBrewButton()}, {@code removePot()}, and {@code replacePot()}.
+     * 
+     * <p>
+     * CoffeeMakerCreator uses this hook to make commands take effect immediately rather than on the
+     * Clock's next tick.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.busses.Clock#evaluate()
+     * @param evaluation what to run after each user command
+     */
+    void evaluateCommandsWith(Runnable evaluation) {
+        this.commandEvaluation = evaluation;
+    }
+
+    /**
+     * Run {@code catchUp} before each read and command - i.e. {@code cupsOfWater()},
+     * {@code cupsOfCoffee()}, {@code isWarmerPlateOn()}, {@code isBrewing()}, each user command,
+     * each scheduled brew or idle reset, and each wait for a notification.
+     * 
+     * <p>
+     * CoffeeMakerCreator uses this hook to tick a CoffeeMaker without a scheduled clock on demand.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.TicklessClock
+     * @param catchUp what to run before each read and command
+     */
+    void catchUpWith(Runnable catchUp) {
+        this.catchUp = catchUp;
+    }
+
+    /**
+     * Run {@code shutdown} when this CoffeeMaker shuts down.
+     * 
+     * <p>
+     * CoffeeMakerCreator uses this hook to stop the Clock that it started for this CoffeeMaker.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.busses.Clock#stop()
+     * @param shutdown what to run on {@code shutdown()}
+     */
+    void shutdownClockWith(Runnable shutdown) {
+        this.clockShutdown = shutdown;
+    }
+
+    /**
+     * Run {@code release} when this CoffeeMaker shuts down, once its Clock has stopped.
+     * 
+     * <p>
+     * CoffeeMakerCreator uses this hook to take the CoffeeMaker out of its fleet's aggregate
+     * groups.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.aggregates.GroupMember#leave()
+     * @param release what to run on {@code shutdown()}
+     */
+    void releaseOnShutdown(Runnable release) {
+        this.shutdownRelease = release;
+    }
+
+    /**
+     * Record this CoffeeMaker's state changes in {@code history} after every tick and evaluation.
+     * 
+     * @param history the history to record into
+     */
+    void recordHistoryIn(StateHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Index this CoffeeMaker's state in {@code index}, under {@code deviceId}, after every tick and
+     * evaluation.
+     * 
+     * @param index the index to update
+     * @param deviceId this CoffeeMaker's device id within its fleet
+     */
+    void indexIn(FleetIndex index, int deviceId) {
+        this.deviceId = deviceId;
+        this.index = index;
+    }
+
+    /**
+     * Report this CoffeeMaker's state to {@code changeFeed}, under {@code deviceId}, after every
+     * tick and evaluation.
+     * 
+     * @param changeFeed the change feed to report to
+     * @param deviceId this CoffeeMaker's device id within its fleet
+     */
+    void feedChangesTo(ChangeFeed changeFeed, int deviceId) {
+        this.deviceId = deviceId;
+        this.changeFeed = changeFeed;
+    }
+
+    /**
+     * Run the automata of {@code alerts} against this CoffeeMaker's state after every tick and
+     * evaluation.
+     * 
+     * @param alerts the automata of this CoffeeMaker's alert rules
+     */
+    void watchAlerts(MakerAlerts alerts) {
+        this.alerts = alerts;
+    }
+
+    void touch(long nowNanos) {
+        lastTouchedNanos = nowNanos;
+    }
+
+    long lastTouchedNanos() {
+        return lastTouchedNanos;
+    }
+
+    /**
+     * Returns true if this CoffeeMaker may go dormant - i.e. if it is at rest, nobody waits on its
+     * notifications, subscriptions, or state stream, and it has no scheduled brew or idle reset
+     * pending.
+     * 
+     * @see roofing.coffee.maker.components.DormantState
+     * @return true if this CoffeeMaker may go dormant; false otherwise.
+     */
+    boolean isDormantCandidate() {
+        return DormantState.isAtRest(reservoir, button, pot, warmer)
+                && !notifier.hasWaiters()
+                && subscriptions.isEmpty()
+                && !stateStream.hasSubscribers()
+                && hasNoTimeouts();
+    }
+
+    private synchronized boolean hasNoTimeouts() {
+        return scheduledBrew == null && idleReset == null;
+    }
+
+    /**
+     * Returns a summary of this CoffeeMaker's state that changes whenever a tick changes anything
+     * but the progress towards the next cup.
+     * 
+     * <p>
+     * <b>Note: external clients of this package should NOT call this method. It is intended for
+     * internal usage only. </b>
+     * </p>
+     * 
+     * @see roofing.coffee.maker.components.SteadyState
+     * @return a summary of this CoffeeMaker's state.
+     */
+    public long steadyState() {
+        return SteadyState.signature(reservoir, button, pot, warmer);
+    }
+
+    /**
+     * Returns the ticks until this CoffeeMaker brews its next cup, if nothing else changes.
+     * 
+     * <p>
+     * <b>Note: external clients of this package should NOT call this method. It is intended for
+     * internal usage only. </b>
+     * </p>
+     * 
+     * @see roofing.coffee.maker.components.SteadyState
+     * @return the ticks until the next cup, or {@code Long.MAX_VALUE} if none is due.
+     */
+    public long ticksUntilNextCup() {
+        return SteadyState.ticksUntilNextCup(reservoir, pot);
+    }
+
+    void deflateInto(long[] words, int offset) {
+        DormantState.pack(reservoir, pot, warmer, words, offset);
+    }
+
+    void inflateFrom(long[] words, int offset) {
+        DormantState.unpack(words, offset, reservoir, pot, warmer);
+    }
+
     /**
      * Serialize this CoffeeMaker into a form suitable for inter-communication between CoffeeMaker
      * components.
@@ -297,11 +1028,44 @@ public class CoffeeMaker {
      * @return BusMessage - a representation of the CoffeeMaker's current internal state.
      */
     public BusMessage asBusMessage() {
+        return asBusMessage(1);
+    }
+
+    /**
+     * Serialize this CoffeeMaker into a form suitable for inter-communication between CoffeeMaker
+     * components, and which represents {@code ticksElapsed} ticks of the clock.
+     * 
+     * <p>
+     * <b>Note: external clients of this package should NOT call this method. It is intended for
+     * internal usage only. </b>
+     * </p>
+     * 
+     * @see roofing.coffee.maker.busses.BusMessage#getTicksElapsed()
+     * @param ticksElapsed the number of ticks of the clock that the BusMessage represents
+     * @return BusMessage - a representation of the CoffeeMaker's current internal state.
+     */
+    public BusMessage asBusMessage(long ticksElapsed) {
         return BusMessage.builder()
                 .withBrewButton(button)
                 .withCoffeePot(pot)
                 .withWarmerPlate(warmer)
                 .withWaterReservoir(reservoir)
+                .withTicksElapsed(ticksElapsed)
                 .build();
     }
+
+    /**
+     * Returns metrics that describe how well this CoffeeMaker's Clock keeps to its schedule.
+     * 
+     * <p>
+     * These metrics include the Clock's lag and the number of ticks that it missed and caught up
+     * on. A CoffeeMaker whose Clock falls behind is likely running on an overloaded machine.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.busses.CatchUpPolicy
+     * @return metrics that describe how well this CoffeeMaker's Clock keeps to its schedule.
+     */
+    public ClockMetrics clockMetrics() {
+        return clockMetrics;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package roofing.coffee.maker;
+
+import java.util.concurrent.TimeUnit;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+
+/**
+ * A CoffeeMakerBlueprint holds the settings that CoffeeMakerCreator derives from a
+ * CoffeeMakerProperties instance - e.g. the ticks per cup brewed.
+ *
+ * <p>
+ * CoffeeMakerProperties derives some settings anew on every call. CoffeeMakerCreator derives them
+ * once per blueprint, and then shares the blueprint among every CoffeeMaker that it creates from
+ * the same properties - e.g. across a whole fleet. Likewise, the components of every such
+ * CoffeeMaker refer to the blueprint's shared ComponentSettings.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class CoffeeMakerBlueprint {
+
+    final ComponentSettings componentSettings;
+
+    final long clockTickDelay;
+    final TimeUnit clockTickDelayUnit;
+    final CatchUpPolicy clockCatchUpPolicy;
+    final boolean evaluatingCommandsImmediately;
+
+    private CoffeeMakerBlueprint(CoffeeMakerProperties properties) {
+        this.componentSettings = ComponentSettings.of(properties.getPotMaxCapacityCups(),
+                properties.getReservoirTicksPerCupBrewed(),
+                properties.getWarmerPlateStayHotForTickLimit());
+        this.clockTickDelay = properties.getClockTickDelay();
+        this.clockTickDelayUnit = properties.getClockTickDelayUnit();
+        this.clockCatchUpPolicy = properties.getClockCatchUpPolicy();
+        this.evaluatingCommandsImmediately = properties.isClockEvaluatingCommandsImmediately();
+    }
+
+    static CoffeeMakerBlueprint of(CoffeeMakerProperties properties) {
+        return new CoffeeMakerBlueprint(properties);
+    }
+}
@@ -1,15 +1,27 @@
 package roofing.coffee.maker;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import lombok.NonNull;
 import roofing.coffee.maker.busses.Bus;
 import roofing.coffee.maker.busses.Clock;
 import roofing.coffee.maker.busses.Clock.ClockBuilder;
 import roofing.coffee.maker.components.BrewButton;
 import roofing.coffee.maker.components.CoffeePot;
+import roofing.coffee.maker.components.ComponentSettings;
 import roofing.coffee.maker.components.WarmerPlate;
 import roofing.coffee.maker.components.WaterReservoir;
+import roofing.coffee.maker.events.ComponentEventSink;
 import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.timers.TimerWheel;
 
 /**
  * A creator of CoffeeMaker instances.
@@ -19,6 +31,28 @@ import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
  * is non-trivial consideration and can affect the performance and correctness of a CoffeeMaker
  * client.
  * 
+ * Similarly, clients may choose the Executor that completes a CoffeeMaker's notifications - e.g.
+ * the futures returned by {@code CoffeeMaker::onBrewComplete}. By default, the common ForkJoinPool
+ * completes them.
+ * 
+ * Finally, clients may pass a ComponentEventSink - e.g. an EventRingBuffer - that receives the
+ * transitions of the CoffeeMaker's components. By default, the components raise no events.
+ * 
+ * CoffeeMakers that clients rarely read may instead be {@code createTickless()}, so that they
+ * compute their state on demand rather than on a scheduled clock.
+ * 
+ * Clients that need many CoffeeMakers at once should {@code createFleet()} them. A fleet's
+ * CoffeeMakers share their derived settings and the threads that tick their Clocks, and
+ * CoffeeMakerCreator creates them in parallel. Fleets whose CoffeeMakers mostly sit idle may
+ * instead start them dormant, so that each costs a few bytes until a client looks it up. Fleets
+ * of tens of millions of CoffeeMakers may {@code createOffHeapFleet()}, which keeps their state off
+ * the Java heap altogether, and {@code createSharedFleet()} keeps it in a memory-mapped file that
+ * other processes on the same host may read. The FleetOptions of an on-heap fleet may also record
+ * each CoffeeMaker's history, keep a FleetIndex of which CoffeeMakers are brewing, ready, or
+ * missing their pot, total their activity per AggregateGroup, report their state changes to a
+ * ChangeFeed, rank the BusiestMakers, raise alerts from an AlertEngine's rules, or stream their
+ * changes to dashboards - in any combination, dormant or not.
+ * 
  * @author nferraro-roofing
  *
  */
@@ -29,33 +63,439 @@ public final class CoffeeMakerCreator {
     private CoffeeMakerCreator() { /* Disable construction */ }
 
     public static final CoffeeMaker create(CoffeeMakerProperties properties) {
+        return create(properties, ForkJoinPool.commonPool());
+    }
+
+    public static final CoffeeMaker create(CoffeeMakerProperties properties,
+            Executor notificationExecutor) {
+
+        return create(properties, notificationExecutor, ComponentEventSink.NONE);
+    }
+
+    public static final CoffeeMaker create(CoffeeMakerProperties properties,
+            Executor notificationExecutor,
+            ComponentEventSink events) {
+
         LOG.debug("Creating a coffee maker with properties {}", properties);
 
-        ClockBuilder clockBuilder = Clock.builder();
-        CoffeeMaker coffeeMaker = create(clockBuilder, properties);
-        clockBuilder.build()
-                    .start(properties.getClockTickDelay(), properties.getClockTickDelayUnit());
-        return coffeeMaker;
+        CoffeeMakerBlueprint blueprint = CoffeeMakerBlueprint.of(properties);
+        return start(blueprint, notificationExecutor, events, clock -> clock.start(
+                blueprint.clockTickDelay,
+                blueprint.clockTickDelayUnit,
+                blueprint.clockCatchUpPolicy));
+    }
+
+    /**
+     * Create a CoffeeMaker, as per {@code create(CoffeeMakerProperties)}, that has no scheduled
+     * clock at all.
+     * 
+     * <p>
+     * Instead, each read or command - e.g. {@code cupsOfWater()}, {@code isBrewing()}, or
+     * {@code fill()} - first catches the CoffeeMaker up to the tick that the system clock has
+     * reached since its creation, at the rate of {@code properties}' clock, and only then answers.
+     * The CoffeeMaker ends up exactly as if its Clock had ticked all along. Catching up folds the
+     * ticks between cups and Timeouts into single steps, so that the CoffeeMaker costs CPU per
+     * interaction rather than per tick - and nothing at all while nobody reads it.
+     * </p>
+     * 
+     * <p>
+     * Note that nothing ticks the CoffeeMaker between interactions, so its futures, subscriptions,
+     * and state stream only fire on the next read or command after the state that they wait for.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.CoffeeMaker#clockMetrics()
+     * @param properties the properties of the CoffeeMaker
+     * @return a CoffeeMaker that computes its state on demand
+     */
+    public static final CoffeeMaker createTickless(CoffeeMakerProperties properties) {
+        return createTickless(properties, System::nanoTime);
+    }
+
+    /**
+     * Create {@code count} CoffeeMakers, register them in a new CoffeeMakerFleet under the device
+     * ids {@code 0} through {@code count - 1}, and start their Clocks.
+     * 
+     * <p>
+     * The CoffeeMakers share one blueprint of {@code properties}, and their Clocks share one
+     * scheduler with a thread per available processor rather than a thread each. The common
+     * ForkJoinPool creates the CoffeeMakers in parallel and completes their notifications. Each
+     * Clock starts as soon as its CoffeeMaker exists, so the first CoffeeMakers tick while the rest
+     * are still being created.
+     * </p>
+     * 
+     * <p>
+     * Each CoffeeMaker keeps the deadlines of its components - e.g. when its WarmerPlate turns off
+     * - on a TimerWheel of its own, which its Clock advances. A deadline therefore runs on the very
+     * tick of its CoffeeMaker that it names, however late the shared scheduler runs that tick.
+     * </p>
+     * 
+     * <p>
+     * {@code CoffeeMakerFleet::shutdown} shuts down the shared scheduler.
+     * </p>
+     * 
+     * @param count the number of CoffeeMakers to create
+     * @param properties the properties of every CoffeeMaker in the fleet
+     * @return a fleet of {@code count} running CoffeeMakers
+     * @throws IllegalArgumentException if {@code count} is negative.
+     */
+    public static final CoffeeMakerFleet createFleet(int count, CoffeeMakerProperties properties) {
+        return createFleet(count, properties, FleetOptions.builder().build());
+    }
+
+    /**
+     * Create {@code count} CoffeeMakers, as per {@code createFleet(int, CoffeeMakerProperties)},
+     * and wire each one to the fleet-wide services of {@code options} under its device id - e.g.
+     * a FleetIndex, a ChangeFeed, and an EventStreamServer all at once.
+     * 
+     * <p>
+     * If {@code options} give an idle period, the CoffeeMakers start out dormant instead: each is
+     * a few bytes of packed state within the fleet, without components, Bus, or Clock, until a
+     * client looks it up. The fleet then builds it, wires it, and starts its Clock on the fleet's
+     * shared scheduler. A CoffeeMaker that goes the idle period without a lookup, and that is at
+     * rest with nobody waiting on it, goes dormant again. Dormant CoffeeMakers start out as new
+     * CoffeeMakers whose WarmerPlates have already cooled down. Clients should therefore look a
+     * CoffeeMaker up for each interaction, rather than keep hold of it for longer than the idle
+     * period.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.FleetOptions
+     * @see roofing.coffee.maker.components.DormantState
+     * @param count the number of CoffeeMakers to create
+     * @param properties the properties of every CoffeeMaker in the fleet
+     * @param options the services to wire the CoffeeMakers to, and whether they start dormant
+     * @return a fleet of {@code count} running or dormant CoffeeMakers
+     * @throws IllegalArgumentException if {@code count} is negative or exceeds the capacity of the
+     *         options' index or change feed, or if the options' idle period is negative or lacks a
+     *         unit.
+     */
+    public static final CoffeeMakerFleet createFleet(int count,
+            CoffeeMakerProperties properties,
+            @NonNull FleetOptions options) {
+
+        checkFleetSize(count);
+
+        if (options.idlePeriod < 0 || options.isDormant() && options.idlePeriodUnit == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot create a fleet of coffee makers that go dormant after %d %s. Please "
+                            + "provide a positive idle period and its unit, or none at all.",
+                    options.idlePeriod,
+                    options.idlePeriodUnit));
+        }
+
+        LOG.debug("Creating a fleet of {} coffee makers with properties {} and options {}",
+                count,
+                properties,
+                options);
+
+        CoffeeMakerBlueprint blueprint = CoffeeMakerBlueprint.of(properties);
+        FleetWiring wiring = new FleetWiring(count, properties.getClockTicksPerMinute(), options);
+        ScheduledThreadPoolExecutor scheduler = fleetScheduler();
+        Consumer<Clock> clockStarter = fleetClockStarter(blueprint, scheduler);
+
+        return options.isDormant()
+                ? createDormantFleet(count, blueprint, wiring, options, scheduler, clockStarter)
+                : createLiveFleet(count, blueprint, wiring, scheduler, clockStarter);
+    }
+
+    /**
+     * Create an OffHeapFleet of {@code count} new CoffeeMakers, under the device ids {@code 0}
+     * through {@code count - 1}, and start ticking them.
+     * 
+     * <p>
+     * An OffHeapFleet keeps its CoffeeMakers' state in direct ByteBuffers, rather than in
+     * per-CoffeeMaker objects, and ticks every CoffeeMaker on one thread at the properties' clock
+     * rate. Its CoffeeMakers offer no notifications, subscriptions, or state streams.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.OffHeapFleet
+     * @param count the number of CoffeeMakers to create
+     * @param properties the properties of every CoffeeMaker in the fleet
+     * @return an OffHeapFleet of {@code count} CoffeeMakers
+     * @throws IllegalArgumentException if {@code count} is negative.
+     */
+    public static final OffHeapFleet createOffHeapFleet(int count,
+            CoffeeMakerProperties properties) {
+
+        LOG.debug("Creating an off-heap fleet of {} coffee makers with properties {}",
+                count,
+                properties);
+
+        CoffeeMakerBlueprint blueprint = CoffeeMakerBlueprint.of(properties);
+        OffHeapFleet fleet = new OffHeapFleet(count, blueprint.componentSettings);
+        fleet.start(blueprint.clockTickDelay, blueprint.clockTickDelayUnit);
+
+        return fleet;
+    }
+
+    /**
+     * Create an OffHeapFleet, as per {@code createOffHeapFleet()}, whose state lives in the
+     * memory-mapped file {@code sharedFile}, and start ticking it.
+     * 
+     * <p>
+     * Other processes on the same host may read the fleet as it ticks through a SharedFleetReader
+     * of {@code sharedFile}, which SharedFleetLayout describes. This method replaces any existing
+     * content of {@code sharedFile}.
+     * </p>
+     * 
+     * @see roofing.coffee.maker.SharedFleetReader
+     * @param count the number of CoffeeMakers to create
+     * @param properties the properties of every CoffeeMaker in the fleet
+     * @param sharedFile the file to map the fleet's state into
+     * @return an OffHeapFleet of {@code count} CoffeeMakers
+     * @throws IOException if the file cannot be created or mapped.
+     * @throws IllegalArgumentException if {@code count} is negative.
+     */
+    public static final OffHeapFleet createSharedFleet(int count,
+            CoffeeMakerProperties properties,
+            Path sharedFile) throws IOException {
+
+        LOG.debug("Creating a shared fleet of {} coffee makers in {} with properties {}",
+                count,
+                sharedFile,
+                properties);
+
+        CoffeeMakerBlueprint blueprint = CoffeeMakerBlueprint.of(properties);
+        OffHeapFleet fleet = new OffHeapFleet(count, blueprint.componentSettings, sharedFile);
+        fleet.start(blueprint.clockTickDelay, blueprint.clockTickDelayUnit);
+
+        return fleet;
     }
 
     static final CoffeeMaker create(ClockBuilder clockBuilder, CoffeeMakerProperties properties) {
+        return create(clockBuilder, properties, ForkJoinPool.commonPool());
+    }
+
+    static final CoffeeMaker create(ClockBuilder clockBuilder,
+            CoffeeMakerProperties properties,
+            Executor notificationExecutor) {
+
+        return create(clockBuilder, properties, notificationExecutor, ComponentEventSink.NONE);
+    }
+
+    static final CoffeeMaker create(ClockBuilder clockBuilder,
+            CoffeeMakerProperties properties,
+            Executor notificationExecutor,
+            ComponentEventSink events) {
+
         LOG.debug("Creating a coffee maker with clock builder {} and properties {}",
                 clockBuilder,
                 properties);
 
-        WaterReservoir reservoir = new WaterReservoir(
-                properties.getPotMaxCapacityCups(),
-                properties.getReservoirTicksPerCupBrewed());
+        return create(clockBuilder,
+                CoffeeMakerBlueprint.of(properties).componentSettings,
+                notificationExecutor,
+                events);
+    }
+
+    // Package-private so that tests can drive a tickless CoffeeMaker with a fake time source
+    static final CoffeeMaker createTickless(CoffeeMakerProperties properties,
+            LongSupplier nanoTime) {
+
+        LOG.debug("Creating a tickless coffee maker with properties {}", properties);
+
+        CoffeeMakerBlueprint blueprint = CoffeeMakerBlueprint.of(properties);
+        ClockBuilder clockBuilder = Clock.builder();
+        TimerWheel timers = new TimerWheel();
+        clockBuilder.timers(timers);
+
+        CoffeeMaker coffeeMaker = create(clockBuilder,
+                blueprint.componentSettings,
+                ForkJoinPool.commonPool(),
+                ComponentEventSink.NONE,
+                timers);
+        Clock clock = clockBuilder.build();
+
+        if (blueprint.evaluatingCommandsImmediately) {
+            coffeeMaker.evaluateCommandsWith(clock::evaluate);
+        }
+
+        TicklessClock ticklessClock = new TicklessClock(clock,
+                nanoTime,
+                blueprint.clockTickDelayUnit.toNanos(blueprint.clockTickDelay));
+        coffeeMaker.catchUpWith(ticklessClock);
+        coffeeMaker.shutdownClockWith(ticklessClock::stop);
+
+        return coffeeMaker;
+    }
+
+    // Create a fleet of count live CoffeeMakers, wired before their Clocks start
+    private static CoffeeMakerFleet createLiveFleet(int count,
+            CoffeeMakerBlueprint blueprint,
+            FleetWiring wiring,
+            ScheduledThreadPoolExecutor scheduler,
+            Consumer<Clock> clockStarter) {
+
+        CoffeeMakerFleet fleet = new CoffeeMakerFleet(count, scheduler::shutdownNow);
+        IntStream.range(0, count).parallel().forEach(deviceId -> {
+            ClockBuilder clockBuilder = Clock.builder();
+            CoffeeMaker coffeeMaker = create(clockBuilder,
+                    blueprint.componentSettings,
+                    ForkJoinPool.commonPool(),
+                    wiring.eventsOf(deviceId));
+            wiring.prepare(coffeeMaker, deviceId);
+
+            fleet.register(deviceId, start(coffeeMaker, clockBuilder, blueprint, clockStarter));
+        });
+
+        return fleet;
+    }
+
+    // Create a fleet of count dormant CoffeeMakers, which the fleet wires as it rebuilds them, and
+    // sweep it for idle CoffeeMakers once per idle period
+    private static CoffeeMakerFleet createDormantFleet(int count,
+            CoffeeMakerBlueprint blueprint,
+            FleetWiring wiring,
+            FleetOptions options,
+            ScheduledThreadPoolExecutor scheduler,
+            Consumer<Clock> clockStarter) {
+
+        CoffeeMakerFleet fleet = new CoffeeMakerFleet(count,
+                scheduler::shutdownNow,
+                new CoffeeMakerFleet.Inflater() {
+
+                    @Override
+                    public CoffeeMaker inflate(long deviceId,
+                            ComponentSettings settings,
+                            long[] words,
+                            int offset) {
+
+                        return CoffeeMakerCreator.inflate(blueprint,
+                                wiring,
+                                deviceId,
+                                settings,
+                                words,
+                                offset,
+                                clockStarter);
+                    }
+
+                    @Override
+                    public void release(long deviceId) {
+                        if (wiring.covers(deviceId)) {
+                            wiring.release((int) deviceId);
+                        }
+                    }
+                });
+
+        for (int deviceId = 0; deviceId < count; deviceId++) {
+            fleet.registerDormant(deviceId, blueprint.componentSettings);
+        }
+
+        long idleNanos = options.idlePeriodUnit.toNanos(options.idlePeriod);
+        scheduler.scheduleWithFixedDelay(() -> fleet.deflateIdle(System.nanoTime(), idleNanos),
+                options.idlePeriod,
+                options.idlePeriod,
+                options.idlePeriodUnit);
+
+        return fleet;
+    }
+
+    private static void checkFleetSize(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot create a fleet of a negative number of coffee makers, but requested %d",
+                    count));
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor fleetScheduler() {
+        ScheduledThreadPoolExecutor scheduler =
+                new ScheduledThreadPoolExecutor(Runtime.getRuntime().availableProcessors());
+        scheduler.setRemoveOnCancelPolicy(true); // Decommissioned makers leave no tasks behind
+        return scheduler;
+    }
+
+    private static Consumer<Clock> fleetClockStarter(CoffeeMakerBlueprint blueprint,
+            ScheduledThreadPoolExecutor scheduler) {
+
+        return clock -> clock.start(blueprint.clockTickDelay,
+                blueprint.clockTickDelayUnit,
+                blueprint.clockCatchUpPolicy,
+                scheduler);
+    }
+
+    private static CoffeeMaker start(CoffeeMakerBlueprint blueprint,
+            Executor notificationExecutor,
+            ComponentEventSink events,
+            Consumer<Clock> clockStarter) {
+
+        ClockBuilder clockBuilder = Clock.builder();
+        CoffeeMaker coffeeMaker = create(clockBuilder,
+                blueprint.componentSettings,
+                notificationExecutor,
+                events);
+
+        return start(coffeeMaker, clockBuilder, blueprint, clockStarter);
+    }
+
+    // Rebuild a dormant CoffeeMaker of a fleet, and wire it if it is one of the fleet's own - see
+    // CoffeeMakerFleet.Inflater
+    private static CoffeeMaker inflate(CoffeeMakerBlueprint blueprint,
+            FleetWiring wiring,
+            long deviceId,
+            ComponentSettings settings,
+            long[] words,
+            int offset,
+            Consumer<Clock> clockStarter) {
+
+        boolean isWired = wiring.covers(deviceId);
+        ClockBuilder clockBuilder = Clock.builder();
+        CoffeeMaker coffeeMaker = create(clockBuilder,
+                settings,
+                ForkJoinPool.commonPool(),
+                isWired ? wiring.eventsOf((int) deviceId) : ComponentEventSink.NONE);
+        coffeeMaker.inflateFrom(words, offset);
+
+        if (isWired) {
+            wiring.prepare(coffeeMaker, (int) deviceId);
+        }
+
+        return start(coffeeMaker, clockBuilder, blueprint, clockStarter);
+    }
+
+    private static CoffeeMaker start(CoffeeMaker coffeeMaker,
+            ClockBuilder clockBuilder,
+            CoffeeMakerBlueprint blueprint,
+            Consumer<Clock> clockStarter) {
+
+        Clock clock = clockBuilder.build();
+
+        if (blueprint.evaluatingCommandsImmediately) {
+            coffeeMaker.evaluateCommandsWith(clock::evaluate);
+        }
+
+        coffeeMaker.shutdownClockWith(clock::stop);
+        clockStarter.accept(clock);
+        return coffeeMaker;
+    }
+
+    // Create a CoffeeMaker whose Clock advances a TimerWheel of the CoffeeMaker's own, so that its
+    // deadlines fall due by its own ticks however late, coalesced, or dropped they are
+    private static CoffeeMaker create(ClockBuilder clockBuilder,
+            ComponentSettings settings,
+            Executor notificationExecutor,
+            ComponentEventSink events) {
+
+        TimerWheel timers = new TimerWheel();
+        clockBuilder.timers(timers);
+
+        return create(clockBuilder, settings, notificationExecutor, events, timers);
+    }
 
-        CoffeePot pot = new CoffeePot(
-                properties.getPotMaxCapacityCups(),
-                properties.getReservoirTicksPerCupBrewed());
+    private static CoffeeMaker create(ClockBuilder clockBuilder,
+            ComponentSettings settings,
+            Executor notificationExecutor,
+            ComponentEventSink events,
+            TimerWheel timers) {
 
-        BrewButton button = new BrewButton();
-        WarmerPlate warmer = new WarmerPlate(properties.getWarmerPlateStayHotForTickLimit());
+        WaterReservoir reservoir = new WaterReservoir(settings, events);
+        CoffeePot pot = new CoffeePot(settings, events);
+        BrewButton button = new BrewButton(events);
+        WarmerPlate warmer = new WarmerPlate(settings, events, timers);
 
         Bus bus = new Bus(reservoir, button, pot, warmer);
-        CoffeeMaker coffeeMaker = new CoffeeMaker(reservoir, button, pot, warmer);
+        CoffeeMaker coffeeMaker =
+                new CoffeeMaker(reservoir, button, pot, warmer, timers, notificationExecutor);
+        bus.addUpdateListener(coffeeMaker::publishNotifications);
 
         clockBuilder.bus(bus).coffeeMaker(coffeeMaker);
 
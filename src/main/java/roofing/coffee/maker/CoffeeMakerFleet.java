@@ -0,0 +1,765 @@
+package roofing.coffee.maker;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import lombok.NonNull;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.components.DormantState;
+
+/**
+ * A CoffeeMakerFleet registers CoffeeMakers by their 64-bit device id.
+ *
+ * <p>
+ * A fleet may hold millions of CoffeeMakers, so it avoids the boxed keys and per-entry objects of a
+ * {@code Map<Long, CoffeeMaker>}. Instead, it spreads its CoffeeMakers across a fixed number of
+ * stripes, each of which is an open-addressing table: a primitive {@code long[]} of device ids
+ * beside an array of CoffeeMakers, probed linearly from the id's hash.
+ * </p>
+ *
+ * <p>
+ * Lookups never lock. Registering and decommissioning lock only the stripe that holds the device
+ * id, so writers to different stripes never contend. Within a table, a slot's device id never
+ * changes once written - decommissioning leaves a tombstone behind, and only a resize clears
+ * tombstones - which lets readers trust any id that they see beside a CoffeeMaker.
+ * </p>
+ *
+ * <p>
+ * Decommissioning a CoffeeMaker shuts it down, which releases its Clock's thread. Shutting down the
+ * fleet decommissions every CoffeeMaker in it, and releases any resources that its CoffeeMakers
+ * share - e.g. the scheduler of a fleet from {@code CoffeeMakerCreator::createFleet}.
+ * </p>
+ *
+ * <p>
+ * A fleet that knows how to rebuild its CoffeeMakers may also hold them <i>dormant</i>: a dormant
+ * CoffeeMaker leaves its stripe's table for the stripe's DormantMakers, which packs its state into
+ * dense primitive columns at under 32 bytes per CoffeeMaker. Looking up a dormant CoffeeMaker
+ * rebuilds it, and {@code deflateIdle()} packs idle CoffeeMakers back down. Either way, the move
+ * happens under the stripe's lock, and the CoffeeMaker object that a lookup returns is live. A
+ * CoffeeMaker that goes dormant stops its Clock, but stays in whatever fleet-wide services it
+ * reports to until the fleet decommissions it.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMaker#shutdown()
+ * @author nferraro-roofing
+ *
+ */
+public final class CoffeeMakerFleet {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CoffeeMakerFleet.class);
+
+    private static final int STRIPES = 16;
+    private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+    private static final int MIN_STRIPE_CAPACITY = 16;
+
+    // Marks a slot whose CoffeeMaker was decommissioned or went dormant. The slot keeps its
+    // device id.
+    private static final Object TOMBSTONE = new Object();
+
+    // The packed state of a new, at-rest CoffeeMaker
+    private static final long[] NEW_STATE = new long[DormantState.WORDS];
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // Releases the resources that this fleet's CoffeeMakers share
+    private final Runnable sharedResourceRelease;
+
+    // Rebuilds dormant CoffeeMakers, or null if this fleet holds none
+    private final Inflater inflater;
+
+    /**
+     * Construct an empty CoffeeMakerFleet.
+     */
+    public CoffeeMakerFleet() {
+        this(0);
+    }
+
+    /**
+     * Construct an empty CoffeeMakerFleet that can hold {@code expectedMakers} CoffeeMakers
+     * without resizing.
+     *
+     * @param expectedMakers the number of CoffeeMakers that the fleet expects to hold
+     * @throws IllegalArgumentException if {@code expectedMakers} is negative.
+     */
+    public CoffeeMakerFleet(int expectedMakers) {
+        this(expectedMakers, () -> { });
+    }
+
+    /**
+     * Construct an empty CoffeeMakerFleet, as per {@code CoffeeMakerFleet(int)}, that runs
+     * {@code sharedResourceRelease} once it shuts down.
+     *
+     * @param expectedMakers the number of CoffeeMakers that the fleet expects to hold
+     * @param sharedResourceRelease releases the resources that the fleet's CoffeeMakers share
+     */
+    CoffeeMakerFleet(int expectedMakers, Runnable sharedResourceRelease) {
+        this(expectedMakers, sharedResourceRelease, null);
+    }
+
+    /**
+     * Construct an empty CoffeeMakerFleet, as per {@code CoffeeMakerFleet(int, Runnable)}, that
+     * may hold dormant CoffeeMakers and rebuilds them via {@code inflater}. Such a fleet expects
+     * its CoffeeMakers to be dormant, and sizes its tables accordingly.
+     *
+     * @param expectedMakers the number of CoffeeMakers that the fleet expects to hold
+     * @param sharedResourceRelease releases the resources that the fleet's CoffeeMakers share
+     * @param inflater rebuilds dormant CoffeeMakers, or null if the fleet holds none
+     */
+    CoffeeMakerFleet(int expectedMakers, Runnable sharedResourceRelease, Inflater inflater) {
+        this.sharedResourceRelease = sharedResourceRelease;
+        this.inflater = inflater;
+
+        if (expectedMakers < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "A fleet cannot expect a negative number of coffee makers, but expected %d",
+                    expectedMakers));
+        }
+
+        int expectedPerStripe = expectedMakers / STRIPES + 1;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = inflater == null ? new Stripe(capacityFor(expectedPerStripe), null)
+                    : new Stripe(MIN_STRIPE_CAPACITY, new DormantMakers(expectedPerStripe));
+        }
+    }
+
+    /**
+     * Register {@code coffeeMaker} under {@code deviceId}.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @param coffeeMaker the CoffeeMaker to register
+     * @throws IllegalStateException if a CoffeeMaker is already registered under
+     *         {@code deviceId}.
+     */
+    public void register(long deviceId, @NonNull CoffeeMaker coffeeMaker) {
+        long hash = hash(deviceId);
+        stripeOf(hash).register(deviceId, hash, coffeeMaker);
+    }
+
+    /**
+     * Register a dormant, at-rest, new CoffeeMaker under {@code deviceId}. The fleet builds it
+     * with {@code settings} on its first lookup.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @param settings the settings of the CoffeeMaker's components
+     * @throws IllegalStateException if a CoffeeMaker is already registered under
+     *         {@code deviceId}, or if this fleet cannot hold dormant CoffeeMakers.
+     */
+    void registerDormant(long deviceId, @NonNull ComponentSettings settings) {
+        if (inflater == null) {
+            throw new IllegalStateException(String.format(
+                    "Cannot register dormant coffee maker %d in a fleet that cannot rebuild it",
+                    deviceId));
+        }
+
+        long hash = hash(deviceId);
+        stripeOf(hash).register(deviceId, hash, settings);
+    }
+
+    /**
+     * Returns the CoffeeMaker registered under {@code deviceId}, or null if none.
+     *
+     * <p>
+     * If the CoffeeMaker is dormant, this method rebuilds it first.
+     * </p>
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @return the CoffeeMaker registered under {@code deviceId}, or null if none.
+     */
+    public CoffeeMaker lookup(long deviceId) {
+        long hash = hash(deviceId);
+        return stripeOf(hash).lookup(deviceId, hash);
+    }
+
+    /**
+     * Remove the CoffeeMaker registered under {@code deviceId} from this fleet, and shut it down.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @return true if a CoffeeMaker was registered under {@code deviceId}; false otherwise.
+     */
+    public boolean decommission(long deviceId) {
+        long hash = hash(deviceId);
+        Object removed = stripeOf(hash).remove(deviceId, hash);
+
+        if (removed == null) {
+            return false;
+        }
+
+        if (removed instanceof CoffeeMaker) {
+            LOG.debug("Decommissioned coffee maker {}. Shutting it down.", deviceId);
+            ((CoffeeMaker) removed).shutdown();
+        } else {
+            LOG.debug("Decommissioned dormant coffee maker {}", deviceId);
+            inflater.release(deviceId);
+        }
+
+        return true;
+    }
+
+    /**
+     * Pack every CoffeeMaker that no lookup has touched for {@code idleNanos}, that is at rest,
+     * and that nobody waits on, into its dormant state, and let it go dormant.
+     *
+     * @param nowNanos the current value of {@code System.nanoTime()}
+     * @param idleNanos how long a CoffeeMaker may go without a lookup before it goes dormant
+     * @return the number of CoffeeMakers that went dormant.
+     */
+    int deflateIdle(long nowNanos, long idleNanos) {
+        int deflated = 0;
+        for (Stripe stripe : stripes) {
+            deflated += stripe.deflateIdle(nowNanos, idleNanos);
+        }
+
+        return deflated;
+    }
+
+    /**
+     * Decommission every CoffeeMaker in this fleet, and then release any resources that they
+     * share.
+     *
+     * <p>
+     * Clients must not register CoffeeMakers while the fleet shuts down.
+     * </p>
+     */
+    public void shutdown() {
+        LOG.debug("Shutting down a fleet of {} coffee makers", size());
+
+        for (Stripe stripe : stripes) {
+            for (long deviceId : stripe.deviceIds()) {
+                decommission(deviceId);
+            }
+        }
+
+        sharedResourceRelease.run();
+    }
+
+    /**
+     * Visit every CoffeeMaker in this fleet, one stripe at a time - e.g. to list the whole fleet
+     * without a lookup per device id.
+     *
+     * <p>
+     * Visiting neither rebuilds dormant CoffeeMakers nor counts as a lookup, so it keeps no
+     * CoffeeMaker from going dormant. The visitor sees each CoffeeMaker that stays registered
+     * throughout the visit exactly once, live or dormant, and may or may not see those that are
+     * registered or decommissioned meanwhile.
+     * </p>
+     *
+     * @param visitor receives each CoffeeMaker
+     */
+    public void forEach(@NonNull Visitor visitor) {
+        for (Stripe stripe : stripes) {
+            stripe.forEach(visitor);
+        }
+    }
+
+    /**
+     * Returns the number of CoffeeMakers registered in this fleet.
+     *
+     * @return the number of CoffeeMakers registered in this fleet.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the number of dormant CoffeeMakers in this fleet.
+     *
+     * @return the number of dormant CoffeeMakers in this fleet.
+     */
+    public int dormantCount() {
+        int dormant = 0;
+        for (Stripe stripe : stripes) {
+            dormant += stripe.dormant;
+        }
+
+        return dormant;
+    }
+
+    private Stripe stripeOf(long hash) {
+        return stripes[(int) (hash >>> STRIPE_SHIFT)];
+    }
+
+    /*
+     * Device ids are often sequential. Mix every bit of the id into the hash - as per MurmurHash3's
+     * finalizer - so that sequential ids spread evenly across stripes and slots.
+     */
+    static long hash(long deviceId) {
+        long hash = deviceId;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // The smallest power of two that keeps the table at most half full
+    private static int capacityFor(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(entries, 1) * 2 - 1) << 1;
+        return Math.max(capacity, MIN_STRIPE_CAPACITY);
+    }
+
+    /**
+     * An Inflater rebuilds a dormant CoffeeMaker with its settings and packed state, and starts
+     * its Clock. It also releases whatever a dormant CoffeeMaker keeps outside of its fleet once
+     * the fleet decommissions it, since there is no CoffeeMaker to shut down.
+     *
+     * @see roofing.coffee.maker.components.DormantState
+     */
+    interface Inflater {
+
+        CoffeeMaker inflate(long deviceId, ComponentSettings settings, long[] words, int offset);
+
+        void release(long deviceId);
+    }
+
+    /**
+     * A Visitor receives the CoffeeMakers of a fleet from {@code CoffeeMakerFleet::forEach}.
+     *
+     * <p>
+     * A dormant CoffeeMaker is at rest, so it is neither brewing nor keeping its coffee warm: the
+     * visitor receives the rest of its state, as packed, in place of the CoffeeMaker.
+     * </p>
+     *
+     * @see roofing.coffee.maker.components.DormantState
+     */
+    public interface Visitor {
+
+        /**
+         * Visit a live CoffeeMaker.
+         *
+         * @param deviceId the CoffeeMaker's device id
+         * @param coffeeMaker the CoffeeMaker
+         */
+        void visitLive(long deviceId, CoffeeMaker coffeeMaker);
+
+        /**
+         * Visit a dormant CoffeeMaker.
+         *
+         * @param deviceId the CoffeeMaker's device id
+         * @param cupsOfWater the cups of water in the CoffeeMaker
+         * @param cupsOfCoffee the cups of coffee in the CoffeeMaker
+         * @param hasPot whether the CoffeeMaker's pot is on its WarmerPlate
+         */
+        void visitDormant(long deviceId, int cupsOfWater, int cupsOfCoffee, boolean hasPot);
+    }
+
+    private final class Stripe {
+
+        private final ReentrantLock writeLock = new ReentrantLock();
+
+        private volatile Table table;
+
+        // The dormant CoffeeMakers, or null if this fleet holds none. Only writers, holding
+        // writeLock, use it.
+        private final DormantMakers dormantMakers;
+
+        // Only writers, holding writeLock, write these fields
+        private volatile int size = 0;
+        private volatile int dormant = 0;
+        private int usedSlots = 0; // Live entries plus tombstones
+
+        private Stripe(int capacity, DormantMakers dormantMakers) {
+            this.table = new Table(capacity);
+            this.dormantMakers = dormantMakers;
+        }
+
+        private CoffeeMaker lookup(long deviceId, long hash) {
+            while (true) {
+                Table current = table;
+                int slot = current.find(deviceId, hash);
+                Object value = slot < 0 ? null : current.values.get(slot);
+
+                if (!(value instanceof CoffeeMaker)) {
+                    // A dormant CoffeeMaker has no slot, or the tombstone of its last live one
+                    if (dormantMakers == null || !inflate(deviceId, hash)) {
+                        return null;
+                    }
+
+                    continue;
+                }
+
+                CoffeeMaker coffeeMaker = (CoffeeMaker) value;
+                if (dormantMakers == null) {
+                    return coffeeMaker;
+                }
+
+                // deflateIdle() re-reads the touch after it swaps a CoffeeMaker out of its slot.
+                // Thus, either it sees our touch and swaps the CoffeeMaker back, or we see its
+                // swap here and look again.
+                coffeeMaker.touch(System.nanoTime());
+                if (table == current && current.values.get(slot) == coffeeMaker) {
+                    return coffeeMaker;
+                }
+            }
+        }
+
+        private void register(long deviceId, long hash, CoffeeMaker coffeeMaker) {
+            writeLock.lock();
+            try {
+                int slot = findUnregistered(deviceId, hash);
+                putLive(deviceId, hash, slot, coffeeMaker);
+                size++;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void register(long deviceId, long hash, ComponentSettings settings) {
+            writeLock.lock();
+            try {
+                int slot = findUnregistered(deviceId, hash);
+                if (dormantMakers.add(deviceId, hash, settings) >= 0) {
+                    dormant++;
+                } else {
+                    // Too many distinct settings are dormant already. Start out live instead.
+                    putLive(deviceId,
+                            hash,
+                            slot,
+                            inflater.inflate(deviceId, settings, NEW_STATE, 0));
+                }
+
+                size++;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        // Writers only. Returns the tombstoned slot of deviceId within the table, or -1 if none.
+        private int findUnregistered(long deviceId, long hash) {
+            int slot = table.find(deviceId, hash);
+            boolean isLive = slot >= 0 && table.values.get(slot) != TOMBSTONE;
+            boolean isDormant = dormantMakers != null && dormantMakers.find(deviceId, hash) >= 0;
+
+            if (isLive || isDormant) {
+                throw new IllegalStateException(String.format(
+                        "A coffee maker is already registered under device id %d. Please "
+                                + "decommission it before registering another.",
+                        deviceId));
+            }
+
+            return slot;
+        }
+
+        // Writers only. Puts coffeeMaker into slot - deviceId's tombstone - or else a free slot.
+        private void putLive(long deviceId, long hash, int slot, CoffeeMaker coffeeMaker) {
+            if (slot >= 0) {
+                // Re-registering a decommissioned or dormant id. The slot already holds this id.
+                table.values.set(slot, coffeeMaker);
+                return;
+            }
+
+            if ((usedSlots + 1) * 2 > table.capacity()) {
+                resize(false);
+            }
+
+            table.insert(deviceId, hash, coffeeMaker);
+            usedSlots++;
+        }
+
+        private Object remove(long deviceId, long hash) {
+            writeLock.lock();
+            try {
+                int slot = table.find(deviceId, hash);
+                if (slot >= 0 && table.values.get(slot) != TOMBSTONE) {
+                    size--;
+                    return table.values.getAndSet(slot, TOMBSTONE);
+                }
+
+                int dormantSlot = dormantMakers == null ? -1 : dormantMakers.find(deviceId, hash);
+                if (dormantSlot < 0) {
+                    return null;
+                }
+
+                ComponentSettings removed = dormantMakers.settings(dormantSlot);
+                dormantMakers.remove(dormantSlot);
+                size--;
+                dormant--;
+                return removed;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        // Returns true if deviceId is now live - whether we or another lookup rebuilt it, or
+        // deflateIdle() put it back - or false if it is not registered
+        private boolean inflate(long deviceId, long hash) {
+            writeLock.lock();
+            try {
+                int slot = table.find(deviceId, hash);
+                if (slot >= 0 && table.values.get(slot) instanceof CoffeeMaker) {
+                    return true;
+                }
+
+                int dormantSlot = dormantMakers.find(deviceId, hash);
+                if (dormantSlot < 0) {
+                    return false;
+                }
+
+                CoffeeMaker coffeeMaker = inflater.inflate(deviceId,
+                        dormantMakers.settings(dormantSlot),
+                        dormantMakers.words(),
+                        DormantMakers.offset(dormantSlot));
+                dormantMakers.remove(dormantSlot);
+                putLive(deviceId, hash, slot, coffeeMaker);
+                dormant--;
+                LOG.trace("Inflated dormant coffee maker {}", deviceId);
+                return true;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private int deflateIdle(long nowNanos, long idleNanos) {
+            Table current = table;
+            int deflated = 0;
+
+            for (int slot = 0; slot < current.capacity(); slot++) {
+                Object value = current.values.get(slot);
+                if (!(value instanceof CoffeeMaker)) {
+                    continue;
+                }
+
+                CoffeeMaker coffeeMaker = (CoffeeMaker) value;
+                long touched = coffeeMaker.lastTouchedNanos();
+                if (nowNanos - touched < idleNanos || !coffeeMaker.isDormantCandidate()) {
+                    continue;
+                }
+
+                writeLock.lock();
+                try {
+                    if (table != current) {
+                        break; // Resized. The next sweep covers the new table.
+                    }
+
+                    if (!deflate(current, slot, coffeeMaker, touched)) {
+                        continue;
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+
+                coffeeMaker.goDormant();
+                deflated++;
+            }
+
+            if (deflated > 0) {
+                shrinkIfSparse();
+            }
+
+            return deflated;
+        }
+
+        // Writers only. An at-rest CoffeeMaker's ticks change nothing, so its state is stable
+        // unless a client touched it - in which case the CoffeeMaker stays.
+        private boolean deflate(Table current, int slot, CoffeeMaker coffeeMaker, long touched) {
+            if (current.values.get(slot) != coffeeMaker) {
+                return false;
+            }
+
+            long deviceId = current.deviceIds[slot];
+            long hash = hash(deviceId);
+            int dormantSlot = dormantMakers.add(deviceId, hash, coffeeMaker.settings());
+            if (dormantSlot < 0) {
+                return false;
+            }
+
+            coffeeMaker.deflateInto(dormantMakers.words(), DormantMakers.offset(dormantSlot));
+            current.values.set(slot, TOMBSTONE);
+
+            if (coffeeMaker.lastTouchedNanos() != touched) {
+                current.values.set(slot, coffeeMaker);
+                dormantMakers.remove(dormantMakers.find(deviceId, hash));
+                return false;
+            }
+
+            dormant++;
+            return true;
+        }
+
+        // Once most live CoffeeMakers went dormant, give their tombstones' memory back
+        private void shrinkIfSparse() {
+            writeLock.lock();
+            try {
+                if (table.capacity() > 2 * capacityFor(size - dormant + 1)) {
+                    resize(true);
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        private void forEach(Visitor visitor) {
+            if (dormantMakers != null) {
+                forEachLiveOrDormant(visitor);
+                return;
+            }
+
+            Table current = table;
+            for (int slot = 0; slot < current.capacity(); slot++) {
+                Object value = current.values.get(slot);
+                if (value instanceof CoffeeMaker) {
+                    visitor.visitLive(current.deviceIds[slot], (CoffeeMaker) value);
+                }
+            }
+        }
+
+        // CoffeeMakers move between the table and dormantMakers under the lock. Copy both under
+        // the lock, so that we visit each CoffeeMaker once, and visit the copies outside of it.
+        private void forEachLiveOrDormant(Visitor visitor) {
+            long[] liveIds;
+            CoffeeMaker[] live;
+            long[] dormantIds;
+            long[] dormantWords;
+            int liveCount = 0;
+            int dormantCount = 0;
+
+            writeLock.lock();
+            try {
+                liveIds = new long[size - dormant];
+                live = new CoffeeMaker[liveIds.length];
+                for (int slot = 0; slot < table.capacity(); slot++) {
+                    Object value = table.values.get(slot);
+                    if (value instanceof CoffeeMaker) {
+                        liveIds[liveCount] = table.deviceIds[slot];
+                        live[liveCount++] = (CoffeeMaker) value;
+                    }
+                }
+
+                dormantIds = new long[dormant];
+                dormantWords = new long[DormantMakers.offset(dormant)];
+                for (int slot = 0; slot < dormantMakers.capacity(); slot++) {
+                    if (dormantMakers.isTaken(slot)) {
+                        dormantIds[dormantCount] = dormantMakers.deviceId(slot);
+                        System.arraycopy(dormantMakers.words(),
+                                DormantMakers.offset(slot),
+                                dormantWords,
+                                DormantMakers.offset(dormantCount++),
+                                DormantState.WORDS);
+                    }
+                }
+            } finally {
+                writeLock.unlock();
+            }
+
+            for (int i = 0; i < liveCount; i++) {
+                visitor.visitLive(liveIds[i], live[i]);
+            }
+
+            for (int i = 0; i < dormantCount; i++) {
+                int offset = DormantMakers.offset(i);
+                visitor.visitDormant(dormantIds[i],
+                        DormantState.cupsOfWater(dormantWords, offset),
+                        DormantState.cupsOfCoffee(dormantWords, offset),
+                        DormantState.hasPot(dormantWords, offset));
+            }
+        }
+
+        // The device ids of the registered entries, live or dormant, as of now
+        private long[] deviceIds() {
+            long[] deviceIds;
+            int registered = 0;
+
+            writeLock.lock();
+            try {
+                deviceIds = new long[size];
+                for (int slot = 0; slot < table.capacity(); slot++) {
+                    Object value = table.values.get(slot);
+                    if (value != null && value != TOMBSTONE) {
+                        deviceIds[registered++] = table.deviceIds[slot];
+                    }
+                }
+
+                for (int slot = 0; dormantMakers != null && slot < dormantMakers.capacity();
+                        slot++) {
+                    if (dormantMakers.isTaken(slot)) {
+                        deviceIds[registered++] = dormantMakers.deviceId(slot);
+                    }
+                }
+            } finally {
+                writeLock.unlock();
+            }
+
+            return Arrays.copyOf(deviceIds, registered);
+        }
+
+        /*
+         * Copy the live entries into a new table, dropping tombstones, and publish it. Readers that
+         * still probe the old table see it as of just before the resize.
+         *
+         * Unless it shrinks, the new table keeps the old capacity if tombstones fill most of the
+         * used slots, and doubles it otherwise. Either way, at least a quarter of the new table is
+         * free, so churn - i.e. registering and decommissioning at the same rate - never resizes
+         * on every call.
+         */
+        private void resize(boolean shrink) {
+            Table old = table;
+            int live = size - dormant;
+            boolean mostlyTombstones = (usedSlots - live) * 2 > usedSlots;
+            int capacity = shrink || mostlyTombstones ? old.capacity() : old.capacity() * 2;
+            Table resized = new Table(shrink ? capacityFor(live + 1)
+                    : Math.max(capacity, capacityFor(live + 1)));
+
+            for (int slot = 0; slot < old.capacity(); slot++) {
+                Object value = old.values.get(slot);
+                if (value != null && value != TOMBSTONE) {
+                    long deviceId = old.deviceIds[slot];
+                    resized.insert(deviceId, hash(deviceId), value);
+                }
+            }
+
+            usedSlots = live;
+            table = resized;
+        }
+    }
+
+    private static final class Table {
+
+        private final long[] deviceIds;
+
+        // null marks an empty slot. A writer writes a slot's device id before its value, so a
+        // reader that sees a value also sees its device id.
+        private final AtomicReferenceArray<Object> values;
+        private final int mask;
+
+        private Table(int capacity) {
+            this.deviceIds = new long[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return deviceIds.length;
+        }
+
+        // Returns the slot that holds deviceId - live or tombstoned - or -1 if none
+        private int find(long deviceId, long hash) {
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                if (values.get(slot) == null) {
+                    return -1;
+                }
+
+                if (deviceIds[slot] == deviceId) {
+                    return slot;
+                }
+            }
+        }
+
+        // Writers only. The caller guarantees that deviceId is absent and that a slot is free.
+        private void insert(long deviceId, long hash, Object value) {
+            int slot = (int) hash & mask;
+            while (values.get(slot) != null) {
+                slot = (slot + 1) & mask;
+            }
+
+            deviceIds[slot] = deviceId;
+            values.set(slot, value);
+        }
+    }
+}
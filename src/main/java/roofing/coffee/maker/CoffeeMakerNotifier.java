@@ -0,0 +1,184 @@
+package roofing.coffee.maker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CoffeeMakerNotifier completes the futures that clients receive from
+ * {@link roofing.coffee.maker.CoffeeMaker#onBrewComplete()} and
+ * {@link roofing.coffee.maker.CoffeeMaker#onCupsAvailable(int)}.
+ *
+ * <p>
+ * Any thread may register a waiter, but only the thread that updates the CoffeeMaker's Bus - i.e.
+ * the Clock's thread - may {@code publish()} the CoffeeMaker's state. Waiters live in buckets: one
+ * bucket for brew completion, and one bucket per cup count. Therefore, publishing costs nothing
+ * when nobody waits, and it never visits a waiter whose condition is still false, no matter how
+ * many thousands of waiters are outstanding. A cup count's bucket only exists once somebody has
+ * waited on that cup count, and the buckets grow to fit whatever cup count somebody waits on - e.g.
+ * once the CoffeeMaker overrides its settings with a bigger CoffeePot.
+ * </p>
+ *
+ * <p>
+ * The notifier hands each bucket's ready waiters to its Executor as a single batch. Thus, slow
+ * callbacks may delay each other, but they never stall the Clock.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class CoffeeMakerNotifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CoffeeMakerNotifier.class);
+
+    private final Executor executor;
+    private final Queue<CompletableFuture<Integer>> brewCompleteWaiters =
+            new ConcurrentLinkedQueue<>();
+
+    // Index n holds the waiters for n cups of coffee, or null if nobody has waited for n cups yet.
+    // Index 0 is unused. Buckets are only created, and the array only replaced by a bigger copy,
+    // while holding this, so that no bucket is lost to a copy.
+    private volatile AtomicReferenceArray<Queue<CompletableFuture<Integer>>> cupsWaiters;
+    private final AtomicInteger pendingCupsWaiters = new AtomicInteger();
+
+    // Only the publishing thread reads or writes this field
+    private boolean wasBrewing = false;
+
+    CoffeeMakerNotifier(int expectedMaxCups, Executor executor) {
+        this.executor = executor;
+        this.cupsWaiters = new AtomicReferenceArray<>(expectedMaxCups + 1);
+    }
+
+    CompletableFuture<Integer> onBrewComplete() {
+        CompletableFuture<Integer> waiter = new CompletableFuture<>();
+        brewCompleteWaiters.add(waiter);
+        return waiter;
+    }
+
+    CompletableFuture<Integer> onCupsAvailable(int cups, int currentCups) {
+        CompletableFuture<Integer> waiter = new CompletableFuture<>();
+
+        if (currentCups >= cups) {
+            List<CompletableFuture<Integer>> ready = new ArrayList<>(1);
+            ready.add(waiter);
+            complete(ready, currentCups);
+        } else {
+            // A publish() that misses this waiter leaves it to the next publish(). Cups of coffee
+            // is a level rather than an event, so the next publish() still sees the condition.
+            pendingCupsWaiters.incrementAndGet();
+            cupsBucket(cups).add(waiter);
+        }
+
+        return waiter;
+    }
+
+    /**
+     * Complete the futures of every waiter whose condition has become true.
+     *
+     * @param isBrewing whether the CoffeeMaker is currently brewing
+     * @param cupsOfCoffee the cups of coffee currently in the CoffeeMaker
+     */
+    void publish(boolean isBrewing, int cupsOfCoffee) {
+        if (wasBrewing && !isBrewing) {
+            complete(drain(brewCompleteWaiters), cupsOfCoffee);
+        }
+
+        wasBrewing = isBrewing;
+
+        if (pendingCupsWaiters.get() == 0) {
+            return;
+        }
+
+        AtomicReferenceArray<Queue<CompletableFuture<Integer>>> buckets = cupsWaiters;
+        int lastBucket = Math.min(cupsOfCoffee, buckets.length() - 1);
+        for (int cups = 1; cups <= lastBucket; cups++) {
+            Queue<CompletableFuture<Integer>> bucket = buckets.get(cups);
+            if (bucket != null) {
+                List<CompletableFuture<Integer>> ready = drain(bucket);
+                pendingCupsWaiters.addAndGet(-ready.size());
+                complete(ready, cupsOfCoffee);
+            }
+        }
+    }
+
+    private Queue<CompletableFuture<Integer>> cupsBucket(int cups) {
+        AtomicReferenceArray<Queue<CompletableFuture<Integer>>> buckets = cupsWaiters;
+        Queue<CompletableFuture<Integer>> bucket =
+                cups < buckets.length() ? buckets.get(cups) : null;
+        if (bucket != null) {
+            return bucket;
+        }
+
+        synchronized (this) {
+            buckets = cupsWaiters;
+            if (cups >= buckets.length()) {
+                buckets = grow(buckets, cups + 1);
+                cupsWaiters = buckets;
+            }
+
+            bucket = buckets.get(cups);
+            if (bucket == null) {
+                bucket = new ConcurrentLinkedQueue<>();
+                buckets.set(cups, bucket);
+            }
+
+            return bucket;
+        }
+    }
+
+    // Copy buckets into an array of at least length buckets, which doubles to amortize the copies
+    private static AtomicReferenceArray<Queue<CompletableFuture<Integer>>> grow(
+            AtomicReferenceArray<Queue<CompletableFuture<Integer>>> buckets,
+            int length) {
+
+        AtomicReferenceArray<Queue<CompletableFuture<Integer>>> grown =
+                new AtomicReferenceArray<>(Math.max(length, buckets.length() * 2));
+        for (int cups = 0; cups < buckets.length(); cups++) {
+            grown.set(cups, buckets.get(cups));
+        }
+
+        return grown;
+    }
+
+    boolean hasWaiters() {
+        return !brewCompleteWaiters.isEmpty() || pendingCupsWaiters.get() > 0;
+    }
+
+    private static List<CompletableFuture<Integer>> drain(
+            Queue<CompletableFuture<Integer>> waiters) {
+
+        List<CompletableFuture<Integer>> ready = new ArrayList<>();
+        CompletableFuture<Integer> waiter;
+        while ((waiter = waiters.poll()) != null) {
+            ready.add(waiter);
+        }
+
+        return ready;
+    }
+
+    private void complete(List<CompletableFuture<Integer>> ready, int cupsOfCoffee) {
+        if (ready.isEmpty()) {
+            return;
+        }
+
+        Runnable completion = () -> ready.forEach(waiter -> waiter.complete(cupsOfCoffee));
+
+        try {
+            executor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            // Better to run the callbacks on the Clock's thread than to strand their waiters
+            LOG.warn("Notification executor rejected {} waiters. Completing them in place.",
+                    ready.size(),
+                    e);
+            completion.run();
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package roofing.coffee.maker;
+
+import java.util.Arrays;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.components.DormantState;
+
+/**
+ * DormantMakers holds the dormant CoffeeMakers of one stripe of a CoffeeMakerFleet as densely as
+ * it can - i.e. an open-addressing table of primitive columns that it fills up to 90% before it
+ * grows.
+ *
+ * <p>
+ * Each slot occupies a device id, the {@code DormantState.WORDS} longs of its CoffeeMaker's packed
+ * state, and one byte. The byte indexes a small palette of the ComponentSettings that the dormant
+ * CoffeeMakers share, or is zero if the slot is free. A dormant CoffeeMaker therefore costs about
+ * 25 bytes divided by the table's load - under 32 bytes whenever the table is at least 80% full,
+ * which a table presized for its CoffeeMakers is.
+ * </p>
+ *
+ * <p>
+ * The table probes linearly from a slot that it scales from the device id's hash, so its capacity
+ * need not be a power of two. Removing a CoffeeMaker shifts the CoffeeMakers that probed past it
+ * back, rather than leaving a tombstone behind, so churn never dilutes the table.
+ * </p>
+ *
+ * <p>
+ * DormantMakers is not thread safe: its stripe's lock guards it.
+ * </p>
+ *
+ * @see roofing.coffee.maker.components.DormantState
+ * @author nferraro-roofing
+ *
+ */
+final class DormantMakers {
+
+    // The palette holds up to 255 settings, since index 0 of a slot's byte marks a free slot
+    private static final int MAX_PALETTE = 255;
+    private static final int MIN_CAPACITY = 8;
+    private static final long LOW_INT = 0xFFFF_FFFFL;
+
+    private long[] deviceIds;
+    private long[] words;
+    private byte[] paletteIndexes;
+
+    private final ComponentSettings[] palette = new ComponentSettings[MAX_PALETTE];
+    private final int[] paletteUses = new int[MAX_PALETTE];
+
+    private int size = 0;
+
+    /**
+     * Construct DormantMakers that hold {@code expectedMakers} CoffeeMakers without growing.
+     *
+     * @param expectedMakers the number of dormant CoffeeMakers to expect
+     */
+    DormantMakers(int expectedMakers) {
+        allocate(capacityFor(expectedMakers));
+    }
+
+    /**
+     * Returns the number of dormant CoffeeMakers held.
+     *
+     * @return the number of dormant CoffeeMakers held.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots, free or not.
+     *
+     * @return the number of slots.
+     */
+    int capacity() {
+        return deviceIds.length;
+    }
+
+    /**
+     * Returns the slot that holds {@code deviceId}, or -1 if none.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @param hash the device id's hash
+     * @return the slot that holds {@code deviceId}, or -1 if none.
+     */
+    int find(long deviceId, long hash) {
+        for (int slot = home(hash, capacity()); isTaken(slot); slot = next(slot)) {
+            if (deviceIds[slot] == deviceId) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Add {@code deviceId} - which must be absent - with zeroed packed state, which the caller may
+     * overwrite at {@code offset(slot)} within {@code words()}.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @param hash the device id's hash
+     * @param settings the settings of the CoffeeMaker's components
+     * @return the CoffeeMaker's slot, or -1 if the palette has no room for {@code settings}.
+     */
+    int add(long deviceId, long hash, ComponentSettings settings) {
+        int paletteIndex = paletteIndexOf(settings);
+        if (paletteIndex < 0) {
+            return -1;
+        }
+
+        if ((size + 1) * 10L > capacity() * 9L) {
+            allocate(Math.max(capacity() + capacity() / 2, capacityFor(size + 1)));
+        }
+
+        int slot = home(hash, capacity());
+        while (isTaken(slot)) {
+            slot = next(slot);
+        }
+
+        deviceIds[slot] = deviceId;
+        Arrays.fill(words, offset(slot), offset(slot) + DormantState.WORDS, 0L);
+        paletteIndexes[slot] = (byte) (paletteIndex + 1);
+        paletteUses[paletteIndex]++;
+        size++;
+
+        return slot;
+    }
+
+    /**
+     * Remove the CoffeeMaker in {@code slot}, which invalidates the slots of the CoffeeMakers that
+     * probed past it.
+     *
+     * @param slot the CoffeeMaker's slot
+     */
+    void remove(int slot) {
+        int paletteIndex = paletteIndexOf(slot);
+        if (--paletteUses[paletteIndex] == 0) {
+            palette[paletteIndex] = null;
+        }
+
+        size--;
+
+        // Shift back each later CoffeeMaker of the probe run whose home slot does not lie after
+        // the hole - i.e. that would no longer find itself
+        int hole = slot;
+        for (int later = next(hole); isTaken(later); later = next(later)) {
+            int home = home(CoffeeMakerFleet.hash(deviceIds[later]), capacity());
+            boolean homeAfterHole = hole <= later
+                    ? hole < home && home <= later
+                    : hole < home || home <= later;
+
+            if (!homeAfterHole) {
+                move(later, hole);
+                hole = later;
+            }
+        }
+
+        paletteIndexes[hole] = 0;
+    }
+
+    /**
+     * Returns the settings of the CoffeeMaker in {@code slot}.
+     *
+     * @param slot the CoffeeMaker's slot
+     * @return the settings of the CoffeeMaker in {@code slot}.
+     */
+    ComponentSettings settings(int slot) {
+        return palette[paletteIndexOf(slot)];
+    }
+
+    /**
+     * Returns the device id of the CoffeeMaker in {@code slot}.
+     *
+     * @param slot the CoffeeMaker's slot
+     * @return the device id of the CoffeeMaker in {@code slot}.
+     */
+    long deviceId(int slot) {
+        return deviceIds[slot];
+    }
+
+    /**
+     * Returns true if {@code slot} holds a CoffeeMaker; false otherwise.
+     *
+     * @param slot the slot
+     * @return true if {@code slot} holds a CoffeeMaker; false otherwise.
+     */
+    boolean isTaken(int slot) {
+        return paletteIndexes[slot] != 0;
+    }
+
+    /**
+     * Returns the packed state of every slot, which {@code add()} replaces as it grows.
+     *
+     * @return the packed state of every slot.
+     */
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * Returns the index of the first long of the packed state of {@code slot} within
+     * {@code words()}.
+     *
+     * @param slot the slot
+     * @return the index of the slot's packed state.
+     */
+    static int offset(int slot) {
+        return slot * DormantState.WORDS;
+    }
+
+    // The palette index of settings, which joins the palette if it is new, or -1 if it is full
+    private int paletteIndexOf(ComponentSettings settings) {
+        int free = -1;
+        for (int i = 0; i < MAX_PALETTE; i++) {
+            if (palette[i] == settings) {
+                return i;
+            } else if (palette[i] == null && free < 0) {
+                free = i;
+            }
+        }
+
+        if (free >= 0) {
+            palette[free] = settings;
+        }
+
+        return free;
+    }
+
+    private int paletteIndexOf(int slot) {
+        return (paletteIndexes[slot] & 0xFF) - 1;
+    }
+
+    private void move(int from, int to) {
+        deviceIds[to] = deviceIds[from];
+        System.arraycopy(words, offset(from), words, offset(to), DormantState.WORDS);
+        paletteIndexes[to] = paletteIndexes[from];
+    }
+
+    private int next(int slot) {
+        return slot + 1 == capacity() ? 0 : slot + 1;
+    }
+
+    // Re-insert every CoffeeMaker into fresh columns of the given capacity
+    private void allocate(int capacity) {
+        long[] oldDeviceIds = deviceIds;
+        long[] oldWords = words;
+        byte[] oldPaletteIndexes = paletteIndexes;
+
+        deviceIds = new long[capacity];
+        words = new long[offset(capacity)];
+        paletteIndexes = new byte[capacity];
+
+        if (oldDeviceIds == null) {
+            return;
+        }
+
+        for (int from = 0; from < oldDeviceIds.length; from++) {
+            if (oldPaletteIndexes[from] != 0) {
+                int to = home(CoffeeMakerFleet.hash(oldDeviceIds[from]), capacity);
+                while (isTaken(to)) {
+                    to = next(to);
+                }
+
+                deviceIds[to] = oldDeviceIds[from];
+                System.arraycopy(oldWords, offset(from), words, offset(to), DormantState.WORDS);
+                paletteIndexes[to] = oldPaletteIndexes[from];
+            }
+        }
+    }
+
+    // Scale the low half of the hash - the fleet picks a stripe from the high bits - to a slot
+    private static int home(long hash, int capacity) {
+        return (int) (((hash & LOW_INT) * capacity) >>> 32);
+    }
+
+    // The capacity that holds makers at 85% load, which leaves room for the stripes' imbalance
+    private static int capacityFor(int makers) {
+        return Math.max((int) (makers * 20L / 17) + 1, MIN_CAPACITY);
+    }
+}
@@ -0,0 +1,316 @@
+package roofing.coffee.maker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import lombok.NonNull;
+import roofing.coffee.maker.components.ComponentSlots;
+import roofing.coffee.maker.subscriptions.StateField;
+
+/**
+ * A FleetColumnExporter writes snapshots of an OffHeapFleet's CoffeeMakers in a columnar binary
+ * format, for analytics jobs that pull the whole fleet at once.
+ *
+ * <p>
+ * Rather than build an object - or a string - per CoffeeMaker, the exporter reads each Column
+ * straight from the fleet's slots into reusable buffers, one chunk of {@code ROWS_PER_CHUNK}
+ * CoffeeMakers at a time. Row {@code i} is the CoffeeMaker with device id {@code i}. Every number
+ * is little-endian. An export starts with a header:
+ * </p>
+ *
+ * <ul>
+ * <li>Bytes 0-7: {@code MAGIC}, which spells "CMCOLUMN" in ASCII</li>
+ * <li>Bytes 8-11: the format's {@code VERSION}</li>
+ * <li>Bytes 12-15: the number of rows, i.e. of CoffeeMakers</li>
+ * <li>Bytes 16-19: {@code ROWS_PER_CHUNK}</li>
+ * <li>Bytes 20-23: the number of columns</li>
+ * <li>Then, for each Column in order: its Encoding's ordinal as 1 byte, and its name as 1 byte of
+ * length and that many bytes of ASCII. A {@code DICTIONARY} column follows with 1 byte of entry
+ * count, and each entry as 1 byte of length and that many bytes of ASCII.</li>
+ * </ul>
+ *
+ * <p>
+ * The chunks follow the header. Each chunk holds each Column in order, as a 4-byte length and
+ * that many bytes of encoded values. Every chunk but the last holds {@code ROWS_PER_CHUNK} rows.
+ * </p>
+ *
+ * <p>
+ * A FleetColumnExporter reuses its buffers from export to export, so it is not thread safe. Each
+ * block of the fleet's CoffeeMakers - see OffHeapFleet - is as of the same tick, but the fleet
+ * keeps ticking while the export runs.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class FleetColumnExporter {
+
+    /**
+     * The first 8 bytes of every export, which spell "CMCOLUMN" in ASCII.
+     */
+    public static final long MAGIC = 0x4E4D554C4F434D43L;
+
+    /**
+     * The version of the format that this class writes.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The byte order of every number in an export.
+     */
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The number of rows in every chunk but the last.
+     */
+    public static final int ROWS_PER_CHUNK = 1 << 16;
+
+    /**
+     * The entries of the {@code BREW_REQUEST} column's dictionary, indexed by ComponentSlots'
+     * request states.
+     */
+    public static final List<String> BREW_REQUEST_DICTIONARY = Collections.unmodifiableList(
+            Arrays.asList("NOT_REQUESTED", "REQUESTED", "RECEIVED"));
+
+    private final ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).order(BYTE_ORDER);
+    private final IntColumn cupsOfWater = new IntColumn();
+    private final IntColumn cupsOfCoffee = new IntColumn();
+    private final RunLengthColumn brewing = new RunLengthColumn(false);
+    private final RunLengthColumn pot = new RunLengthColumn(false);
+    private final RunLengthColumn hot = new RunLengthColumn(false);
+    private final RunLengthColumn brewRequest = new RunLengthColumn(true);
+
+    /**
+     * Write a snapshot of {@code fleet} to {@code out}. This method neither flushes nor closes
+     * {@code out}.
+     *
+     * @param fleet the fleet to export
+     * @param out the stream to write the export to
+     * @return the number of bytes written
+     * @throws IOException if {@code out} throws.
+     */
+    public long export(@NonNull OffHeapFleet fleet, @NonNull OutputStream out) throws IOException {
+        long written = writeHeader(fleet.size(), out);
+
+        for (int first = 0; first < fleet.size(); first += ROWS_PER_CHUNK) {
+            reset();
+            fleet.forEachSlot(first, Math.min(first + ROWS_PER_CHUNK, fleet.size()), this::add);
+
+            brewing.finish();
+            pot.finish();
+            hot.finish();
+            brewRequest.finish();
+
+            written += writeColumn(cupsOfWater.bytes, out);
+            written += writeColumn(cupsOfCoffee.bytes, out);
+            written += writeColumn(brewing.bytes, out);
+            written += writeColumn(pot.bytes, out);
+            written += writeColumn(hot.bytes, out);
+            written += writeColumn(brewRequest.bytes, out);
+        }
+
+        return written;
+    }
+
+    private void add(int deviceId, ByteBuffer slots, int offset) {
+        cupsOfWater.add(ComponentSlots.cupsOfWater(slots, offset));
+        cupsOfCoffee.add(ComponentSlots.cupsOfCoffee(slots, offset));
+        brewing.add(StateField.flag(ComponentSlots.isBrewing(slots, offset)));
+        pot.add(StateField.flag(ComponentSlots.hasPot(slots, offset)));
+        hot.add(StateField.flag(ComponentSlots.isHot(slots, offset)));
+        brewRequest.add(ComponentSlots.brewRequest(slots, offset));
+    }
+
+    private void reset() {
+        cupsOfWater.bytes.clear();
+        cupsOfCoffee.bytes.clear();
+        brewing.reset();
+        pot.reset();
+        hot.reset();
+        brewRequest.reset();
+    }
+
+    private static long writeHeader(int rows, OutputStream out) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(256).order(BYTE_ORDER)
+                .putLong(MAGIC)
+                .putInt(VERSION)
+                .putInt(rows)
+                .putInt(ROWS_PER_CHUNK)
+                .putInt(Column.values().length);
+
+        for (Column column : Column.values()) {
+            bytes.put((byte) column.getEncoding().ordinal());
+            putName(bytes, column.name());
+
+            if (column.getEncoding() == Encoding.DICTIONARY) {
+                bytes.put((byte) BREW_REQUEST_DICTIONARY.size());
+                for (String entry : BREW_REQUEST_DICTIONARY) {
+                    putName(bytes, entry);
+                }
+            }
+        }
+
+        out.write(bytes.array(), 0, bytes.position());
+        return bytes.position();
+    }
+
+    private static void putName(ByteBuffer bytes, String name) {
+        byte[] ascii = name.getBytes(StandardCharsets.US_ASCII);
+        bytes.put((byte) ascii.length).put(ascii);
+    }
+
+    private long writeColumn(ByteBuffer bytes, OutputStream out) throws IOException {
+        header.clear();
+        header.putInt(bytes.position());
+        out.write(header.array(), 0, Integer.BYTES);
+        out.write(bytes.array(), 0, bytes.position());
+
+        return Integer.BYTES + (long) bytes.position();
+    }
+
+    /**
+     * A Column of an export. Columns appear in the header, and in each chunk, in this order.
+     */
+    public enum Column {
+
+        /**
+         * The cups of water in each CoffeeMaker's WaterReservoir.
+         */
+        CUPS_OF_WATER(Encoding.PLAIN),
+
+        /**
+         * The cups of coffee in each CoffeeMaker's CoffeePot.
+         */
+        CUPS_OF_COFFEE(Encoding.PLAIN),
+
+        /**
+         * Whether each CoffeeMaker is brewing.
+         */
+        IS_BREWING(Encoding.RUN_LENGTH),
+
+        /**
+         * Whether each CoffeeMaker's CoffeePot sits on its WarmerPlate.
+         */
+        HAS_POT(Encoding.RUN_LENGTH),
+
+        /**
+         * Whether each CoffeeMaker's WarmerPlate is on.
+         */
+        IS_HOT(Encoding.RUN_LENGTH),
+
+        /**
+         * The state of each CoffeeMaker's brew request - see {@code BREW_REQUEST_DICTIONARY}.
+         */
+        BREW_REQUEST(Encoding.DICTIONARY);
+
+        private final Encoding encoding;
+
+        private Column(Encoding encoding) {
+            this.encoding = encoding;
+        }
+
+        /**
+         * Returns the Encoding of this Column's values.
+         *
+         * @return the Encoding of this Column's values.
+         */
+        public Encoding getEncoding() {
+            return encoding;
+        }
+    }
+
+    /**
+     * The Encoding of a Column's values within a chunk. Varints are unsigned LEB128 - i.e. 7 bits
+     * per byte, least significant first, with the high bit set on every byte but the last.
+     */
+    public enum Encoding {
+
+        /**
+         * One 4-byte int per row.
+         */
+        PLAIN,
+
+        /**
+         * The lengths of alternating runs of false and true values, starting with false, as
+         * varints. The first run is empty if the chunk's first value is true.
+         */
+        RUN_LENGTH,
+
+        /**
+         * Runs of dictionary indexes, each as a varint index followed by a varint length.
+         */
+        DICTIONARY;
+    }
+
+    private static final class IntColumn {
+
+        private final ByteBuffer bytes =
+                ByteBuffer.allocate(ROWS_PER_CHUNK * Integer.BYTES).order(BYTE_ORDER);
+
+        void add(int value) {
+            bytes.putInt(value);
+        }
+    }
+
+    /*
+     * Encodes RUN_LENGTH columns, whose values are 0 or 1, and DICTIONARY columns. A run of n rows
+     * takes at least 1 byte - 2 with its index - so a chunk never needs more than 2 bytes per row.
+     */
+    private static final class RunLengthColumn {
+
+        private final ByteBuffer bytes = ByteBuffer.allocate(2 * ROWS_PER_CHUNK + 16);
+        private final boolean dictionary;
+        private int value;
+        private int run;
+
+        RunLengthColumn(boolean dictionary) {
+            this.dictionary = dictionary;
+        }
+
+        void add(int next) {
+            if (next != value) {
+                endRun();
+                value = next;
+            }
+
+            run++;
+        }
+
+        void finish() {
+            endRun();
+        }
+
+        void reset() {
+            bytes.clear();
+            value = 0;
+            run = 0;
+        }
+
+        private void endRun() {
+            if (dictionary) {
+                if (run == 0) {
+                    return;
+                }
+
+                putVarint(value);
+            }
+
+            putVarint(run);
+            run = 0;
+        }
+
+        private void putVarint(int unsigned) {
+            while ((unsigned & ~0x7F) != 0) {
+                bytes.put((byte) (unsigned & 0x7F | 0x80));
+                unsigned >>>= 7;
+            }
+
+            bytes.put((byte) unsigned);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package roofing.coffee.maker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import lombok.Builder;
+import lombok.ToString;
+import roofing.coffee.maker.aggregates.AggregateGroup;
+import roofing.coffee.maker.alerts.AlertEngine;
+import roofing.coffee.maker.changes.ChangeFeed;
+import roofing.coffee.maker.history.HistoryBudget;
+import roofing.coffee.maker.http.EventStreamServer;
+import roofing.coffee.maker.indexes.FleetIndex;
+import roofing.coffee.maker.rankings.BusiestMakers;
+
+/**
+ * FleetOptions choose the fleet-wide services that the CoffeeMakers of
+ * {@code CoffeeMakerCreator::createFleet(int, CoffeeMakerProperties, FleetOptions)} report to -
+ * any mix of them, or none at all.
+ *
+ * <p>
+ * Construct instances via {@code FleetOptions.builder()}, and set only the options that the fleet
+ * needs - e.g. {@code FleetOptions.builder().index(index).changeFeed(feed).build()}. Each
+ * CoffeeMaker of the fleet then keeps every service that it is wired to up to date under its
+ * device id, and leaves each one once the fleet decommissions it:
+ * </p>
+ *
+ * <ul>
+ * <li>{@code historyBudget}: each CoffeeMaker records the history of its state changes within the
+ * budget - see {@code CoffeeMaker::history}.</li>
+ * <li>{@code index}: each CoffeeMaker keeps its state up to date in the FleetIndex, whose capacity
+ * must cover the fleet.</li>
+ * <li>{@code changeFeed}: each CoffeeMaker reports its state changes to the ChangeFeed, whose
+ * capacity must cover the fleet.</li>
+ * <li>{@code groupOf}: each CoffeeMaker adds its activity to the totals of the AggregateGroup that
+ * {@code groupOf} returns for its device id, and of that group's ancestors.</li>
+ * <li>{@code busiestMakers}: each CoffeeMaker counts its brewed cups and started brews in the
+ * rankings.</li>
+ * <li>{@code alertEngine}: each CoffeeMaker runs the engine's rules against its state, timing their
+ * minutes by the ticks of its Clock.</li>
+ * <li>{@code eventStreams}: each CoffeeMaker streams its changes to the server's subscribers of its
+ * device id. Construct the server with the fleet's tick delay.</li>
+ * <li>{@code idlePeriod} and {@code idlePeriodUnit}: the CoffeeMakers start out dormant, and go
+ * dormant again once they go {@code idlePeriod} without a lookup - see
+ * {@code CoffeeMakerFleet::lookup}. Leave {@code idlePeriod} at {@code 0} to keep every CoffeeMaker
+ * live.</li>
+ * </ul>
+ *
+ * <p>
+ * A dormant CoffeeMaker stays in the index, the change feed, and its aggregate groups with the
+ * at-rest state in which it went dormant. Its history, alerts, and subscriptions start afresh once
+ * a lookup wakes it up.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMakerCreator
+ * @author nferraro-roofing
+ *
+ */
+@Builder
+@ToString
+public final class FleetOptions {
+
+    final HistoryBudget historyBudget;
+    final FleetIndex index;
+    final ChangeFeed changeFeed;
+    final IntFunction<AggregateGroup> groupOf;
+    final BusiestMakers busiestMakers;
+    final AlertEngine alertEngine;
+    final EventStreamServer eventStreams;
+
+    // 0 keeps every CoffeeMaker live
+    final long idlePeriod;
+    final TimeUnit idlePeriodUnit;
+
+    boolean isDormant() {
+        return idlePeriod != 0;
+    }
+}
@@ -0,0 +1,162 @@
+package roofing.coffee.maker;
+
+import java.util.ArrayList;
+import java.util.List;
+import roofing.coffee.maker.aggregates.GroupMember;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.history.StateHistory;
+
+/**
+ * FleetWiring connects the CoffeeMakers of a fleet to the services of its FleetOptions, under
+ * their device ids {@code 0} through {@code count - 1}.
+ *
+ * <p>
+ * A CoffeeMaker receives its events sink from {@code eventsOf()} as CoffeeMakerCreator builds it,
+ * and its remaining wiring from {@code prepare()} before its Clock starts - whether it is new, or
+ * wakes up from dormancy. Each device id joins its aggregate group once, as the wiring is
+ * constructed, and keeps that membership across dormancy, so that the groups count dormant
+ * CoffeeMakers, too. A live CoffeeMaker leaves every service as it shuts down; a dormant one leaves
+ * them via {@code release()}.
+ * </p>
+ *
+ * @see roofing.coffee.maker.FleetOptions
+ * @author nferraro-roofing
+ *
+ */
+final class FleetWiring {
+
+    private final FleetOptions options;
+    private final int count;
+    private final long clockTicksPerMinute;
+
+    // The membership of each device id of its aggregate group, or null if the fleet has no groups
+    private final GroupMember[] members;
+
+    FleetWiring(int count, long clockTicksPerMinute, FleetOptions options) {
+        this.options = options;
+        this.count = count;
+        this.clockTicksPerMinute = clockTicksPerMinute;
+
+        if (options.index != null && count > options.index.capacity()) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot index a fleet of %d coffee makers in an index of %d",
+                    count,
+                    options.index.capacity()));
+        }
+
+        if (options.changeFeed != null && count > options.changeFeed.capacity()) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot feed the changes of a fleet of %d coffee makers to a feed of %d",
+                    count,
+                    options.changeFeed.capacity()));
+        }
+
+        if (options.groupOf == null) {
+            this.members = null;
+        } else {
+            this.members = new GroupMember[count];
+            for (int deviceId = 0; deviceId < count; deviceId++) {
+                members[deviceId] = options.groupOf.apply(deviceId).join();
+            }
+        }
+    }
+
+    /**
+     * Returns true if {@code deviceId} is one of the fleet's own device ids - i.e. if the fleet's
+     * services expect it - rather than one that a client registered since.
+     *
+     * @param deviceId the device id
+     * @return true if the fleet's services cover {@code deviceId}; false otherwise.
+     */
+    boolean covers(long deviceId) {
+        return deviceId >= 0 && deviceId < count;
+    }
+
+    /**
+     * Returns the sink that raises the events of {@code deviceId} into every service that counts
+     * them.
+     *
+     * @param deviceId the CoffeeMaker's device id, which the fleet covers
+     * @return the sink to pass to the CoffeeMaker's components.
+     */
+    ComponentEventSink eventsOf(int deviceId) {
+        List<ComponentEventSink> sinks = new ArrayList<>(3);
+
+        if (members != null) {
+            sinks.add(members[deviceId]);
+        }
+
+        if (options.busiestMakers != null) {
+            sinks.add(options.busiestMakers.eventsOf(deviceId));
+        }
+
+        if (options.eventStreams != null) {
+            sinks.add(options.eventStreams.eventsOf(deviceId));
+        }
+
+        return fanOut(sinks);
+    }
+
+    /**
+     * Wire {@code coffeeMaker} to the services that follow its state, before its Clock starts.
+     *
+     * @param coffeeMaker the CoffeeMaker
+     * @param deviceId the CoffeeMaker's device id, which the fleet covers
+     */
+    void prepare(CoffeeMaker coffeeMaker, int deviceId) {
+        if (options.historyBudget != null) {
+            coffeeMaker.recordHistoryIn(new StateHistory(options.historyBudget));
+        }
+
+        if (options.index != null) {
+            coffeeMaker.indexIn(options.index, deviceId);
+        }
+
+        if (options.changeFeed != null) {
+            coffeeMaker.feedChangesTo(options.changeFeed, deviceId);
+        }
+
+        if (options.alertEngine != null) {
+            coffeeMaker.watchAlerts(options.alertEngine.watch(deviceId, clockTicksPerMinute));
+        }
+
+        if (members != null) {
+            coffeeMaker.releaseOnShutdown(members[deviceId]::leave);
+        }
+    }
+
+    /**
+     * Take the dormant CoffeeMaker of {@code deviceId} out of every service that it stayed in
+     * while dormant - e.g. once the fleet decommissions it.
+     *
+     * @param deviceId the CoffeeMaker's device id, which the fleet covers
+     */
+    void release(int deviceId) {
+        if (options.index != null) {
+            options.index.remove(deviceId);
+        }
+
+        if (options.changeFeed != null) {
+            options.changeFeed.remove(deviceId);
+        }
+
+        if (members != null) {
+            members[deviceId].leave();
+        }
+    }
+
+    private static ComponentEventSink fanOut(List<ComponentEventSink> sinks) {
+        if (sinks.isEmpty()) {
+            return ComponentEventSink.NONE;
+        } else if (sinks.size() == 1) {
+            return sinks.get(0);
+        }
+
+        ComponentEventSink[] all = sinks.toArray(new ComponentEventSink[0]);
+        return (type, value) -> {
+            for (ComponentEventSink sink : all) {
+                sink.raise(type, value);
+            }
+        };
+    }
+}
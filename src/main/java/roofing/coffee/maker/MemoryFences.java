@@ -0,0 +1,43 @@
+package roofing.coffee.maker;
+
+/**
+ * MemoryFences orders plain reads and writes of shared memory - e.g. a memory-mapped file that
+ * several processes read - where volatile fields and locks cannot reach.
+ *
+ * <p>
+ * Java 8 offers no public fences, so each fence writes and then reads a volatile field. The JIT
+ * compiler keeps every read and write before a volatile write ahead of it, a volatile read after a
+ * volatile write, and every read and write after a volatile read behind it - so the pair orders
+ * plain reads and writes on both sides, whichever memory they touch. On x86, that costs one locked
+ * instruction per fence.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class MemoryFences {
+
+    // Only ever holds 0. The fences touch it for its ordering, not its value.
+    private static volatile int fence = 0;
+
+    private MemoryFences() { /* Disable construction */ }
+
+    /**
+     * Ensure that no read before this fence moves after it, nor any read after it before it.
+     */
+    static void loadFence() {
+        fullFence();
+    }
+
+    /**
+     * Ensure that no write before this fence moves after it, nor any write after it before it.
+     */
+    static void storeFence() {
+        fullFence();
+    }
+
+    private static int fullFence() {
+        fence = 0;
+        return fence;
+    }
+}
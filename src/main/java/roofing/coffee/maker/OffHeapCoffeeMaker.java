@@ -0,0 +1,175 @@
+package roofing.coffee.maker;
+
+import lombok.ToString;
+import roofing.coffee.maker.components.ComponentSlots;
+
+/**
+ * An OffHeapCoffeeMaker is the facade of one CoffeeMaker of an OffHeapFleet.
+ *
+ * <p>
+ * It offers the commands and queries of a CoffeeMaker, and behaves as a CoffeeMaker with the same
+ * settings would. However, it holds no state of its own: each call reads or writes through to the
+ * CoffeeMaker's slot in the fleet. Clients may therefore look it up, use it, and drop it as often
+ * as they like.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMaker
+ * @see roofing.coffee.maker.OffHeapFleet
+ * @author nferraro-roofing
+ *
+ */
+@ToString
+public final class OffHeapCoffeeMaker {
+
+    @ToString.Exclude
+    private final OffHeapFleet fleet;
+
+    private final int deviceId;
+
+    OffHeapCoffeeMaker(OffHeapFleet fleet, int deviceId) {
+        this.fleet = fleet;
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * Returns this CoffeeMaker's device id within its fleet.
+     *
+     * @return this CoffeeMaker's device id within its fleet.
+     */
+    public int deviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Returns the number of cups of water that this CoffeeMaker can hold.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#getMaxWaterCapacityCups()
+     * @return the number of cups of water that this CoffeeMaker can hold.
+     */
+    public int getMaxWaterCapacityCups() {
+        return fleet.settings().getPotMaxCapacityCups() + 1;
+    }
+
+    /**
+     * Fill the CoffeeMaker with {@code cupsOfWater} water.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#fill(int)
+     * @param cupsOfwater - the cups of water to fill into the CoffeeMaker.
+     * @throws IllegalArgumentException if {@code cupsOfwater} would over-fill the CoffeeMaker.
+     */
+    public void fill(int cupsOfwater) {
+        fleet.withSlot(deviceId, (slots, offset) -> {
+            ComponentSlots.fill(slots, offset, fleet.settings(), cupsOfwater);
+            return null;
+        });
+    }
+
+    /**
+     * Request that the CoffeeMaker start brewing coffee, or stop brewing if it already is.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#pressBrewButton()
+     */
+    public void pressBrewButton() {
+        fleet.withSlot(deviceId, (slots, offset) -> {
+            ComponentSlots.pressBrewButton(slots, offset);
+            return null;
+        });
+    }
+
+    /**
+     * Returns the cups of water currently present in the CoffeeMaker.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#cupsOfWater()
+     * @return the cups of water currently present in the CoffeeMaker
+     */
+    public int cupsOfWater() {
+        return fleet.withSlot(deviceId, ComponentSlots::cupsOfWater);
+    }
+
+    /**
+     * Returns the cups of coffee currently present in the CoffeeMaker.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#cupsOfCoffee()
+     * @return the cups of coffee currently present in the CoffeeMaker
+     */
+    public int cupsOfCoffee() {
+        return fleet.withSlot(deviceId, ComponentSlots::cupsOfCoffee);
+    }
+
+    /**
+     * Returns true if the CoffeeMaker's WarmerPlate is on; false otherwise.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#isWarmerPlateOn()
+     * @return true if the CoffeeMaker's WarmerPlate is on; false otherwise.
+     */
+    public boolean isWarmerPlateOn() {
+        return fleet.withSlot(deviceId, ComponentSlots::isHot);
+    }
+
+    /**
+     * Returns true when the CoffeeMaker is brewing, and false otherwise.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#isBrewing()
+     * @return true when the CoffeeMaker is brewing, and false otherwise.
+     */
+    public boolean isBrewing() {
+        return fleet.withSlot(deviceId, ComponentSlots::isBrewing);
+    }
+
+    /**
+     * Remove the pot from the CoffeeMaker.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#removePot()
+     * @throws IllegalStateException if the user attempts to remove the CoffeePot that is already
+     *         removed.
+     */
+    public void removePot() {
+        if (!movePot(false)) {
+            throw new IllegalStateException(
+                    "The coffee pot has been removed previously without replacement. Please "
+                            + "replace the pot via replacePot() before removing again.");
+        }
+    }
+
+    /**
+     * Replace the pot into the CoffeeMaker after removing it via {@code removePot()}.
+     *
+     * @see roofing.coffee.maker.CoffeeMaker#replacePot()
+     * @throws IllegalStateException if the user attempts to replace the CoffeePot that is already
+     *         present.
+     */
+    public void replacePot() {
+        if (!movePot(true)) {
+            throw new IllegalStateException(
+                    "The coffee pot is currently on the warmer plate. Cannot replace a pot that "
+                            + "is already present! Please remove the pot first via removePot().");
+        }
+    }
+
+    /**
+     * Pour out {@code cups} of coffee, or empty the CoffeePot if it holds fewer.
+     *
+     * @see roofing.coffee.maker.components.CoffeePot#pourOutCoffee(int)
+     * @param cups the cups of coffee to pour out
+     */
+    public void pourOutCoffee(int cups) {
+        fleet.withSlot(deviceId, (slots, offset) -> {
+            ComponentSlots.pourOutCoffee(slots, offset, cups);
+            return null;
+        });
+    }
+
+    /**
+     * Returns true if the CoffeePot sits on the WarmerPlate; false otherwise.
+     *
+     * @return true if the CoffeePot sits on the WarmerPlate; false otherwise.
+     */
+    public boolean hasPot() {
+        return fleet.withSlot(deviceId, ComponentSlots::hasPot);
+    }
+
+    private boolean movePot(boolean hasPot) {
+        return fleet.withSlot(deviceId,
+                (slots, offset) -> ComponentSlots.movePot(slots, offset, hasPot));
+    }
+}
@@ -0,0 +1,372 @@
+package roofing.coffee.maker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import lombok.NonNull;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.components.ComponentSlots;
+
+/**
+ * An OffHeapFleet simulates a fleet of CoffeeMakers whose state lives off the Java heap.
+ *
+ * <p>
+ * A CoffeeMakerFleet holds one object graph per CoffeeMaker - its components, Bus, and Clock - so
+ * the live heap, and with it the garbage collector's work, grows with the fleet. An OffHeapFleet
+ * instead keeps each CoffeeMaker's component state in a fixed-width slot of a direct ByteBuffer -
+ * see ComponentSlots - under the device ids {@code 0} through {@code size() - 1}. A single
+ * scheduler thread ticks every slot in place, and the OffHeapCoffeeMaker that
+ * {@code lookup(int)} returns reads and writes through to its slot.
+ * </p>
+ *
+ * <p>
+ * The slots are split into blocks of {@code 1 << BLOCK_SHIFT} slots, each guarded by its own lock.
+ * The ticker holds a block's lock while it ticks the block, and a client's command or query holds
+ * it while it operates on one slot, so each sees the other's writes.
+ * </p>
+ *
+ * <p>
+ * An OffHeapFleet may also keep its slots in a memory-mapped file, so that other processes on the
+ * same host can read them through a SharedFleetReader, without any messaging. Each slot of such a
+ * fleet starts with a sequence counter, which the fleet bumps around every write to the slot - see
+ * SharedFleetLayout.
+ * </p>
+ *
+ * <p>
+ * Every CoffeeMaker of an OffHeapFleet shares the same settings. An OffHeapFleet offers no
+ * notifications, subscriptions, or state streams - clients that need those should use a
+ * CoffeeMakerFleet.
+ * </p>
+ *
+ * @see roofing.coffee.maker.components.ComponentSlots
+ * @author nferraro-roofing
+ *
+ */
+public final class OffHeapFleet {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapFleet.class);
+
+    // 1,024 slots share a lock
+    private static final int BLOCK_SHIFT = 10;
+
+    // 1M slots - i.e. 32 MiB, or 40 MiB if shared - share a ByteBuffer, which keeps each well
+    // under its 2 GiB limit
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final int size;
+    private final ComponentSettings settings;
+    private final ByteBuffer[] chunks;
+    private final ReentrantLock[] blockLocks;
+
+    // The bytes per slot, and the offset of its component state within it. A shared fleet's slots
+    // start with a sequence counter.
+    private final int slotStride;
+    private final int stateOffset;
+
+    // A shared fleet's file header - see SharedFleetLayout - or null if this fleet is not shared
+    private final ByteBuffer sharedHeader;
+
+    private volatile ScheduledThreadPoolExecutor ticker;
+
+    /**
+     * Construct an OffHeapFleet of {@code size} new CoffeeMakers, whose Clocks do not tick until
+     * it {@code start()}s.
+     *
+     * @param size the number of CoffeeMakers in the fleet
+     * @param settings the settings of every CoffeeMaker's components
+     * @throws IllegalArgumentException if {@code size} is negative.
+     */
+    OffHeapFleet(int size, @NonNull ComponentSettings settings) {
+        this.size = checkSize(size);
+        this.settings = settings;
+        this.slotStride = ComponentSlots.SLOT_BYTES;
+        this.stateOffset = 0;
+        this.sharedHeader = null;
+        this.chunks = new ByteBuffer[chunkCount(size)];
+        this.blockLocks = blockLocks(size);
+
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(slotsInChunk(i) * slotStride)
+                    .order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Construct an OffHeapFleet, as per {@code OffHeapFleet(int, ComponentSettings)}, whose state
+     * lives in {@code sharedFile} as per SharedFleetLayout. This constructor replaces any existing
+     * content of {@code sharedFile}.
+     *
+     * @param size the number of CoffeeMakers in the fleet
+     * @param settings the settings of every CoffeeMaker's components
+     * @param sharedFile the file to map the fleet's state into
+     * @throws IOException if the file cannot be created or mapped.
+     * @throws IllegalArgumentException if {@code size} is negative.
+     */
+    OffHeapFleet(int size, @NonNull ComponentSettings settings, @NonNull Path sharedFile)
+            throws IOException {
+
+        this.size = checkSize(size);
+        this.settings = settings;
+        this.slotStride = SharedFleetLayout.SLOT_STRIDE;
+        this.stateOffset = SharedFleetLayout.SEQUENCE_BYTES;
+        this.chunks = new ByteBuffer[chunkCount(size)];
+        this.blockLocks = blockLocks(size);
+
+        // Truncating first leaves every slot zeroed - i.e. a new CoffeeMaker with an even sequence
+        try (FileChannel channel = FileChannel.open(sharedFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            this.sharedHeader = channel.map(MapMode.READ_WRITE, 0, SharedFleetLayout.HEADER_BYTES)
+                    .order(SharedFleetLayout.BYTE_ORDER);
+
+            long chunkBytes = (long) slotStride << CHUNK_SHIFT;
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = channel.map(MapMode.READ_WRITE,
+                        SharedFleetLayout.HEADER_BYTES + i * chunkBytes,
+                        (long) slotsInChunk(i) * slotStride)
+                        .order(SharedFleetLayout.BYTE_ORDER);
+            }
+        }
+
+        sharedHeader.putInt(SharedFleetLayout.VERSION_OFFSET, SharedFleetLayout.VERSION);
+        sharedHeader.putInt(SharedFleetLayout.STRIDE_OFFSET, slotStride);
+        sharedHeader.putInt(SharedFleetLayout.SIZE_OFFSET, size);
+        sharedHeader.putInt(SharedFleetLayout.POT_CAPACITY_OFFSET,
+                settings.getPotMaxCapacityCups());
+        sharedHeader.putLong(SharedFleetLayout.TICKS_PER_CUP_OFFSET,
+                settings.getTicksPerCupBrewed());
+        sharedHeader.putLong(SharedFleetLayout.STAY_HOT_OFFSET,
+                settings.getWarmerPlateStayHotTickLimit());
+
+        MemoryFences.storeFence();
+        sharedHeader.putLong(SharedFleetLayout.MAGIC_OFFSET, SharedFleetLayout.MAGIC);
+    }
+
+    /**
+     * Returns the CoffeeMaker registered under {@code deviceId}, or null if none.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @return the CoffeeMaker registered under {@code deviceId}, or null if none.
+     */
+    public OffHeapCoffeeMaker lookup(int deviceId) {
+        return deviceId >= 0 && deviceId < size ? new OffHeapCoffeeMaker(this, deviceId) : null;
+    }
+
+    /**
+     * Returns the number of CoffeeMakers in this fleet.
+     *
+     * @return the number of CoffeeMakers in this fleet.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the settings of every CoffeeMaker's components.
+     *
+     * @return the settings of every CoffeeMaker's components.
+     */
+    public ComponentSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Stop ticking this fleet's CoffeeMakers. Their slots stay readable until the garbage
+     * collector reclaims this fleet.
+     */
+    public void shutdown() {
+        ScheduledThreadPoolExecutor current = ticker;
+        if (current != null) {
+            LOG.debug("Shutting down an off-heap fleet of {} coffee makers", size);
+            current.shutdownNow();
+        }
+    }
+
+    /**
+     * Tick every CoffeeMaker in this fleet once every {@code period}.
+     *
+     * @param period the time between ticks
+     * @param periodUnit the unit of {@code period}
+     * @throws IllegalStateException if this fleet already started.
+     */
+    void start(long period, TimeUnit periodUnit) {
+        if (ticker != null) {
+            throw new IllegalStateException("This off-heap fleet's clock is already ticking");
+        }
+
+        ticker = new ScheduledThreadPoolExecutor(1);
+        ticker.scheduleAtFixedRate(this::tickAll, period, period, periodUnit);
+    }
+
+    /**
+     * Tick every CoffeeMaker in this fleet once, one block of slots at a time.
+     */
+    void tickAll() {
+        for (int block = 0; block < blockLocks.length; block++) {
+            int first = block << BLOCK_SHIFT;
+            int last = Math.min(first + (1 << BLOCK_SHIFT), size);
+            ByteBuffer chunk = chunks[first >>> CHUNK_SHIFT];
+
+            ReentrantLock lock = blockLocks[block];
+            lock.lock();
+            try {
+                for (int slot = first; slot < last; slot++) {
+                    int offset = offsetOf(slot);
+                    beginWrite(chunk, offset);
+                    ComponentSlots.tick(chunk, offset + stateOffset, settings);
+                    endWrite(chunk, offset);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        if (sharedHeader != null) {
+            long ticks = sharedHeader.getLong(SharedFleetLayout.TICKS_OFFSET);
+            MemoryFences.storeFence();
+            sharedHeader.putLong(SharedFleetLayout.TICKS_OFFSET, ticks + 1);
+        }
+    }
+
+    /**
+     * Apply {@code operation} to the slot of {@code deviceId}, while holding its block's lock.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @param operation the operation to apply to its slot
+     * @return the result of {@code operation}.
+     */
+    <T> T withSlot(int deviceId, SlotOperation<T> operation) {
+        ByteBuffer chunk = chunks[deviceId >>> CHUNK_SHIFT];
+        int offset = offsetOf(deviceId);
+
+        ReentrantLock lock = blockLocks[deviceId >>> BLOCK_SHIFT];
+        lock.lock();
+        try {
+            beginWrite(chunk, offset);
+            try {
+                return operation.apply(chunk, offset + stateOffset);
+            } finally {
+                endWrite(chunk, offset);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pass the slot of every device id from {@code from} up to, but excluding, {@code to} to
+     * {@code visitor}, in order. The fleet holds each block's lock while it visits the block's
+     * slots, so the CoffeeMakers of a block are as of the same tick.
+     *
+     * @param from the first device id to visit
+     * @param to the device id after the last to visit
+     * @param visitor reads each slot - see ComponentSlots
+     * @throws IllegalArgumentException if {@code from} through {@code to} is not a range of this
+     *         fleet's device ids.
+     */
+    void forEachSlot(int from, int to, @NonNull SlotVisitor visitor) {
+        if (from < 0 || to > size || from > to) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot visit device ids %d up to %d of a fleet of %d coffee makers",
+                    from,
+                    to,
+                    size));
+        }
+
+        int deviceId = from;
+        while (deviceId < to) {
+            int block = deviceId >>> BLOCK_SHIFT;
+            int last = Math.min((block + 1) << BLOCK_SHIFT, to);
+            ByteBuffer chunk = chunks[deviceId >>> CHUNK_SHIFT];
+
+            ReentrantLock lock = blockLocks[block];
+            lock.lock();
+            try {
+                for (; deviceId < last; deviceId++) {
+                    visitor.visit(deviceId, chunk, offsetOf(deviceId) + stateOffset);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Writers only, holding the slot's lock. Makes a shared slot's sequence odd.
+    private void beginWrite(ByteBuffer chunk, int offset) {
+        if (sharedHeader != null) {
+            chunk.putLong(offset, chunk.getLong(offset) + 1);
+            MemoryFences.storeFence();
+        }
+    }
+
+    // Writers only, holding the slot's lock. Makes a shared slot's sequence even again.
+    private void endWrite(ByteBuffer chunk, int offset) {
+        if (sharedHeader != null) {
+            MemoryFences.storeFence();
+            chunk.putLong(offset, chunk.getLong(offset) + 1);
+        }
+    }
+
+    private int offsetOf(int slot) {
+        return (slot & CHUNK_MASK) * slotStride;
+    }
+
+    private int slotsInChunk(int chunk) {
+        return Math.min(size - (chunk << CHUNK_SHIFT), 1 << CHUNK_SHIFT);
+    }
+
+    private static int checkSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "A fleet cannot hold a negative number of coffee makers, but was given %d",
+                    size));
+        }
+
+        return size;
+    }
+
+    private static int chunkCount(int size) {
+        return (int) ((size + (long) CHUNK_MASK) >>> CHUNK_SHIFT);
+    }
+
+    private static ReentrantLock[] blockLocks(int size) {
+        ReentrantLock[] locks =
+                new ReentrantLock[(int) ((size + (1L << BLOCK_SHIFT) - 1) >>> BLOCK_SHIFT)];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+
+        return locks;
+    }
+
+    /**
+     * A SlotOperation reads or writes one CoffeeMaker's slot - see ComponentSlots.
+     */
+    @FunctionalInterface
+    interface SlotOperation<T> {
+
+        T apply(ByteBuffer slots, int offset);
+    }
+
+    /**
+     * A SlotVisitor reads the slots of a range of CoffeeMakers - see ComponentSlots.
+     */
+    @FunctionalInterface
+    interface SlotVisitor {
+
+        void visit(int deviceId, ByteBuffer slots, int offset);
+    }
+}
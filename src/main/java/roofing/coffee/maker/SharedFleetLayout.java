@@ -0,0 +1,82 @@
+package roofing.coffee.maker;
+
+import java.nio.ByteOrder;
+import roofing.coffee.maker.components.ComponentSlots;
+
+/**
+ * SharedFleetLayout documents the binary layout of a shared fleet file - i.e. the memory-mapped
+ * file in which an OffHeapFleet from {@code CoffeeMakerCreator::createSharedFleet} keeps its
+ * state, so that other processes on the same host may read it.
+ *
+ * <p>
+ * Every number is little-endian. The file starts with a header of {@code HEADER_BYTES} bytes:
+ * </p>
+ *
+ * <ul>
+ * <li>Bytes 0-7: {@code MAGIC}, which the writer writes last, once the rest of the header is
+ * in place</li>
+ * <li>Bytes 8-11: the layout's {@code VERSION}</li>
+ * <li>Bytes 12-15: {@code SLOT_STRIDE}, the bytes per slot</li>
+ * <li>Bytes 16-19: the number of slots, i.e. of CoffeeMakers</li>
+ * <li>Bytes 20-23: the CoffeePot's max capacity in cups</li>
+ * <li>Bytes 24-31: the ticks per cup brewed</li>
+ * <li>Bytes 32-39: the ticks for which the WarmerPlate stays hot</li>
+ * <li>Bytes 40-47: the number of times that the writer has ticked the whole fleet</li>
+ * <li>Bytes 48-63: reserved</li>
+ * </ul>
+ *
+ * <p>
+ * Slot {@code i} - i.e. device id {@code i} - follows at {@code HEADER_BYTES + i * SLOT_STRIDE}.
+ * Its first 8 bytes are a sequence counter, and the rest are the CoffeeMaker's component state,
+ * as per ComponentSlots. The writer makes the counter odd before it changes the state, and even
+ * again after. A reader therefore reads the counter, the state, and the counter again, and trusts
+ * the state only if both reads of the counter agree on an even value.
+ * </p>
+ *
+ * @see roofing.coffee.maker.components.ComponentSlots
+ * @author nferraro-roofing
+ *
+ */
+public final class SharedFleetLayout {
+
+    /**
+     * The first 8 bytes of every shared fleet file, which spell "COFFEEMK" in ASCII.
+     */
+    public static final long MAGIC = 0x4B4D454546464F43L;
+
+    /**
+     * The version of the layout that this class describes.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The byte order of every number in a shared fleet file.
+     */
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The number of bytes in the header.
+     */
+    public static final int HEADER_BYTES = 64;
+
+    /**
+     * The number of bytes in each slot's sequence counter.
+     */
+    public static final int SEQUENCE_BYTES = 8;
+
+    /**
+     * The number of bytes in each slot, including its sequence counter.
+     */
+    public static final int SLOT_STRIDE = SEQUENCE_BYTES + ComponentSlots.SLOT_BYTES;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 8;
+    static final int STRIDE_OFFSET = 12;
+    static final int SIZE_OFFSET = 16;
+    static final int POT_CAPACITY_OFFSET = 20;
+    static final int TICKS_PER_CUP_OFFSET = 24;
+    static final int STAY_HOT_OFFSET = 32;
+    static final int TICKS_OFFSET = 40;
+
+    private SharedFleetLayout() { /* Disable construction */ }
+}
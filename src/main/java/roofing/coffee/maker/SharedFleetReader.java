@@ -0,0 +1,257 @@
+package roofing.coffee.maker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.NonNull;
+import lombok.ToString;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.components.ComponentSlots;
+
+/**
+ * A SharedFleetReader reads the CoffeeMakers of a shared fleet file - see SharedFleetLayout - that
+ * another process, e.g. the simulator, writes.
+ *
+ * <p>
+ * The reader maps the file read-only, so each read goes straight to the writer's pages: no copy of
+ * the fleet, no messages, and no locks. Instead, each slot's sequence counter tells the reader
+ * whether the writer changed the slot while the reader copied it, in which case the reader simply
+ * copies it again. Readers therefore never block the writer, nor each other.
+ * </p>
+ *
+ * <p>
+ * A SharedFleetReader is thread safe, as long as each thread reads into its own Snapshot.
+ * </p>
+ *
+ * @see roofing.coffee.maker.SharedFleetLayout
+ * @author nferraro-roofing
+ *
+ */
+public final class SharedFleetReader {
+
+    // Slots per mapped ByteBuffer. Must match OffHeapFleet's chunks.
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+    private final ByteBuffer header;
+    private final ByteBuffer[] chunks;
+    private final int size;
+    private final ComponentSettings settings;
+
+    private SharedFleetReader(ByteBuffer header, ByteBuffer[] chunks, int size) {
+        this.header = header;
+        this.chunks = chunks;
+        this.size = size;
+        this.settings = ComponentSettings.of(
+                header.getInt(SharedFleetLayout.POT_CAPACITY_OFFSET),
+                header.getLong(SharedFleetLayout.TICKS_PER_CUP_OFFSET),
+                header.getLong(SharedFleetLayout.STAY_HOT_OFFSET));
+    }
+
+    /**
+     * Map the shared fleet file {@code sharedFile} for reading.
+     *
+     * @param sharedFile a shared fleet file
+     * @return a SharedFleetReader of {@code sharedFile}
+     * @throws IOException if the file cannot be opened or mapped.
+     * @throws IllegalArgumentException if {@code sharedFile} is not a shared fleet file of this
+     *         layout's version, or if its writer has not finished creating it.
+     */
+    public static SharedFleetReader open(@NonNull Path sharedFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(sharedFile, StandardOpenOption.READ)) {
+            if (channel.size() < SharedFleetLayout.HEADER_BYTES) {
+                throw notSharedFleet(sharedFile, "it is too short to hold a header");
+            }
+
+            ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, SharedFleetLayout.HEADER_BYTES)
+                    .order(SharedFleetLayout.BYTE_ORDER);
+
+            if (header.getLong(SharedFleetLayout.MAGIC_OFFSET) != SharedFleetLayout.MAGIC) {
+                throw notSharedFleet(sharedFile, "its header does not start with the magic number");
+            }
+
+            MemoryFences.loadFence();
+            int version = header.getInt(SharedFleetLayout.VERSION_OFFSET);
+            int stride = header.getInt(SharedFleetLayout.STRIDE_OFFSET);
+            if (version != SharedFleetLayout.VERSION || stride != SharedFleetLayout.SLOT_STRIDE) {
+                throw notSharedFleet(sharedFile, String.format(
+                        "it has layout version %d and slot stride %d, but this reader expects %d "
+                                + "and %d",
+                        version,
+                        stride,
+                        SharedFleetLayout.VERSION,
+                        SharedFleetLayout.SLOT_STRIDE));
+            }
+
+            int size = header.getInt(SharedFleetLayout.SIZE_OFFSET);
+            long chunkBytes = (long) stride << CHUNK_SHIFT;
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((size + (long) CHUNK_MASK) >>> CHUNK_SHIFT)];
+
+            for (int i = 0; i < chunks.length; i++) {
+                int slots = Math.min(size - (i << CHUNK_SHIFT), 1 << CHUNK_SHIFT);
+                chunks[i] = channel.map(MapMode.READ_ONLY,
+                        SharedFleetLayout.HEADER_BYTES + i * chunkBytes,
+                        (long) slots * stride)
+                        .order(SharedFleetLayout.BYTE_ORDER);
+            }
+
+            return new SharedFleetReader(header, chunks, size);
+        }
+    }
+
+    /**
+     * Returns the number of CoffeeMakers in the shared fleet.
+     *
+     * @return the number of CoffeeMakers in the shared fleet.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the settings of every CoffeeMaker's components in the shared fleet.
+     *
+     * @return the settings of every CoffeeMaker's components in the shared fleet.
+     */
+    public ComponentSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Returns the number of times that the writer has ticked the whole fleet.
+     *
+     * @return the number of times that the writer has ticked the whole fleet.
+     */
+    public long ticks() {
+        long ticks = header.getLong(SharedFleetLayout.TICKS_OFFSET);
+        MemoryFences.loadFence();
+        return ticks;
+    }
+
+    /**
+     * Copy a consistent snapshot of the CoffeeMaker with device id {@code deviceId} into
+     * {@code snapshot}.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @param snapshot receives the CoffeeMaker's state
+     * @return {@code snapshot}
+     * @throws IllegalArgumentException if no CoffeeMaker has device id {@code deviceId}.
+     */
+    public Snapshot read(int deviceId, @NonNull Snapshot snapshot) {
+        if (deviceId < 0 || deviceId >= size) {
+            throw new IllegalArgumentException(String.format(
+                    "The shared fleet holds device ids 0 through %d, but was asked for %d",
+                    size - 1,
+                    deviceId));
+        }
+
+        ByteBuffer chunk = chunks[deviceId >>> CHUNK_SHIFT];
+        int offset = (deviceId & CHUNK_MASK) * SharedFleetLayout.SLOT_STRIDE;
+        int stateOffset = offset + SharedFleetLayout.SEQUENCE_BYTES;
+        ByteBuffer state = snapshot.state;
+
+        while (true) {
+            long sequence = chunk.getLong(offset);
+            MemoryFences.loadFence();
+
+            for (int i = 0; i < ComponentSlots.SLOT_BYTES; i += Long.BYTES) {
+                state.putLong(i, chunk.getLong(stateOffset + i));
+            }
+
+            MemoryFences.loadFence();
+            if ((sequence & 1) == 0 && chunk.getLong(offset) == sequence) {
+                snapshot.deviceId = deviceId;
+                snapshot.sequence = sequence;
+                return snapshot;
+            }
+
+            // The writer may sit descheduled mid-write, so give it the CPU rather than spin
+            snapshot.retries++;
+            Thread.yield();
+        }
+    }
+
+    private static IllegalArgumentException notSharedFleet(Path sharedFile, String reason) {
+        return new IllegalArgumentException(String.format(
+                "%s is not a shared fleet file, or its writer has not finished creating it: %s",
+                sharedFile,
+                reason));
+    }
+
+    /**
+     * A Snapshot holds a consistent copy of one CoffeeMaker's state from a SharedFleetReader.
+     *
+     * <p>
+     * Readers should reuse a Snapshot from read to read, which keeps reads free of allocation.
+     * </p>
+     */
+    @ToString
+    public static final class Snapshot {
+
+        @ToString.Exclude
+        private final ByteBuffer state = ByteBuffer.allocate(ComponentSlots.SLOT_BYTES)
+                .order(SharedFleetLayout.BYTE_ORDER);
+
+        private int deviceId = -1;
+        private long sequence;
+
+        @ToString.Exclude
+        private long retries;
+
+        /**
+         * Returns the device id of the CoffeeMaker last read into this Snapshot, or -1 if none.
+         *
+         * @return the device id of the CoffeeMaker last read into this Snapshot, or -1 if none.
+         */
+        public int deviceId() {
+            return deviceId;
+        }
+
+        /**
+         * Returns the slot's sequence counter as of the read. It grows with every write.
+         *
+         * @return the slot's sequence counter as of the read.
+         */
+        public long sequence() {
+            return sequence;
+        }
+
+        /**
+         * Returns how many times reads into this Snapshot had to start over because the writer
+         * changed the slot mid-read.
+         *
+         * @return how many times reads into this Snapshot had to start over.
+         */
+        public long retries() {
+            return retries;
+        }
+
+        @ToString.Include
+        public int cupsOfWater() {
+            return ComponentSlots.cupsOfWater(state, 0);
+        }
+
+        @ToString.Include
+        public int cupsOfCoffee() {
+            return ComponentSlots.cupsOfCoffee(state, 0);
+        }
+
+        @ToString.Include
+        public boolean isBrewing() {
+            return ComponentSlots.isBrewing(state, 0);
+        }
+
+        @ToString.Include
+        public boolean isWarmerPlateOn() {
+            return ComponentSlots.isHot(state, 0);
+        }
+
+        @ToString.Include
+        public boolean hasPot() {
+            return ComponentSlots.hasPot(state, 0);
+        }
+    }
+}
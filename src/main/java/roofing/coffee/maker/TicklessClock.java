@@ -0,0 +1,81 @@
+package roofing.coffee.maker;
+
+import java.util.function.LongSupplier;
+import roofing.coffee.maker.busses.Clock;
+
+/**
+ * A TicklessClock ticks a CoffeeMaker's Clock on demand rather than on a schedule - i.e. each time
+ * that a client reads or commands the CoffeeMaker, it first catches the CoffeeMaker up to the
+ * tick that the time source has reached since the TicklessClock started.
+ *
+ * <p>
+ * Catching up ticks the Clock by every missed tick at once. The Clock ticks one tick at a time
+ * until the CoffeeMaker is steady, and then folds every tick until its next cup or its TimerWheel's
+ * next Timeout into a single step - see SteadyState. The CoffeeMaker therefore ends up exactly as
+ * if its Clock had ticked all along, yet a CoffeeMaker that nobody reads costs nothing, and one
+ * that somebody does costs a few steps per cup, Timeout, and interaction however much time passed
+ * in between.
+ * </p>
+ *
+ * <p>
+ * A TicklessClock is thread safe. Catching up from within a catch-up - e.g. when a scheduled brew
+ * presses the brew button - returns immediately, since the outer catch-up already reaches the
+ * same tick.
+ * </p>
+ *
+ * @see roofing.coffee.maker.components.SteadyState
+ * @author nferraro-roofing
+ *
+ */
+final class TicklessClock implements Runnable {
+
+    private final Clock clock;
+    private final LongSupplier nanoTime;
+    private final long originNanos;
+    private final long periodNanos;
+
+    // Guarded by this
+    private long computedTick = 0;
+    private boolean isAdvancing = false;
+    private boolean isStopped = false;
+
+    TicklessClock(Clock clock, LongSupplier nanoTime, long periodNanos) {
+        this.clock = clock;
+        this.nanoTime = nanoTime;
+        this.originNanos = nanoTime.getAsLong();
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Catch the CoffeeMaker up to the current tick of the time source.
+     */
+    @Override
+    public synchronized void run() {
+        if (isAdvancing || isStopped) {
+            return;
+        }
+
+        isAdvancing = true;
+        try {
+            advanceTo((nanoTime.getAsLong() - originNanos) / periodNanos);
+        } finally {
+            isAdvancing = false;
+        }
+    }
+
+    /**
+     * Stop catching the CoffeeMaker up, so that its state stays as of its last catch-up.
+     */
+    synchronized void stop() {
+        isStopped = true;
+    }
+
+    // Callers hold this
+    private void advanceTo(long targetTick) {
+        if (computedTick < targetTick) {
+            // The Clock folds the quiet ticks between cups and Timeouts into single messages
+            clock.tick(targetTick - computedTick);
+            computedTick = targetTick;
+        }
+    }
+}
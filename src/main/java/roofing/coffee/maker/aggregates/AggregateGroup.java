@@ -0,0 +1,178 @@
+package roofing.coffee.maker.aggregates;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * An AggregateGroup totals the activity of a group of CoffeeMakers - e.g. a floor, a building,
+ * or the whole fleet - and of every group beneath it.
+ *
+ * <p>
+ * Groups form a hierarchy of any depth: a root group, e.g. "global", has children, e.g. buildings,
+ * which have children of their own, e.g. floors. Each CoffeeMaker joins one group as a
+ * GroupMember, which receives the transitions of the CoffeeMaker's components and adds them to
+ * the totals of its group and of each of the group's ancestors. Each transition therefore costs
+ * one increment per level of the hierarchy, and reading any total at any level costs the same
+ * however many CoffeeMakers it covers.
+ * </p>
+ *
+ * <p>
+ * Every total is a striped counter - a LongAdder - so that CoffeeMakers that tick on different
+ * threads rarely contend on the same cache line. A reader sees each total as of some moment
+ * during its read, though not all totals as of the same moment.
+ * </p>
+ *
+ * <p>
+ * An AggregateGroup is thread safe.
+ * </p>
+ *
+ * @see roofing.coffee.maker.aggregates.GroupMember
+ * @author nferraro-roofing
+ *
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class AggregateGroup {
+
+    @ToString.Include
+    private final String name;
+    private final AggregateGroup parent;
+    private final Map<String, AggregateGroup> children = new ConcurrentHashMap<>();
+
+    // This group and its ancestors, nearest first - i.e. every group that a member's transition
+    // adds to
+    private final AggregateGroup[] lineage;
+
+    final LongAdder makers = new LongAdder();
+    final LongAdder cupsBrewed = new LongAdder();
+    final LongAdder cupsOfWaterDrawn = new LongAdder();
+    final LongAdder makersBrewing = new LongAdder();
+    final LongAdder warmersOn = new LongAdder();
+
+    /**
+     * Construct a root group - e.g. the whole fleet - called {@code name}.
+     *
+     * @param name the group's name
+     */
+    public AggregateGroup(@NonNull String name) {
+        this(name, null);
+    }
+
+    private AggregateGroup(String name, AggregateGroup parent) {
+        this.name = name;
+        this.parent = parent;
+
+        int depth = parent == null ? 1 : parent.lineage.length + 1;
+        this.lineage = new AggregateGroup[depth];
+        this.lineage[0] = this;
+        if (parent != null) {
+            System.arraycopy(parent.lineage, 0, lineage, 1, parent.lineage.length);
+        }
+    }
+
+    /**
+     * Returns the child group of this group called {@code name}, which this method creates if it
+     * does not yet exist.
+     *
+     * @param name the child group's name
+     * @return the child group of this group called {@code name}.
+     */
+    public AggregateGroup child(@NonNull String name) {
+        return children.computeIfAbsent(name, childName -> new AggregateGroup(childName, this));
+    }
+
+    /**
+     * Returns the child groups of this group, as of now.
+     *
+     * @return the child groups of this group.
+     */
+    public Collection<AggregateGroup> children() {
+        return new ArrayList<>(children.values());
+    }
+
+    /**
+     * Add a CoffeeMaker to this group.
+     *
+     * <p>
+     * Pass the returned GroupMember to the CoffeeMaker's components as their ComponentEventSink,
+     * and {@code leave()} once the CoffeeMaker shuts down.
+     * </p>
+     *
+     * @return the CoffeeMaker's membership of this group
+     */
+    public GroupMember join() {
+        return new GroupMember(lineage);
+    }
+
+    /**
+     * Returns this group's name.
+     *
+     * @return this group's name.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Returns the names of this group's ancestors and of this group, separated by '/' - e.g.
+     * "global/hq/3".
+     *
+     * @return the path of this group within its hierarchy.
+     */
+    public String path() {
+        return parent == null ? name : parent.path() + "/" + name;
+    }
+
+    /**
+     * Returns the number of CoffeeMakers in this group and the groups beneath it.
+     *
+     * @return the number of CoffeeMakers in this group and the groups beneath it.
+     */
+    public long makers() {
+        return makers.sum();
+    }
+
+    /**
+     * Returns the cups of coffee that CoffeeMakers in this group and the groups beneath it have
+     * brewed.
+     *
+     * @return the cups of coffee brewed within this group.
+     */
+    public long cupsBrewed() {
+        return cupsBrewed.sum();
+    }
+
+    /**
+     * Returns the cups of water that CoffeeMakers in this group and the groups beneath it have
+     * drawn from their reservoirs to brew.
+     *
+     * @return the cups of water consumed within this group.
+     */
+    public long cupsOfWaterDrawn() {
+        return cupsOfWaterDrawn.sum();
+    }
+
+    /**
+     * Returns the number of CoffeeMakers in this group and the groups beneath it that are
+     * brewing.
+     *
+     * @return the number of CoffeeMakers brewing within this group.
+     */
+    public long makersBrewing() {
+        return makersBrewing.sum();
+    }
+
+    /**
+     * Returns the number of CoffeeMakers in this group and the groups beneath it whose WarmerPlate
+     * is on.
+     *
+     * @return the number of WarmerPlates on within this group.
+     */
+    public long warmersOn() {
+        return warmersOn.sum();
+    }
+}
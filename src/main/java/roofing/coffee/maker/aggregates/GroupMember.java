@@ -0,0 +1,99 @@
+package roofing.coffee.maker.aggregates;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.events.ComponentEventType;
+
+/**
+ * A GroupMember adds one CoffeeMaker's component transitions to the totals of its AggregateGroup
+ * and of each of the group's ancestors.
+ *
+ * <p>
+ * A GroupMember remembers whether its CoffeeMaker is brewing and whether its WarmerPlate is on,
+ * so that {@code leave()} can take the CoffeeMaker back out of the groups' totals of brewing
+ * makers and warm plates. Once it leaves, a GroupMember ignores any further transitions - e.g. of
+ * a tick that was already under way as its CoffeeMaker shut down.
+ * </p>
+ *
+ * @see roofing.coffee.maker.aggregates.AggregateGroup#join()
+ * @author nferraro-roofing
+ *
+ */
+public final class GroupMember implements ComponentEventSink {
+
+    private final AggregateGroup[] lineage;
+
+    // Guarded by this. Only the CoffeeMaker's Bus raises events, but leave() may run on any thread.
+    private boolean isBrewing = false;
+    private boolean isWarmerOn = false;
+    private boolean hasLeft = false;
+
+    GroupMember(AggregateGroup[] lineage) {
+        this.lineage = lineage;
+
+        addToAll(1, group -> group.makers);
+    }
+
+    @Override
+    public synchronized void raise(ComponentEventType type, int value) {
+        if (hasLeft) {
+            return;
+        }
+
+        switch (type) {
+            case CUP_BREWED:
+                addToAll(1, group -> group.cupsBrewed);
+                break;
+            case WATER_DRAWN:
+                addToAll(value, group -> group.cupsOfWaterDrawn);
+                break;
+            case BREW_STARTED:
+            case BREW_STOPPED:
+                boolean brewing = type == ComponentEventType.BREW_STARTED;
+                if (brewing != isBrewing) {
+                    isBrewing = brewing;
+                    addToAll(brewing ? 1 : -1, group -> group.makersBrewing);
+                }
+                break;
+            case WARMER_ON:
+            case WARMER_OFF:
+                boolean warmerOn = type == ComponentEventType.WARMER_ON;
+                if (warmerOn != isWarmerOn) {
+                    isWarmerOn = warmerOn;
+                    addToAll(warmerOn ? 1 : -1, group -> group.warmersOn);
+                }
+                break;
+            default:
+                break; // Groups do not total the other transitions
+        }
+    }
+
+    /**
+     * Take this member's CoffeeMaker out of its groups - e.g. once the CoffeeMaker shuts down. The
+     * groups keep the cups that it brewed and the water that it drew. Leaving more than once does
+     * nothing more.
+     */
+    public synchronized void leave() {
+        if (hasLeft) {
+            return;
+        }
+
+        hasLeft = true;
+        addToAll(-1, group -> group.makers);
+
+        if (isBrewing) {
+            addToAll(-1, group -> group.makersBrewing);
+        }
+
+        if (isWarmerOn) {
+            addToAll(-1, group -> group.warmersOn);
+        }
+    }
+
+    private void addToAll(int delta, Function<AggregateGroup, LongAdder> total) {
+        for (AggregateGroup group : lineage) {
+            total.apply(group).add(delta);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package roofing.coffee.maker.alerts;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * An Alert reports that an AlertRule started, or stopped, holding for a CoffeeMaker.
+ *
+ * <p>
+ * Each raised Alert is followed by a cleared Alert of the same rule and CoffeeMaker once the
+ * rule's condition no longer holds, or once the CoffeeMaker shuts down.
+ * </p>
+ *
+ * @see roofing.coffee.maker.alerts.AlertEngine
+ * @author nferraro-roofing
+ *
+ */
+@Getter
+@ToString
+public final class Alert {
+
+    private final AlertRule rule;
+    private final int deviceId;
+
+    // The tick of the CoffeeMaker's Clock at which the rule started or stopped holding
+    private final long ticks;
+    private final boolean raised;
+
+    Alert(AlertRule rule, int deviceId, long ticks, boolean raised) {
+        this.rule = rule;
+        this.deviceId = deviceId;
+        this.ticks = ticks;
+        this.raised = raised;
+    }
+}
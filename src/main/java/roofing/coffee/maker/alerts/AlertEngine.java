@@ -0,0 +1,281 @@
+package roofing.coffee.maker.alerts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import lombok.NonNull;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateCondition.Threshold;
+import roofing.coffee.maker.subscriptions.StateField;
+
+/**
+ * An AlertEngine raises alerts when the CoffeeMakers of a fleet satisfy its AlertRules.
+ *
+ * <p>
+ * The engine compiles its rules once, into bitsets that every CoffeeMaker shares. The values of
+ * the rules' thresholds on a StateField cut the field's range into intervals, across each of
+ * which every threshold keeps its outcome. Per field and interval, one bitset marks the rules
+ * whose condition's thresholds on that field hold, and another those whose precondition's do.
+ * ANDing the bitsets of each field's current interval therefore yields exactly the rules whose
+ * conditions hold - at a cost of a few words per 64 rules, however many thresholds the change
+ * crossed.
+ * </p>
+ *
+ * <p>
+ * Each CoffeeMaker runs one automaton per rule - unarmed, armed, holding, or raised - in a
+ * MakerAlerts that keeps only the automata that are holding. MakerAlerts matches the bitsets only
+ * when the CoffeeMaker's state changes, so a tick that changes nothing costs the same however
+ * many rules the engine holds.
+ * </p>
+ *
+ * <p>
+ * A rule that must hold for some minutes schedules a deadline, in ticks of the CoffeeMaker's
+ * Clock, once its condition starts holding. MakerAlerts checks only its earliest deadline on each
+ * tick, and raises the alert once the deadline passes if the condition held throughout.
+ * </p>
+ *
+ * <p>
+ * The engine passes each raised and cleared Alert to its listener on the thread that updates the
+ * CoffeeMaker's Bus, so the listener should return quickly - e.g. by queuing the Alert. An
+ * AlertEngine is thread safe.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMakerCreator#createFleet(int,
+ *      roofing.coffee.maker.plugins.properties.CoffeeMakerProperties,
+ *      roofing.coffee.maker.FleetOptions)
+ * @author nferraro-roofing
+ *
+ */
+public final class AlertEngine {
+
+    private static final StateField[] FIELDS = StateField.values();
+
+    private final AlertRule[] rules;
+    private final Consumer<Alert> listener;
+
+    // The fields on which any rule has a threshold, and per such field, the values at which some
+    // threshold's outcome changes - i.e. interval i of the field starts at cuts[i - 1]
+    private final StateField[] fields;
+    private final int[][] cuts;
+
+    // Per field of fields, per interval, per 64 rules: whether each rule's condition's (or
+    // precondition's) thresholds on the field hold across the interval
+    private final long[][][] conditionBits;
+    private final long[][][] preconditionBits;
+    private final long[] everyRule;
+
+    private final LongAdder raised = new LongAdder();
+
+    /**
+     * Construct an AlertEngine that passes the alerts of {@code rules} to {@code listener}.
+     *
+     * @param rules the rules to evaluate against every CoffeeMaker
+     * @param listener receives each raised and cleared Alert
+     */
+    public AlertEngine(@NonNull List<AlertRule> rules, @NonNull Consumer<Alert> listener) {
+        this.rules = rules.toArray(new AlertRule[0]);
+        this.listener = listener;
+
+        int words = (this.rules.length + Long.SIZE - 1) / Long.SIZE;
+        this.everyRule = new long[words];
+        for (int rule = 0; rule < this.rules.length; rule++) {
+            everyRule[rule / Long.SIZE] |= 1L << rule;
+        }
+
+        List<StateField> cutFields = new ArrayList<>();
+        List<int[]> fieldCuts = new ArrayList<>();
+        for (StateField field : FIELDS) {
+            int[] values = cutsOf(field);
+            if (values.length > 0) {
+                cutFields.add(field);
+                fieldCuts.add(values);
+            }
+        }
+
+        this.fields = cutFields.toArray(new StateField[0]);
+        this.cuts = fieldCuts.toArray(new int[0][]);
+        this.conditionBits = new long[fields.length][][];
+        this.preconditionBits = new long[fields.length][][];
+
+        for (int i = 0; i < fields.length; i++) {
+            conditionBits[i] = compile(fields[i], cuts[i], AlertRule::condition, words);
+            preconditionBits[i] = compile(fields[i], cuts[i], AlertRule::precondition, words);
+        }
+    }
+
+    /**
+     * Start evaluating this engine's rules against the CoffeeMaker registered under
+     * {@code deviceId}.
+     *
+     * <p>
+     * Pass the CoffeeMaker's state to the returned MakerAlerts after every update of its Bus, and
+     * {@code stop()} it once the CoffeeMaker shuts down.
+     * </p>
+     *
+     * @param deviceId the CoffeeMaker's device id, which its alerts carry
+     * @param ticksPerMinute how often the CoffeeMaker's Clock ticks per minute
+     * @return the automata of the CoffeeMaker's rules.
+     * @throws IllegalArgumentException if {@code ticksPerMinute} is not positive.
+     */
+    public MakerAlerts watch(int deviceId, long ticksPerMinute) {
+        if (ticksPerMinute < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot time alerts of a clock that ticks %d times per minute",
+                    ticksPerMinute));
+        }
+
+        return new MakerAlerts(this, deviceId, ticksPerMinute);
+    }
+
+    /**
+     * Returns the number of rules that this engine evaluates.
+     *
+     * @return the number of rules that this engine evaluates.
+     */
+    public int rules() {
+        return rules.length;
+    }
+
+    /**
+     * Returns the number of alerts raised and not yet cleared, across every CoffeeMaker.
+     *
+     * @return the number of alerts raised and not yet cleared.
+     */
+    public long raised() {
+        return raised.sum();
+    }
+
+    /**
+     * Returns the state of a new CoffeeMaker - empty, idle, and with its pot in place - from which
+     * every CoffeeMaker's automata start.
+     *
+     * @return the value of each StateField of a new CoffeeMaker, indexed by its ordinal.
+     */
+    static int[] initialState() {
+        int[] state = new int[FIELDS.length];
+        state[StateField.HAS_POT.ordinal()] = 1;
+        return state;
+    }
+
+    AlertRule rule(int rule) {
+        return rules[rule];
+    }
+
+    // Passes each rule whose condition holds in state, and whose precondition, if any, held in
+    // previous or holds in state, to holding - in ascending order
+    void match(int[] previous, int[] state, IntConsumer holding) {
+        int[] now = new int[fields.length];
+        int[] before = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            now[i] = interval(cuts[i], state[fields[i].ordinal()]);
+            before[i] = interval(cuts[i], previous[fields[i].ordinal()]);
+        }
+
+        for (int word = 0; word < everyRule.length; word++) {
+            long condition = everyRule[word];
+            long armedNow = everyRule[word];
+            long armedBefore = everyRule[word];
+
+            for (int i = 0; i < fields.length && condition != 0; i++) {
+                condition &= conditionBits[i][now[i]][word];
+                armedNow &= preconditionBits[i][now[i]][word];
+                armedBefore &= preconditionBits[i][before[i]][word];
+            }
+
+            for (long bits = condition & (armedNow | armedBefore); bits != 0; bits &= bits - 1) {
+                holding.accept(word * Long.SIZE + Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    void raise(Alert alert) {
+        raised.increment();
+        listener.accept(alert);
+    }
+
+    void clear(Alert alert) {
+        raised.decrement();
+        listener.accept(alert);
+    }
+
+    // Returns the values at which the outcome of some threshold on field changes
+    private int[] cutsOf(StateField field) {
+        TreeSet<Integer> values = new TreeSet<>();
+        for (AlertRule rule : rules) {
+            addCuts(rule.condition(), field, values);
+            if (rule.precondition() != null) {
+                addCuts(rule.precondition(), field, values);
+            }
+        }
+
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // "At least t" changes its outcome at t, and "at most t" at t + 1
+    private static void addCuts(StateCondition condition, StateField field, Set<Integer> values) {
+        for (Threshold threshold : condition.thresholds()) {
+            if (threshold.field() != field) {
+                continue;
+            }
+
+            if (threshold.isAtLeast()) {
+                values.add(threshold.value());
+            } else if (threshold.value() < Integer.MAX_VALUE) {
+                values.add(threshold.value() + 1);
+            }
+        }
+    }
+
+    // Returns, per interval between fieldCuts, the bitset of the rules whose part of conditionOf
+    // on field holds across the interval. A rule without such a condition holds everywhere.
+    private long[][] compile(StateField field,
+            int[] fieldCuts,
+            Function<AlertRule, StateCondition> conditionOf,
+            int words) {
+
+        long[][] bits = new long[fieldCuts.length + 1][words];
+        for (int rule = 0; rule < rules.length; rule++) {
+            StateCondition condition = conditionOf.apply(rules[rule]);
+
+            for (int interval = 0; interval < bits.length; interval++) {
+                int value = interval == 0 ? Integer.MIN_VALUE : fieldCuts[interval - 1];
+                if (condition == null || holds(condition, field, value)) {
+                    bits[interval][rule / Long.SIZE] |= 1L << rule;
+                }
+            }
+        }
+
+        return bits;
+    }
+
+    private static boolean holds(StateCondition condition, StateField field, int value) {
+        for (Threshold threshold : condition.thresholds()) {
+            if (threshold.field() == field && !threshold.test(value)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Returns the index of the interval that holds value - i.e. the number of cuts at or below it
+    private static int interval(int[] fieldCuts, int value) {
+        int low = 0;
+        int high = fieldCuts.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (fieldCuts[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+}
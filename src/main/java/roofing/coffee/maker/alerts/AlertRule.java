@@ -0,0 +1,118 @@
+package roofing.coffee.maker.alerts;
+
+import lombok.NonNull;
+import lombok.ToString;
+import roofing.coffee.maker.subscriptions.StateCondition;
+
+/**
+ * An AlertRule declares a condition of a CoffeeMaker's state that warrants an alert - optionally
+ * only after some other condition held, and only once the condition has held for some minutes.
+ *
+ * <pre>
+ * AlertRule.when("warmer on with an empty pot",
+ *         StateCondition.is(StateField.IS_HOT, true)
+ *                 .and(StateCondition.atMost(StateField.CUPS_OF_COFFEE, 0)))
+ *         .forMinutes(30);
+ * AlertRule.when("brew requested with an empty reservoir",
+ *         StateCondition.is(StateField.IS_BREW_REQUESTED, true)
+ *                 .and(StateCondition.atMost(StateField.CUPS_OF_WATER, 0))
+ *                 .and(StateCondition.is(StateField.IS_BREWING, false)));
+ * AlertRule.when("pot removed mid-brew", StateCondition.is(StateField.HAS_POT, false))
+ *         .after(StateCondition.is(StateField.IS_BREWING, true))
+ *         .forMinutes(2);
+ * </pre>
+ *
+ * <p>
+ * A rule with a precondition arms once its precondition holds, and stays armed for as long as
+ * either its precondition or its condition holds - e.g. a pot removed mid-brew stops the brew, but
+ * the rule stays armed until the user replaces the pot. An unarmed rule ignores its condition.
+ * </p>
+ *
+ * <p>
+ * An AlertRule is immutable.
+ * </p>
+ *
+ * @see roofing.coffee.maker.alerts.AlertEngine
+ * @author nferraro-roofing
+ *
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class AlertRule {
+
+    @ToString.Include
+    private final String name;
+    private final StateCondition condition;
+    private final StateCondition precondition;
+    private final int minutes;
+
+    private AlertRule(String name, StateCondition condition, StateCondition precondition,
+            int minutes) {
+
+        this.name = name;
+        this.condition = condition;
+        this.precondition = precondition;
+        this.minutes = minutes;
+    }
+
+    /**
+     * Returns a rule called {@code name} that raises an alert as soon as {@code condition} holds.
+     *
+     * @param name the rule's name, which each of its alerts carries
+     * @param condition the condition that warrants an alert
+     * @return a rule that raises an alert as soon as {@code condition} holds.
+     */
+    public static AlertRule when(@NonNull String name, @NonNull StateCondition condition) {
+        return new AlertRule(name, condition, null, 0);
+    }
+
+    /**
+     * Returns a copy of this rule that ignores its condition unless it is armed by
+     * {@code precondition}.
+     *
+     * @param precondition the condition that arms the rule
+     * @return a copy of this rule with a precondition.
+     */
+    public AlertRule after(@NonNull StateCondition precondition) {
+        return new AlertRule(name, condition, precondition, minutes);
+    }
+
+    /**
+     * Returns a copy of this rule that raises an alert only once its condition has held for
+     * {@code minutes}, as measured by the CoffeeMaker's Clock.
+     *
+     * @param minutes how long the condition must hold
+     * @return a copy of this rule with a duration.
+     * @throws IllegalArgumentException if {@code minutes} is negative.
+     */
+    public AlertRule forMinutes(int minutes) {
+        if (minutes < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "An alert rule cannot wait for %d minutes. Please pass at least 0.",
+                    minutes));
+        }
+
+        return new AlertRule(name, condition, precondition, minutes);
+    }
+
+    /**
+     * Returns this rule's name.
+     *
+     * @return this rule's name.
+     */
+    public String name() {
+        return name;
+    }
+
+    StateCondition condition() {
+        return condition;
+    }
+
+    // Null if the rule is always armed
+    StateCondition precondition() {
+        return precondition;
+    }
+
+    int minutes() {
+        return minutes;
+    }
+}
@@ -0,0 +1,240 @@
+package roofing.coffee.maker.alerts;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+import roofing.coffee.maker.subscriptions.StateField;
+
+/**
+ * MakerAlerts runs the automata of an AlertEngine's rules for one CoffeeMaker.
+ *
+ * <p>
+ * Each rule's automaton is armed while its precondition holds, if it has one; it holds while its
+ * condition holds, from a moment that it was armed; and it raises its alert once it has held for
+ * the rule's minutes. An automaton that is not holding is armed exactly when its precondition held
+ * in the latest state or the one before it. MakerAlerts therefore stores only the automata that
+ * are holding, in arrays sorted by rule, beside the previous state and a queue of the holding
+ * rules' deadlines - so that a CoffeeMaker that satisfies no rule costs about a hundred bytes,
+ * however many rules the engine holds. Each change of the state matches the AlertEngine's bitsets
+ * once; a tick that changes nothing only checks the earliest deadline.
+ * </p>
+ *
+ * <p>
+ * Only the thread that updates the CoffeeMaker's Bus may {@code publish()}, but any thread may
+ * {@code stop()}.
+ * </p>
+ *
+ * @see roofing.coffee.maker.alerts.AlertEngine#watch(int, long)
+ * @author nferraro-roofing
+ *
+ */
+public final class MakerAlerts {
+
+    private static final StateField[] FIELDS = StateField.values();
+
+    private static final int[] NO_RULES = new int[0];
+    private static final boolean[] NO_FLAGS = new boolean[0];
+    private static final long[] NO_TICKS = new long[0];
+
+    private final AlertEngine engine;
+    private final int deviceId;
+    private final long ticksPerMinute;
+
+    // Guarded by this. The states are null until the first publish.
+    private int[] state;
+    private int[] previous;
+    private long lastTicks;
+    private boolean stopped = false;
+
+    // The automata that are holding, sorted by rule, whether each raised its alert, and the tick
+    // at which each started holding
+    private int[] activeRules = NO_RULES;
+    private boolean[] activeRaised = NO_FLAGS;
+    private long[] holdingSince = NO_TICKS;
+    private int activeCount = 0;
+
+    // Null until a rule first waits for its minutes
+    private PriorityQueue<Deadline> deadlines;
+
+    MakerAlerts(AlertEngine engine, int deviceId, long ticksPerMinute) {
+        this.engine = engine;
+        this.deviceId = deviceId;
+        this.ticksPerMinute = ticksPerMinute;
+    }
+
+    /**
+     * Read the CoffeeMaker's current state, advance the automata of the rules if it changed, and
+     * raise the alerts whose deadlines passed.
+     *
+     * @param ticks the current tick of the CoffeeMaker's Clock
+     * @param reader reads the current value of a StateField
+     */
+    public synchronized void publish(long ticks, ToIntFunction<StateField> reader) {
+        if (stopped) {
+            return;
+        }
+
+        lastTicks = ticks;
+
+        // The first publish matches every rule against a new CoffeeMaker's state, at least
+        boolean changed = state == null;
+        if (changed) {
+            state = AlertEngine.initialState();
+            previous = AlertEngine.initialState();
+        }
+
+        for (StateField field : FIELDS) {
+            int value = reader.applyAsInt(field);
+            if (value != state[field.ordinal()]) {
+                if (!changed) {
+                    System.arraycopy(state, 0, previous, 0, state.length);
+                    changed = true;
+                }
+
+                state[field.ordinal()] = value;
+            }
+        }
+
+        if (changed) {
+            for (int i = activeCount - 1; i >= 0; i--) {
+                AlertRule alertRule = engine.rule(activeRules[i]);
+                if (!alertRule.condition().test(state)) {
+                    stopHolding(i, alertRule, ticks);
+                }
+            }
+
+            engine.match(previous, state, rule -> startHolding(rule, ticks));
+        }
+
+        while (deadlines != null && !deadlines.isEmpty() && deadlines.peek().ticks <= ticks) {
+            expire(deadlines.poll());
+        }
+    }
+
+    /**
+     * Stop evaluating rules - e.g. once the CoffeeMaker shuts down - and clear every alert that
+     * this CoffeeMaker raised. Stopping more than once does nothing more.
+     */
+    public synchronized void stop() {
+        if (stopped) {
+            return;
+        }
+
+        stopped = true;
+        for (int i = 0; i < activeCount; i++) {
+            if (activeRaised[i]) {
+                engine.clear(new Alert(engine.rule(activeRules[i]), deviceId, lastTicks, false));
+            }
+        }
+
+        activeCount = 0;
+        activeRules = NO_RULES;
+        activeRaised = NO_FLAGS;
+        holdingSince = NO_TICKS;
+        deadlines = null;
+    }
+
+    /**
+     * Returns the number of rules whose automata are holding, including those that raised their
+     * alerts.
+     *
+     * @return the number of rules that are holding.
+     */
+    public synchronized int active() {
+        return activeCount;
+    }
+
+    // A rule that holds keeps holding. One that starts raises its alert now, or once its minutes
+    // pass.
+    private void startHolding(int rule, long ticks) {
+        int position = Arrays.binarySearch(activeRules, 0, activeCount, rule);
+        if (position >= 0) {
+            return;
+        }
+
+        AlertRule alertRule = engine.rule(rule);
+        boolean raised = alertRule.minutes() == 0;
+        insert(-position - 1, rule, raised, ticks);
+
+        if (raised) {
+            engine.raise(new Alert(alertRule, deviceId, ticks, true));
+        } else {
+            if (deadlines == null) {
+                deadlines = new PriorityQueue<>();
+            }
+
+            deadlines.add(new Deadline(ticks + alertRule.minutes() * ticksPerMinute, rule));
+        }
+    }
+
+    private void stopHolding(int position, AlertRule alertRule, long ticks) {
+        if (activeRaised[position]) {
+            engine.clear(new Alert(alertRule, deviceId, ticks, false));
+        }
+
+        remove(position);
+    }
+
+    // Raises the deadline's alert if its rule has held since the deadline was set
+    private void expire(Deadline deadline) {
+        int position = Arrays.binarySearch(activeRules, 0, activeCount, deadline.rule);
+        if (position < 0 || activeRaised[position]) {
+            return;
+        }
+
+        AlertRule alertRule = engine.rule(deadline.rule);
+        if (holdingSince[position] + alertRule.minutes() * ticksPerMinute == deadline.ticks) {
+            activeRaised[position] = true;
+            engine.raise(new Alert(alertRule, deviceId, deadline.ticks, true));
+        }
+    }
+
+    private void insert(int position, int rule, boolean raised, long since) {
+        if (activeCount == activeRules.length) {
+            int capacity = Math.max(4, activeRules.length * 2);
+            activeRules = Arrays.copyOf(activeRules, capacity);
+            activeRaised = Arrays.copyOf(activeRaised, capacity);
+            holdingSince = Arrays.copyOf(holdingSince, capacity);
+        }
+
+        int tail = activeCount - position;
+        System.arraycopy(activeRules, position, activeRules, position + 1, tail);
+        System.arraycopy(activeRaised, position, activeRaised, position + 1, tail);
+        System.arraycopy(holdingSince, position, holdingSince, position + 1, tail);
+
+        activeRules[position] = rule;
+        activeRaised[position] = raised;
+        holdingSince[position] = since;
+        activeCount++;
+    }
+
+    private void remove(int position) {
+        int tail = activeCount - position - 1;
+        System.arraycopy(activeRules, position + 1, activeRules, position, tail);
+        System.arraycopy(activeRaised, position + 1, activeRaised, position, tail);
+        System.arraycopy(holdingSince, position + 1, holdingSince, position, tail);
+        activeCount--;
+
+        if (activeCount == 0) {
+            activeRules = NO_RULES;
+            activeRaised = NO_FLAGS;
+            holdingSince = NO_TICKS;
+        }
+    }
+
+    private static final class Deadline implements Comparable<Deadline> {
+
+        private final long ticks;
+        private final int rule;
+
+        private Deadline(long ticks, int rule) {
+            this.ticks = ticks;
+            this.rule = rule;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(ticks, other.ticks);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package roofing.coffee.maker.busses;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import lombok.ToString;
 
 /**
@@ -13,6 +14,12 @@ import lombok.ToString;
  * internal state upon each tick of the clock.
  * </p>
  * 
+ * <p>
+ * Once every component has read a message, the Bus runs its update listeners on the same thread.
+ * Listeners observe the components' new state - e.g. in order to notify clients that are waiting
+ * for the coffee to be ready.
+ * </p>
+ * 
  * @see roofing.coffee.maker.busses.Clock
  * @see roofing.coffee.maker.busses.BusComponent
  * @author nferraro-roofing
@@ -24,6 +31,9 @@ public class Bus {
     // We expect four synchedComponents: BrewButton, CoffeePot, WarmerPlate, and WaterReservoir
     private final List<BusComponent<?>> synchedComponents = new ArrayList<>(4);
 
+    @ToString.Exclude
+    private final List<Runnable> updateListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Construct a Bus that synchronizes the provided {@code components}.
      * 
@@ -43,5 +53,24 @@ public class Bus {
         for (BusComponent<?> c : synchedComponents) {
             c.readBusMessage(message);
         }
+
+        for (Runnable listener : updateListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Run {@code listener} after every subsequent update, once all synchronized components have
+     * read the update's BusMessage.
+     * 
+     * <p>
+     * Listeners run on the thread that updates the Bus - i.e. the Clock's thread. Therefore, they
+     * must be quick, and they must not block.
+     * </p>
+     * 
+     * @param listener the action to run after each update
+     */
+    public void addUpdateListener(Runnable listener) {
+        updateListeners.add(listener);
     }
 }
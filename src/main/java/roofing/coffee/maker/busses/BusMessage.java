@@ -24,6 +24,13 @@ import roofing.coffee.maker.components.WaterReservoir;
  * </ul>
  * 
  * <p>
+ * Additionally, a BusMessage tells its readers how many ticks of the clock it represents. Usually,
+ * a BusMessage represents exactly one tick. However, a Clock that catches up on missed ticks may
+ * fast-forward the CoffeeMaker by several ticks in one BusMessage, and a BusMessage that represents
+ * zero ticks asks components to re-evaluate their state without letting any time elapse.
+ * </p>
+ * 
+ * <p>
  * Construct instances of a BusMessage via its builder - provided by {@code builder()}. No public
  * constructor is available.
  * </p>
@@ -39,16 +46,24 @@ import roofing.coffee.maker.components.WaterReservoir;
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 public class BusMessage {
 
-    private static final BusMessageBuilder BUILDER = new BusMessageBuilder();
-    
+    // One builder per thread: every CoffeeMaker's Clock ticks on its own thread, and each of those
+    // threads re-uses its builder from one tick to the next.
+    private static final ThreadLocal<BusMessageBuilder> BUILDER =
+            ThreadLocal.withInitial(BusMessageBuilder::new);
+
     /**
      * Returns a BusMessageBuilder, which can build BusMessages.
      * 
+     * <p>
+     * Each thread receives its own BusMessageBuilder, which it re-uses on every call.
+     * </p>
+     * 
      * @return a BusMessageBuilder
      */
     public static BusMessageBuilder builder() {
-        BUILDER.reset();
-        return BUILDER; 
+        BusMessageBuilder builder = BUILDER.get();
+        builder.reset();
+        return builder;
     }
 
     @Getter
@@ -63,6 +78,9 @@ public class BusMessage {
     @Getter
     private final WarmerPlate warmer;
 
+    @Getter
+    private final long ticksElapsed;
+
     /**
      * BusMessageBuilder builds instances of a BusMessage.
      * 
@@ -97,7 +115,8 @@ public class BusMessage {
      * <p>
      * Author's note: the low memory approach described above may create a race condition. Perhaps
      * we create a new BusMessage before each component is able to read the previous message from
-     * the bus! In doing so, we would see an inconsistent state.
+     * the bus! In doing so, we would see an inconsistent state. {@code BusMessage.builder()}
+     * avoids this between threads by handing each thread its own BusMessageBuilder.
      * </p>
      * 
      * @author nferraro-roofing
@@ -105,13 +124,14 @@ public class BusMessage {
      */
     public static class BusMessageBuilder {
 
-        // This approach is not thread safe unless we make a new BusMessageBuilder each
-        // time we need one, but that defeats the whole purpose. Need some locking mechanism.
+        // Not thread safe on its own. BusMessage.builder() hands each thread its own instance.
         private final WaterReservoir builderReservoir = WaterReservoir.busMessageInstance();
         private final BrewButton builderButton = new BrewButton();
         private final CoffeePot builderPot = CoffeePot.busMessageInstance();
         private final WarmerPlate builderWarmer = WarmerPlate.busMessageInstance();
         
+        private long ticksElapsed = 1;
+
         private boolean isReservoirSet = false;
         private boolean isButtonSet = false;
         private boolean isPotSet = false;
@@ -169,6 +189,30 @@ public class BusMessage {
             return this;
         }
 
+        /**
+         * Causes this BusMessageBuilder to build a BusMessage that represents {@code ticksElapsed}
+         * ticks of the clock.
+         * 
+         * <p>
+         * This value is optional and defaults to 1.
+         * </p>
+         * 
+         * @param ticksElapsed the number of ticks, which must not be negative, that the BusMessage
+         *        represents
+         * @return this BusMessageBuilder
+         * @throws IllegalArgumentException if {@code ticksElapsed} is negative.
+         */
+        public BusMessageBuilder withTicksElapsed(long ticksElapsed) {
+            if (ticksElapsed < 0) {
+                throw new IllegalArgumentException(
+                        "A BusMessage cannot represent a negative number of ticks. The provided "
+                                + "ticksElapsed was " + ticksElapsed);
+            }
+
+            this.ticksElapsed = ticksElapsed;
+            return this;
+        }
+
         /**
          * Create a BusMessage from the components provided through each call to {@code withX()}.
          * 
@@ -190,7 +234,12 @@ public class BusMessage {
          */
         public BusMessage build() {
             assertState();
-            return new BusMessage(builderReservoir, builderButton, builderPot, builderWarmer);
+            return new BusMessage(
+                    builderReservoir,
+                    builderButton,
+                    builderPot,
+                    builderWarmer,
+                    ticksElapsed);
         }
 
         private void assertState() {
@@ -224,6 +273,7 @@ public class BusMessage {
             builderButton.reset();
             builderPot.reset();
             builderWarmer.reset();
+            ticksElapsed = 1;
 
             isReservoirSet = false;
             isButtonSet = false;
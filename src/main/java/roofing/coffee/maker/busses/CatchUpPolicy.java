@@ -0,0 +1,49 @@
+package roofing.coffee.maker.busses;
+
+/**
+ * A CatchUpPolicy tells a Clock what to do with the ticks that it missed while it could not run.
+ *
+ * <p>
+ * A Clock ticks on a fixed schedule. However, a long GC pause or an overloaded executor may cause
+ * the Clock to wake up one or more ticks late. When that happens, the Clock measures how far behind
+ * schedule it has fallen and applies one of the following policies:
+ * </p>
+ *
+ * <ul>
+ * <li>{@link #BURST} - fire every missed tick back-to-back.</li>
+ * <li>{@link #COALESCE} - fold the missed ticks into a few fast-forwarded steps.</li>
+ * <li>{@link #DROP} - forget the missed ticks and fire only the tick that is due.</li>
+ * </ul>
+ *
+ * <p>
+ * Regardless of the policy, the Clock always resumes on its original schedule. In other words, a
+ * late tick never pushes later ticks back, so lag never accumulates into drift.
+ * </p>
+ *
+ * @see roofing.coffee.maker.busses.Clock#start(long, java.util.concurrent.TimeUnit, CatchUpPolicy)
+ * @see roofing.coffee.maker.busses.ClockMetrics
+ * @author nferraro-roofing
+ *
+ */
+public enum CatchUpPolicy {
+
+    /**
+     * Fire every missed tick, one after another, as soon as the Clock wakes up. A CoffeeMaker
+     * loses no ticks, but it may brew several cups at once and spend a burst of CPU doing so.
+     */
+    BURST,
+
+    /**
+     * Fold every missed tick into as few steps as possible - one step per stretch of ticks during
+     * which nothing but the progress towards the next cup changes. A CoffeeMaker loses no time
+     * and ends up exactly as BURST would leave it, yet catching up costs a few ordinary ticks per
+     * cup rather than one per missed tick.
+     */
+    COALESCE,
+
+    /**
+     * Fire only the tick that is due and discard the missed ticks. A CoffeeMaker simply runs
+     * slower while its Clock is overloaded.
+     */
+    DROP;
+}
@@ -1,12 +1,19 @@
 package roofing.coffee.maker.busses;
 
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import lombok.Builder;
 import lombok.NonNull;
 import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.timers.TimerWheel;
 
 /**
  * A clock schedules messages for a CoffeeMaker's bus.
@@ -23,7 +30,34 @@ import roofing.coffee.maker.CoffeeMaker;
  * 
  * <p>
  * The clock starts ticking automatically upon a call to {@code start()}. Optionally, clients may
- * ignore this method and manually tick the clock via {@code tick()}.
+ * ignore this method and manually tick the clock via {@code tick()}. A started clock ticks until
+ * {@code stop()}, which releases its thread.
+ * </p>
+ * 
+ * <p>
+ * A Clock keeps to its schedule even if it cannot always run on time - e.g. during a long GC pause
+ * or while its executor is overloaded. Each time the Clock wakes up, it measures how late it is
+ * and applies a {@link roofing.coffee.maker.busses.CatchUpPolicy} to the ticks that it missed. The
+ * Clock then schedules its next tick relative to when it <i>started</i> rather than when it last
+ * woke up, so lateness never accumulates into drift. The CoffeeMaker's
+ * {@link roofing.coffee.maker.CoffeeMaker#clockMetrics()} exports the Clock's lag and catch-up
+ * counts.
+ * </p>
+ * 
+ * <p>
+ * Between ticks, a client may ask the Clock to {@code evaluate()} the CoffeeMaker immediately -
+ * e.g. right after the user presses the brew button - rather than waiting for the next tick. An
+ * evaluation lets components react to the CoffeeMaker's current state without letting any time
+ * elapse, so it never speeds up brewing. Evaluations coalesce with each other and with ticks: the
+ * Clock never updates its Bus from two threads at once, and a tick that is already in progress
+ * performs any evaluation requested in the meantime before it returns.
+ * </p>
+ * 
+ * <p>
+ * A Clock may also keep a CoffeeMaker's TimerWheel - i.e. the deadlines of its components - in
+ * step with its ticks. Each tick advances the wheel before it places its message on the Bus, so
+ * that the message sees every Timeout that expired by then. Evaluations leave the wheel alone, as
+ * they let no time elapse.
  * </p>
  * 
  * <p>
@@ -46,21 +80,136 @@ public class Clock {
     @NonNull
     private final CoffeeMaker coffeeMaker;
 
+    // The CoffeeMaker's deadlines, if the Clock keeps them in step with its ticks; else null
+    private final TimerWheel timers;
+
+    // Guards the Bus so that a tick and an evaluation never update it at the same time
+    private final ReentrantLock busLock = new ReentrantLock();
+    private final AtomicBoolean evaluationRequested = new AtomicBoolean();
+
+    // Non-null from start() until stop()
+    private final AtomicReference<Ticker> ticker = new AtomicReference<>();
+
     /**
      * Schedules the clock to start ticking asynchronously and automatically.
      * 
      * <p>
      * A clock ticks once after {@code period} has elapsed in {@code periodUnit} - e.g. the clock
-     * may tick once after <i>10 seconds</i> elapse.
+     * may tick once after <i>10 seconds</i> elapse. The clock fires any ticks that it misses
+     * back-to-back, as per {@link roofing.coffee.maker.busses.CatchUpPolicy#BURST}.
      * </p>
      * 
      * @param period the number of units of time that must elapse between ticks of the clock
      * @param periodUnit the unit applied to {@code period}
+     * @throws IllegalArgumentException if {@code period} is not positive
+     * @throws IllegalStateException if the clock is already started
      */
     public void start(long period, TimeUnit periodUnit) {
-        LOG.debug("Clock starting with period {} and unit {}", period, periodUnit);
+        start(period, periodUnit, CatchUpPolicy.BURST);
+    }
 
-        Executors.newScheduledThreadPool(1).scheduleAtFixedRate(this::tick, 0, period, periodUnit);
+    /**
+     * Schedules the clock to start ticking asynchronously and automatically.
+     * 
+     * <p>
+     * A clock ticks once after {@code period} has elapsed in {@code periodUnit} - e.g. the clock
+     * may tick once after <i>10 seconds</i> elapse. The clock handles any ticks that it misses
+     * according to {@code catchUpPolicy}.
+     * </p>
+     * 
+     * @param period the number of units of time that must elapse between ticks of the clock
+     * @param periodUnit the unit applied to {@code period}
+     * @param catchUpPolicy what to do with ticks that the clock misses
+     * @throws IllegalArgumentException if {@code period} is not positive
+     * @throws IllegalStateException if the clock is already started
+     */
+    public void start(long period, TimeUnit periodUnit, @NonNull CatchUpPolicy catchUpPolicy) {
+        start(period, periodUnit, catchUpPolicy, Executors.newScheduledThreadPool(1), true);
+    }
+
+    /**
+     * Schedules the clock to start ticking asynchronously and automatically on {@code scheduler}.
+     * 
+     * <p>
+     * This method behaves like {@code start(long, TimeUnit, CatchUpPolicy)}, except that the
+     * clock shares {@code scheduler} with other clocks rather than creating a thread of its own -
+     * e.g. so that a whole fleet of CoffeeMakers may tick on a handful of threads. Stopping the
+     * clock leaves {@code scheduler} running; its owner must shut it down.
+     * </p>
+     * 
+     * @param period the number of units of time that must elapse between ticks of the clock
+     * @param periodUnit the unit applied to {@code period}
+     * @param catchUpPolicy what to do with ticks that the clock misses
+     * @param scheduler ticks the clock
+     * @throws IllegalArgumentException if {@code period} is not positive
+     * @throws IllegalStateException if the clock is already started
+     */
+    public void start(long period,
+            TimeUnit periodUnit,
+            @NonNull CatchUpPolicy catchUpPolicy,
+            @NonNull ScheduledExecutorService scheduler) {
+
+        start(period, periodUnit, catchUpPolicy, scheduler, false);
+    }
+
+    /**
+     * Stops the clock from ticking automatically, and releases the thread that ticked it - unless
+     * the clock shares its scheduler.
+     * 
+     * <p>
+     * A tick that is already in progress completes, but no further ticks follow. Clients may still
+     * {@code tick()} or {@code evaluate()} a stopped clock manually, or {@code start()} it again.
+     * Stopping a clock that is not started does nothing.
+     * </p>
+     * 
+     * @return true if this call stopped the clock; false if the clock was not started.
+     */
+    public boolean stop() {
+        Ticker stopped = ticker.getAndSet(null);
+        if (stopped == null) {
+            return false;
+        }
+
+        LOG.debug("Clock stopping");
+        stopped.stop();
+        return true;
+    }
+
+    private void start(long period,
+            TimeUnit periodUnit,
+            CatchUpPolicy catchUpPolicy,
+            ScheduledExecutorService scheduler,
+            boolean ownsScheduler) {
+
+        if (period < 1) {
+            if (ownsScheduler) {
+                scheduler.shutdown();
+            }
+
+            throw new IllegalArgumentException(String.format(
+                    "A clock must tick after a positive period, but was asked to tick every %d %s",
+                    period,
+                    periodUnit));
+        }
+
+        LOG.debug("Clock starting with period {}, unit {}, and catch-up policy {}",
+                period,
+                periodUnit,
+                catchUpPolicy);
+
+        Pacer pacer = pacer(periodUnit.toNanos(period), catchUpPolicy, System.nanoTime());
+        Ticker started = new Ticker(pacer, scheduler, ownsScheduler);
+
+        if (!ticker.compareAndSet(null, started)) {
+            if (ownsScheduler) {
+                scheduler.shutdown();
+            }
+
+            throw new IllegalStateException(
+                    "The clock is already started. Please stop() it before starting it again.");
+        }
+
+        started.schedule(0);
     }
 
     /**
@@ -69,8 +218,247 @@ public class Clock {
      * Bus.
      */
     public void tick() {
-        BusMessage message = coffeeMaker.asBusMessage();
+        step(1);
+    }
+
+    /**
+     * Causes the Clock to advance the CoffeeMaker by {@code ticks} ticks of the clock in as few
+     * messages as it can - as {@link roofing.coffee.maker.busses.CatchUpPolicy#COALESCE} does for
+     * the ticks that a started clock missed.
+     * 
+     * <p>
+     * The Clock ticks one tick at a time until the CoffeeMaker is steady, and then folds every tick
+     * until its next cup or Timeout into a single message - see
+     * {@link roofing.coffee.maker.components.SteadyState}. The CoffeeMaker therefore ends up
+     * exactly as if the Clock had ticked {@code ticks} times, at the cost of a few messages per
+     * cup brewed.
+     * </p>
+     * 
+     * @param ticks the number of ticks that the message represents
+     * @throws IllegalArgumentException if {@code ticks} is not positive.
+     */
+    public void tick(long ticks) {
+        if (ticks < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "A clock must tick at least once, but was asked to tick %d times",
+                    ticks));
+        }
+
+        step(ticks);
+    }
+
+    /**
+     * Causes the Clock to place the CoffeeMaker's current state on the Bus immediately, but
+     * without letting any time elapse.
+     * 
+     * <p>
+     * An evaluation lets components react to the CoffeeMaker's current state - e.g. start brewing
+     * right after the user presses the brew button - without waiting for the next tick.
+     * </p>
+     * 
+     * <p>
+     * If another thread is updating the Bus when this method is called, this method returns
+     * immediately and leaves the evaluation to that thread, which performs it before it returns.
+     * Therefore, any number of concurrent calls to this method cost at most one extra evaluation.
+     * </p>
+     */
+    public void evaluate() {
+        evaluationRequested.set(true);
+        drainEvaluations();
+    }
+
+    /*
+     * Package-private so that tests can drive a Pacer with a fake time source rather than a real
+     * scheduler.
+     */
+    Pacer pacer(long periodNanos, CatchUpPolicy catchUpPolicy, long originNanos) {
+        return new Pacer(periodNanos, catchUpPolicy, originNanos);
+    }
+
+    private void step(long ticksElapsed) {
+        long remaining = ticksElapsed;
+        while (remaining > 0) {
+            long before = coffeeMaker.steadyState();
+            stepOnce(1);
+            remaining--;
+
+            // A tick that changed nothing leaves every later tick unchanged, too, until the next
+            // cup or Timeout falls due - so fold the ticks before it into one message. A message
+            // never spans a cup, so the CoffeePot never brews a cup that the WaterReservoir did
+            // not draw.
+            if (remaining > 0 && coffeeMaker.steadyState() == before) {
+                long quietTicks = Math.min(remaining, ticksUntilNextEvent() - 1);
+
+                if (quietTicks > 0) {
+                    stepOnce(quietTicks);
+                    remaining -= quietTicks;
+                }
+            }
+        }
+
+        drainEvaluations();
+    }
+
+    private long ticksUntilNextEvent() {
+        long untilNextCup = coffeeMaker.ticksUntilNextCup();
+        return timers == null ? untilNextCup
+                : Math.min(untilNextCup, timers.earliestExpiryTick() - timers.now());
+    }
+
+    private void stepOnce(long ticksElapsed) {
+        // Before locking, so that a Timeout may evaluate the CoffeeMaker as a user command would
+        if (timers != null) {
+            timers.advance(ticksElapsed);
+        }
+
+        busLock.lock();
+        try {
+            // This tick reads the CoffeeMaker's latest state, so it satisfies any evaluation that
+            // was requested before now.
+            evaluationRequested.set(false);
+            coffeeMaker.clockMetrics().recordStep(ticksElapsed);
+            update(ticksElapsed);
+        } finally {
+            busLock.unlock();
+        }
+    }
+
+    private void drainEvaluations() {
+        // Re-check after unlocking: another thread may have requested an evaluation after we
+        // checked, but failed to acquire the lock before we released it.
+        while (evaluationRequested.get() && busLock.tryLock()) {
+            try {
+                if (evaluationRequested.getAndSet(false)) {
+                    update(0);
+                    coffeeMaker.clockMetrics().recordEvaluation();
+                }
+            } finally {
+                busLock.unlock();
+            }
+        }
+    }
+
+    private void update(long ticksElapsed) {
+        BusMessage message = coffeeMaker.asBusMessage(ticksElapsed);
         LOG.trace("Clock ticking. Sending message to bus: {}", message);
         bus.update(message);
     }
-}
\ No newline at end of file
+
+    /**
+     * A Pacer ticks its Clock on an absolute schedule - i.e. tick {@code n} is due at
+     * {@code originNanos + n * periodNanos} - and applies the Clock's CatchUpPolicy to any ticks
+     * that are overdue by the time the Pacer wakes up.
+     */
+    final class Pacer {
+
+        private final long periodNanos;
+        private final CatchUpPolicy catchUpPolicy;
+        private final long originNanos;
+
+        private long nextTick = 0;
+
+        private Pacer(long periodNanos, CatchUpPolicy catchUpPolicy, long originNanos) {
+            this.periodNanos = periodNanos;
+            this.catchUpPolicy = catchUpPolicy;
+            this.originNanos = originNanos;
+        }
+
+        /**
+         * Fire the tick that is due, handle any missed ticks, and return the delay until the next
+         * tick is due.
+         * 
+         * @param nowNanos the current value of the time source
+         * @return the nanoseconds from {@code nowNanos} until the next tick is due; never negative.
+         */
+        long advance(long nowNanos) {
+            long lagNanos = Math.max(nowNanos - dueNanos(nextTick), 0);
+            long missed = lagNanos / periodNanos;
+
+            ClockMetrics metrics = coffeeMaker.clockMetrics();
+            metrics.recordLag(lagNanos);
+            metrics.recordCatchUp(catchUpPolicy, missed);
+
+            if (missed > 0) {
+                LOG.debug("Clock is {} ns behind schedule and missed {} ticks. Catching up via {}",
+                        lagNanos,
+                        missed,
+                        catchUpPolicy);
+            }
+
+            switch (catchUpPolicy) {
+                case BURST:
+                    for (long i = 0; i <= missed; i++) {
+                        step(1);
+                    }
+                    break;
+                case COALESCE:
+                    step(missed + 1);
+                    break;
+                default:
+                    step(1);
+                    break;
+            }
+
+            nextTick += missed + 1;
+            return Math.max(dueNanos(nextTick) - nowNanos, 0);
+        }
+
+        private long dueNanos(long tick) {
+            return originNanos + tick * periodNanos;
+        }
+    }
+
+    /**
+     * A Ticker runs a started Clock's Pacer on a scheduler, one tick after another, until the
+     * Clock stops.
+     */
+    private static final class Ticker {
+
+        private final Pacer pacer;
+        private final ScheduledExecutorService scheduler;
+        private final boolean ownsScheduler;
+
+        private volatile boolean stopped = false;
+        private volatile ScheduledFuture<?> nextRun;
+
+        private Ticker(Pacer pacer, ScheduledExecutorService scheduler, boolean ownsScheduler) {
+            this.pacer = pacer;
+            this.scheduler = scheduler;
+            this.ownsScheduler = ownsScheduler;
+        }
+
+        private void run() {
+            if (stopped) {
+                return;
+            }
+
+            long wokeAtNanos = System.nanoTime();
+            long delayNanos = pacer.advance(wokeAtNanos) - (System.nanoTime() - wokeAtNanos);
+            schedule(Math.max(delayNanos, 0));
+        }
+
+        private void schedule(long delayNanos) {
+            try {
+                nextRun = scheduler.schedule(this::run, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Clock's scheduler shut down. Not scheduling the next tick.");
+                return;
+            }
+
+            // stop() may have missed the run that we just scheduled
+            if (stopped) {
+                nextRun.cancel(false);
+            }
+        }
+
+        private void stop() {
+            stopped = true;
+
+            if (ownsScheduler) {
+                scheduler.shutdownNow();
+            } else if (nextRun != null) {
+                nextRun.cancel(false);
+            }
+        }
+    }
+}
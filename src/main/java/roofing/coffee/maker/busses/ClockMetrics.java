@@ -0,0 +1,223 @@
+package roofing.coffee.maker.busses;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.ToString;
+
+/**
+ * ClockMetrics exports how well a Clock keeps to its schedule.
+ *
+ * <p>
+ * Every time a Clock wakes up, it measures its <i>lag</i> - i.e. how long after the due time of
+ * its next tick it actually woke up. If the lag spans one or more whole tick periods, the Clock has
+ * missed that many ticks, and it applies its CatchUpPolicy to them. ClockMetrics counts the ticks
+ * that each policy handled, so that an operator can tell an overloaded fleet from a healthy one.
+ * </p>
+ *
+ * <p>
+ * ClockMetrics also keeps a histogram of lag. Bucket {@code i} counts the wake-ups whose lag did
+ * not exceed {@code 2^i} microseconds; the final bucket counts everything else.
+ * </p>
+ *
+ * <p>
+ * Only one thread at a time - whichever currently updates the Clock's Bus - writes to its
+ * ClockMetrics, but any thread may read them.
+ * </p>
+ *
+ * @see roofing.coffee.maker.busses.CatchUpPolicy
+ * @author nferraro-roofing
+ *
+ */
+@ToString
+public class ClockMetrics {
+
+    /**
+     * The number of buckets in the lag histogram, including the final, unbounded bucket.
+     */
+    public static final int LAG_BUCKETS = 24;
+
+    // Each field has one writer at a time, so plain volatile fields suffice - and a fleet of
+    // millions of Clocks saves an AtomicLong per field per Clock. The Clock's Pacer writes the lag
+    // and catch-up fields; whichever thread holds the Clock's bus lock writes the others.
+    private volatile long ticks = 0;
+    private volatile long steps = 0;
+    private volatile long evaluations = 0;
+    private volatile long lastLagNanos = 0;
+    private volatile long maxLagNanos = 0;
+    private volatile long totalLagNanos = 0;
+    private volatile long missedTicks = 0;
+    private volatile long burstTicks = 0;
+    private volatile long coalescedTicks = 0;
+    private volatile long droppedTicks = 0;
+
+    @ToString.Exclude
+    private final AtomicLongArray lagHistogram = new AtomicLongArray(LAG_BUCKETS);
+
+    /**
+     * Returns the upper bound, in nanoseconds, of the lag histogram's bucket at {@code index}.
+     *
+     * @param index the index of a bucket in the lag histogram
+     * @return the largest lag, in nanoseconds, that the bucket counts, or {@code Long.MAX_VALUE}
+     *         for the final bucket.
+     */
+    public static long lagBucketUpperBoundNanos(int index) {
+        return index >= LAG_BUCKETS - 1
+                ? Long.MAX_VALUE
+                : TimeUnit.MICROSECONDS.toNanos(1L << index);
+    }
+
+    /**
+     * Returns the number of ticks that the Clock has advanced its CoffeeMaker by, including any
+     * coalesced ticks.
+     *
+     * @return the number of ticks that the Clock has advanced its CoffeeMaker by.
+     */
+    public long ticks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the number of times that the Clock has placed a message onto its Bus.
+     *
+     * @return the number of times that the Clock has placed a message onto its Bus.
+     */
+    public long steps() {
+        return steps;
+    }
+
+    /**
+     * Returns the number of times that the Clock has evaluated its CoffeeMaker between ticks.
+     *
+     * @see roofing.coffee.maker.busses.Clock#evaluate()
+     * @return the number of times that the Clock has evaluated its CoffeeMaker between ticks.
+     */
+    public long evaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Returns the lag, in nanoseconds, that the Clock measured when it last woke up.
+     *
+     * @return the lag, in nanoseconds, that the Clock measured when it last woke up.
+     */
+    public long lastLagNanos() {
+        return lastLagNanos;
+    }
+
+    /**
+     * Returns the largest lag, in nanoseconds, that the Clock has ever measured.
+     *
+     * @return the largest lag, in nanoseconds, that the Clock has ever measured.
+     */
+    public long maxLagNanos() {
+        return maxLagNanos;
+    }
+
+    /**
+     * Returns the sum, in nanoseconds, of every lag that the Clock has measured - e.g. to compute
+     * its mean lag together with the lag histogram's counts.
+     *
+     * @return the sum, in nanoseconds, of every lag that the Clock has measured.
+     */
+    public long totalLagNanos() {
+        return totalLagNanos;
+    }
+
+    /**
+     * Returns the number of ticks that the Clock missed because it woke up too late.
+     *
+     * @return the number of ticks that the Clock missed because it woke up too late.
+     */
+    public long missedTicks() {
+        return missedTicks;
+    }
+
+    /**
+     * Returns the number of missed ticks that the Clock fired back-to-back via
+     * {@link roofing.coffee.maker.busses.CatchUpPolicy#BURST}.
+     *
+     * @return the number of missed ticks that the Clock fired back-to-back.
+     */
+    public long burstTicks() {
+        return burstTicks;
+    }
+
+    /**
+     * Returns the number of missed ticks that the Clock folded into fast-forwarded steps via
+     * {@link roofing.coffee.maker.busses.CatchUpPolicy#COALESCE}.
+     *
+     * @return the number of missed ticks that the Clock folded into fast-forwarded steps.
+     */
+    public long coalescedTicks() {
+        return coalescedTicks;
+    }
+
+    /**
+     * Returns the number of missed ticks that the Clock discarded via
+     * {@link roofing.coffee.maker.busses.CatchUpPolicy#DROP}.
+     *
+     * @return the number of missed ticks that the Clock discarded.
+     */
+    public long droppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * Returns the number of wake-ups counted by the lag histogram's bucket at {@code index}.
+     *
+     * @param index the index of a bucket in the lag histogram
+     * @return the number of wake-ups counted by the bucket.
+     * @see #lagBucketUpperBoundNanos(int)
+     */
+    public long lagBucketCount(int index) {
+        return lagHistogram.get(index);
+    }
+
+    void recordStep(long ticksElapsed) {
+        steps++;
+        ticks += ticksElapsed;
+    }
+
+    void recordEvaluation() {
+        evaluations++;
+    }
+
+    void recordLag(long lagNanos) {
+        lastLagNanos = lagNanos;
+        totalLagNanos += lagNanos;
+
+        if (lagNanos > maxLagNanos) {
+            maxLagNanos = lagNanos;
+        }
+
+        lagHistogram.incrementAndGet(lagBucket(lagNanos));
+    }
+
+    void recordCatchUp(CatchUpPolicy policy, long missed) {
+        if (missed == 0) {
+            return;
+        }
+
+        missedTicks += missed;
+
+        switch (policy) {
+            case BURST:
+                burstTicks += missed;
+                break;
+            case COALESCE:
+                coalescedTicks += missed;
+                break;
+            default:
+                droppedTicks += missed;
+                break;
+        }
+    }
+
+    private static int lagBucket(long lagNanos) {
+        long lagMicros = TimeUnit.NANOSECONDS.toMicros(lagNanos);
+
+        // Index of the smallest power of two that is >= lagMicros
+        int bucket = lagMicros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(lagMicros - 1);
+        return Math.min(bucket, LAG_BUCKETS - 1);
+    }
+}
@@ -0,0 +1,242 @@
+package roofing.coffee.maker.changes;
+
+import java.util.Arrays;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A ChangeFeed tells clients which of a fleet's CoffeeMakers changed since they last looked, so
+ * that e.g. a dashboard re-fetches only those CoffeeMakers rather than the whole fleet.
+ *
+ * <p>
+ * The feed numbers the fleet's state changes with a version that rises by one per change. A client
+ * remembers the version of its last {@code changesSince(long)}, and passes it to the next one -
+ * starting from {@code 0}, which returns every CoffeeMaker that has reported its state. A
+ * CoffeeMaker appears at most once per call, however many times it changed in between.
+ * </p>
+ *
+ * <p>
+ * Each CoffeeMaker of a fleet with a feed offers its state to the feed after every update of its
+ * Bus. The feed remembers the state that each CoffeeMaker last reported, and logs a change only if
+ * the new state differs - i.e. if the cups of water or coffee, brewing, the WarmerPlate, or the
+ * CoffeePot's presence changed. Decommissioning a CoffeeMaker counts as a change, too.
+ * </p>
+ *
+ * <p>
+ * The log is a ring of the device ids of the last {@code logCapacity} changes, beside the version
+ * at which each CoffeeMaker last changed. A call whose version the log still covers walks only the
+ * changes since that version, and skips any entry that a CoffeeMaker's later change superseded -
+ * so its cost grows with the number of changes, not with the size of the fleet. A call whose
+ * version the log no longer covers falls back to scanning every CoffeeMaker's last version, which
+ * is slower but just as exact.
+ * </p>
+ *
+ * <p>
+ * A ChangeFeed is thread safe. Each CoffeeMaker must offer its state from one thread at a time, as
+ * its Bus does.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMakerCreator#createFleet(int,
+ *      roofing.coffee.maker.plugins.properties.CoffeeMakerProperties,
+ *      roofing.coffee.maker.FleetOptions)
+ * @author nferraro-roofing
+ *
+ */
+public final class ChangeFeed {
+
+    // Each CoffeeMaker's last reported state: REPORTED, then its flags, water and coffee
+    private static final long REPORTED = 1L << 62;
+    private static final long REMOVED = -1L;
+    private static final int CUPS_BITS = 24;
+    private static final int CUPS_MASK = (1 << CUPS_BITS) - 1;
+
+    private final long[] lastStates;
+
+    // Guarded by this
+    private final long[] changedAt;
+    private final int[] log;
+    private final int logMask;
+    private long version = 0;
+
+    /**
+     * Construct an empty ChangeFeed of the device ids {@code 0} through {@code capacity - 1}, whose
+     * log holds at least the last {@code logCapacity} changes.
+     *
+     * @param capacity the number of device ids that the feed holds
+     * @param logCapacity the number of changes that the feed's log holds, which the feed rounds up
+     *        to a power of two
+     * @throws IllegalArgumentException if {@code capacity} is negative or {@code logCapacity} is
+     *         not positive.
+     */
+    public ChangeFeed(int capacity, int logCapacity) {
+        if (capacity < 0 || logCapacity < 1 || logCapacity > 1 << 30) {
+            throw new IllegalArgumentException(String.format(
+                    "A change feed needs a non-negative capacity and a log of between 1 and 2^30 "
+                            + "changes, but was given a capacity of %d and a log of %d",
+                    capacity,
+                    logCapacity));
+        }
+
+        this.lastStates = new long[capacity];
+        this.changedAt = new long[capacity];
+        this.log = new int[Integer.highestOneBit(logCapacity * 2 - 1)];
+        this.logMask = log.length - 1;
+    }
+
+    /**
+     * Returns the number of device ids that this feed holds.
+     *
+     * @return the number of device ids that this feed holds.
+     */
+    public int capacity() {
+        return lastStates.length;
+    }
+
+    /**
+     * Returns the version of the latest change.
+     *
+     * @return the version of the latest change, or {@code 0} if none.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Report the state of the CoffeeMaker registered under {@code deviceId}, and log a change if
+     * it differs from the state that the CoffeeMaker last reported.
+     *
+     * <p>
+     * The CoffeeMaker calls this method after every update of its Bus. The feed ignores a
+     * CoffeeMaker after {@code remove(int)}.
+     * </p>
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @param cupsOfWater the cups of water in the CoffeeMaker
+     * @param cupsOfCoffee the cups of coffee in the CoffeeMaker
+     * @param isBrewing whether the CoffeeMaker is brewing
+     * @param isWarmerPlateOn whether the CoffeeMaker's WarmerPlate is on
+     * @param hasPot whether the CoffeePot sits on the WarmerPlate
+     * @throws IllegalArgumentException if {@code deviceId} lies outside this feed.
+     */
+    public void update(int deviceId,
+            int cupsOfWater,
+            int cupsOfCoffee,
+            boolean isBrewing,
+            boolean isWarmerPlateOn,
+            boolean hasPot) {
+
+        checkDeviceId(deviceId);
+
+        long flags = (isBrewing ? 1 : 0) | (isWarmerPlateOn ? 2 : 0) | (hasPot ? 4 : 0);
+        long state = REPORTED
+                | flags << (2 * CUPS_BITS)
+                | (long) (cupsOfWater & CUPS_MASK) << CUPS_BITS
+                | cupsOfCoffee & CUPS_MASK;
+
+        // Only this CoffeeMaker's thread writes its state, except to remove it
+        if (state == lastStates[deviceId]) {
+            return;
+        }
+
+        synchronized (this) {
+            if (lastStates[deviceId] != REMOVED) {
+                lastStates[deviceId] = state;
+                append(deviceId);
+            }
+        }
+    }
+
+    /**
+     * Log the removal of the CoffeeMaker registered under {@code deviceId} - e.g. once the fleet
+     * decommissions it - as its last change. The feed ignores any later update of
+     * {@code deviceId}.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @throws IllegalArgumentException if {@code deviceId} lies outside this feed.
+     */
+    public synchronized void remove(int deviceId) {
+        checkDeviceId(deviceId);
+
+        if (lastStates[deviceId] != REMOVED) {
+            lastStates[deviceId] = REMOVED;
+            append(deviceId);
+        }
+    }
+
+    /**
+     * Returns the device ids of the CoffeeMakers that changed after {@code sinceVersion}, and the
+     * version to pass to the next call.
+     *
+     * @param sinceVersion the version of the client's previous call, or {@code 0} for every
+     *        CoffeeMaker that has reported its state
+     * @return the CoffeeMakers that changed after {@code sinceVersion}, and the current version.
+     * @throws IllegalArgumentException if {@code sinceVersion} is negative or newer than the
+     *         current version.
+     */
+    public synchronized Changes changesSince(long sinceVersion) {
+        if (sinceVersion < 0 || sinceVersion > version) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot list the changes since version %d. Please pass a version between 0 "
+                            + "and the current version, %d.",
+                    sinceVersion,
+                    version));
+        }
+
+        int[] deviceIds = new int[(int) Math.min(version - sinceVersion, changedAt.length)];
+        int count = 0;
+
+        if (version - sinceVersion <= log.length) {
+            // Each CoffeeMaker's latest log entry is the one whose version it last changed at
+            for (long entry = sinceVersion + 1; entry <= version; entry++) {
+                int deviceId = log[(int) (entry & logMask)];
+                if (changedAt[deviceId] == entry) {
+                    deviceIds[count++] = deviceId;
+                }
+            }
+        } else {
+            for (int deviceId = 0; deviceId < changedAt.length; deviceId++) {
+                if (changedAt[deviceId] > sinceVersion) {
+                    deviceIds[count++] = deviceId;
+                }
+            }
+        }
+
+        return new Changes(version, Arrays.copyOf(deviceIds, count));
+    }
+
+    // Callers hold this
+    private void append(int deviceId) {
+        version++;
+        log[(int) (version & logMask)] = deviceId;
+        changedAt[deviceId] = version;
+    }
+
+    private void checkDeviceId(int deviceId) {
+        if (deviceId < 0 || deviceId >= lastStates.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Device id %d lies outside a change feed of %d coffee makers",
+                    deviceId,
+                    lastStates.length));
+        }
+    }
+
+    /**
+     * Changes lists the CoffeeMakers that changed after some version, in no particular order, and
+     * the version as of which it lists them.
+     *
+     * @author nferraro-roofing
+     *
+     */
+    @Getter
+    @ToString
+    public static final class Changes {
+
+        private final long version;
+        private final int[] deviceIds;
+
+        Changes(long version, int[] deviceIds) {
+            this.version = version;
+            this.deviceIds = deviceIds;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package roofing.coffee.maker.components;
 
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import lombok.ToString;
 import roofing.coffee.maker.busses.BusComponent;
 import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.events.ComponentEventType;
 
 /**
  * BrewButton enables a user to instruct his or her CoffeeMaker to brew some Coffee.
@@ -54,7 +57,36 @@ public class BrewButton implements BusComponent<BrewButton> {
 
     private static final Logger LOG = LoggerFactory.getLogger(BrewButton.class);
 
-    private BrewRequestState brewState = BrewRequestState.NOT_REQUESTED;
+    // The user presses the button from another thread while a tick may move the state along, so
+    // each side applies its change atomically and neither loses the other's.
+    private final AtomicReference<BrewRequestState> brewState =
+            new AtomicReference<>(BrewRequestState.NOT_REQUESTED);
+
+    // Whether readBusMessage() has noticed the current brew request, since the user presses the
+    // button from another thread
+    @ToString.Exclude
+    private boolean noticedRequest = false;
+
+    @ToString.Exclude
+    private final ComponentEventSink events;
+
+    /**
+     * Create a BrewButton that raises no events.
+     */
+    public BrewButton() {
+        this(ComponentEventSink.NONE);
+    }
+
+    /**
+     * Create a BrewButton that raises a {@code BREW_REQUESTED} event into {@code events} once it
+     * notices each new brew request, and a {@code BREW_RECEIVED} event once the request starts a
+     * brew.
+     * 
+     * @param events receives this BrewButton's transitions
+     */
+    public BrewButton(ComponentEventSink events) {
+        this.events = events;
+    }
 
     /**
      * Update the BrewButton's internal state based on the provided {@code message}.
@@ -69,17 +101,28 @@ public class BrewButton implements BusComponent<BrewButton> {
      */
     @Override
     public void readBusMessage(BusMessage message) {
-        if (brewState == BrewRequestState.REQUESTED && message.getReservoir().isBrewing()) {
+        BrewRequestState state = brewState.get();
+        boolean requested = state == BrewRequestState.REQUESTED;
+        if (requested && !noticedRequest) {
+            events.raise(ComponentEventType.BREW_REQUESTED, 0);
+        }
+
+        noticedRequest = requested;
+
+        if (requested && message.getReservoir().isBrewing()) {
             LOG.debug("Brew requested and WaterReservoir is brewing. "
                     + "Set BrewButton's state to RECEIVED");
 
-            brewState = BrewRequestState.RECEIVED;
+            // Unless the user pressed the button again meanwhile
+            if (brewState.compareAndSet(BrewRequestState.REQUESTED, BrewRequestState.RECEIVED)) {
+                events.raise(ComponentEventType.BREW_RECEIVED, 0);
+            }
 
-        } else if (brewState == BrewRequestState.RECEIVED && !message.getReservoir().isBrewing()) {
+        } else if (state == BrewRequestState.RECEIVED && !message.getReservoir().isBrewing()) {
             LOG.debug("Brew request received and WaterReservoir is NOT brewing. "
                     + "Re-setting BrewButton's state to NOT_REQUESTED");
 
-            brewState = BrewRequestState.NOT_REQUESTED;
+            brewState.compareAndSet(BrewRequestState.RECEIVED, BrewRequestState.NOT_REQUESTED);
         }
     }
 
@@ -90,7 +133,7 @@ public class BrewButton implements BusComponent<BrewButton> {
      */
     @Override
     public void refreshFrom(BrewButton other) {
-        this.brewState = other.state();
+        this.brewState.set(other.state());
     }
 
     /**
@@ -99,20 +142,26 @@ public class BrewButton implements BusComponent<BrewButton> {
      */
     @Override
     public void reset() {
-        this.brewState = BrewRequestState.NOT_REQUESTED;
+        this.brewState.set(BrewRequestState.NOT_REQUESTED);
     }
 
     /**
      * Enable the user to request that the CoffeeMaker brew some Coffee.
      * 
+     * <p>
+     * A press may race with a tick of the CoffeeMaker's clock. The press applies atomically, so the
+     * tick never overwrites it.
+     * </p>
+     * 
      */
     public void pressBrewButton() {
         // If we are idle, request for brewing.
         // Otherwise, the user must want us to stop brewing.
-        LOG.debug("Brew button has been pressed and the current state is: {}", brewState);
-        brewState = brewState == BrewRequestState.NOT_REQUESTED
-                ? BrewRequestState.REQUESTED
-                : BrewRequestState.NOT_REQUESTED;
+        BrewRequestState previous = brewState.getAndUpdate(state ->
+                state == BrewRequestState.NOT_REQUESTED
+                        ? BrewRequestState.REQUESTED
+                        : BrewRequestState.NOT_REQUESTED);
+        LOG.debug("Brew button has been pressed and the previous state was: {}", previous);
     }
 
     /**
@@ -122,14 +171,24 @@ public class BrewButton implements BusComponent<BrewButton> {
      * @return true if the user has instructed the CoffeeMaker to brew some coffee; false otherwise.
      */
     public boolean isBrewRequested() {
-        return brewState != BrewRequestState.NOT_REQUESTED;
+        return brewState.get() != BrewRequestState.NOT_REQUESTED;
+    }
+
+    // This BrewButton's state, as three bits - see SteadyState
+    int stateBits() {
+        return brewState.get().ordinal() | (noticedRequest ? 4 : 0);
+    }
+
+    // Whether further ticks would leave this BrewButton exactly as it is - see DormantState
+    boolean isAtRest() {
+        return brewState.get() == BrewRequestState.NOT_REQUESTED && !noticedRequest;
     }
 
     /*
      * Called by other BrewButton instances, hence the private protection level.
      */
     private BrewRequestState state() {
-        return brewState;
+        return brewState.get();
     }
 
     private enum BrewRequestState {
@@ -1,10 +1,14 @@
 package roofing.coffee.maker.components;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import lombok.NonNull;
 import lombok.ToString;
 import roofing.coffee.maker.busses.BusComponent;
 import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.events.ComponentEventType;
 
 /**
  * CoffeePot holds coffee, and enables the user to ultimately acquire this precious nectar.
@@ -53,17 +57,21 @@ public class CoffeePot implements BusComponent<CoffeePot> {
     private static final Logger LOG = LoggerFactory.getLogger(CoffeePot.class);
 
     /*
-     * maxCapacityCups and ticksPerCupBrewed are settings (see CoffeeMakerProperties and
-     * CoffeeMakerCreator) and should therefore be final. However, instances of WarmerPlate that are
-     * intended for use a BusMessage won't know this value (see busMessageInstance()). As a result,
-     * the only way for such instances to know about this value is from other instances
-     * post-creation time in refreshFrom() - thus preventing this value from being final.
+     * settings are shared among every CoffeeMaker with the same properties (see ComponentSettings
+     * and CoffeeMakerCreator). Instances of CoffeePot that are intended for use a BusMessage won't
+     * know them (see busMessageInstance()), and a single CoffeeMaker may override them. As a
+     * result, the settings may change post-creation time - thus preventing them from being final.
      */
-    private int maxCapacityCups;
-    private long ticksPerCupBrewed;
-    private int cupsOfCoffee = 0;
+    @ToString.Exclude
+    private volatile ComponentSettings settings;
+
+    // Users pour from other threads while the Clock's thread brews, so every update is atomic
+    private final AtomicInteger cupsOfCoffee = new AtomicInteger();
     private long ticksSinceLastCupBrewed = 0;
 
+    @ToString.Exclude
+    private final ComponentEventSink events;
+
     /**
      * Create an instance of a CoffeePot to be used as within a bus message.
      * 
@@ -99,13 +107,37 @@ public class CoffeePot implements BusComponent<CoffeePot> {
      *        Coffee to the pot.
      */
     public CoffeePot(int maxCapacityCups, long ticksPerCupBrewed) {
-        this.maxCapacityCups = maxCapacityCups;
-        this.ticksPerCupBrewed = ticksPerCupBrewed;
+        this(maxCapacityCups, ticksPerCupBrewed, ComponentEventSink.NONE);
+    }
+
+    /**
+     * Create an instance of a CoffeePot, as per {@code CoffeePot(int, long)}, that raises a
+     * {@code CUP_BREWED} event into {@code events} for each cup that it brews.
+     * 
+     * @param maxCapacityCups the max number of cups of coffee that this CoffeePot can hold
+     * @param ticksPerCupBrewed the ticks of the clock while brewing required to add one cup of
+     *        Coffee to the pot.
+     * @param events receives this CoffeePot's transitions
+     */
+    public CoffeePot(int maxCapacityCups, long ticksPerCupBrewed, ComponentEventSink events) {
+        this(ComponentSettings.of(maxCapacityCups, ticksPerCupBrewed, 0), events);
+    }
+
+    /**
+     * Create an instance of a CoffeePot, as per {@code CoffeePot(int, long, ComponentEventSink)},
+     * that refers to the capacity and brew rate within {@code settings}.
+     * 
+     * @param settings the (likely shared) settings of this CoffeePot
+     * @param events receives this CoffeePot's transitions
+     */
+    public CoffeePot(@NonNull ComponentSettings settings, ComponentEventSink events) {
+        this.settings = settings;
+        this.events = events;
     }
 
     private CoffeePot() {
-        maxCapacityCups = 0;
-        ticksPerCupBrewed = 0;
+        settings = ComponentSettings.NONE;
+        events = ComponentEventSink.NONE;
     }
 
     /**
@@ -114,6 +146,7 @@ public class CoffeePot implements BusComponent<CoffeePot> {
      * <p>
      * CoffeePot adds coffee to itself after {@code tickPerCupBrewed} (provided at construction
      * time) consecutive calls to {@code readBusMessage()} (i.e. ticks of the clock) while brewing.
+     * A message that represents several ticks counts as that many calls.
      * The CoffeePot refers to the WaterReservoir within the provided BusMessage to determine if the
      * CoffeeMaker is brewing coffee or not.
      * </p>
@@ -125,21 +158,28 @@ public class CoffeePot implements BusComponent<CoffeePot> {
         WaterReservoir waterReservoir = message.getReservoir();
 
         if (waterReservoir.isBrewing()) {
-            LOG.trace("Increment pot's clock tick counter ({}) by 1. Ticks required to reset "
+            ComponentSettings current = settings;
+            long ticksPerCupBrewed = current.getTicksPerCupBrewed();
+            LOG.trace("Increment pot's clock tick counter ({}) by {}. Ticks required to reset "
                     + "and brew a cup of coffee: {}",
                     ticksSinceLastCupBrewed,
-                    maxCapacityCups);
-            ticksSinceLastCupBrewed++;
+                    message.getTicksElapsed(),
+                    ticksPerCupBrewed);
+            ticksSinceLastCupBrewed += message.getTicksElapsed();
 
-            if (ticksSinceLastCupBrewed == ticksPerCupBrewed) {
-                ticksSinceLastCupBrewed = 0;
-                int nextCupsOfCoffee = cupsOfCoffee + 1;
+            // Usually runs at most once. A BusMessage that fast-forwards several ticks may brew
+            // several cups at once.
+            while (ticksPerCupBrewed > 0 && ticksSinceLastCupBrewed >= ticksPerCupBrewed) {
+                ticksSinceLastCupBrewed -= ticksPerCupBrewed;
 
-                if (nextCupsOfCoffee <= maxCapacityCups) {
+                // Only this thread adds coffee, and pouring only removes it. Thus, a pot that is
+                // not full now cannot overflow by the time that we add our cup.
+                if (cupsOfCoffee.get() < current.getPotMaxCapacityCups()) {
+                    int nextCupsOfCoffee = cupsOfCoffee.incrementAndGet();
                     LOG.debug("Brewed a cup of coffee! The coffee pot's current level is now {}",
                             nextCupsOfCoffee);
 
-                    cupsOfCoffee = nextCupsOfCoffee;
+                    events.raise(ComponentEventType.CUP_BREWED, nextCupsOfCoffee);
                 }
             }
         } else if (waterReservoir.isEmpty()) {
@@ -157,9 +197,8 @@ public class CoffeePot implements BusComponent<CoffeePot> {
      */
     @Override
     public void refreshFrom(CoffeePot other) {
-        this.cupsOfCoffee = other.cupsOfCoffee;
-        this.maxCapacityCups = other.maxCapacityCups;
-        this.ticksPerCupBrewed = other.ticksPerCupBrewed;
+        this.cupsOfCoffee.set(other.cupsOfCoffee());
+        this.settings = other.settings;
     }
 
     /**
@@ -168,9 +207,9 @@ public class CoffeePot implements BusComponent<CoffeePot> {
      */
     @Override
     public void reset() {
-        // Purposefully omit maxCapacityCups & ticksPerCupBrewed, as they are intended as
-        // application properties and do not really reflect internal state.
-        this.cupsOfCoffee = 0;
+        // Purposefully omit settings, as they are intended as application properties and do not
+        // really reflect internal state.
+        this.cupsOfCoffee.set(0);
     }
 
     /**
@@ -181,11 +220,22 @@ public class CoffeePot implements BusComponent<CoffeePot> {
      * completely.
      * </p>
      * 
+     * <p>
+     * Several users may pour at once, even while the CoffeeMaker brews. Each pour applies
+     * atomically, so no pour - nor any freshly brewed cup - is lost.
+     * </p>
+     * 
      * @param cups the cups of coffee to pour out
      */
     public void pourOutCoffee(int cups) {
-        cupsOfCoffee = cups >= cupsOfCoffee ? 0 : cupsOfCoffee - cups;
-        LOG.debug("Pouring out {} cups of coffee from the pot. New cups: {}", cups, cupsOfCoffee);
+        int current;
+        int next;
+        do {
+            current = cupsOfCoffee.get();
+            next = cups >= current ? 0 : current - cups;
+        } while (!cupsOfCoffee.compareAndSet(current, next));
+
+        LOG.debug("Pouring out {} cups of coffee from the pot. New cups: {}", cups, next);
     }
 
     /**
@@ -194,20 +244,65 @@ public class CoffeePot implements BusComponent<CoffeePot> {
      * @return the current cups of coffee that reside within this CoffeePot
      */
     public int cupsOfCoffee() {
-        return cupsOfCoffee;
+        return cupsOfCoffee.get();
+    }
+
+    long ticksSinceLastCupBrewed() {
+        return ticksSinceLastCupBrewed;
+    }
+
+    // Restore a CoffeePot - see DormantState
+    void restore(int cupsOfCoffee, long ticksSinceLastCupBrewed) {
+        this.cupsOfCoffee.set(cupsOfCoffee);
+        this.ticksSinceLastCupBrewed = ticksSinceLastCupBrewed;
+    }
+
+    /**
+     * Returns the maximum cups of coffee that this CoffeePot may hold.
+     * 
+     * @return the maximum cups of coffee that this CoffeePot may hold.
+     */
+    @ToString.Include(rank = 2)
+    public int maxCapacityCups() {
+        return settings.getPotMaxCapacityCups();
+    }
+
+    @ToString.Include(rank = 1)
+    private long ticksPerCupBrewed() {
+        return settings.getTicksPerCupBrewed();
+    }
+
+    /**
+     * Returns the settings that this CoffeePot refers to.
+     * 
+     * @return the settings that this CoffeePot refers to.
+     */
+    public ComponentSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Refer to {@code settings} - e.g. the settings of a single CoffeeMaker that differs from the
+     * rest of its fleet - rather than the current settings.
+     * 
+     * @param settings the settings to refer to from now on
+     */
+    public void overrideSettings(@NonNull ComponentSettings settings) {
+        this.settings = settings;
     }
 
     /**
      * Returns true when this CoffeePot currently holds its max capacity of coffee.
      * 
      * <p>
-     * A CoffeePot's maximum capacity is set at construction time.
+     * A CoffeePot's maximum capacity comes from its settings - see
+     * {@code overrideSettings(ComponentSettings)}.
      * </p>
      * 
      * @return true when this CoffeePot currently holds its max capacity of coffee; false otherwise.
      */
     public boolean isFull() {
         // Should never be greater than, but it doesn't hurt to add the check here!
-        return cupsOfCoffee >= maxCapacityCups;
+        return cupsOfCoffee.get() >= settings.getPotMaxCapacityCups();
     }
 }
\ No newline at end of file
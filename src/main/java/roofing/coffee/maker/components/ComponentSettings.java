@@ -0,0 +1,113 @@
+package roofing.coffee.maker.components;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * ComponentSettings holds the application settings of a CoffeeMaker's components - e.g. the
+ * capacity of its CoffeePot.
+ *
+ * <p>
+ * Every CoffeeMaker created from the same CoffeeMakerProperties has the same settings, so
+ * ComponentSettings is an immutable flyweight: {@code of()} returns one shared instance per
+ * distinct combination of settings, and the components of every such CoffeeMaker refer to it
+ * rather than each holding copies of its values.
+ * </p>
+ *
+ * <p>
+ * The {@code with*()} methods never modify a shared instance. They return the (equally shared)
+ * instance that differs only in the given setting, which a single CoffeeMaker may then adopt via
+ * {@code CoffeeMaker::overrideSettings} without affecting any other CoffeeMaker.
+ * </p>
+ *
+ * @see roofing.coffee.maker.plugins.properties.CoffeeMakerProperties
+ * @author nferraro-roofing
+ *
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class ComponentSettings {
+
+    private static final ConcurrentMap<ComponentSettings, ComponentSettings> SHARED =
+            new ConcurrentHashMap<>();
+
+    /**
+     * The settings of the components within a BusMessage, which copy their settings from other
+     * components.
+     */
+    public static final ComponentSettings NONE = of(0, 0, 0);
+
+    private final int potMaxCapacityCups;
+    private final long ticksPerCupBrewed;
+    private final long warmerPlateStayHotTickLimit;
+
+    private ComponentSettings(int potMaxCapacityCups,
+            long ticksPerCupBrewed,
+            long warmerPlateStayHotTickLimit) {
+
+        this.potMaxCapacityCups = potMaxCapacityCups;
+        this.ticksPerCupBrewed = ticksPerCupBrewed;
+        this.warmerPlateStayHotTickLimit = warmerPlateStayHotTickLimit;
+    }
+
+    /**
+     * Returns the shared ComponentSettings instance that holds the given settings.
+     *
+     * @param potMaxCapacityCups the max number of cups of coffee that the CoffeePot can hold
+     * @param ticksPerCupBrewed the ticks of the clock while brewing required to brew one cup
+     * @param warmerPlateStayHotTickLimit ticks of the clock that elapse after brewing during which
+     *        the WarmerPlate stays hot
+     * @return the shared ComponentSettings instance that holds the given settings.
+     */
+    public static ComponentSettings of(int potMaxCapacityCups,
+            long ticksPerCupBrewed,
+            long warmerPlateStayHotTickLimit) {
+
+        ComponentSettings settings = new ComponentSettings(potMaxCapacityCups,
+                ticksPerCupBrewed,
+                warmerPlateStayHotTickLimit);
+        ComponentSettings shared = SHARED.putIfAbsent(settings, settings);
+        return shared == null ? settings : shared;
+    }
+
+    /**
+     * Returns the shared ComponentSettings instance that matches these settings, except for
+     * {@code potMaxCapacityCups}.
+     *
+     * @param potMaxCapacityCups the max number of cups of coffee that the CoffeePot can hold
+     * @return the shared ComponentSettings instance that matches these settings, except for
+     *         {@code potMaxCapacityCups}.
+     */
+    public ComponentSettings withPotMaxCapacityCups(int potMaxCapacityCups) {
+        return of(potMaxCapacityCups, ticksPerCupBrewed, warmerPlateStayHotTickLimit);
+    }
+
+    /**
+     * Returns the shared ComponentSettings instance that matches these settings, except for
+     * {@code ticksPerCupBrewed}.
+     *
+     * @param ticksPerCupBrewed the ticks of the clock while brewing required to brew one cup
+     * @return the shared ComponentSettings instance that matches these settings, except for
+     *         {@code ticksPerCupBrewed}.
+     */
+    public ComponentSettings withTicksPerCupBrewed(long ticksPerCupBrewed) {
+        return of(potMaxCapacityCups, ticksPerCupBrewed, warmerPlateStayHotTickLimit);
+    }
+
+    /**
+     * Returns the shared ComponentSettings instance that matches these settings, except for
+     * {@code warmerPlateStayHotTickLimit}.
+     *
+     * @param warmerPlateStayHotTickLimit ticks of the clock that elapse after brewing during which
+     *        the WarmerPlate stays hot
+     * @return the shared ComponentSettings instance that matches these settings, except for
+     *         {@code warmerPlateStayHotTickLimit}.
+     */
+    public ComponentSettings withWarmerPlateStayHotTickLimit(long warmerPlateStayHotTickLimit) {
+        return of(potMaxCapacityCups, ticksPerCupBrewed, warmerPlateStayHotTickLimit);
+    }
+}
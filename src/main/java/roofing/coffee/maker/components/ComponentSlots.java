@@ -0,0 +1,276 @@
+package roofing.coffee.maker.components;
+
+import java.nio.ByteBuffer;
+
+/**
+ * ComponentSlots lays out the state of one CoffeeMaker's components - i.e. its WaterReservoir,
+ * BrewButton, CoffeePot and WarmerPlate - in a fixed-width slot of a ByteBuffer, and operates on
+ * that state in place.
+ *
+ * <p>
+ * Fleets of tens of millions of simulated CoffeeMakers keep their state in slots of direct
+ * ByteBuffers, where the garbage collector never traces it. {@code tick()} applies the rules of
+ * the components' {@code readBusMessage()} methods, for a single tick, in the order that the Bus
+ * updates them: WaterReservoir, BrewButton, CoffeePot, and then WarmerPlate. Unlike the
+ * components, it raises no events.
+ * </p>
+ *
+ * <p>
+ * The slot layout is as follows. A slot of all zeros describes a new CoffeeMaker, so a freshly
+ * allocated ByteBuffer holds nothing but new CoffeeMakers.
+ * </p>
+ *
+ * <ul>
+ * <li>Bytes 0-3: the cups of water in the WaterReservoir</li>
+ * <li>Bytes 4-7: the cups of coffee in the CoffeePot</li>
+ * <li>Bytes 8-15: the WaterReservoir's ticks since it last brewed a cup</li>
+ * <li>Bytes 16-23: the CoffeePot's ticks since it last brewed a cup</li>
+ * <li>Bytes 24-27: the WarmerPlate's ticks since brewing stopped</li>
+ * <li>Bytes 28-31: flags - brewing, hot, pot removed, and the BrewButton's state</li>
+ * </ul>
+ *
+ * <p>
+ * ComponentSlots does not synchronize. Callers must ensure that only one thread at a time operates
+ * on a slot, and that each sees the writes of the last.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class ComponentSlots {
+
+    /**
+     * The number of bytes that one CoffeeMaker's slot occupies.
+     */
+    public static final int SLOT_BYTES = 32;
+
+    /**
+     * A BrewButton's request state, as per {@code brewRequest()}: the user has not asked to brew.
+     */
+    public static final int NOT_REQUESTED = 0;
+
+    /**
+     * A BrewButton's request state, as per {@code brewRequest()}: the user asked to brew, and the
+     * WaterReservoir has yet to start.
+     */
+    public static final int REQUESTED = 1;
+
+    /**
+     * A BrewButton's request state, as per {@code brewRequest()}: the WaterReservoir started
+     * brewing on the user's request.
+     */
+    public static final int RECEIVED = 2;
+
+    private static final int CUPS_OF_WATER = 0;
+    private static final int CUPS_OF_COFFEE = 4;
+    private static final int RESERVOIR_TICKS = 8;
+    private static final int POT_TICKS = 16;
+    private static final int WARMER_CYCLES = 24;
+    private static final int FLAGS = 28;
+
+    private static final int BREWING = 1;
+    private static final int HOT = 1 << 1;
+    private static final int POT_REMOVED = 1 << 2;
+    private static final int BREW_REQUESTED = 1 << 3;
+    private static final int BREW_RECEIVED = 1 << 4;
+
+    private ComponentSlots() { /* Disable construction */ }
+
+    /**
+     * Advance the CoffeeMaker in the slot at {@code offset} by one tick.
+     *
+     * @param slots the ByteBuffer that holds the slot
+     * @param offset the index of the slot's first byte
+     * @param settings the settings of the CoffeeMaker's components
+     */
+    public static void tick(ByteBuffer slots, int offset, ComponentSettings settings) {
+        int flags = slots.getInt(offset + FLAGS);
+        int cupsOfWater = slots.getInt(offset + CUPS_OF_WATER);
+        int cupsOfCoffee = slots.getInt(offset + CUPS_OF_COFFEE);
+        long ticksPerCupBrewed = settings.getTicksPerCupBrewed();
+
+        // Like the components, which read a BusMessage that snapshots them before the tick, the
+        // BrewButton, CoffeePot and WarmerPlate see whether the WaterReservoir was brewing and
+        // empty as of the last tick.
+        boolean wasBrewing = (flags & BREWING) != 0;
+        boolean wasEmpty = cupsOfWater <= 0;
+
+        // WaterReservoir
+        boolean brewing = (flags & (BREW_REQUESTED | BREW_RECEIVED)) != 0
+                && (flags & POT_REMOVED) == 0
+                && cupsOfCoffee < settings.getPotMaxCapacityCups()
+                && !wasEmpty;
+
+        long reservoirTicks = slots.getLong(offset + RESERVOIR_TICKS);
+        if (brewing) {
+            // A single tick draws at most one cup, and only while the reservoir was not empty
+            reservoirTicks++;
+            if (ticksPerCupBrewed > 0 && reservoirTicks >= ticksPerCupBrewed) {
+                reservoirTicks -= ticksPerCupBrewed;
+                cupsOfWater--;
+
+                if (cupsOfWater <= 0) {
+                    reservoirTicks = 0;
+                }
+            }
+        } else if (wasEmpty) {
+            reservoirTicks = 0;
+        }
+
+        // BrewButton
+        if ((flags & BREW_REQUESTED) != 0 && wasBrewing) {
+            flags = flags & ~BREW_REQUESTED | BREW_RECEIVED;
+
+        } else if ((flags & BREW_RECEIVED) != 0 && !wasBrewing) {
+            flags &= ~BREW_RECEIVED;
+        }
+
+        // CoffeePot
+        long potTicks = slots.getLong(offset + POT_TICKS);
+        if (wasBrewing) {
+            // A single tick brews at most the one cup that the reservoir drew during the last tick
+            potTicks++;
+            if (ticksPerCupBrewed > 0 && potTicks >= ticksPerCupBrewed) {
+                potTicks -= ticksPerCupBrewed;
+                if (cupsOfCoffee < settings.getPotMaxCapacityCups()) {
+                    cupsOfCoffee++;
+                }
+            }
+        } else if (wasEmpty) {
+            potTicks = 0;
+        }
+
+        // WarmerPlate
+        int cycles = slots.getInt(offset + WARMER_CYCLES);
+        long stayHotTickLimit = settings.getWarmerPlateStayHotTickLimit();
+        boolean hot = wasBrewing || cycles < stayHotTickLimit;
+
+        if (wasBrewing) {
+            cycles = 0;
+
+        } else if (cycles < stayHotTickLimit) {
+            cycles = (int) Math.min(cycles + 1L, stayHotTickLimit);
+        }
+
+        flags = brewing ? flags | BREWING : flags & ~BREWING;
+        flags = hot ? flags | HOT : flags & ~HOT;
+
+        slots.putInt(offset + CUPS_OF_WATER, cupsOfWater);
+        slots.putInt(offset + CUPS_OF_COFFEE, cupsOfCoffee);
+        slots.putLong(offset + RESERVOIR_TICKS, reservoirTicks);
+        slots.putLong(offset + POT_TICKS, potTicks);
+        slots.putInt(offset + WARMER_CYCLES, cycles);
+        slots.putInt(offset + FLAGS, flags);
+    }
+
+    /**
+     * Fill the WaterReservoir in the slot at {@code offset}, as per
+     * {@code WaterReservoir::fill}.
+     *
+     * @param slots the ByteBuffer that holds the slot
+     * @param offset the index of the slot's first byte
+     * @param settings the settings of the CoffeeMaker's components
+     * @param cupsOfWater the number of cups of water to fill into the WaterReservoir
+     * @throws IllegalArgumentException when over-filled
+     */
+    public static void fill(ByteBuffer slots,
+            int offset,
+            ComponentSettings settings,
+            int cupsOfWater) {
+
+        int current = slots.getInt(offset + CUPS_OF_WATER);
+        int maxCapacityCups = settings.getPotMaxCapacityCups() + 1;
+
+        if (current + cupsOfWater > maxCapacityCups) {
+            throw new IllegalArgumentException(String.format(
+                    "Filling %1d cups of water would overfill the reservoir. The reservoir "
+                            + "currently contains %2d cups of water, and the max total capacity "
+                            + "is %3d cups.",
+                    cupsOfWater,
+                    current,
+                    maxCapacityCups));
+        }
+
+        slots.putInt(offset + CUPS_OF_WATER, current + cupsOfWater);
+    }
+
+    /**
+     * Press the BrewButton in the slot at {@code offset}, as per
+     * {@code BrewButton::pressBrewButton}.
+     *
+     * @param slots the ByteBuffer that holds the slot
+     * @param offset the index of the slot's first byte
+     */
+    public static void pressBrewButton(ByteBuffer slots, int offset) {
+        int flags = slots.getInt(offset + FLAGS);
+        boolean requested = (flags & (BREW_REQUESTED | BREW_RECEIVED)) != 0;
+        flags &= ~(BREW_REQUESTED | BREW_RECEIVED);
+
+        slots.putInt(offset + FLAGS, requested ? flags : flags | BREW_REQUESTED);
+    }
+
+    /**
+     * Pour out {@code cups} of coffee from the CoffeePot in the slot at {@code offset}, as per
+     * {@code CoffeePot::pourOutCoffee}.
+     *
+     * @param slots the ByteBuffer that holds the slot
+     * @param offset the index of the slot's first byte
+     * @param cups the cups of coffee to pour out
+     */
+    public static void pourOutCoffee(ByteBuffer slots, int offset, int cups) {
+        int current = slots.getInt(offset + CUPS_OF_COFFEE);
+        slots.putInt(offset + CUPS_OF_COFFEE, cups >= current ? 0 : current - cups);
+    }
+
+    /**
+     * Remove the CoffeePot in the slot at {@code offset} from its WarmerPlate, or replace it.
+     *
+     * @param slots the ByteBuffer that holds the slot
+     * @param offset the index of the slot's first byte
+     * @param hasPot true to replace the CoffeePot; false to remove it
+     * @return true if the CoffeePot moved; false if it was already where {@code hasPot} puts it.
+     */
+    public static boolean movePot(ByteBuffer slots, int offset, boolean hasPot) {
+        int flags = slots.getInt(offset + FLAGS);
+        if (hasPot == ((flags & POT_REMOVED) == 0)) {
+            return false;
+        }
+
+        slots.putInt(offset + FLAGS, flags ^ POT_REMOVED);
+        return true;
+    }
+
+    public static int cupsOfWater(ByteBuffer slots, int offset) {
+        return slots.getInt(offset + CUPS_OF_WATER);
+    }
+
+    public static int cupsOfCoffee(ByteBuffer slots, int offset) {
+        return slots.getInt(offset + CUPS_OF_COFFEE);
+    }
+
+    public static boolean isBrewing(ByteBuffer slots, int offset) {
+        return (slots.getInt(offset + FLAGS) & BREWING) != 0;
+    }
+
+    public static boolean isHot(ByteBuffer slots, int offset) {
+        return (slots.getInt(offset + FLAGS) & HOT) != 0;
+    }
+
+    public static boolean hasPot(ByteBuffer slots, int offset) {
+        return (slots.getInt(offset + FLAGS) & POT_REMOVED) == 0;
+    }
+
+    /**
+     * Returns the state of the BrewButton's request: {@code NOT_REQUESTED}, {@code REQUESTED}, or
+     * {@code RECEIVED}.
+     *
+     * @param slots the ByteBuffer that holds the slot
+     * @param offset the index of the slot's first byte
+     * @return the state of the BrewButton's request.
+     */
+    public static int brewRequest(ByteBuffer slots, int offset) {
+        int flags = slots.getInt(offset + FLAGS);
+        return (flags & BREW_RECEIVED) != 0 ? RECEIVED
+                : (flags & BREW_REQUESTED) != 0 ? REQUESTED : NOT_REQUESTED;
+    }
+}
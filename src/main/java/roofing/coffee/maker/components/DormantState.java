@@ -0,0 +1,145 @@
+package roofing.coffee.maker.components;
+
+/**
+ * DormantState packs the state of an at-rest CoffeeMaker's components into two longs, so that an
+ * idle CoffeeMaker may give up its object graph - i.e. its components, Bus and Clock - and later
+ * rebuild it exactly as it was.
+ *
+ * <p>
+ * A CoffeeMaker is at rest when further ticks of its Clock would change nothing: it is not
+ * brewing, nobody has requested a brew, and its WarmerPlate has cooled down. Only an at-rest
+ * CoffeeMaker's state fits in two longs, since the rest of its state - e.g. how long its
+ * WarmerPlate has stayed hot - follows from its settings.
+ * </p>
+ *
+ * <p>
+ * The packed layout is as follows. All zeros describes a new CoffeeMaker that has cooled down.
+ * </p>
+ *
+ * <ul>
+ * <li>Word 0, bits 32-63: the cups of water in the WaterReservoir</li>
+ * <li>Word 0, bits 0-31: the cups of coffee in the CoffeePot</li>
+ * <li>Word 1, bit 63: set if the CoffeePot is off the WarmerPlate</li>
+ * <li>Word 1, bits 32-62: the WaterReservoir's ticks since it last brewed a cup</li>
+ * <li>Word 1, bits 0-30: the CoffeePot's ticks since it last brewed a cup</li>
+ * </ul>
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class DormantState {
+
+    /**
+     * The number of longs that one CoffeeMaker's packed state occupies.
+     */
+    public static final int WORDS = 2;
+
+    private static final long POT_REMOVED = 1L << 63;
+    private static final long MAX_TICKS = Integer.MAX_VALUE;
+    private static final long LOW_INT = 0xFFFF_FFFFL;
+
+    private DormantState() { /* Disable construction */ }
+
+    /**
+     * Returns true if the given components are at rest, and their state therefore fits in
+     * {@code WORDS} longs; false otherwise.
+     *
+     * @param reservoir the CoffeeMaker's WaterReservoir
+     * @param button the CoffeeMaker's BrewButton
+     * @param pot the CoffeeMaker's CoffeePot
+     * @param warmer the CoffeeMaker's WarmerPlate
+     * @return true if the given components are at rest; false otherwise.
+     */
+    public static boolean isAtRest(WaterReservoir reservoir,
+            BrewButton button,
+            CoffeePot pot,
+            WarmerPlate warmer) {
+
+        return !reservoir.isBrewing()
+                && button.isAtRest()
+                && warmer.isAtRest()
+                && reservoir.ticksSinceLastCupBrewed() <= MAX_TICKS
+                && pot.ticksSinceLastCupBrewed() <= MAX_TICKS;
+    }
+
+    /**
+     * Pack the state of at-rest components into {@code words}, starting at {@code offset}.
+     *
+     * @param reservoir the CoffeeMaker's WaterReservoir
+     * @param pot the CoffeeMaker's CoffeePot
+     * @param warmer the CoffeeMaker's WarmerPlate
+     * @param words receives the packed state
+     * @param offset the index of the first of the {@code WORDS} longs to write
+     */
+    public static void pack(WaterReservoir reservoir,
+            CoffeePot pot,
+            WarmerPlate warmer,
+            long[] words,
+            int offset) {
+
+        words[offset] = (long) reservoir.cupsOfWater() << 32 | pot.cupsOfCoffee() & LOW_INT;
+        words[offset + 1] = (warmer.hasPot() ? 0 : POT_REMOVED)
+                | reservoir.ticksSinceLastCupBrewed() << 32
+                | pot.ticksSinceLastCupBrewed();
+    }
+
+    /**
+     * Restore new components - created with the same settings as those that were packed - from
+     * the state in {@code words}, starting at {@code offset}.
+     *
+     * @param words holds the packed state
+     * @param offset the index of the first of the {@code WORDS} longs to read
+     * @param reservoir the WaterReservoir to restore
+     * @param pot the CoffeePot to restore
+     * @param warmer the WarmerPlate to restore
+     */
+    public static void unpack(long[] words,
+            int offset,
+            WaterReservoir reservoir,
+            CoffeePot pot,
+            WarmerPlate warmer) {
+
+        long levels = words[offset];
+        long progress = words[offset + 1];
+
+        reservoir.restore((int) (levels >>> 32), progress >>> 32 & MAX_TICKS);
+        pot.restore((int) levels, progress & MAX_TICKS);
+        warmer.restore((progress & POT_REMOVED) == 0);
+    }
+
+    /**
+     * Returns the cups of water in the WaterReservoir of the state packed in {@code words},
+     * starting at {@code offset}.
+     *
+     * @param words holds the packed state
+     * @param offset the index of the first of the {@code WORDS} longs to read
+     * @return the cups of water in the packed WaterReservoir.
+     */
+    public static int cupsOfWater(long[] words, int offset) {
+        return (int) (words[offset] >>> 32);
+    }
+
+    /**
+     * Returns the cups of coffee in the CoffeePot of the state packed in {@code words}, starting
+     * at {@code offset}.
+     *
+     * @param words holds the packed state
+     * @param offset the index of the first of the {@code WORDS} longs to read
+     * @return the cups of coffee in the packed CoffeePot.
+     */
+    public static int cupsOfCoffee(long[] words, int offset) {
+        return (int) words[offset];
+    }
+
+    /**
+     * Returns true if the CoffeePot of the state packed in {@code words}, starting at
+     * {@code offset}, is on the WarmerPlate; false otherwise.
+     *
+     * @param words holds the packed state
+     * @param offset the index of the first of the {@code WORDS} longs to read
+     * @return true if the packed CoffeePot is on the WarmerPlate; false otherwise.
+     */
+    public static boolean hasPot(long[] words, int offset) {
+        return (words[offset + 1] & POT_REMOVED) == 0;
+    }
+}
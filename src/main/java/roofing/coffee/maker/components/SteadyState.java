@@ -0,0 +1,77 @@
+package roofing.coffee.maker.components;
+
+/**
+ * SteadyState tells a lazily evaluated CoffeeMaker how many ticks of its Clock it may fold into a
+ * single BusMessage without changing what it computes.
+ *
+ * <p>
+ * A CoffeeMaker is steady when one more tick would change nothing but the ticks that its
+ * WaterReservoir and CoffeePot have counted towards their next cups - i.e. when a tick leaves the
+ * {@code signature(...)} of its components as it was. Each tick of a steady CoffeeMaker reads the
+ * same BusMessage as the last one, apart from those counts, so it stays steady until the next cup
+ * is due - or until a Timeout of its TimerWheel runs. Until then, one BusMessage that represents
+ * many ticks leaves the components exactly as that many single ticks would have.
+ * </p>
+ *
+ * @see roofing.coffee.maker.components.DormantState
+ * @author nferraro-roofing
+ *
+ */
+public final class SteadyState {
+
+    private static final int CUPS_BITS = 24;
+    private static final long CUPS_MASK = (1L << CUPS_BITS) - 1;
+
+    private SteadyState() { /* Disable construction */ }
+
+    /**
+     * Returns a summary of the given components' state, apart from the ticks that the
+     * WaterReservoir and the CoffeePot have counted towards their next cups. A tick that changes
+     * that state changes its summary, too.
+     *
+     * @param reservoir the CoffeeMaker's WaterReservoir
+     * @param button the CoffeeMaker's BrewButton
+     * @param pot the CoffeeMaker's CoffeePot
+     * @param warmer the CoffeeMaker's WarmerPlate
+     * @return a summary of the given components' state.
+     */
+    public static long signature(WaterReservoir reservoir,
+            BrewButton button,
+            CoffeePot pot,
+            WarmerPlate warmer) {
+
+        long flags = (reservoir.isBrewing() ? 1 : 0)
+                | button.stateBits() << 1
+                | warmer.stateBits() << 4;
+
+        return flags << (2 * CUPS_BITS)
+                | (reservoir.cupsOfWater() & CUPS_MASK) << CUPS_BITS
+                | pot.cupsOfCoffee() & CUPS_MASK;
+    }
+
+    /**
+     * Returns the number of ticks until the given components brew their next cup, if they stay
+     * steady until then.
+     *
+     * @param reservoir the CoffeeMaker's WaterReservoir
+     * @param pot the CoffeeMaker's CoffeePot
+     * @return the ticks until the next cup, or {@code Long.MAX_VALUE} if none is due.
+     */
+    public static long ticksUntilNextCup(WaterReservoir reservoir, CoffeePot pot) {
+        if (!reservoir.isBrewing()) {
+            return Long.MAX_VALUE;
+        }
+
+        // The CoffeePot counts the ticks of each BusMessage whose WaterReservoir brews
+        long reservoirTicks = untilNextCup(reservoir.settings().getTicksPerCupBrewed(),
+                reservoir.ticksSinceLastCupBrewed());
+        long potTicks = untilNextCup(pot.settings().getTicksPerCupBrewed(),
+                pot.ticksSinceLastCupBrewed());
+
+        return Math.min(reservoirTicks, potTicks);
+    }
+
+    private static long untilNextCup(long ticksPerCupBrewed, long ticksSinceLastCupBrewed) {
+        return ticksPerCupBrewed > 0 ? ticksPerCupBrewed - ticksSinceLastCupBrewed : Long.MAX_VALUE;
+    }
+}
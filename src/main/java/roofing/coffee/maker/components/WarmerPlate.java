@@ -2,9 +2,14 @@ package roofing.coffee.maker.components;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import lombok.NonNull;
 import lombok.ToString;
 import roofing.coffee.maker.busses.BusComponent;
 import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.events.ComponentEventType;
+import roofing.coffee.maker.timers.Timeout;
+import roofing.coffee.maker.timers.TimerWheel;
 
 /**
  * WarmerPlate holds a CoffeePot and warms the coffee residing therein.
@@ -42,6 +47,14 @@ import roofing.coffee.maker.busses.BusMessage;
  * <li>{@link roofing.coffee.maker.components.WarmerPlate#replacePot()}</li>
  * </ul>
  * 
+ * <p>
+ * Once brewing stops, a WarmerPlate schedules a Timeout at the tick at which it should turn off,
+ * rather than counting ticks until then. A WarmerPlate of a CoffeeMaker shares the CoffeeMaker's
+ * TimerWheel, which the CoffeeMaker's Clock advances. A WarmerPlate constructed without a
+ * TimerWheel keeps one of its own, which it advances by the ticks of each BusMessage that it
+ * reads.
+ * </p>
+ * 
  * @see roofing.coffee.maker.busses.BusComponent
  * 
  * @author nferraro-roofing
@@ -53,18 +66,45 @@ public class WarmerPlate implements BusComponent<WarmerPlate> {
     private static final Logger LOG = LoggerFactory.getLogger(WarmerPlate.class);
 
     /*
-     * stayHotTickLimit is an app setting (see CoffeeMakerProperties and CoffeeMakerCreator).
-     * Therefore, it should be final. However, instances of WarmerPlate that are intended for use a
-     * BusMessage won't know this value (see busMessageInstance()). As a result, the only way for
-     * such instances to know about this value is from other instances post-creation time in
-     * refreshFrom() - thus preventing this value from being final.
+     * settings are shared among every CoffeeMaker with the same properties (see ComponentSettings
+     * and CoffeeMakerCreator). Instances of WarmerPlate that are intended for use a BusMessage
+     * won't know them (see busMessageInstance()), and a single CoffeeMaker may override them. As a
+     * result, the settings may change post-creation time - thus preventing them from being final.
      */
-    private long stayHotTickLimit;
+    @ToString.Exclude
+    private volatile ComponentSettings settings;
+
+    // Whether the WarmerPlate has turned off since brewing last stopped. A new WarmerPlate acts
+    // as if brewing just stopped.
+    private boolean hasCooled = false;
 
-    private int cyclesAfterBrewStopped = 0;
-    private boolean hasPot = true;
+    // The user removes and replaces the pot from another thread, while a tick only reads it
+    private volatile boolean hasPot = true;
     private boolean isHot = false;
 
+    // Null until an own wheel is first needed
+    @ToString.Exclude
+    private TimerWheel timers;
+
+    @ToString.Exclude
+    private final boolean ownsTimers;
+
+    // Pending from the first BusMessage after brewing stops until the WarmerPlate turns off
+    @ToString.Exclude
+    private Timeout coolDown;
+
+    // Set by coolDown, on the thread that advances the wheel
+    @ToString.Exclude
+    private volatile boolean coolDownExpired = false;
+
+    // The last hasPot that readBusMessage() noticed, since the user removes and replaces the pot
+    // from another thread
+    @ToString.Exclude
+    private boolean noticedPot = true;
+
+    @ToString.Exclude
+    private final ComponentEventSink events;
+
     /**
      * Create an instance of a WarmerPlate to be used as within a bus message.
      * 
@@ -94,11 +134,59 @@ public class WarmerPlate implements BusComponent<WarmerPlate> {
      *        WarmerPlate remains hot.
      */
     public WarmerPlate(long stayHotTickLimit) {
-        this.stayHotTickLimit = stayHotTickLimit;
+        this(stayHotTickLimit, ComponentEventSink.NONE);
+    }
+
+    /**
+     * Create an instance of a WarmerPlate, as per {@code WarmerPlate(long)}, that raises
+     * {@code WARMER_ON}, {@code WARMER_OFF}, {@code POT_REMOVED}, and {@code POT_REPLACED} events
+     * into {@code events}.
+     * 
+     * @param stayHotTickLimit ticks of the clock that elapse after brewing during which the
+     *        WarmerPlate remains hot.
+     * @param events receives this WarmerPlate's transitions
+     */
+    public WarmerPlate(long stayHotTickLimit, ComponentEventSink events) {
+        this(ComponentSettings.of(0, 0, stayHotTickLimit), events);
+    }
+
+    /**
+     * Create an instance of a WarmerPlate, as per {@code WarmerPlate(long, ComponentEventSink)},
+     * that refers to the stay-hot tick limit within {@code settings}.
+     * 
+     * @param settings the (likely shared) settings of this WarmerPlate
+     * @param events receives this WarmerPlate's transitions
+     */
+    public WarmerPlate(@NonNull ComponentSettings settings, ComponentEventSink events) {
+        this.settings = settings;
+        this.events = events;
+        this.ownsTimers = true;
+    }
+
+    /**
+     * Create an instance of a WarmerPlate, as per {@code WarmerPlate(ComponentSettings,
+     * ComponentEventSink)}, that schedules its shutoff on {@code timers} - e.g. its CoffeeMaker's
+     * TimerWheel. The WarmerPlate never advances {@code timers}; the wheel's owner must advance it
+     * by one per tick of the clock.
+     * 
+     * @param settings the (likely shared) settings of this WarmerPlate
+     * @param events receives this WarmerPlate's transitions
+     * @param timers the wheel on which to schedule this WarmerPlate's shutoff
+     */
+    public WarmerPlate(@NonNull ComponentSettings settings,
+            ComponentEventSink events,
+            @NonNull TimerWheel timers) {
+
+        this.settings = settings;
+        this.events = events;
+        this.timers = timers;
+        this.ownsTimers = false;
     }
 
     private WarmerPlate() {
-        this.stayHotTickLimit = 0;
+        this.settings = ComponentSettings.NONE;
+        this.events = ComponentEventSink.NONE;
+        this.ownsTimers = true;
     }
 
     /**
@@ -107,7 +195,8 @@ public class WarmerPlate implements BusComponent<WarmerPlate> {
      * <p>
      * The WarmerPlate is always hot while brewing coffee. After brewing completes, this WarmerPlate
      * remains hot until {@code stayHotTickLimit} ticks of the clock elapse (set at construction
-     * time).
+     * time). The WarmerPlate fixes its shutoff tick once it notices that brewing stopped, so an
+     * override of its settings takes effect from the next shutoff.
      * </p>
      * 
      * @param message a snapshot of the CoffeeMaker's other BusComponents.
@@ -115,20 +204,70 @@ public class WarmerPlate implements BusComponent<WarmerPlate> {
     @Override
     public void readBusMessage(BusMessage message) {
         boolean reservoirIsBrewing = message.getReservoir().isBrewing();
+        boolean wasHot = isHot;
 
-        // < instead of <= because WarmerPlate naturally has a 1-tick lag time after brewing stops
-        isHot = reservoirIsBrewing || cyclesAfterBrewStopped < stayHotTickLimit;
+        if (ownsTimers) {
+            if (timers == null) {
+                timers = new TimerWheel();
+            }
+
+            timers.advance(message.getTicksElapsed());
+        }
 
         if (reservoirIsBrewing) {
-            cyclesAfterBrewStopped = 0;
+            if (coolDown != null) {
+                coolDown.cancel();
+                coolDown = null;
+            }
+
+            hasCooled = false;
+            isHot = true;
 
-        } else if (cyclesAfterBrewStopped < stayHotTickLimit) {
-            cyclesAfterBrewStopped++;
+        } else if (coolDown != null) {
+            if (coolDownExpired) {
+                coolDown = null;
+                hasCooled = true;
+                isHot = false;
+            }
+
+        } else if (!hasCooled) {
+            startCoolingDown(message.getTicksElapsed());
         }
 
-        LOG.trace("WarmerPlate after reading a BusMessage: isHot? {}, cyclesAfterBrewStopped? {}",
+        LOG.trace("WarmerPlate after reading a BusMessage: isHot? {}, hasCooled? {}",
                 isHot,
-                cyclesAfterBrewStopped);
+                hasCooled);
+
+        boolean pot = hasPot;
+        if (pot != noticedPot) {
+            noticedPot = pot;
+            events.raise(pot ? ComponentEventType.POT_REPLACED : ComponentEventType.POT_REMOVED, 0);
+        }
+
+        if (isHot != wasHot) {
+            events.raise(isHot ? ComponentEventType.WARMER_ON : ComponentEventType.WARMER_OFF, 0);
+        }
+    }
+
+    private void startCoolingDown(long ticksElapsed) {
+        long stayHotTickLimit = settings.getWarmerPlateStayHotTickLimit();
+
+        // A message that fast-forwards several ticks must leave us as hot as the last of those
+        // ticks would have. A message that represents no ticks is judged like a single tick.
+        long lastTickOffset = Math.max(ticksElapsed - 1, 0);
+
+        // < instead of <= because WarmerPlate naturally has a 1-tick lag time after brewing stops
+        isHot = lastTickOffset < stayHotTickLimit;
+        hasCooled = !isHot;
+
+        if (isHot) {
+            // Off on the tick that ends stayHotTickLimit + 1 ticks after the tick before this
+            // message - i.e. after as many ticks as a count of the ticks since brewing stopped
+            // would have waited
+            coolDownExpired = false;
+            coolDown = timers.schedule(timers.now() - ticksElapsed + stayHotTickLimit + 1,
+                    () -> coolDownExpired = true);
+        }
     }
 
     /**
@@ -140,9 +279,9 @@ public class WarmerPlate implements BusComponent<WarmerPlate> {
     public void refreshFrom(WarmerPlate other) {
         this.hasPot = other.hasPot();
         this.isHot = other.isHot();
-        this.stayHotTickLimit = other.stayHotTickLimit;
-        // No need to refresh cyclesAfterBrewStopped because this information is not important in a
-        // bus message. It's an internal-only value.
+        this.settings = other.settings;
+        // No need to refresh the shutoff's Timeout because this information is not important in
+        // a bus message. It's an internal-only value.
     }
 
     /**
@@ -151,8 +290,8 @@ public class WarmerPlate implements BusComponent<WarmerPlate> {
      */
     @Override
     public void reset() {
-        // Purposefully omit stayHotTickLimit, as it is intended as an application
-        // property and does not really reflect internal state.
+        // Purposefully omit settings, as they are intended as application properties and do not
+        // really reflect internal state.
         this.hasPot = true;
         this.isHot = false;
     }
@@ -195,4 +334,50 @@ public class WarmerPlate implements BusComponent<WarmerPlate> {
     public boolean hasPot() {
         return hasPot;
     }
+
+    // This WarmerPlate's state, as five bits - see SteadyState
+    int stateBits() {
+        return (isHot ? 1 : 0)
+                | (hasPot ? 2 : 0)
+                | (noticedPot ? 4 : 0)
+                | (hasCooled ? 8 : 0)
+                | (coolDown != null ? 16 : 0);
+    }
+
+    // Whether further ticks would leave this WarmerPlate exactly as it is - see DormantState
+    boolean isAtRest() {
+        return !isHot && hasCooled && noticedPot == hasPot;
+    }
+
+    // Restore an at-rest WarmerPlate - see DormantState
+    void restore(boolean hasPot) {
+        this.hasPot = hasPot;
+        this.noticedPot = hasPot;
+        this.isHot = false;
+        this.hasCooled = true;
+    }
+
+    /**
+     * Returns the settings that this WarmerPlate refers to.
+     * 
+     * @return the settings that this WarmerPlate refers to.
+     */
+    public ComponentSettings settings() {
+        return settings;
+    }
+
+    @ToString.Include(rank = 1)
+    private long stayHotTickLimit() {
+        return settings.getWarmerPlateStayHotTickLimit();
+    }
+
+    /**
+     * Refer to {@code settings} - e.g. the settings of a single CoffeeMaker that differs from the
+     * rest of its fleet - rather than the current settings.
+     * 
+     * @param settings the settings to refer to from now on
+     */
+    public void overrideSettings(@NonNull ComponentSettings settings) {
+        this.settings = settings;
+    }
 }
\ No newline at end of file
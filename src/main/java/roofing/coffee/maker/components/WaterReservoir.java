@@ -1,10 +1,14 @@
 package roofing.coffee.maker.components;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import lombok.NonNull;
 import lombok.ToString;
 import roofing.coffee.maker.busses.BusComponent;
 import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.events.ComponentEventType;
 
 /**
  * WaterReservoir holds coffee, and enables the user to ultimately acquire this precious nectar.
@@ -53,29 +57,34 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
     private static final Logger LOG = LoggerFactory.getLogger(WaterReservoir.class);
     private static final int COFFEE_POT_MAX_CAPACITY_OFFSET = 1;
 
-    private final long ticksPerCupBrewed;
-
     /*
-     * maxCapacityCups is an app setting (see CoffeeMakerProperties and CoffeeMakerCreator).
-     * Therefore, it should be final. However, instances of WarmerPlate that are intended for use a
-     * BusMessage won't know this value (see busMessageInstance()). As a result, the only way for
-     * such instances to know about this value is from other instances post-creation time in
-     * refreshFrom() - thus preventing this value from being final.
+     * settings are shared among every CoffeeMaker with the same properties (see ComponentSettings
+     * and CoffeeMakerCreator). Instances of WaterReservoir that are intended for use a BusMessage
+     * won't know them (see busMessageInstance()), and a single CoffeeMaker may override them. As a
+     * result, the settings may change post-creation time - thus preventing them from being final.
      */
-    private int maxCapacityCups;
-    private int cupsOfWater = 0;
+    @ToString.Exclude
+    private volatile ComponentSettings settings;
+
+    // Users fill from other threads while the Clock's thread brews, so every update is atomic
+    private final AtomicInteger cupsOfWater = new AtomicInteger();
+
     private boolean isBrewing = false;
     private long ticksSinceLastCupBrewed = 0;
 
+    @ToString.Exclude
+    private final ComponentEventSink events;
+
     /**
      * Create an instance of a WaterReservoir to be used as within a bus message. T
      * 
      * <p>
-     * This instance has no capacity and cannot brew any coffee. However, it copies the capacity of
-     * any WaterReservoir provided as an argument to {@code refreshFrom(WaterReservoir)}.
+     * This instance has no settings of its own and cannot brew any coffee. However, it copies the
+     * settings of any WaterReservoir provided as an argument to
+     * {@code refreshFrom(WaterReservoir)}.
      * </p>
      * 
-     * @return a WaterReservoir that has no capacity and cannot brew any coffee.
+     * @return a WaterReservoir that has no settings of its own and cannot brew any coffee.
      */
     public static WaterReservoir busMessageInstance() {
         return new WaterReservoir();
@@ -112,13 +121,43 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      *        water from to the reservoir.
      */
     public WaterReservoir(int potMaxCapacityCups, long ticksPerCupBrewed) {
-        this.maxCapacityCups = potMaxCapacityCups + COFFEE_POT_MAX_CAPACITY_OFFSET;
-        this.ticksPerCupBrewed = ticksPerCupBrewed;
+        this(potMaxCapacityCups, ticksPerCupBrewed, ComponentEventSink.NONE);
+    }
+
+    /**
+     * Create an instance of a WaterReservoir, as per {@code WaterReservoir(int, long)}, that raises
+     * {@code BREW_STARTED}, {@code WATER_DRAWN}, and {@code BREW_STOPPED} events into
+     * {@code events}.
+     * 
+     * @param potMaxCapacityCups the max number of cups of <i>coffee</i> that this WaterReservoir's
+     *        CoffeePot can hold
+     * @param ticksPerCupBrewed the ticks of the clock while brewing required to remove one cup of
+     *        water from to the reservoir.
+     * @param events receives this WaterReservoir's transitions
+     */
+    public WaterReservoir(int potMaxCapacityCups,
+            long ticksPerCupBrewed,
+            ComponentEventSink events) {
+
+        this(ComponentSettings.of(potMaxCapacityCups, ticksPerCupBrewed, 0), events);
+    }
+
+    /**
+     * Create an instance of a WaterReservoir, as per
+     * {@code WaterReservoir(int, long, ComponentEventSink)}, that refers to the pot capacity and
+     * brew rate within {@code settings}.
+     * 
+     * @param settings the (likely shared) settings of this WaterReservoir
+     * @param events receives this WaterReservoir's transitions
+     */
+    public WaterReservoir(@NonNull ComponentSettings settings, ComponentEventSink events) {
+        this.settings = settings;
+        this.events = events;
     }
 
     private WaterReservoir() {
-        this.maxCapacityCups = 0;
-        this.ticksPerCupBrewed = 0;
+        this.settings = ComponentSettings.NONE;
+        this.events = ComponentEventSink.NONE;
     }
     
     /**
@@ -127,7 +166,7 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      * <p>
      * WaterReservoir removes water from itself after {@code tickPerCupBrewed} (provided at
      * construction time) consecutive calls to {@code readBusMessage()} (i.e. ticks of the clock)
-     * while brewing.
+     * while brewing. A message that represents several ticks counts as that many calls.
      * </p>
      * 
      * <p>
@@ -139,26 +178,49 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      */
     @Override
     public void readBusMessage(BusMessage message) {
+        boolean wasBrewing = isBrewing;
+        int cupsDrawn = 0;
         isBrewing = message.getButton().isBrewRequested()
                 && message.getWarmer().hasPot()
                 && !message.getPot().isFull()
                 && !isEmpty();
 
         if (isBrewing) {
-            LOG.trace("Increment reservoir's clock tick counter ({}) by 1. Ticks required to reset "
-                    + "and remove a cup of water: {}", ticksSinceLastCupBrewed, ticksPerCupBrewed);
+            long ticksPerCupBrewed = settings.getTicksPerCupBrewed();
+            LOG.trace("Increment reservoir's clock tick counter ({}) by {}. Ticks required to reset "
+                    + "and remove a cup of water: {}",
+                    ticksSinceLastCupBrewed,
+                    message.getTicksElapsed(),
+                    ticksPerCupBrewed);
+
+            ticksSinceLastCupBrewed += message.getTicksElapsed();
 
-            ticksSinceLastCupBrewed++;
+            // Usually runs at most once. A BusMessage that fast-forwards several ticks may
+            // remove several cups at once, though never more water than we have.
+            while (ticksPerCupBrewed > 0 && ticksSinceLastCupBrewed >= ticksPerCupBrewed) {
+                ticksSinceLastCupBrewed -= ticksPerCupBrewed;
+                cupsOfWater.decrementAndGet();
+                cupsDrawn++;
 
-            if (ticksSinceLastCupBrewed == ticksPerCupBrewed) {
-                cupsOfWater--;
-                ticksSinceLastCupBrewed = 0;
+                if (isEmpty()) {
+                    ticksSinceLastCupBrewed = 0;
+                }
             }
         } else if (isEmpty()) { // Only reset state if we have nothing else to brew. Otherwise, we
                                 // want to be able to return to where we left off - e.g. resume
                                 // brewing after use removed and replaced the coffee pot
             ticksSinceLastCupBrewed = 0;
         }
+
+        if (isBrewing != wasBrewing) {
+            events.raise(isBrewing ? ComponentEventType.BREW_STARTED
+                    : ComponentEventType.BREW_STOPPED,
+                    cupsOfWater());
+        }
+
+        if (cupsDrawn > 0) {
+            events.raise(ComponentEventType.WATER_DRAWN, cupsDrawn);
+        }
     }
 
     /**
@@ -168,9 +230,9 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      */
     @Override
     public void refreshFrom(WaterReservoir other) {
-        this.cupsOfWater = other.cupsOfWater;
+        this.cupsOfWater.set(other.cupsOfWater());
         this.isBrewing = other.isBrewing;
-        this.maxCapacityCups = other.maxCapacityCups;
+        this.settings = other.settings;
     }
 
     /**
@@ -179,9 +241,9 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      */
     @Override
     public void reset() {
-        // Purposefully omit maxCapacityCups & ticksPerCupBrewed, as they are intended as
-        // application properties and do not really reflect internal state.
-        cupsOfWater = 0;
+        // Purposefully omit settings, as they are intended as application properties and do not
+        // really reflect internal state.
+        cupsOfWater.set(0);
         isBrewing = false;
     }
 
@@ -194,27 +256,37 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      * then throw an IllegalArgumentException.
      * </p>
      * 
+     * <p>
+     * Several users may fill at once, even while the CoffeeMaker brews. Each fill checks the
+     * capacity and adds its water in one atomic step, so concurrent fills never jointly over-fill
+     * the WaterReservoir.
+     * </p>
+     * 
      * @param cupsOfwater the number of cups of water to fill into this WaterReservoir
      * @throws IllegalArgumentException when over-filled
      */
     public void fill(int cupsOfwater) {
-        LOG.debug("Filling the water reservoir with {} cups of water. Current level: {}",
-                cupsOfwater,
-                this.cupsOfWater);
-        int nextCupsOfWater = this.cupsOfWater + cupsOfwater;
-
-        if (nextCupsOfWater > maxCapacityCups) {
-            throw new IllegalArgumentException(
-                    String.format(
-                            "Filling %1d cups of water would overfill the reservoir. The reservoir "
-                                    + "currently contains %2d cups of water, and the max total "
-                                    + "capacity is %3d cups.",
-                            cupsOfwater,
-                            this.cupsOfWater,
-                            maxCapacityCups));
-        }
+        int maxCapacityCups = maxCapacityCups();
+        int currentCupsOfWater;
+        int nextCupsOfWater;
+        do {
+            currentCupsOfWater = this.cupsOfWater.get();
+            LOG.debug("Filling the water reservoir with {} cups of water. Current level: {}",
+                    cupsOfwater,
+                    currentCupsOfWater);
+            nextCupsOfWater = currentCupsOfWater + cupsOfwater;
 
-        this.cupsOfWater += cupsOfwater;
+            if (nextCupsOfWater > maxCapacityCups) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Filling %1d cups of water would overfill the reservoir. The "
+                                        + "reservoir currently contains %2d cups of water, and "
+                                        + "the max total capacity is %3d cups.",
+                                cupsOfwater,
+                                currentCupsOfWater,
+                                maxCapacityCups));
+            }
+        } while (!this.cupsOfWater.compareAndSet(currentCupsOfWater, nextCupsOfWater));
     }
 
     /**
@@ -223,7 +295,7 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      * @return the cups of water that currently reside within this WaterReservoir.
      */
     public int cupsOfWater() {
-        return cupsOfWater;
+        return cupsOfWater.get();
     }
 
     /**
@@ -245,8 +317,44 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      * 
      * @return the maximum cups of water that this WaterReservoir may hold.
      */
+    @ToString.Include(rank = 1)
     public int maxCapacityCups() {
-        return maxCapacityCups;
+        return settings.getPotMaxCapacityCups() + COFFEE_POT_MAX_CAPACITY_OFFSET;
+    }
+
+    @ToString.Include(rank = 2)
+    private long ticksPerCupBrewed() {
+        return settings.getTicksPerCupBrewed();
+    }
+
+    /**
+     * Returns the settings that this WaterReservoir refers to.
+     * 
+     * @return the settings that this WaterReservoir refers to.
+     */
+    public ComponentSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Refer to {@code settings} - e.g. the settings of a single CoffeeMaker that differs from the
+     * rest of its fleet - rather than the current settings.
+     * 
+     * @param settings the settings to refer to from now on
+     */
+    public void overrideSettings(@NonNull ComponentSettings settings) {
+        this.settings = settings;
+    }
+
+    long ticksSinceLastCupBrewed() {
+        return ticksSinceLastCupBrewed;
+    }
+
+    // Restore a WaterReservoir that is not brewing - see DormantState
+    void restore(int cupsOfWater, long ticksSinceLastCupBrewed) {
+        this.cupsOfWater.set(cupsOfWater);
+        this.ticksSinceLastCupBrewed = ticksSinceLastCupBrewed;
+        this.isBrewing = false;
     }
 
     /**
@@ -256,6 +364,6 @@ public class WaterReservoir implements BusComponent<WaterReservoir> {
      */
     public boolean isEmpty() {
         // This really should never go negative, but it doesn't hurt to check!
-        return cupsOfWater <= 0;
+        return cupsOfWater.get() <= 0;
     }
 }
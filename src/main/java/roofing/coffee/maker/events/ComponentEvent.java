@@ -0,0 +1,36 @@
+package roofing.coffee.maker.events;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A ComponentEvent is a slot in an EventRingBuffer.
+ * 
+ * <p>
+ * An EventRingBuffer allocates all of its ComponentEvents up front and overwrites them as it
+ * wraps around. Therefore, an EventHandler must copy any data that it needs to keep beyond its
+ * call to {@code onEvent()}.
+ * </p>
+ * 
+ * @see roofing.coffee.maker.events.EventRingBuffer
+ * @author nferraro-roofing
+ *
+ */
+@Getter
+@ToString
+public final class ComponentEvent {
+
+    private long sequence = -1;
+    private ComponentEventType type;
+    private int value;
+
+    ComponentEvent() {
+        // Only an EventRingBuffer creates ComponentEvents
+    }
+
+    void set(long sequence, ComponentEventType type, int value) {
+        this.sequence = sequence;
+        this.type = type;
+        this.value = value;
+    }
+}
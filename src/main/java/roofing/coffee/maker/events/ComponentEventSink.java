@@ -0,0 +1,32 @@
+package roofing.coffee.maker.events;
+
+/**
+ * A ComponentEventSink receives the transitions of a CoffeeMaker's components.
+ * 
+ * <p>
+ * Components raise events from {@code readBusMessage()} only - i.e. on the thread that updates the
+ * CoffeeMaker's Bus. A component that notices a user's command - e.g. a removed pot - raises the
+ * corresponding event on the next tick or evaluation. Therefore, each CoffeeMaker raises its events
+ * from a single thread at a time, in order.
+ * </p>
+ * 
+ * @see roofing.coffee.maker.events.EventRingBuffer
+ * @author nferraro-roofing
+ *
+ */
+@FunctionalInterface
+public interface ComponentEventSink {
+
+    /**
+     * A sink that discards every event.
+     */
+    ComponentEventSink NONE = (type, value) -> { };
+
+    /**
+     * Receive a component's transition.
+     * 
+     * @param type the transition
+     * @param value a number whose meaning depends on {@code type}
+     */
+    void raise(ComponentEventType type, int value);
+}
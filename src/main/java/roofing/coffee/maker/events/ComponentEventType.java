@@ -0,0 +1,69 @@
+package roofing.coffee.maker.events;
+
+/**
+ * A ComponentEventType names a transition of one of a CoffeeMaker's components.
+ * 
+ * <p>
+ * Each type documents the component that raises it and the meaning of the event's {@code value}.
+ * </p>
+ * 
+ * @see roofing.coffee.maker.events.ComponentEvent
+ * @author nferraro-roofing
+ *
+ */
+public enum ComponentEventType {
+
+    /**
+     * The BrewButton noticed a new brew request. The value is unused and always {@code 0}.
+     */
+    BREW_REQUESTED,
+
+    /**
+     * The BrewButton saw the WaterReservoir start brewing the requested brew - i.e. a brew request
+     * became a brew. The value is unused and always {@code 0}.
+     */
+    BREW_RECEIVED,
+
+    /**
+     * The WaterReservoir started brewing. The value is the cups of water in the reservoir.
+     */
+    BREW_STARTED,
+
+    /**
+     * The WaterReservoir drew water into the brew. The value is the cups of water drawn - usually
+     * one, but more if a single update fast-forwarded several ticks.
+     */
+    WATER_DRAWN,
+
+    /**
+     * The CoffeePot received a freshly brewed cup. The value is the cups of coffee in the pot.
+     */
+    CUP_BREWED,
+
+    /**
+     * The WaterReservoir stopped brewing. The value is the cups of water in the reservoir.
+     */
+    BREW_STOPPED,
+
+    /**
+     * The WarmerPlate noticed that the user removed the CoffeePot. The value is unused and always
+     * {@code 0}.
+     */
+    POT_REMOVED,
+
+    /**
+     * The WarmerPlate noticed that the user replaced the CoffeePot. The value is unused and always
+     * {@code 0}.
+     */
+    POT_REPLACED,
+
+    /**
+     * The WarmerPlate turned on. The value is unused and always {@code 0}.
+     */
+    WARMER_ON,
+
+    /**
+     * The WarmerPlate turned off. The value is unused and always {@code 0}.
+     */
+    WARMER_OFF;
+}
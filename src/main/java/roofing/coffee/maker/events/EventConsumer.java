@@ -0,0 +1,100 @@
+package roofing.coffee.maker.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An EventConsumer passes the events of an EventRingBuffer to an EventHandler in batches.
+ * 
+ * <p>
+ * An EventConsumer tracks its own sequence - i.e. the last event that its handler consumed - so it
+ * never contends with other consumers. It publishes its sequence once per batch rather than once
+ * per event, which lets a consumer that falls behind catch up cheaply.
+ * </p>
+ * 
+ * <p>
+ * Obtain an EventConsumer from {@link EventRingBuffer#addConsumer(EventHandler, WaitStrategy)},
+ * run it on a thread of your choosing, and {@code halt()} it once done.
+ * </p>
+ * 
+ * @author nferraro-roofing
+ *
+ */
+public final class EventConsumer implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventConsumer.class);
+
+    private final EventRingBuffer ringBuffer;
+    private final EventHandler handler;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLong sequence;
+
+    private volatile boolean running = true;
+
+    EventConsumer(EventRingBuffer ringBuffer,
+            EventHandler handler,
+            WaitStrategy waitStrategy,
+            long startSequence) {
+
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.waitStrategy = waitStrategy;
+        this.sequence = new AtomicLong(startSequence);
+    }
+
+    /**
+     * Consume events until {@code halt()}.
+     */
+    @Override
+    public void run() {
+        long next = sequence.get() + 1;
+
+        while (running) {
+            long available = ringBuffer.waitFor(next, this, waitStrategy);
+
+            for (; next <= available; next++) {
+                ComponentEvent event = ringBuffer.get(next);
+
+                try {
+                    handler.onEvent(event, next == available);
+                } catch (RuntimeException e) {
+                    LOG.warn("Event handler failed to consume {}. Skipping it.", event, e);
+                }
+            }
+
+            sequence.lazySet(available);
+        }
+    }
+
+    /**
+     * Stop consuming events.
+     * 
+     * <p>
+     * The consumer finishes its current batch, and then {@code run()} returns. The producer no
+     * longer keeps the events that the consumer has yet to consume.
+     * </p>
+     */
+    public void halt() {
+        running = false;
+        ringBuffer.remove(this);
+    }
+
+    /**
+     * Returns the sequence of the last event that this consumer has consumed.
+     * 
+     * @return the sequence of the last event that this consumer has consumed.
+     */
+    public long sequence() {
+        return sequence.get();
+    }
+
+    // Skip every event up to startSequence, before the consumer runs - see EventRingBuffer
+    void startAfter(long startSequence) {
+        sequence.set(startSequence);
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,26 @@
+package roofing.coffee.maker.events;
+
+/**
+ * An EventHandler consumes the ComponentEvents of an EventRingBuffer, one by one and in order.
+ * 
+ * @see roofing.coffee.maker.events.EventRingBuffer#addConsumer(EventHandler, WaitStrategy)
+ * @author nferraro-roofing
+ *
+ */
+@FunctionalInterface
+public interface EventHandler {
+
+    /**
+     * Consume {@code event}.
+     * 
+     * <p>
+     * The EventRingBuffer reuses {@code event} once this method returns, so implementations must
+     * copy any data that they wish to keep.
+     * </p>
+     * 
+     * @param event the next event
+     * @param endOfBatch true if {@code event} is the last event that is currently available -
+     *        e.g. a journal may flush its writes.
+     */
+    void onEvent(ComponentEvent event, boolean endOfBatch);
+}
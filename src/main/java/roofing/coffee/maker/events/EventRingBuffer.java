@@ -0,0 +1,203 @@
+package roofing.coffee.maker.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An EventRingBuffer carries a CoffeeMaker's component events from its Clock's thread to any
+ * number of in-process consumers - e.g. metrics, a journal, and alerting - without allocating.
+ * 
+ * <p>
+ * An EventRingBuffer follows the design of the LMAX Disruptor. It preallocates a power-of-two
+ * number of ComponentEvent slots. A single producer - the CoffeeMaker's components, via
+ * {@code raise()} - fills the next slot and then advances the buffer's <i>cursor</i>. Each
+ * EventConsumer tracks its own <i>sequence</i>, and waits for the cursor to pass it according to
+ * its WaitStrategy. Therefore, consumers never contend with each other, and every consumer sees
+ * the same events in the same order.
+ * </p>
+ * 
+ * <p>
+ * The producer never overwrites a slot that a consumer has yet to consume. Nor does it wait for a
+ * slow consumer: it raises events while its Clock holds the CoffeeMaker's bus, so waiting would
+ * stall the Clock - and every command that needs the bus - on the slowest handler. If the buffer
+ * is full, the producer drops the event for every consumer instead, counts it - see
+ * {@code droppedEvents()} - and logs a warning on the 1st, 2nd, 4th, 8th... drop, so that the
+ * log reports sustained loss without flooding. Size the buffer generously, and keep handlers
+ * quick.
+ * </p>
+ * 
+ * <p>
+ * <b>An EventRingBuffer supports exactly one producer.</b> Do not share one among several
+ * CoffeeMakers.
+ * </p>
+ * 
+ * @see roofing.coffee.maker.events.EventConsumer
+ * @author nferraro-roofing
+ *
+ */
+public final class EventRingBuffer implements ComponentEventSink {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventRingBuffer.class);
+
+    private final ComponentEvent[] slots;
+    private final int mask;
+
+    // The sequence of the last published event
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final List<EventConsumer> consumers = new CopyOnWriteArrayList<>();
+
+    // Only the producer writes droppedEvents, and only the producer reads or writes the fields
+    // below it
+    private volatile long droppedEvents = 0;
+    private long lastClaimed = -1;
+    private long cachedSlowestConsumer = -1;
+
+    /**
+     * Construct an EventRingBuffer with {@code capacity} preallocated slots.
+     * 
+     * @param capacity the number of slots; must be a positive power of two.
+     * @throws IllegalArgumentException if {@code capacity} is not a positive power of two.
+     */
+    public EventRingBuffer(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Ring buffer capacity must be a positive power of two, but was %d",
+                    capacity));
+        }
+
+        this.slots = new ComponentEvent[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new ComponentEvent();
+        }
+    }
+
+    /**
+     * Publish an event to every consumer.
+     * 
+     * <p>
+     * Only the buffer's single producer may call this method. It never waits: if the buffer is
+     * full, it drops the event, counts it, and may log a warning.
+     * </p>
+     */
+    @Override
+    public void raise(ComponentEventType type, int value) {
+        long sequence = lastClaimed + 1;
+        long wrapPoint = sequence - slots.length;
+
+        if (wrapPoint > cachedSlowestConsumer) {
+            cachedSlowestConsumer = slowestConsumer(sequence - 1);
+            if (wrapPoint > cachedSlowestConsumer) {
+                drop(type);
+                return;
+            }
+        }
+
+        slots[index(sequence)].set(sequence, type, value);
+        lastClaimed = sequence;
+        cursor.lazySet(sequence);
+    }
+
+    /**
+     * Add a consumer that passes every event published from now on to {@code handler}.
+     * 
+     * <p>
+     * The caller must run the returned EventConsumer - e.g. on a dedicated thread - and
+     * {@code halt()} it once done. Until then, the producer drops events rather than overwrite
+     * those that the consumer has yet to consume.
+     * </p>
+     * 
+     * @param handler consumes the events
+     * @param waitStrategy how the consumer waits for events
+     * @return an EventConsumer, which the caller must run.
+     */
+    public EventConsumer addConsumer(@NonNull EventHandler handler,
+            @NonNull WaitStrategy waitStrategy) {
+
+        // Gate the producer on the consumer before reading the cursor that the consumer starts
+        // after. Otherwise, the producer could lap the consumer in between, and the consumer would
+        // read overwritten slots. Gating at an older cursor first keeps the producer in check
+        // until the consumer moves up.
+        EventConsumer consumer = new EventConsumer(this, handler, waitStrategy, cursor.get());
+        consumers.add(consumer);
+        consumer.startAfter(cursor.get());
+        return consumer;
+    }
+
+    /**
+     * Returns the sequence of the last published event, or {@code -1} if none.
+     * 
+     * @return the sequence of the last published event, or {@code -1} if none.
+     */
+    public long cursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Returns the number of events that the producer dropped because the buffer was full.
+     * 
+     * @return the number of events that the producer dropped.
+     */
+    public long droppedEvents() {
+        return droppedEvents;
+    }
+
+    /**
+     * Returns the number of slots in this EventRingBuffer.
+     * 
+     * @return the number of slots in this EventRingBuffer.
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    long waitFor(long sequence, EventConsumer consumer, WaitStrategy waitStrategy) {
+        long available;
+        int attempts = 0;
+
+        while ((available = cursor.get()) < sequence && consumer.isRunning()) {
+            waitStrategy.idle(attempts++);
+        }
+
+        return available;
+    }
+
+    ComponentEvent get(long sequence) {
+        return slots[index(sequence)];
+    }
+
+    void remove(EventConsumer consumer) {
+        consumers.remove(consumer);
+    }
+
+    private void drop(ComponentEventType type) {
+        long dropped = droppedEvents + 1;
+        droppedEvents = dropped;
+
+        if (Long.bitCount(dropped) == 1) {
+            LOG.warn("Event ring buffer of {} slots is full. Dropped a {} event, and {} in total. "
+                    + "Please enlarge the buffer, or speed up its slowest consumer.",
+                    slots.length,
+                    type,
+                    dropped);
+        }
+    }
+
+    private long slowestConsumer(long defaultSequence) {
+        long slowest = defaultSequence;
+        for (EventConsumer consumer : consumers) {
+            slowest = Math.min(slowest, consumer.sequence());
+        }
+
+        return slowest;
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+}
@@ -0,0 +1,68 @@
+package roofing.coffee.maker.events;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A WaitStrategy tells an EventConsumer how to wait for its next event.
+ * 
+ * <p>
+ * The strategies trade latency for CPU:
+ * </p>
+ * 
+ * <ul>
+ * <li>{@link #BUSY_SPIN} - spin on the ring buffer's cursor. Lowest latency, but burns a core per
+ * consumer.</li>
+ * <li>{@link #YIELD} - spin briefly, then yield the CPU between checks.</li>
+ * <li>{@link #PARK} - spin briefly, then park between checks. Highest latency, but nearly idle
+ * while no events arrive.</li>
+ * </ul>
+ * 
+ * @author nferraro-roofing
+ *
+ */
+public enum WaitStrategy {
+
+    /**
+     * Spin on the ring buffer's cursor without ever giving up the CPU.
+     */
+    BUSY_SPIN {
+        @Override
+        void idle(int attempts) {
+            // Spin
+        }
+    },
+
+    /**
+     * Spin for a while, then yield the CPU to other threads between checks.
+     */
+    YIELD {
+        @Override
+        void idle(int attempts) {
+            if (attempts >= SPIN_ATTEMPTS) {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * Spin for a while, then park for a microsecond or so between checks.
+     */
+    PARK {
+        @Override
+        void idle(int attempts) {
+            if (attempts >= SPIN_ATTEMPTS) {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    };
+
+    private static final int SPIN_ATTEMPTS = 100;
+    private static final long PARK_NANOS = 1_000;
+
+    /**
+     * Wait a little before checking for the next event again.
+     * 
+     * @param attempts the number of times that the consumer has checked for its next event so far
+     */
+    abstract void idle(int attempts);
+}
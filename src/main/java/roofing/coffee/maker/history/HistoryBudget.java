@@ -0,0 +1,98 @@
+package roofing.coffee.maker.history;
+
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+
+/**
+ * A HistoryBudget caps the memory that a fleet's StateHistories may hold between them.
+ *
+ * <p>
+ * A StateHistory holds its records in pages of {@code PAGE_BYTES} bytes, and asks the budget for
+ * each page that it adds. Once the budget runs out - or once a StateHistory holds
+ * {@code maxBytesPerMaker} - a StateHistory makes room for new records by recycling its own oldest
+ * page instead. Busy CoffeeMakers therefore keep a shorter window of history than idle ones, but
+ * the fleet as a whole never exceeds its budget.
+ * </p>
+ *
+ * <p>
+ * A HistoryBudget is thread safe.
+ * </p>
+ *
+ * @see roofing.coffee.maker.history.StateHistory
+ * @author nferraro-roofing
+ *
+ */
+@ToString
+public final class HistoryBudget {
+
+    /**
+     * The number of bytes in each page of a StateHistory.
+     */
+    public static final int PAGE_BYTES = 256;
+
+    private final long maxPages;
+    private final int maxPagesPerMaker;
+    private final AtomicLong usedPages = new AtomicLong();
+
+    /**
+     * Construct a HistoryBudget.
+     *
+     * @param maxBytes the most bytes that every StateHistory of the budget may hold between them
+     * @param maxBytesPerMaker the most bytes that any one StateHistory may hold
+     * @throws IllegalArgumentException if either limit holds less than one page, or if
+     *         {@code maxBytesPerMaker} exceeds {@code maxBytes}.
+     */
+    public HistoryBudget(long maxBytes, int maxBytesPerMaker) {
+        if (maxBytesPerMaker < PAGE_BYTES || maxBytesPerMaker > maxBytes) {
+            throw new IllegalArgumentException(String.format(
+                    "A history budget needs room for at least one page of %d bytes per coffee "
+                            + "maker, and no more per maker than in total, but was given %d bytes "
+                            + "per maker and %d in total",
+                    PAGE_BYTES,
+                    maxBytesPerMaker,
+                    maxBytes));
+        }
+
+        this.maxPages = maxBytes / PAGE_BYTES;
+        this.maxPagesPerMaker = maxBytesPerMaker / PAGE_BYTES;
+    }
+
+    /**
+     * Returns the most bytes that every StateHistory of this budget may hold between them, rounded
+     * down to whole pages.
+     *
+     * @return the most bytes that every StateHistory of this budget may hold between them.
+     */
+    public long maxBytes() {
+        return maxPages * PAGE_BYTES;
+    }
+
+    /**
+     * Returns the bytes that the StateHistories of this budget currently hold.
+     *
+     * @return the bytes that the StateHistories of this budget currently hold.
+     */
+    public long usedBytes() {
+        return usedPages.get() * PAGE_BYTES;
+    }
+
+    int maxPagesPerMaker() {
+        return maxPagesPerMaker;
+    }
+
+    boolean tryAcquirePage() {
+        long used;
+        do {
+            used = usedPages.get();
+            if (used >= maxPages) {
+                return false;
+            }
+        } while (!usedPages.compareAndSet(used, used + 1));
+
+        return true;
+    }
+
+    void releasePages(int pages) {
+        usedPages.addAndGet(-pages);
+    }
+}
@@ -0,0 +1,397 @@
+package roofing.coffee.maker.history;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.NonNull;
+import roofing.coffee.maker.streams.CoffeeMakerState;
+
+/**
+ * A StateHistory records how one CoffeeMaker's observable state changed over time, at tick
+ * granularity, within a HistoryBudget.
+ *
+ * <p>
+ * The CoffeeMaker offers its state after every tick, but a StateHistory records it only if it
+ * differs from the last state that it recorded, so an idle CoffeeMaker costs nothing. Records live
+ * in a ring of byte pages. Each page opens with a key record - the absolute tick and the full state
+ * - and every record after it holds only what changed since the one before:
+ * </p>
+ *
+ * <ul>
+ * <li>the ticks since the last record, as a varint</li>
+ * <li>one byte of the isBrewing, isWarmerPlateOn and hasPot flags in bits 0-2, and in bits 3 and 4
+ * whether the cups of water and of coffee changed</li>
+ * <li>the change in cups of water, then the change in cups of coffee, each as a zigzag varint if it
+ * changed</li>
+ * </ul>
+ *
+ * <p>
+ * A record therefore takes 3 to 5 bytes in the common case of a tick or two apart. Once the ring
+ * cannot grow any further, the StateHistory overwrites its oldest page, so queries cover a window
+ * that ends with the latest change.
+ * </p>
+ *
+ * <p>
+ * Only the thread that updates the CoffeeMaker's Bus may {@code record()}, but any thread may query
+ * a StateHistory.
+ * </p>
+ *
+ * @see roofing.coffee.maker.history.HistoryBudget
+ * @author nferraro-roofing
+ *
+ */
+public final class StateHistory {
+
+    // The most bytes that a key record or a change record can take
+    private static final int MAX_RECORD_BYTES = 21;
+
+    private static final int BREWING = 1;
+    private static final int HOT = 1 << 1;
+    private static final int HAS_POT = 1 << 2;
+    private static final int WATER_CHANGED = 1 << 3;
+    private static final int COFFEE_CHANGED = 1 << 4;
+    private static final int FLAGS = BREWING | HOT | HAS_POT;
+
+    private final HistoryBudget budget;
+
+    // A ring of pages, the oldest at head. Each page's length is its bytes in use.
+    private final byte[][] pages;
+    private final long[] firstTicks;
+    private final int[] lengths;
+    private int head;
+    private int count;
+
+    // The last state offered to record(), which only the Bus's thread reads or writes
+    private boolean hasLast;
+    private long lastTicks;
+    private int lastWater;
+    private int lastCoffee;
+    private int lastFlags;
+
+    private long records;
+    private long droppedRecords;
+    private boolean released;
+
+    /**
+     * Construct an empty StateHistory within {@code budget}.
+     *
+     * @param budget the budget that the StateHistory takes its pages from
+     */
+    public StateHistory(@NonNull HistoryBudget budget) {
+        this.budget = budget;
+        this.pages = new byte[budget.maxPagesPerMaker()][];
+        this.firstTicks = new long[pages.length];
+        this.lengths = new int[pages.length];
+    }
+
+    /**
+     * Record the CoffeeMaker's state as of {@code ticks}, if it changed since the last record.
+     *
+     * <p>
+     * The CoffeeMaker calls this method after every tick and evaluation.
+     * </p>
+     *
+     * @param ticks the ticks that the CoffeeMaker's Clock had advanced by
+     * @param cupsOfWater the cups of water in the CoffeeMaker
+     * @param cupsOfCoffee the cups of coffee in the CoffeeMaker
+     * @param isBrewing whether the CoffeeMaker is brewing
+     * @param isWarmerPlateOn whether the CoffeeMaker's WarmerPlate is on
+     * @param hasPot whether the CoffeePot sits on the WarmerPlate
+     */
+    public void record(long ticks,
+            int cupsOfWater,
+            int cupsOfCoffee,
+            boolean isBrewing,
+            boolean isWarmerPlateOn,
+            boolean hasPot) {
+
+        int flags = (isBrewing ? BREWING : 0)
+                | (isWarmerPlateOn ? HOT : 0)
+                | (hasPot ? HAS_POT : 0);
+
+        if (hasLast
+                && cupsOfWater == lastWater
+                && cupsOfCoffee == lastCoffee
+                && flags == lastFlags) {
+            return;
+        }
+
+        synchronized (this) {
+            append(ticks, cupsOfWater, cupsOfCoffee, flags);
+        }
+
+        hasLast = true;
+        lastTicks = ticks;
+        lastWater = cupsOfWater;
+        lastCoffee = cupsOfCoffee;
+        lastFlags = flags;
+    }
+
+    /**
+     * Returns the CoffeeMaker's states from {@code fromTicks} through {@code toTicks}, oldest
+     * first.
+     *
+     * <p>
+     * The first state is the one in effect at {@code fromTicks} - i.e. the last recorded at or
+     * before {@code fromTicks}, which bears the ticks at which it was recorded - if the history
+     * still holds it. Every state after it changed at a tick after {@code fromTicks} and no later
+     * than {@code toTicks}.
+     * </p>
+     *
+     * @param fromTicks the start of the range, in ticks of the CoffeeMaker's Clock
+     * @param toTicks the end of the range, in ticks of the CoffeeMaker's Clock
+     * @return the CoffeeMaker's states from {@code fromTicks} through {@code toTicks}.
+     */
+    public synchronized List<CoffeeMakerState> between(long fromTicks, long toTicks) {
+        List<CoffeeMakerState> states = new ArrayList<>();
+
+        // The newest page that opens at or before fromTicks holds the state in effect at it
+        int first = 0;
+        for (int i = count - 1; i > 0; i--) {
+            if (firstTicks[(head + i) % pages.length] <= fromTicks) {
+                first = i;
+                break;
+            }
+        }
+
+        Decoder decoder = new Decoder();
+        CoffeeMakerState inEffect = null;
+
+        for (int i = first; i < count; i++) {
+            int page = (head + i) % pages.length;
+            decoder.startPage(pages[page], lengths[page]);
+
+            while (decoder.next()) {
+                if (decoder.ticks <= fromTicks) {
+                    inEffect = decoder.state();
+                    continue;
+                }
+
+                if (inEffect != null) {
+                    states.add(inEffect);
+                    inEffect = null;
+                }
+
+                if (decoder.ticks > toTicks) {
+                    return states;
+                }
+
+                states.add(decoder.state());
+            }
+        }
+
+        if (inEffect != null) {
+            states.add(inEffect);
+        }
+
+        return states;
+    }
+
+    /**
+     * Returns the ticks of the oldest state that this history still holds, or -1 if it holds
+     * none.
+     *
+     * @return the ticks of the oldest state that this history still holds, or -1 if none.
+     */
+    public synchronized long oldestTicks() {
+        return count == 0 ? -1 : firstTicks[head];
+    }
+
+    /**
+     * Returns the number of states that this history has recorded, including any that it has
+     * since overwritten.
+     *
+     * @return the number of states that this history has recorded.
+     */
+    public synchronized long records() {
+        return records;
+    }
+
+    /**
+     * Returns the number of states that this history could not record, because its budget had
+     * no page left to give it.
+     *
+     * @return the number of states that this history could not record.
+     */
+    public synchronized long droppedRecords() {
+        return droppedRecords;
+    }
+
+    /**
+     * Returns the bytes of its budget that this history holds.
+     *
+     * @return the bytes of its budget that this history holds.
+     */
+    public synchronized int sizeBytes() {
+        return count * HistoryBudget.PAGE_BYTES;
+    }
+
+    /**
+     * Empty this history, and return its pages to its budget - e.g. once its CoffeeMaker shuts
+     * down. The history records nothing after its release, even if its CoffeeMaker's Clock is
+     * still finishing a tick.
+     */
+    public synchronized void release() {
+        released = true;
+
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = null;
+        }
+
+        budget.releasePages(count);
+        head = 0;
+        count = 0;
+    }
+
+    private void append(long ticks, int cupsOfWater, int cupsOfCoffee, int flags) {
+        if (released) {
+            return;
+        }
+
+        int page = (head + count - 1) % pages.length;
+        if (count > 0 && lengths[page] + MAX_RECORD_BYTES <= HistoryBudget.PAGE_BYTES) {
+            int waterDelta = cupsOfWater - lastWater;
+            int coffeeDelta = cupsOfCoffee - lastCoffee;
+            int header = flags
+                    | (waterDelta != 0 ? WATER_CHANGED : 0)
+                    | (coffeeDelta != 0 ? COFFEE_CHANGED : 0);
+
+            byte[] bytes = pages[page];
+            int length = putVarint(bytes, lengths[page], ticks - lastTicks);
+            bytes[length++] = (byte) header;
+
+            if (waterDelta != 0) {
+                length = putVarint(bytes, length, zigzag(waterDelta));
+            }
+
+            if (coffeeDelta != 0) {
+                length = putVarint(bytes, length, zigzag(coffeeDelta));
+            }
+
+            lengths[page] = length;
+            records++;
+            return;
+        }
+
+        page = newPage();
+        if (page < 0) {
+            droppedRecords++;
+            return;
+        }
+
+        byte[] bytes = pages[page];
+        int length = putVarint(bytes, 0, ticks);
+        length = putVarint(bytes, length, cupsOfWater);
+        length = putVarint(bytes, length, cupsOfCoffee);
+        bytes[length++] = (byte) flags;
+
+        firstTicks[page] = ticks;
+        lengths[page] = length;
+        records++;
+    }
+
+    // Returns the index of a new, empty page at the end of the ring, or -1 if none is available
+    private int newPage() {
+        if (count < pages.length && budget.tryAcquirePage()) {
+            int page = (head + count) % pages.length;
+            pages[page] = new byte[HistoryBudget.PAGE_BYTES];
+            count++;
+            return page;
+        }
+
+        if (count == 0) {
+            return -1;
+        }
+
+        // Recycle the oldest page, which becomes the newest
+        int page = head;
+        head = (head + 1) % pages.length;
+        return page;
+    }
+
+    private static int putVarint(byte[] bytes, int position, long unsigned) {
+        while ((unsigned & ~0x7FL) != 0) {
+            bytes[position++] = (byte) (unsigned & 0x7F | 0x80);
+            unsigned >>>= 7;
+        }
+
+        bytes[position++] = (byte) unsigned;
+        return position;
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unzigzag(long value) {
+        return (int) (value >>> 1) ^ -(int) (value & 1);
+    }
+
+    /*
+     * Decodes the records of one page at a time.
+     */
+    private static final class Decoder {
+
+        private byte[] bytes;
+        private int length;
+        private int position;
+
+        private long ticks;
+        private int cupsOfWater;
+        private int cupsOfCoffee;
+        private int flags;
+
+        void startPage(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+            this.position = 0;
+        }
+
+        boolean next() {
+            if (position >= length) {
+                return false;
+            }
+
+            if (position == 0) {
+                ticks = getVarint();
+                cupsOfWater = (int) getVarint();
+                cupsOfCoffee = (int) getVarint();
+                flags = bytes[position++];
+                return true;
+            }
+
+            ticks += getVarint();
+            int header = bytes[position++];
+            flags = header & FLAGS;
+
+            if ((header & WATER_CHANGED) != 0) {
+                cupsOfWater += unzigzag(getVarint());
+            }
+
+            if ((header & COFFEE_CHANGED) != 0) {
+                cupsOfCoffee += unzigzag(getVarint());
+            }
+
+            return true;
+        }
+
+        CoffeeMakerState state() {
+            return new CoffeeMakerState(ticks,
+                    cupsOfWater,
+                    cupsOfCoffee,
+                    (flags & BREWING) != 0,
+                    (flags & HOT) != 0,
+                    (flags & HAS_POT) != 0);
+        }
+
+        private long getVarint() {
+            long value = 0;
+            for (int shift = 0;; shift += 7) {
+                byte next = bytes[position++];
+                value |= (long) (next & 0x7F) << shift;
+                if (next >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
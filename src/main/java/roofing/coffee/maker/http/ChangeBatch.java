@@ -0,0 +1,107 @@
+package roofing.coffee.maker.http;
+
+import java.util.Arrays;
+import roofing.coffee.maker.events.ComponentEventType;
+
+/**
+ * A ChangeBatch collects the component events that CoffeeMakers raise between two flushes of an
+ * EventStreamServer, so that the server fans each tick's events out to its connections at once.
+ *
+ * <p>
+ * Any number of threads - i.e. those that tick CoffeeMakers - {@code add()} events, under the
+ * batch's lock. One thread at a time - the server's selector thread - {@code drain()}s them: the
+ * batch swaps its arrays for a second pair, so that adding carries on while the drainer reads the
+ * drained events without the lock. Each event costs a slot in two arrays rather than an object.
+ * </p>
+ *
+ * <p>
+ * The batch holds at most {@code maxEvents} events between drains, and drops - but counts - the
+ * rest, so that a drainer that stalls cannot make it grow without bound.
+ * </p>
+ *
+ * @param <T> the topic - e.g. the CoffeeMaker - that raised each event
+ * @author nferraro-roofing
+ *
+ */
+final class ChangeBatch<T> {
+
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final long LOW_INT = 0xFFFF_FFFFL;
+    private static final ComponentEventType[] TYPES = ComponentEventType.values();
+
+    private final int maxEvents;
+
+    // Guarded by this batch's lock
+    private Object[] topics;
+    private long[] events; // Each event's type's ordinal, above its value
+    private int size = 0;
+    private long dropped = 0;
+
+    // Only the drainer touches these
+    private Object[] drainedTopics;
+    private long[] drainedEvents;
+    private int drainedSize = 0;
+
+    ChangeBatch(int maxEvents) {
+        this.maxEvents = maxEvents;
+        int capacity = Math.min(INITIAL_CAPACITY, maxEvents);
+        this.topics = new Object[capacity];
+        this.events = new long[capacity];
+        this.drainedTopics = new Object[capacity];
+        this.drainedEvents = new long[capacity];
+    }
+
+    synchronized void add(T topic, ComponentEventType type, int value) {
+        if (size == topics.length) {
+            if (size == maxEvents) {
+                dropped++;
+                return;
+            }
+
+            int capacity = (int) Math.min((long) size * 2, maxEvents);
+            topics = Arrays.copyOf(topics, capacity);
+            events = Arrays.copyOf(events, capacity);
+        }
+
+        topics[size] = topic;
+        events[size] = (long) type.ordinal() << 32 | value & LOW_INT;
+        size++;
+    }
+
+    // Swap out the events added since the last drain, and return how many there are. They stay
+    // readable until the next drain.
+    int drain() {
+        Object[] oldDrainedTopics = drainedTopics;
+        long[] oldDrainedEvents = drainedEvents;
+        Arrays.fill(oldDrainedTopics, 0, drainedSize, null); // Let go of the last drain's topics
+
+        synchronized (this) {
+            drainedTopics = topics;
+            drainedEvents = events;
+            drainedSize = size;
+
+            topics = oldDrainedTopics;
+            events = oldDrainedEvents;
+            size = 0;
+        }
+
+        return drainedSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    T topic(int index) {
+        return (T) drainedTopics[index];
+    }
+
+    ComponentEventType type(int index) {
+        return TYPES[(int) (drainedEvents[index] >>> 32)];
+    }
+
+    int value(int index) {
+        return (int) drainedEvents[index];
+    }
+
+    synchronized long dropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,685 @@
+package roofing.coffee.maker.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import lombok.NonNull;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.events.ComponentEventType;
+
+/**
+ * An EventStreamServer pushes the state changes of subscribed CoffeeMakers to dashboards as
+ * server-sent events, so that they need not poll a StatusServer for every CoffeeMaker they show.
+ *
+ * <p>
+ * A client - e.g. a browser's {@code EventSource} - subscribes via
+ * {@code GET /events?makers=<device id>,<device id>,...}, and then receives a {@code changes}
+ * event per tick in which any of those CoffeeMakers changed. Each event's data is a JSON array of
+ * the tick's changes, oldest first, such as
+ * {@code [{"id":7,"type":"CUP_BREWED","value":3},{"id":7,"type":"BREW_STOPPED","value":0}]}. The
+ * type and value are those of the underlying ComponentEvent; the server streams
+ * {@code STREAMED_TYPES} only.
+ * </p>
+ *
+ * <p>
+ * CoffeeMakers feed the server through the ComponentEventSink that {@code eventsOf()} returns for
+ * their device id - e.g. via {@code CoffeeMakerCreator::createFleet}. A sink whose CoffeeMaker has
+ * no subscribers drops its events straight away. Otherwise, it adds them to a ChangeBatch, which
+ * the server drains once per tick: it appends each event to the pending output of each of its
+ * CoffeeMaker's subscribers, and then writes each subscriber's whole batch with one write.
+ * </p>
+ *
+ * <p>
+ * The server runs a single selector thread for every connection, so it holds tens of thousands of
+ * idle dashboards with no thread - and no output buffer - each. A connection whose client falls
+ * more than {@code MAX_PENDING_BYTES} behind is closed rather than buffered without bound; an
+ * {@code EventSource} then reconnects, and should re-read the CoffeeMakers' status. The server
+ * likewise drops - but counts - events beyond {@code MAX_BATCH_EVENTS} per tick.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMakerCreator#createFleet(int,
+ *      roofing.coffee.maker.plugins.properties.CoffeeMakerProperties,
+ *      roofing.coffee.maker.FleetOptions)
+ * @author nferraro-roofing
+ *
+ */
+public final class EventStreamServer implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventStreamServer.class);
+
+    /**
+     * The types of ComponentEvent that the server streams - i.e. those that a dashboard shows.
+     */
+    public static final Set<ComponentEventType> STREAMED_TYPES = EnumSet.of(
+            ComponentEventType.BREW_STARTED,
+            ComponentEventType.CUP_BREWED,
+            ComponentEventType.BREW_STOPPED,
+            ComponentEventType.POT_REMOVED,
+            ComponentEventType.POT_REPLACED,
+            ComponentEventType.WARMER_ON,
+            ComponentEventType.WARMER_OFF);
+
+    static final int BUFFER_BYTES = 4 * 1024;
+    static final int MAX_PENDING_BYTES = 256 * 1024;
+    static final int MAX_REQUEST_BYTES = 4 * 1024;
+    static final int MAX_BATCH_EVENTS = 1 << 20;
+
+    private static final int MAX_IDLE_BUFFERS = 1_024;
+    private static final int BACKLOG = 4_096;
+
+    private static final int HEAD_END = '\r' << 24 | '\n' << 16 | '\r' << 8 | '\n';
+
+    private static final String EVENTS_PATH = "/events";
+    private static final String MAKERS_PARAMETER = "makers=";
+
+    private static final byte[] SUBSCRIBED = ascii("HTTP/1.1 200 OK\r\n"
+            + "Content-Type: text/event-stream\r\n"
+            + "Cache-Control: no-cache\r\n\r\n");
+    private static final byte[] BATCH_START = ascii("event: changes\ndata: [");
+    private static final byte[] BATCH_END = ascii("]\n\n");
+    private static final byte[] ID_FIELD = ascii("{\"id\":");
+
+    // For each ComponentEventType, the JSON between an event's device id and its value, or null
+    // if the server does not stream the type
+    private static final byte[][] TYPE_FIELDS = new byte[ComponentEventType.values().length][];
+
+    // An upper bound on the bytes of one event, a comma, and the end of its batch
+    private static final int MAX_EVENT_BYTES;
+
+    static {
+        int maxTypeBytes = 0;
+        for (ComponentEventType type : STREAMED_TYPES) {
+            TYPE_FIELDS[type.ordinal()] = ascii(",\"type\":\"" + type + "\",\"value\":");
+            maxTypeBytes = Math.max(maxTypeBytes, TYPE_FIELDS[type.ordinal()].length);
+        }
+
+        MAX_EVENT_BYTES = 1 + ID_FIELD.length + 20 + maxTypeBytes + 11 + 1 + BATCH_END.length;
+    }
+
+    private static final Connection[] NO_CONNECTIONS = new Connection[0];
+    private static final Topic[] NO_TOPICS = new Topic[0];
+
+    private final long periodNanos;
+    private final Map<Long, Topic> topics = new ConcurrentHashMap<>();
+    private final ChangeBatch<Topic> batch = new ChangeBatch<>(MAX_BATCH_EVENTS);
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Thread selectorThread;
+
+    // Only the selector thread touches these
+    private final ArrayDeque<ByteBuffer> idleBuffers = new ArrayDeque<>();
+    private final ArrayList<Connection> batching = new ArrayList<>();
+    private final ByteBuffer discarded = ByteBuffer.allocate(BUFFER_BYTES);
+
+    private volatile boolean isRunning = true;
+    private volatile int subscribedConnections = 0;
+
+    /**
+     * Bind an EventStreamServer to {@code address} - e.g. port {@code 0} of the loopback address,
+     * which picks a free port - that flushes each batch of changes every {@code tickDelay}.
+     *
+     * <p>
+     * Pass the tick delay of the server's CoffeeMakers, so that each client receives at most one
+     * batch per tick. The server accepts connections once the client calls {@code start()}.
+     * </p>
+     *
+     * @param address the address to listen on
+     * @param tickDelay the delay between flushes
+     * @param tickDelayUnit the unit of {@code tickDelay}
+     * @throws IOException if the server cannot bind to {@code address}.
+     * @throws IllegalArgumentException if {@code tickDelay} is not positive.
+     */
+    public EventStreamServer(@NonNull InetSocketAddress address,
+            long tickDelay,
+            @NonNull TimeUnit tickDelayUnit) throws IOException {
+
+        if (tickDelay <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "An event stream server must flush after a positive delay, but got %d %s",
+                    tickDelay,
+                    tickDelayUnit));
+        }
+
+        this.periodNanos = tickDelayUnit.toNanos(tickDelay);
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        selectorThread = new Thread(this::select, "coffee-maker-event-stream-server");
+        selectorThread.setDaemon(true);
+    }
+
+    /**
+     * Returns the sink through which the CoffeeMaker of {@code deviceId} streams its changes to
+     * this server's clients. Clients may subscribe to a device id once this method has been called
+     * for it.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @return the sink for the CoffeeMaker's ComponentEvents.
+     */
+    public ComponentEventSink eventsOf(long deviceId) {
+        return topics.computeIfAbsent(deviceId, Topic::new);
+    }
+
+    /**
+     * Start accepting connections on the server's selector thread.
+     */
+    public void start() {
+        LOG.debug("Starting an event stream server on {}", address());
+        selectorThread.start();
+    }
+
+    /**
+     * Returns the address that the server listens on - e.g. to learn the port that it picked.
+     *
+     * @return the address that the server listens on.
+     */
+    public InetSocketAddress address() {
+        return (InetSocketAddress) serverChannel.socket().getLocalSocketAddress();
+    }
+
+    /**
+     * Returns the number of clients that are currently subscribed.
+     *
+     * @return the number of clients that are currently subscribed.
+     */
+    public int subscribedConnections() {
+        return subscribedConnections;
+    }
+
+    /**
+     * Returns the number of events that the server dropped because a tick raised more than
+     * {@code MAX_BATCH_EVENTS}.
+     *
+     * @return the number of events that the server dropped.
+     */
+    public long droppedEvents() {
+        return batch.dropped();
+    }
+
+    /**
+     * Stop the server, and close every connection that it accepted. Closing a closed server does
+     * nothing.
+     *
+     * @throws IOException if the server's channels fail to close.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!selector.isOpen()) {
+            return;
+        }
+
+        isRunning = false;
+        selector.wakeup();
+
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+
+        selector.close();
+        serverChannel.close();
+    }
+
+    private void select() {
+        long nextFlush = System.nanoTime() + periodNanos;
+
+        while (isRunning) {
+            long wait = nextFlush - System.nanoTime();
+            try {
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+            } catch (IOException e) {
+                LOG.warn("An event stream server failed to select. Stopping it.", e);
+                return;
+            }
+
+            Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                SelectionKey key = selected.next();
+                selected.remove();
+                handle(key);
+            }
+
+            // Skip the flushes that a slow pass missed, rather than flush back-to-back
+            long now = System.nanoTime();
+            if (now - nextFlush >= 0) {
+                flush();
+                nextFlush = now + periodNanos - (now - nextFlush) % periodNanos;
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.read();
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                connection.write();
+            }
+        } catch (IOException e) {
+            LOG.debug("An event stream connection failed. Closing it.", e);
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        while (true) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                if (channel == null) {
+                    return;
+                }
+
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                Connection connection = new Connection(channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                LOG.warn("An event stream server failed to accept a connection", e);
+                return;
+            }
+        }
+    }
+
+    // Fan this tick's events out to their subscribers, and then write each subscriber's batch
+    private void flush() {
+        int events = batch.drain();
+        for (int i = 0; i < events; i++) {
+            Topic topic = batch.topic(i);
+            for (Connection subscriber : topic.subscribers) {
+                subscriber.append(topic.deviceId, batch.type(i), batch.value(i));
+            }
+        }
+
+        for (Connection connection : batching) {
+            connection.endBatch();
+        }
+
+        batching.clear();
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = idleBuffers.pollFirst();
+        return buffer != null ? buffer : ByteBuffer.allocate(BUFFER_BYTES);
+    }
+
+    // Recycle only buffers that never grew, so that idle buffers stay small
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (buffer.capacity() == BUFFER_BYTES && idleBuffers.size() < MAX_IDLE_BUFFERS) {
+            buffer.clear();
+            idleBuffers.addFirst(buffer);
+        }
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /*
+     * The subscribers of one CoffeeMaker's changes, and the sink through which the CoffeeMaker
+     * raises them. The selector thread alone replaces its subscribers, copy-on-write, so that
+     * sinks read them without a lock.
+     */
+    private final class Topic implements ComponentEventSink {
+
+        private final long deviceId;
+        private volatile Connection[] subscribers = NO_CONNECTIONS;
+
+        Topic(long deviceId) {
+            this.deviceId = deviceId;
+        }
+
+        @Override
+        public void raise(ComponentEventType type, int value) {
+            if (subscribers.length > 0 && TYPE_FIELDS[type.ordinal()] != null) {
+                batch.add(this, type, value);
+            }
+        }
+
+        void subscribe(Connection connection) {
+            Connection[] current = subscribers;
+            Connection[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = connection;
+            subscribers = updated;
+        }
+
+        // The connection must be a subscriber
+        void unsubscribe(Connection connection) {
+            Connection[] current = subscribers;
+            int index = 0;
+            while (current[index] != connection) {
+                index++;
+            }
+
+            Connection[] updated = Arrays.copyOf(current, current.length - 1);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+            subscribers = updated;
+        }
+    }
+
+    /*
+     * The state of one client's connection, which only the selector thread touches. The
+     * connection reads the client's request, and then only watches for the client to close.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private SelectionKey key;
+
+        // The request read so far, or null once the connection has answered it
+        private ByteBuffer request = ByteBuffer.allocate(MAX_REQUEST_BYTES);
+        private Topic[] subscriptions = NO_TOPICS;
+
+        // Bytes that wait to be written, or null if none
+        private ByteBuffer output;
+
+        private boolean isBatching = false;
+        private boolean isOverflowing = false;
+        private boolean isClosingOnceWritten = false;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            if (request == null) {
+                discarded.clear();
+                if (channel.read(discarded) < 0) {
+                    close();
+                }
+
+                return;
+            }
+
+            if (channel.read(request) < 0) {
+                close();
+                return;
+            }
+
+            int headEnd = headEnd();
+            if (headEnd >= 0) {
+                String head = new String(request.array(), 0, headEnd, StandardCharsets.US_ASCII);
+                int lineEnd = head.indexOf("\r\n");
+                request = null;
+                answer(lineEnd < 0 ? head : head.substring(0, lineEnd));
+            } else if (!request.hasRemaining()) {
+                request = null;
+                reject("431 Request Header Fields Too Large", "The request is too large");
+            }
+        }
+
+        void write() throws IOException {
+            output.flip();
+            channel.write(output);
+            output.compact();
+
+            if (output.position() > 0) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+
+            releaseBuffer(output);
+            output = null;
+
+            if (isClosingOnceWritten) {
+                close();
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void append(long deviceId, ComponentEventType type, int value) {
+            if (isOverflowing) {
+                return;
+            }
+
+            if (!reserve(MAX_EVENT_BYTES + BATCH_START.length)) {
+                isOverflowing = true;
+                return;
+            }
+
+            if (isBatching) {
+                output.put((byte) ',');
+            } else {
+                output.put(BATCH_START);
+                isBatching = true;
+                batching.add(this);
+            }
+
+            output.put(ID_FIELD);
+            putLong(deviceId);
+            output.put(TYPE_FIELDS[type.ordinal()]);
+            putLong(value);
+            output.put((byte) '}');
+        }
+
+        // Close this tick's batch, and write it - or give up on a client that fell too far behind
+        void endBatch() {
+            isBatching = false;
+            if (isOverflowing) {
+                LOG.debug("An event stream client fell {} bytes behind. Closing its connection.",
+                        output.position());
+                close();
+                return;
+            }
+
+            output.put(BATCH_END);
+            try {
+                write();
+            } catch (IOException e) {
+                LOG.debug("An event stream connection failed. Closing it.", e);
+                close();
+            }
+        }
+
+        // Only once per connection: a closed connection's key no longer selects it
+        void close() {
+            key.cancel();
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.debug("An event stream connection failed to close", e);
+            }
+
+            if (subscriptions.length > 0) {
+                for (Topic topic : subscriptions) {
+                    topic.unsubscribe(this);
+                }
+
+                subscribedConnections--;
+            }
+
+            if (output != null) {
+                releaseBuffer(output);
+                output = null;
+            }
+        }
+
+        // Subscribe to the request's CoffeeMakers, or reject it
+        private void answer(String requestLine) throws IOException {
+            String[] parts = requestLine.split(" ");
+            if (parts.length != 3) {
+                reject("400 Bad Request", "The request line is malformed");
+                return;
+            }
+
+            if (!"GET".equals(parts[0])) {
+                reject("405 Method Not Allowed", "Only GET is supported");
+                return;
+            }
+
+            int queryStart = parts[1].indexOf('?');
+            String path = queryStart < 0 ? parts[1] : parts[1].substring(0, queryStart);
+            if (!EVENTS_PATH.equals(path)) {
+                reject("404 Not Found", String.format("No %s", path));
+                return;
+            }
+
+            String makers = null;
+            String query = queryStart < 0 ? "" : parts[1].substring(queryStart + 1);
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(MAKERS_PARAMETER)) {
+                    makers = parameter.substring(MAKERS_PARAMETER.length())
+                            .replace("%2C", ",")
+                            .replace("%2c", ",");
+                }
+            }
+
+            if (makers == null || makers.isEmpty()) {
+                reject("400 Bad Request", "Please subscribe to makers=<device id>,...");
+                return;
+            }
+
+            ArrayList<Topic> requested = new ArrayList<>();
+            for (String deviceIdText : makers.split(",")) {
+                long deviceId;
+                try {
+                    deviceId = Long.parseLong(deviceIdText);
+                } catch (NumberFormatException e) {
+                    reject("400 Bad Request",
+                            String.format("'%s' is not a device id", deviceIdText));
+                    return;
+                }
+
+                Topic topic = topics.get(deviceId);
+                if (topic == null) {
+                    reject("404 Not Found", String.format(
+                            "No coffee maker streams its events under device id %d",
+                            deviceId));
+                    return;
+                }
+
+                if (!requested.contains(topic)) {
+                    requested.add(topic);
+                }
+            }
+
+            subscriptions = requested.toArray(NO_TOPICS);
+            for (Topic topic : subscriptions) {
+                topic.subscribe(this);
+            }
+
+            subscribedConnections++;
+            reserve(SUBSCRIBED.length);
+            output.put(SUBSCRIBED);
+            write();
+        }
+
+        private void reject(String status, String message) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            new JsonWriter(body, MAX_REQUEST_BYTES)
+                    .beginObject()
+                    .name("error").value(message)
+                    .endObject()
+                    .flush();
+
+            String allow = status.startsWith("405") ? "Allow: GET\r\n" : "";
+            byte[] head = ascii(String.format("HTTP/1.1 %s\r\n%s"
+                    + "Content-Type: application/json\r\n"
+                    + "Content-Length: %d\r\n"
+                    + "Connection: close\r\n\r\n", status, allow, body.size()));
+
+            reserve(head.length + body.size());
+            output.put(head);
+            output.put(body.toByteArray());
+            isClosingOnceWritten = true;
+            write();
+        }
+
+        // Returns the length of the request up to the blank line that ends its headers, or -1 if
+        // the request has not ended yet
+        private int headEnd() {
+            byte[] bytes = request.array();
+            for (int i = 3; i < request.position(); i++) {
+                int tail = bytes[i - 3] << 24 | bytes[i - 2] << 16 | bytes[i - 1] << 8 | bytes[i];
+                if (tail == HEAD_END) {
+                    return i - 3;
+                }
+            }
+
+            return -1;
+        }
+
+        // Make room for bytes more bytes of output, unless the output would outgrow
+        // MAX_PENDING_BYTES
+        private boolean reserve(int bytes) {
+            if (output == null) {
+                output = acquireBuffer();
+            }
+
+            if (output.remaining() >= bytes) {
+                return true;
+            }
+
+            int needed = output.position() + bytes;
+            if (needed > MAX_PENDING_BYTES) {
+                return false;
+            }
+
+            int capacity = output.capacity();
+            while (capacity < needed) {
+                capacity *= 2;
+            }
+
+            ByteBuffer grown = ByteBuffer.allocate(Math.min(capacity, MAX_PENDING_BYTES));
+            output.flip();
+            grown.put(output);
+            releaseBuffer(output);
+            output = grown;
+            return true;
+        }
+
+        // Write value in ASCII decimal. The caller has reserved room for it.
+        private void putLong(long value) {
+            if (value < 0) {
+                output.put(ascii(Long.toString(value))); // Rare enough to allocate
+                return;
+            }
+
+            long divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+
+            for (; divisor > 0; divisor /= 10) {
+                output.put((byte) ('0' + value / divisor % 10));
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package roofing.coffee.maker.http;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.CoffeeMakerFleet;
+import roofing.coffee.maker.busses.ClockMetrics;
+
+/**
+ * A FleetSummary totals the state and ClockMetrics of a fleet's CoffeeMakers in one visit of the
+ * fleet, for a StatusServer's fleet aggregates and Prometheus metrics.
+ *
+ * <p>
+ * Dormant CoffeeMakers have no Clock, so the Clock totals cover live CoffeeMakers only. They are
+ * therefore not monotonic: they drop whenever CoffeeMakers go dormant or leave the fleet, which
+ * Prometheus' {@code rate()} treats as a counter reset.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class FleetSummary implements CoffeeMakerFleet.Visitor {
+
+    static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // The "le" label of each bucket of the lag histogram, in seconds
+    private static final String[] LAG_BUCKET_BOUNDS = new String[ClockMetrics.LAG_BUCKETS];
+
+    static {
+        for (int i = 0; i < ClockMetrics.LAG_BUCKETS - 1; i++) {
+            LAG_BUCKET_BOUNDS[i] = seconds(ClockMetrics.lagBucketUpperBoundNanos(i));
+        }
+
+        LAG_BUCKET_BOUNDS[ClockMetrics.LAG_BUCKETS - 1] = "+Inf";
+    }
+
+    long makers = 0;
+    long dormant = 0;
+    long brewing = 0;
+    long warmersOn = 0;
+    long potsRemoved = 0;
+    long cupsOfWater = 0;
+    long cupsOfCoffee = 0;
+
+    long ticks = 0;
+    long steps = 0;
+    long evaluations = 0;
+    long burstTicks = 0;
+    long coalescedTicks = 0;
+    long droppedTicks = 0;
+    long maxLagNanos = 0;
+    long totalLagNanos = 0;
+    final long[] lagBuckets = new long[ClockMetrics.LAG_BUCKETS];
+
+    // Visit the whole fleet
+    static FleetSummary of(CoffeeMakerFleet fleet) {
+        FleetSummary summary = new FleetSummary();
+        fleet.forEach(summary);
+        return summary;
+    }
+
+    @Override
+    public void visitLive(long deviceId, CoffeeMaker coffeeMaker) {
+        add(coffeeMaker.cupsOfWater(),
+                coffeeMaker.cupsOfCoffee(),
+                coffeeMaker.hasPot(),
+                coffeeMaker.isBrewing(),
+                coffeeMaker.isWarmerPlateOn());
+
+        ClockMetrics metrics = coffeeMaker.clockMetrics();
+        ticks += metrics.ticks();
+        steps += metrics.steps();
+        evaluations += metrics.evaluations();
+        burstTicks += metrics.burstTicks();
+        coalescedTicks += metrics.coalescedTicks();
+        droppedTicks += metrics.droppedTicks();
+        maxLagNanos = Math.max(maxLagNanos, metrics.maxLagNanos());
+        totalLagNanos += metrics.totalLagNanos();
+
+        for (int i = 0; i < lagBuckets.length; i++) {
+            lagBuckets[i] += metrics.lagBucketCount(i);
+        }
+    }
+
+    @Override
+    public void visitDormant(long deviceId, int cupsOfWater, int cupsOfCoffee, boolean hasPot) {
+        dormant++;
+        add(cupsOfWater, cupsOfCoffee, hasPot, false, false);
+    }
+
+    // Write the totals in Prometheus' text exposition format
+    void writePrometheus(Writer out) throws IOException {
+        gauge(out, "coffee_maker_fleet_makers",
+                "The coffee makers in the fleet.", makers);
+        gauge(out, "coffee_maker_fleet_dormant_makers",
+                "The dormant coffee makers in the fleet.", dormant);
+        gauge(out, "coffee_maker_fleet_brewing_makers",
+                "The coffee makers that are brewing.", brewing);
+        gauge(out, "coffee_maker_fleet_warmers_on",
+                "The coffee makers whose warmer plate is on.", warmersOn);
+        gauge(out, "coffee_maker_fleet_pots_removed",
+                "The coffee makers whose pot is off the warmer plate.", potsRemoved);
+        gauge(out, "coffee_maker_fleet_cups_of_water",
+                "The cups of water in the fleet's reservoirs.", cupsOfWater);
+        gauge(out, "coffee_maker_fleet_cups_of_coffee",
+                "The cups of coffee in the fleet's pots.", cupsOfCoffee);
+
+        counter(out, "coffee_maker_clock_ticks_total",
+                "The ticks that live coffee makers' clocks advanced them by.", ticks);
+        counter(out, "coffee_maker_clock_steps_total",
+                "The messages that live coffee makers' clocks placed onto their buses.", steps);
+        counter(out, "coffee_maker_clock_evaluations_total",
+                "The evaluations of live coffee makers between ticks.", evaluations);
+
+        help(out, "coffee_maker_clock_caught_up_ticks_total",
+                "counter",
+                "The missed ticks of live coffee makers' clocks, by catch-up policy.");
+        sample(out, "coffee_maker_clock_caught_up_ticks_total{policy=\"burst\"}", burstTicks);
+        sample(out, "coffee_maker_clock_caught_up_ticks_total{policy=\"coalesce\"}",
+                coalescedTicks);
+        sample(out, "coffee_maker_clock_caught_up_ticks_total{policy=\"drop\"}", droppedTicks);
+
+        help(out, "coffee_maker_clock_max_lag_seconds",
+                "gauge",
+                "The largest lag that any live coffee maker's clock measured.");
+        out.write("coffee_maker_clock_max_lag_seconds " + seconds(maxLagNanos) + "\n");
+
+        help(out, "coffee_maker_clock_lag_seconds",
+                "histogram",
+                "How late live coffee makers' clocks woke up for their ticks.");
+        long cumulative = 0;
+        for (int i = 0; i < lagBuckets.length; i++) {
+            cumulative += lagBuckets[i];
+            String bound = LAG_BUCKET_BOUNDS[i];
+            sample(out, "coffee_maker_clock_lag_seconds_bucket{le=\"" + bound + "\"}", cumulative);
+        }
+
+        out.write("coffee_maker_clock_lag_seconds_sum " + seconds(totalLagNanos) + "\n");
+        sample(out, "coffee_maker_clock_lag_seconds_count", cumulative);
+    }
+
+    private void add(int water, int coffee, boolean hasPot, boolean isBrewing, boolean isWarm) {
+        makers++;
+        cupsOfWater += water;
+        cupsOfCoffee += coffee;
+        potsRemoved += hasPot ? 0 : 1;
+        brewing += isBrewing ? 1 : 0;
+        warmersOn += isWarm ? 1 : 0;
+    }
+
+    private static void gauge(Writer out, String name, String help, long value) throws IOException {
+        help(out, name, "gauge", help);
+        sample(out, name, value);
+    }
+
+    private static void counter(Writer out, String name, String help, long value)
+            throws IOException {
+
+        help(out, name, "counter", help);
+        sample(out, name, value);
+    }
+
+    private static void help(Writer out, String name, String type, String help)
+            throws IOException {
+
+        out.write("# HELP " + name + " " + help + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(Writer out, String series, long value) throws IOException {
+        out.write(series + " " + value + "\n");
+    }
+
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,201 @@
+package roofing.coffee.maker.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A JsonWriter streams JSON to an OutputStream, one token at a time, so that a StatusServer can
+ * list a whole fleet without building a tree of objects - or even a string - per CoffeeMaker.
+ *
+ * <p>
+ * The writer encodes every token straight into a byte buffer, which it writes to its stream once
+ * full. It escapes every character outside of printable ASCII, so its output is ASCII - and hence
+ * UTF-8 - throughout. Callers must nest their tokens correctly: the writer places commas and
+ * colons, but does not validate.
+ * </p>
+ *
+ * <p>
+ * A JsonWriter is not thread safe.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class JsonWriter {
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private static final int MAX_LONG_DIGITS = 19;
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int position = 0;
+
+    // Whether the object or array at each depth already holds a value, and hence needs a comma
+    // before the next
+    private boolean[] hasValues = new boolean[16];
+    private int depth = 0;
+    private boolean isAfterName = false;
+
+    JsonWriter(OutputStream out, int bufferBytes) {
+        this.out = out;
+        this.buffer = new byte[bufferBytes];
+    }
+
+    JsonWriter beginObject() throws IOException {
+        return begin('{');
+    }
+
+    JsonWriter endObject() throws IOException {
+        return end('}');
+    }
+
+    JsonWriter beginArray() throws IOException {
+        return begin('[');
+    }
+
+    JsonWriter endArray() throws IOException {
+        return end(']');
+    }
+
+    JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        write(':');
+        isAfterName = true;
+        return this;
+    }
+
+    JsonWriter value(long value) throws IOException {
+        separate();
+        ensure(MAX_LONG_DIGITS + 1); // And a sign
+
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return this;
+        }
+
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+
+        // Write the digits from the end, and then shift them into place
+        int end = position + MAX_LONG_DIGITS;
+        int start = end;
+        do {
+            buffer[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        int digits = end - start;
+        System.arraycopy(buffer, start, buffer, position, digits);
+        position += digits;
+        return this;
+    }
+
+    JsonWriter value(boolean value) throws IOException {
+        separate();
+        write(value ? TRUE : FALSE);
+        return this;
+    }
+
+    JsonWriter value(String value) throws IOException {
+        separate();
+        string(value);
+        return this;
+    }
+
+    // Write everything buffered to the stream
+    void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    private JsonWriter begin(char bracket) throws IOException {
+        separate();
+        write(bracket);
+
+        if (++depth == hasValues.length) {
+            hasValues = Arrays.copyOf(hasValues, depth * 2);
+        }
+
+        hasValues[depth] = false;
+        return this;
+    }
+
+    private JsonWriter end(char bracket) throws IOException {
+        depth--;
+        write(bracket);
+        return this;
+    }
+
+    // Every value but the first in its object or array follows a comma - unless it follows its name
+    private void separate() throws IOException {
+        if (isAfterName) {
+            isAfterName = false;
+            return;
+        }
+
+        if (hasValues[depth]) {
+            write(',');
+        }
+
+        hasValues[depth] = true;
+    }
+
+    private void string(String value) throws IOException {
+        write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                ensure(2);
+                buffer[position++] = '\\';
+                buffer[position++] = (byte) c;
+            } else if (c < 0x20 || c > 0x7e) {
+                ensure(6);
+                buffer[position++] = '\\';
+                buffer[position++] = 'u';
+                buffer[position++] = HEX[c >>> 12];
+                buffer[position++] = HEX[c >>> 8 & 0xf];
+                buffer[position++] = HEX[c >>> 4 & 0xf];
+                buffer[position++] = HEX[c & 0xf];
+            } else {
+                write(c);
+            }
+        }
+
+        write('"');
+    }
+
+    private void write(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    // Only for ASCII
+    private void write(String ascii) throws IOException {
+        for (int i = 0; i < ascii.length(); i++) {
+            write(ascii.charAt(i));
+        }
+    }
+
+    // Make room for at least bytes more bytes
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - position < bytes) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
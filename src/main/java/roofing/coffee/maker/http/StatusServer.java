@@ -0,0 +1,377 @@
+package roofing.coffee.maker.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.NonNull;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.CoffeeMakerFleet;
+import roofing.coffee.maker.aggregates.AggregateGroup;
+import roofing.coffee.maker.busses.ClockMetrics;
+
+/**
+ * A StatusServer reports on the CoffeeMakers of a fleet over HTTP - e.g. to dashboards, scripts,
+ * and Prometheus - via the JDK's built-in HTTP server. It serves the following, all via GET:
+ *
+ * <ul>
+ * <li>{@code /makers}: a JSON array with the status of every CoffeeMaker in the fleet</li>
+ * <li>{@code /makers/<device id>}: a JSON object with the status and ClockMetrics of one
+ * CoffeeMaker</li>
+ * <li>{@code /fleet}: a JSON object with fleet-wide totals, and the totals of every
+ * AggregateGroup beneath the server's root group, if it has one</li>
+ * <li>{@code /metrics}: fleet-wide totals, ClockMetrics, and the histogram of Clock lag in
+ * Prometheus' text exposition format</li>
+ * </ul>
+ *
+ * <p>
+ * A CoffeeMaker's status is an object with its {@code id}, {@code cupsOfWater},
+ * {@code cupsOfCoffee}, and whether it is {@code brewing}, whether its {@code warmerPlateOn},
+ * whether it {@code hasPot}, and whether it is {@code dormant}.
+ * </p>
+ *
+ * <p>
+ * A fleet listing may cover millions of CoffeeMakers, so the server never builds it up front.
+ * Instead, it visits the fleet and streams each CoffeeMaker's status straight from its components
+ * into the chunked response, through a buffer of {@code BUFFER_BYTES}. Listing the fleet, and
+ * totalling it, neither rebuilds dormant CoffeeMakers nor keeps live ones from going dormant.
+ * Each status is as of its own read, though, rather than the whole listing as of one moment.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMakerFleet#forEach(CoffeeMakerFleet.Visitor)
+ * @author nferraro-roofing
+ *
+ */
+public final class StatusServer implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StatusServer.class);
+
+    static final int BUFFER_BYTES = 16 * 1024;
+
+    private static final String JSON_CONTENT_TYPE = "application/json";
+    private static final String MAKERS_PATH = "/makers";
+
+    private final CoffeeMakerFleet fleet;
+    private final AggregateGroup aggregates;
+    private final HttpServer server;
+    private final ExecutorService threads;
+
+    private boolean isClosed = false;
+
+    /**
+     * Bind a StatusServer for {@code fleet} to {@code address} - e.g. port {@code 0} of the
+     * loopback address, which picks a free port.
+     *
+     * <p>
+     * The server accepts requests once the client calls {@code start()}.
+     * </p>
+     *
+     * @param fleet the fleet whose CoffeeMakers the server reports on
+     * @param address the address to listen on
+     * @throws IOException if the server cannot bind to {@code address}.
+     */
+    public StatusServer(@NonNull CoffeeMakerFleet fleet, @NonNull InetSocketAddress address)
+            throws IOException {
+
+        this(fleet, null, address);
+    }
+
+    /**
+     * Bind a StatusServer, as per {@code StatusServer(CoffeeMakerFleet, InetSocketAddress)}, that
+     * also reports the totals of {@code aggregates} and of every group beneath it.
+     *
+     * @param fleet the fleet whose CoffeeMakers the server reports on
+     * @param aggregates the root group of the fleet's CoffeeMakers, or null if none
+     * @param address the address to listen on
+     * @throws IOException if the server cannot bind to {@code address}.
+     */
+    public StatusServer(@NonNull CoffeeMakerFleet fleet,
+            AggregateGroup aggregates,
+            @NonNull InetSocketAddress address) throws IOException {
+
+        this.fleet = fleet;
+        this.aggregates = aggregates;
+        this.server = HttpServer.create(address, 0);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                runnable -> {
+                    Thread thread = new Thread(runnable,
+                            "coffee-maker-status-server-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        server.setExecutor(threads);
+        server.createContext(MAKERS_PATH, exchange -> handle(exchange, this::makers));
+        server.createContext("/fleet", exchange -> handle(exchange, this::fleet));
+        server.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        LOG.debug("Starting a status server on {}", address());
+        server.start();
+    }
+
+    /**
+     * Returns the address that the server listens on - e.g. to learn the port that it picked.
+     *
+     * @return the address that the server listens on.
+     */
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /**
+     * Stop the server, and abandon any responses in progress. Closing a closed server does
+     * nothing.
+     */
+    @Override
+    public synchronized void close() {
+        if (isClosed) {
+            return;
+        }
+
+        isClosed = true;
+        server.stop(0);
+        threads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                error(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Only GET is supported");
+                return;
+            }
+
+            handler.handle(exchange);
+        } catch (IOException | UncheckedIOException e) {
+            LOG.debug("A status request failed. Abandoning it.", e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void makers(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals(MAKERS_PATH) || path.equals(MAKERS_PATH + "/")) {
+            JsonWriter json = respondJson(exchange);
+            json.beginArray();
+            fleet.forEach(new StatusWriter(json));
+            json.endArray().flush();
+            return;
+        }
+
+        if (!path.startsWith(MAKERS_PATH + "/")) {
+            error(exchange, HttpURLConnection.HTTP_NOT_FOUND, String.format("No %s", path));
+            return;
+        }
+
+        String deviceIdText = path.substring(MAKERS_PATH.length() + 1);
+        long deviceId;
+        try {
+            deviceId = Long.parseLong(deviceIdText);
+        } catch (NumberFormatException e) {
+            error(exchange,
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    String.format("'%s' is not a device id", deviceIdText));
+            return;
+        }
+
+        CoffeeMaker coffeeMaker = fleet.lookup(deviceId);
+        if (coffeeMaker == null) {
+            error(exchange,
+                    HttpURLConnection.HTTP_NOT_FOUND,
+                    String.format("No coffee maker is registered under device id %d", deviceId));
+            return;
+        }
+
+        JsonWriter json = respondJson(exchange);
+        json.beginObject();
+        StatusWriter.writeFields(json,
+                deviceId,
+                coffeeMaker.cupsOfWater(),
+                coffeeMaker.cupsOfCoffee(),
+                coffeeMaker.isBrewing(),
+                coffeeMaker.isWarmerPlateOn(),
+                coffeeMaker.hasPot(),
+                false);
+
+        ClockMetrics metrics = coffeeMaker.clockMetrics();
+        json.name("clock").beginObject()
+                .name("ticks").value(metrics.ticks())
+                .name("steps").value(metrics.steps())
+                .name("evaluations").value(metrics.evaluations())
+                .name("lastLagNanos").value(metrics.lastLagNanos())
+                .name("maxLagNanos").value(metrics.maxLagNanos())
+                .name("totalLagNanos").value(metrics.totalLagNanos())
+                .name("missedTicks").value(metrics.missedTicks())
+                .name("burstTicks").value(metrics.burstTicks())
+                .name("coalescedTicks").value(metrics.coalescedTicks())
+                .name("droppedTicks").value(metrics.droppedTicks())
+                .endObject();
+
+        json.endObject().flush();
+    }
+
+    private void fleet(HttpExchange exchange) throws IOException {
+        FleetSummary summary = FleetSummary.of(fleet);
+
+        JsonWriter json = respondJson(exchange);
+        json.beginObject()
+                .name("makers").value(summary.makers)
+                .name("dormant").value(summary.dormant)
+                .name("brewing").value(summary.brewing)
+                .name("warmersOn").value(summary.warmersOn)
+                .name("potsRemoved").value(summary.potsRemoved)
+                .name("cupsOfWater").value(summary.cupsOfWater)
+                .name("cupsOfCoffee").value(summary.cupsOfCoffee);
+
+        if (aggregates != null) {
+            json.name("groups");
+            writeGroup(json, aggregates);
+        }
+
+        json.endObject().flush();
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        FleetSummary summary = FleetSummary.of(fleet);
+
+        exchange.getResponseHeaders().set("Content-Type", FleetSummary.PROMETHEUS_CONTENT_TYPE);
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+
+        Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8);
+        summary.writePrometheus(out);
+        out.flush();
+    }
+
+    private static void writeGroup(JsonWriter json, AggregateGroup group) throws IOException {
+        json.beginObject()
+                .name("name").value(group.name())
+                .name("path").value(group.path())
+                .name("makers").value(group.makers())
+                .name("cupsBrewed").value(group.cupsBrewed())
+                .name("cupsOfWaterDrawn").value(group.cupsOfWaterDrawn())
+                .name("makersBrewing").value(group.makersBrewing())
+                .name("warmersOn").value(group.warmersOn());
+
+        json.name("children").beginArray();
+        for (AggregateGroup child : group.children()) {
+            writeGroup(json, child);
+        }
+
+        json.endArray().endObject();
+    }
+
+    // Send the headers of a chunked JSON response, and return a writer for its body
+    private static JsonWriter respondJson(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+        return new JsonWriter(exchange.getResponseBody(), BUFFER_BYTES);
+    }
+
+    private static void error(HttpExchange exchange, int status, String message)
+            throws IOException {
+
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, 0);
+        new JsonWriter(exchange.getResponseBody(), BUFFER_BYTES)
+                .beginObject()
+                .name("error").value(message)
+                .endObject()
+                .flush();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /*
+     * Writes each CoffeeMaker that the fleet visits as a status object. Visitors cannot throw
+     * checked exceptions, so it wraps those of its JsonWriter.
+     */
+    private static final class StatusWriter implements CoffeeMakerFleet.Visitor {
+
+        private final JsonWriter json;
+
+        StatusWriter(JsonWriter json) {
+            this.json = json;
+        }
+
+        @Override
+        public void visitLive(long deviceId, CoffeeMaker coffeeMaker) {
+            write(deviceId,
+                    coffeeMaker.cupsOfWater(),
+                    coffeeMaker.cupsOfCoffee(),
+                    coffeeMaker.isBrewing(),
+                    coffeeMaker.isWarmerPlateOn(),
+                    coffeeMaker.hasPot(),
+                    false);
+        }
+
+        @Override
+        public void visitDormant(long deviceId, int cupsOfWater, int cupsOfCoffee, boolean hasPot) {
+            write(deviceId, cupsOfWater, cupsOfCoffee, false, false, hasPot, true);
+        }
+
+        private void write(long deviceId,
+                int cupsOfWater,
+                int cupsOfCoffee,
+                boolean isBrewing,
+                boolean isWarmerPlateOn,
+                boolean hasPot,
+                boolean isDormant) {
+
+            try {
+                json.beginObject();
+                writeFields(json,
+                        deviceId,
+                        cupsOfWater,
+                        cupsOfCoffee,
+                        isBrewing,
+                        isWarmerPlateOn,
+                        hasPot,
+                        isDormant);
+                json.endObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        static void writeFields(JsonWriter json,
+                long deviceId,
+                int cupsOfWater,
+                int cupsOfCoffee,
+                boolean isBrewing,
+                boolean isWarmerPlateOn,
+                boolean hasPot,
+                boolean isDormant) throws IOException {
+
+            json.name("id").value(deviceId)
+                    .name("cupsOfWater").value(cupsOfWater)
+                    .name("cupsOfCoffee").value(cupsOfCoffee)
+                    .name("brewing").value(isBrewing)
+                    .name("warmerPlateOn").value(isWarmerPlateOn)
+                    .name("hasPot").value(hasPot)
+                    .name("dormant").value(isDormant);
+        }
+    }
+}
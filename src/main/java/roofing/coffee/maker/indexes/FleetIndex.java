@@ -0,0 +1,283 @@
+package roofing.coffee.maker.indexes;
+
+import java.util.Arrays;
+
+/**
+ * A FleetIndex answers which of a fleet's CoffeeMakers are brewing, which hold at least some cups
+ * of coffee, and which had their pot removed mid-brew, without scanning the fleet.
+ *
+ * <p>
+ * Each CoffeeMaker of an indexed fleet offers its state to the index after every update of its
+ * Bus - i.e. after every tick and every evaluation. The index remembers the state that it last
+ * indexed for each CoffeeMaker, and touches its sets only if that state changed. An idle
+ * CoffeeMaker therefore costs a single comparison per tick, and a brewing one a few set
+ * operations per cup.
+ * </p>
+ *
+ * <p>
+ * The index holds device ids {@code 0} through {@code capacity - 1} in three kinds of MemberSet:
+ * </p>
+ *
+ * <ul>
+ * <li>the CoffeeMakers that are brewing</li>
+ * <li>one bucket per cups of coffee in the pot, from one cup up to the pot's max capacity</li>
+ * <li>the CoffeeMakers whose pot the user removed while they were brewing, and has not yet
+ * replaced</li>
+ * </ul>
+ *
+ * <p>
+ * Every query therefore costs time proportional to the size of its result - plus, for
+ * {@code readyAtLeast(int)}, the number of buckets that it visits - rather than to the size of the
+ * fleet. Queries return device ids in no particular order. A CoffeeMaker whose state changes
+ * during a query may be missing from the result, since it moves between sets one at a time.
+ * </p>
+ *
+ * <p>
+ * A FleetIndex is thread safe. Each CoffeeMaker must offer its state from one thread at a time,
+ * as its Bus does.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMakerCreator#createFleet(int,
+ *      roofing.coffee.maker.plugins.properties.CoffeeMakerProperties,
+ *      roofing.coffee.maker.FleetOptions)
+ * @author nferraro-roofing
+ *
+ */
+public final class FleetIndex {
+
+    private static final int LOCK_STRIPES = 64;
+
+    // Each CoffeeMaker's last indexed state: its cups of coffee above these flags, or REMOVED
+    private static final int INDEXED = 1;
+    private static final int BREWING = 1 << 1;
+    private static final int INTERRUPTED = 1 << 2;
+    private static final int FLAG_BITS = 3;
+    private static final int REMOVED = -1;
+
+    private final int[] entries;
+
+    // Serialize each CoffeeMaker's updates with its removal
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final MemberSet brewing;
+    private final MemberSet interrupted;
+
+    // byCups[n] holds the CoffeeMakers with n cups of coffee. It grows as pots fill.
+    private final int[] cupsPositions;
+    private volatile MemberSet[] byCups = new MemberSet[1];
+
+    /**
+     * Construct an empty FleetIndex of the device ids {@code 0} through {@code capacity - 1}.
+     *
+     * @param capacity the number of device ids that the index holds
+     * @throws IllegalArgumentException if {@code capacity} is negative.
+     */
+    public FleetIndex(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "A fleet index cannot hold a negative number of coffee makers, but was asked "
+                            + "to hold %d",
+                    capacity));
+        }
+
+        this.entries = new int[capacity];
+        this.brewing = new MemberSet(new int[capacity]);
+        this.interrupted = new MemberSet(new int[capacity]);
+        this.cupsPositions = new int[capacity];
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the number of device ids that this index holds.
+     *
+     * @return the number of device ids that this index holds.
+     */
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Index the state of the CoffeeMaker registered under {@code deviceId}.
+     *
+     * <p>
+     * The CoffeeMaker calls this method after every update of its Bus. The index ignores a
+     * CoffeeMaker after {@code remove(int)}.
+     * </p>
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @param isBrewing whether the CoffeeMaker is brewing
+     * @param cupsOfCoffee the cups of coffee in the CoffeeMaker's pot
+     * @param hasPot whether the CoffeePot sits on the WarmerPlate
+     * @throws IllegalArgumentException if {@code deviceId} lies outside this index.
+     */
+    public void update(int deviceId, boolean isBrewing, int cupsOfCoffee, boolean hasPot) {
+        checkDeviceId(deviceId);
+
+        int previous = entries[deviceId];
+
+        // A brew stops the moment that its pot goes missing, so the brew was interrupted if the
+        // last indexed state was still brewing - or was already interrupted.
+        boolean isInterrupted = !hasPot
+                && (previous & (BREWING | INTERRUPTED)) != 0
+                && previous != REMOVED;
+
+        int next = cupsOfCoffee << FLAG_BITS
+                | INDEXED
+                | (isBrewing ? BREWING : 0)
+                | (isInterrupted ? INTERRUPTED : 0);
+
+        if (next == previous) {
+            return;
+        }
+
+        synchronized (locks[deviceId % LOCK_STRIPES]) {
+            previous = entries[deviceId];
+            if (previous == REMOVED) {
+                return;
+            }
+
+            move(deviceId, previous, next);
+            entries[deviceId] = next;
+        }
+    }
+
+    /**
+     * Remove the CoffeeMaker registered under {@code deviceId} from this index - e.g. once the
+     * fleet decommissions it. The index ignores any later update of {@code deviceId}.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @throws IllegalArgumentException if {@code deviceId} lies outside this index.
+     */
+    public void remove(int deviceId) {
+        checkDeviceId(deviceId);
+
+        synchronized (locks[deviceId % LOCK_STRIPES]) {
+            int previous = entries[deviceId];
+            if (previous != REMOVED) {
+                move(deviceId, previous, 0);
+                entries[deviceId] = REMOVED;
+            }
+        }
+    }
+
+    /**
+     * Returns the device ids of the CoffeeMakers that are brewing.
+     *
+     * @return the device ids of the CoffeeMakers that are brewing.
+     */
+    public int[] brewing() {
+        return brewing.toArray();
+    }
+
+    /**
+     * Returns the device ids of the CoffeeMakers whose pots hold at least {@code cups} cups of
+     * coffee.
+     *
+     * @param cups the fewest cups of coffee to look for
+     * @return the device ids of the CoffeeMakers whose pots hold at least {@code cups} cups.
+     * @throws IllegalArgumentException if {@code cups} is not positive.
+     */
+    public int[] readyAtLeast(int cups) {
+        if (cups < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot look for coffee makers with %d cups of coffee. Please look for at "
+                            + "least 1 cup.",
+                    cups));
+        }
+
+        MemberSet[] buckets = byCups;
+        int[][] parts = new int[Math.max(buckets.length - cups, 0)][];
+        int total = 0;
+
+        for (int i = 0; i < parts.length; i++) {
+            MemberSet bucket = buckets[cups + i];
+            parts[i] = bucket == null ? new int[0] : bucket.toArray();
+            total += parts[i].length;
+        }
+
+        int[] ready = new int[total];
+        int length = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, ready, length, part.length);
+            length += part.length;
+        }
+
+        return ready;
+    }
+
+    /**
+     * Returns the device ids of the CoffeeMakers whose pot the user removed while they were
+     * brewing, and has not yet replaced.
+     *
+     * @return the device ids of the CoffeeMakers whose pot was removed mid-brew.
+     */
+    public int[] potRemovedMidBrew() {
+        return interrupted.toArray();
+    }
+
+    // Move deviceId from the sets of its previous entry to those of its next one. Callers hold
+    // the device id's lock.
+    private void move(int deviceId, int previous, int next) {
+        int changed = previous ^ next;
+
+        if ((changed & BREWING) != 0) {
+            if ((next & BREWING) != 0) {
+                brewing.add(deviceId);
+            } else {
+                brewing.remove(deviceId);
+            }
+        }
+
+        if ((changed & INTERRUPTED) != 0) {
+            if ((next & INTERRUPTED) != 0) {
+                interrupted.add(deviceId);
+            } else {
+                interrupted.remove(deviceId);
+            }
+        }
+
+        int previousCups = previous >>> FLAG_BITS;
+        int nextCups = next >>> FLAG_BITS;
+        if (previousCups != nextCups) {
+            if (previousCups > 0) {
+                byCups[previousCups].remove(deviceId);
+            }
+
+            if (nextCups > 0) {
+                bucket(nextCups).add(deviceId);
+            }
+        }
+    }
+
+    private MemberSet bucket(int cups) {
+        MemberSet[] buckets = byCups;
+        if (cups < buckets.length && buckets[cups] != null) {
+            return buckets[cups];
+        }
+
+        // Copy on write, so that queries never see a bucket before it is fully built
+        synchronized (this) {
+            buckets = byCups;
+            if (cups < buckets.length && buckets[cups] != null) {
+                return buckets[cups];
+            }
+
+            buckets = Arrays.copyOf(buckets, Math.max(buckets.length, cups + 1));
+            buckets[cups] = new MemberSet(cupsPositions);
+            byCups = buckets;
+            return buckets[cups];
+        }
+    }
+
+    private void checkDeviceId(int deviceId) {
+        if (deviceId < 0 || deviceId >= entries.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Device id %d lies outside a fleet index of %d coffee makers",
+                    deviceId,
+                    entries.length));
+        }
+    }
+}
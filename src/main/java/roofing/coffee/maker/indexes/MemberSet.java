@@ -0,0 +1,60 @@
+package roofing.coffee.maker.indexes;
+
+import java.util.Arrays;
+
+/**
+ * A MemberSet is a set of device ids that adds, removes, and lists its members in time
+ * proportional to the work done - i.e. O(1) to add or remove, and O(size) to list - however many
+ * device ids the fleet holds.
+ *
+ * <p>
+ * A MemberSet packs its members densely into an array, and records each member's index within
+ * that array in {@code positions}. Removing a member moves the last member into its place. Sets
+ * whose members never overlap - e.g. the buckets of an index by cups of coffee - may share one
+ * {@code positions} array, since each device id's entry belongs to whichever set holds it.
+ * </p>
+ *
+ * <p>
+ * A MemberSet is thread safe. Callers must add only absent device ids and remove only present
+ * ones.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class MemberSet {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int[] positions;
+    private int[] members = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    MemberSet(int[] positions) {
+        this.positions = positions;
+    }
+
+    synchronized void add(int deviceId) {
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size * 2);
+        }
+
+        members[size] = deviceId;
+        positions[deviceId] = size++;
+    }
+
+    synchronized void remove(int deviceId) {
+        int position = positions[deviceId];
+        int last = members[--size];
+        members[position] = last;
+        positions[last] = position;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int[] toArray() {
+        return Arrays.copyOf(members, size);
+    }
+}
@@ -4,6 +4,7 @@ import java.util.concurrent.TimeUnit;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.ToString;
+import roofing.coffee.maker.busses.CatchUpPolicy;
 
 /**
  * CoffeeMakerProperties enables clients to tune the behavior of a CoffeeMaker.
@@ -82,6 +83,43 @@ public final class CoffeeMakerProperties {
         return clock.delayUnit;
     }
 
+    /**
+     * Returns what a CoffeeMaker's clock should do with the ticks that it misses while it cannot
+     * run - e.g. during a long GC pause.
+     * 
+     * @see roofing.coffee.maker.busses.CatchUpPolicy
+     * @return what a CoffeeMaker's clock should do with the ticks that it misses.
+     */
+    public CatchUpPolicy getClockCatchUpPolicy() {
+        return clock.catchUpPolicy;
+    }
+
+    /**
+     * Returns true if a CoffeeMaker's clock should evaluate the CoffeeMaker immediately after each
+     * user command, rather than waiting for its next tick; false otherwise.
+     * 
+     * @see roofing.coffee.maker.busses.Clock#evaluate()
+     * @return true if a CoffeeMaker's clock should evaluate the CoffeeMaker immediately after each
+     *         user command; false otherwise.
+     */
+    public boolean isClockEvaluatingCommandsImmediately() {
+        return clock.evaluateCommandsImmediately;
+    }
+
+    /**
+     * Returns the number of times that a CoffeeMaker's clock ticks per minute.
+     * 
+     * <p>
+     * CoffeeMakerProperties calculates this value from the ClockProps' {@code tickDelay} and
+     * {@code delayUnit}.
+     * </p>
+     * 
+     * @return the number of times that a CoffeeMaker's clock ticks per minute.
+     */
+    public long getClockTicksPerMinute() {
+        return clock.ticksPerMinute;
+    }
+
     /**
      * Returns the max cups of coffee that a CoffeeMaker's CoffeePot should hold.
      * 
@@ -154,6 +192,8 @@ public final class CoffeeMakerProperties {
         private final long tickDelay;
         private final TimeUnit delayUnit;
         private final long ticksPerMinute;
+        private final CatchUpPolicy catchUpPolicy;
+        private final boolean evaluateCommandsImmediately;
 
         /**
          * Create a ClockProps instance that instructs a CoffeeMaker's clock to tick after every
@@ -181,11 +221,76 @@ public final class CoffeeMakerProperties {
          *         would cause a clock to tick fewer than once per minute.
          */
         public ClockProps(long tickDelay, TimeUnit delayUnit) {
+            this(tickDelay, delayUnit, CatchUpPolicy.BURST);
+        }
+
+        /**
+         * Create a ClockProps instance that instructs a CoffeeMaker's clock to tick after every
+         * {@code tickDelay} has passed in the provided {@code delayUnit}, and to handle any ticks
+         * that it misses according to {@code catchUpPolicy}.
+         * 
+         * <p>
+         * {@code tickDelay} and {@code delayUnit} are subject to the same constraints as in
+         * {@link #ClockProps(long, TimeUnit)}, which uses {@code CatchUpPolicy.BURST}.
+         * </p>
+         * 
+         * @param tickDelay the delay between a CoffeeMaker's clock ticks
+         * @param delayUnit the delay unit to be applied to {@code tickDelay}
+         * @param catchUpPolicy what a CoffeeMaker's clock should do with the ticks that it misses
+         * @throws InvalidClockTickDelayPropertyException when {@code tickDelay} does not exceed 0
+         * @throws InvalidClockTimeUnitPropertyException when {@code delayUnit} is coarser than
+         *         {@code TimeUnit.Seconds}
+         * @throws InvalidClockTicksPerMinuteException when {@code tickDelay} and {@code delayUnit}
+         *         would cause a clock to tick fewer than once per minute.
+         * @throws NullPointerException when {@code catchUpPolicy} is null
+         */
+        public ClockProps(long tickDelay,
+                TimeUnit delayUnit,
+                @NonNull CatchUpPolicy catchUpPolicy) {
+            this(tickDelay, delayUnit, catchUpPolicy, false);
+        }
+
+        /**
+         * Create a ClockProps instance that instructs a CoffeeMaker's clock to tick after every
+         * {@code tickDelay} has passed in the provided {@code delayUnit}, to handle any ticks that
+         * it misses according to {@code catchUpPolicy}, and optionally to evaluate the
+         * CoffeeMaker immediately after each user command.
+         * 
+         * <p>
+         * By default, a user command - e.g. pressing the brew button - takes effect on the
+         * clock's next tick, which may be up to {@code tickDelay} away. With
+         * {@code evaluateCommandsImmediately}, the command takes effect without raising the
+         * clock's tick rate: before it returns to the user, or - if a tick is in progress - as
+         * that tick ends.
+         * </p>
+         * 
+         * <p>
+         * {@code tickDelay} and {@code delayUnit} are subject to the same constraints as in
+         * {@link #ClockProps(long, TimeUnit)}.
+         * </p>
+         * 
+         * @param tickDelay the delay between a CoffeeMaker's clock ticks
+         * @param delayUnit the delay unit to be applied to {@code tickDelay}
+         * @param catchUpPolicy what a CoffeeMaker's clock should do with the ticks that it misses
+         * @param evaluateCommandsImmediately whether user commands should take effect immediately
+         * @throws InvalidClockTickDelayPropertyException when {@code tickDelay} does not exceed 0
+         * @throws InvalidClockTimeUnitPropertyException when {@code delayUnit} is coarser than
+         *         {@code TimeUnit.Seconds}
+         * @throws InvalidClockTicksPerMinuteException when {@code tickDelay} and {@code delayUnit}
+         *         would cause a clock to tick fewer than once per minute.
+         * @throws NullPointerException when {@code catchUpPolicy} is null
+         */
+        public ClockProps(long tickDelay,
+                TimeUnit delayUnit,
+                @NonNull CatchUpPolicy catchUpPolicy,
+                boolean evaluateCommandsImmediately) {
             assertTickDelay(tickDelay);
             assertTimeUnit(delayUnit);
 
             this.tickDelay = tickDelay;
             this.delayUnit = delayUnit;
+            this.catchUpPolicy = catchUpPolicy;
+            this.evaluateCommandsImmediately = evaluateCommandsImmediately;
             ticksPerMinute = delayUnit.convert(1, TimeUnit.MINUTES) / tickDelay;
 
             assertTicksPerMinute();
@@ -0,0 +1,165 @@
+package roofing.coffee.maker.rankings;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import lombok.NonNull;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.events.ComponentEventType;
+
+/**
+ * BusiestMakers ranks a fleet's CoffeeMakers by the cups of coffee that they brewed, and by the
+ * brews that they started, over the last hour and the last day - e.g. to plan where the
+ * next CoffeeMakers go.
+ *
+ * <p>
+ * Each CoffeeMaker passes its CoffeePot's {@code CUP_BREWED} and its BrewButton's
+ * {@code BREW_RECEIVED} transitions to the sink that {@code eventsOf(int)} returns for its
+ * device id. Rather than count every CoffeeMaker exactly, BusiestMakers counts each step of each
+ * window in a space-saving sketch of a fixed number of counters, which follows the busiest
+ * CoffeeMakers exactly and forgets the quietest ones. Its memory therefore stays within a fixed
+ * budget, however large the fleet.
+ * </p>
+ *
+ * <p>
+ * The more counters the budget buys per step, the more accurate the ranking. As a rule of thumb,
+ * a step counts exactly every CoffeeMaker that made more than {@code 1 / counters} of the step's
+ * transitions, so that a ranking of the top {@code k} CoffeeMakers needs a budget of many times
+ * {@code k} counters per step.
+ * </p>
+ *
+ * <p>
+ * BusiestMakers is thread safe. CoffeeMakers that brew at the same time contend on a lock per
+ * window, which each transition holds for {@code O(log counters)}.
+ * </p>
+ *
+ * @see roofing.coffee.maker.CoffeeMakerCreator#createFleet(int,
+ *      roofing.coffee.maker.plugins.properties.CoffeeMakerProperties,
+ *      roofing.coffee.maker.FleetOptions)
+ * @author nferraro-roofing
+ *
+ */
+public final class BusiestMakers {
+
+    private final int countersPerStep;
+    private final LongSupplier nanoTime;
+    private final Map<RankingWindow, SlidingSketch> byCupsBrewed =
+            new EnumMap<>(RankingWindow.class);
+    private final Map<RankingWindow, SlidingSketch> byBrewsStarted =
+            new EnumMap<>(RankingWindow.class);
+
+    /**
+     * Construct BusiestMakers that rank CoffeeMakers within {@code budgetBytes} of memory.
+     *
+     * @param budgetBytes the memory that the rankings may use, which the rankings divide evenly
+     *        among their windows' steps
+     * @throws IllegalArgumentException if {@code budgetBytes} buys less than one counter per step.
+     */
+    public BusiestMakers(long budgetBytes) {
+        this(budgetBytes, System::nanoTime);
+    }
+
+    BusiestMakers(long budgetBytes, @NonNull LongSupplier nanoTime) {
+        long counters = budgetBytes / SpaceSavingSketch.BYTES_PER_COUNTER / stepsPerRanking() / 2;
+        if (counters < 1 || counters > Integer.MAX_VALUE / 4) {
+            throw new IllegalArgumentException(String.format(
+                    "A budget of %d bytes buys %d counters per step of the busiest coffee "
+                            + "makers' rankings, but they need between 1 and %d",
+                    budgetBytes,
+                    counters,
+                    Integer.MAX_VALUE / 4));
+        }
+
+        this.countersPerStep = (int) counters;
+        this.nanoTime = nanoTime;
+
+        long now = nanoTime.getAsLong();
+        for (RankingWindow window : RankingWindow.values()) {
+            byCupsBrewed.put(window, new SlidingSketch(window, countersPerStep, now));
+            byBrewsStarted.put(window, new SlidingSketch(window, countersPerStep, now));
+        }
+    }
+
+    /**
+     * Returns the number of counters that each step of each window holds.
+     *
+     * @return the number of counters per step.
+     */
+    public int countersPerStep() {
+        return countersPerStep;
+    }
+
+    /**
+     * Returns the sink that counts the transitions of the CoffeeMaker registered under
+     * {@code deviceId}.
+     *
+     * @param deviceId the CoffeeMaker's device id
+     * @return the sink to pass to the CoffeeMaker's components.
+     */
+    public ComponentEventSink eventsOf(int deviceId) {
+        return (type, value) -> {
+            if (type == ComponentEventType.CUP_BREWED) {
+                addTo(byCupsBrewed, deviceId);
+            } else if (type == ComponentEventType.BREW_RECEIVED) {
+                addTo(byBrewsStarted, deviceId);
+            }
+        };
+    }
+
+    /**
+     * Returns up to {@code count} CoffeeMakers that brewed the most cups of coffee within
+     * {@code window}, busiest first.
+     *
+     * @param window the window to rank the CoffeeMakers over
+     * @param count the number of CoffeeMakers to rank
+     * @return the busiest CoffeeMakers by cups brewed, busiest first.
+     * @throws IllegalArgumentException if {@code count} is negative.
+     */
+    public List<RankedMaker> byCupsBrewed(@NonNull RankingWindow window, int count) {
+        return top(byCupsBrewed, window, count);
+    }
+
+    /**
+     * Returns up to {@code count} CoffeeMakers that started the most brews within {@code window},
+     * busiest first. A brew request that the user withdrew before it started a brew - e.g. while
+     * the pot was away - does not count.
+     *
+     * @param window the window to rank the CoffeeMakers over
+     * @param count the number of CoffeeMakers to rank
+     * @return the busiest CoffeeMakers by brews started, busiest first.
+     * @throws IllegalArgumentException if {@code count} is negative.
+     */
+    public List<RankedMaker> byBrewsStarted(@NonNull RankingWindow window, int count) {
+        return top(byBrewsStarted, window, count);
+    }
+
+    private void addTo(Map<RankingWindow, SlidingSketch> sketches, int deviceId) {
+        long now = nanoTime.getAsLong();
+        for (SlidingSketch sketch : sketches.values()) {
+            sketch.add(deviceId, now);
+        }
+    }
+
+    private List<RankedMaker> top(Map<RankingWindow, SlidingSketch> sketches,
+            RankingWindow window,
+            int count) {
+
+        if (count < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot rank %d coffee makers. Please ask for at least 0.",
+                    count));
+        }
+
+        return sketches.get(window).top(count, nanoTime.getAsLong());
+    }
+
+    private static int stepsPerRanking() {
+        int steps = 0;
+        for (RankingWindow window : RankingWindow.values()) {
+            steps += window.steps();
+        }
+
+        return steps;
+    }
+}
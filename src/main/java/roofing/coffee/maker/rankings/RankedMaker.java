@@ -0,0 +1,33 @@
+package roofing.coffee.maker.rankings;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A RankedMaker is one of the busiest CoffeeMakers of a window: its device id, and how often it
+ * brewed a cup or received a brew request within the window.
+ *
+ * <p>
+ * {@code count} estimates the CoffeeMaker's transitions within the window. The CoffeeMaker made at
+ * least {@code count - error} of them; an {@code error} of {@code 0} means that the count is
+ * exact, as it usually is for the busiest CoffeeMakers.
+ * </p>
+ *
+ * @see roofing.coffee.maker.rankings.BusiestMakers
+ * @author nferraro-roofing
+ *
+ */
+@Getter
+@ToString
+public final class RankedMaker {
+
+    private final int deviceId;
+    private final long count;
+    private final long error;
+
+    RankedMaker(int deviceId, long count, long error) {
+        this.deviceId = deviceId;
+        this.count = count;
+        this.error = error;
+    }
+}
@@ -0,0 +1,44 @@
+package roofing.coffee.maker.rankings;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A RankingWindow is the span of recent time over which BusiestMakers ranks CoffeeMakers.
+ *
+ * <p>
+ * Each window slides in steps - e.g. the last hour slides every five minutes - so that a ranking
+ * covers between one step less than the window and the whole window.
+ * </p>
+ *
+ * @see roofing.coffee.maker.rankings.BusiestMakers
+ * @author nferraro-roofing
+ *
+ */
+public enum RankingWindow {
+
+    /**
+     * The last hour, in steps of five minutes.
+     */
+    LAST_HOUR(TimeUnit.HOURS.toNanos(1), 12),
+
+    /**
+     * The last day, in steps of an hour.
+     */
+    LAST_DAY(TimeUnit.DAYS.toNanos(1), 24);
+
+    private final long nanos;
+    private final int steps;
+
+    RankingWindow(long nanos, int steps) {
+        this.nanos = nanos;
+        this.steps = steps;
+    }
+
+    long nanos() {
+        return nanos;
+    }
+
+    int steps() {
+        return steps;
+    }
+}
@@ -0,0 +1,87 @@
+package roofing.coffee.maker.rankings;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A SlidingSketch ranks the device ids that occurred most often within a sliding window of time.
+ *
+ * <p>
+ * The sketch divides its window into steps, and counts each step's occurrences in a
+ * SpaceSavingSketch of its own. Once a step ends, the sketch clears its oldest step's counters and
+ * counts the next step's occurrences in them, so that its memory stays fixed however long it runs.
+ * A ranking merges the counters of every step.
+ * </p>
+ *
+ * <p>
+ * A SlidingSketch is thread safe.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class SlidingSketch {
+
+    private static final Comparator<RankedMaker> BUSIEST_FIRST = Comparator
+            .comparingLong(RankedMaker::getCount)
+            .reversed()
+            .thenComparingInt(RankedMaker::getDeviceId);
+
+    // Guarded by this
+    private final SpaceSavingSketch[] steps;
+    private final long stepNanos;
+    private long currentStep;
+
+    SlidingSketch(RankingWindow window, int countersPerStep, long nowNanos) {
+        this.steps = new SpaceSavingSketch[window.steps()];
+        for (int step = 0; step < steps.length; step++) {
+            steps[step] = new SpaceSavingSketch(countersPerStep);
+        }
+
+        this.stepNanos = window.nanos() / window.steps();
+        this.currentStep = Math.floorDiv(nowNanos, stepNanos);
+    }
+
+    synchronized void add(int deviceId, long nowNanos) {
+        slideTo(nowNanos);
+        steps[Math.floorMod(currentStep, steps.length)].add(deviceId);
+    }
+
+    synchronized List<RankedMaker> top(int count, long nowNanos) {
+        slideTo(nowNanos);
+
+        Map<Integer, long[]> merged = new HashMap<>();
+        for (SpaceSavingSketch step : steps) {
+            for (int counter = 0; counter < step.size(); counter++) {
+                long[] countAndError = merged.computeIfAbsent(step.deviceIdAt(counter),
+                        deviceId -> new long[2]);
+
+                countAndError[0] += step.countAt(counter);
+                countAndError[1] += step.errorAt(counter);
+            }
+        }
+
+        List<RankedMaker> ranked = new ArrayList<>(merged.size());
+        merged.forEach((deviceId, countAndError) -> ranked.add(
+                new RankedMaker(deviceId, countAndError[0], countAndError[1])));
+        ranked.sort(BUSIEST_FIRST);
+
+        return new ArrayList<>(ranked.subList(0, Math.min(count, ranked.size())));
+    }
+
+    // Clears the counters of every step that ended since the last occurrence, oldest first. A
+    // clock that moved backwards leaves the current step as is.
+    private void slideTo(long nowNanos) {
+        long step = Math.floorDiv(nowNanos, stepNanos);
+        long ended = Math.min(step - currentStep, steps.length);
+
+        for (long next = 1; next <= ended; next++) {
+            steps[Math.floorMod(currentStep + next, steps.length)].clear();
+        }
+
+        currentStep = Math.max(step, currentStep);
+    }
+}
@@ -0,0 +1,235 @@
+package roofing.coffee.maker.rankings;
+
+import java.util.Arrays;
+
+/**
+ * A SpaceSavingSketch counts the occurrences of device ids in a stream with a fixed number of
+ * counters, however many distinct device ids the stream holds.
+ *
+ * <p>
+ * While it has a free counter, the sketch counts each new device id exactly. Once its counters run
+ * out, a new device id takes over the counter with the smallest count, and inherits that count as
+ * its error - so the sketch never undercounts a device id that it holds, overcounts it by at most
+ * its error, and holds every device id that occurred more than {@code total / counters} times.
+ * </p>
+ *
+ * <p>
+ * A min-heap of the counters finds the smallest one, and an open-addressing table finds each
+ * device id's counter, so that each occurrence costs {@code O(log counters)} and allocates
+ * nothing. A SpaceSavingSketch is not thread safe.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class SpaceSavingSketch {
+
+    // A device id, count, error, heap entry, and heap position per counter, and up to four table
+    // slots per counter
+    static final int BYTES_PER_COUNTER = 4 + 8 + 8 + 4 + 4 + 4 * 4;
+
+    private static final int EMPTY = -1;
+
+    private final int[] deviceIds;
+    private final long[] counts;
+    private final long[] errors;
+
+    // The counters, smallest count first, and each counter's position in the heap
+    private final int[] heap;
+    private final int[] heapPositions;
+
+    // Each device id's counter, by linear probing from the hash of the device id
+    private final int[] table;
+    private final int tableMask;
+
+    private int size = 0;
+    private long total = 0;
+
+    SpaceSavingSketch(int counters) {
+        if (counters < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "A space-saving sketch needs at least one counter, but was given %d",
+                    counters));
+        }
+
+        this.deviceIds = new int[counters];
+        this.counts = new long[counters];
+        this.errors = new long[counters];
+        this.heap = new int[counters];
+        this.heapPositions = new int[counters];
+        this.table = new int[Integer.highestOneBit(counters * 2 - 1) * 2];
+        this.tableMask = table.length - 1;
+
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * Count one occurrence of {@code deviceId}.
+     *
+     * @param deviceId the device id that occurred
+     */
+    void add(int deviceId) {
+        total++;
+
+        int slot = slotOf(deviceId);
+        if (table[slot] != EMPTY) {
+            int counter = table[slot];
+            counts[counter]++;
+            siftDown(heapPositions[counter]);
+        } else if (size < deviceIds.length) {
+            int counter = size++;
+            deviceIds[counter] = deviceId;
+            counts[counter] = 1;
+            errors[counter] = 0;
+            table[slot] = counter;
+
+            heap[counter] = counter;
+            heapPositions[counter] = counter;
+            siftUp(counter);
+        } else {
+            // Take over the smallest counter
+            int counter = heap[0];
+            unlink(deviceIds[counter]);
+
+            deviceIds[counter] = deviceId;
+            errors[counter] = counts[counter];
+            counts[counter]++;
+            table[slotOf(deviceId)] = counter;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Forget every occurrence.
+     */
+    void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+        total = 0;
+    }
+
+    long estimate(int deviceId) {
+        int counter = table[slotOf(deviceId)];
+        return counter == EMPTY ? 0 : counts[counter];
+    }
+
+    long error(int deviceId) {
+        int counter = table[slotOf(deviceId)];
+        return counter == EMPTY ? 0 : errors[counter];
+    }
+
+    /**
+     * Returns the smallest count that the sketch holds once every counter is taken, or {@code 0}
+     * while it has a free counter. A device id that the sketch does not hold occurred at most this
+     * often.
+     *
+     * @return the smallest count that the sketch holds.
+     */
+    long minCount() {
+        return size < deviceIds.length ? 0 : counts[heap[0]];
+    }
+
+    int counters() {
+        return deviceIds.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long total() {
+        return total;
+    }
+
+    // Counters 0 through size - 1 each hold one device id
+    int deviceIdAt(int counter) {
+        return deviceIds[counter];
+    }
+
+    long countAt(int counter) {
+        return counts[counter];
+    }
+
+    long errorAt(int counter) {
+        return errors[counter];
+    }
+
+    // Returns the slot that holds deviceId, or the empty slot where it belongs
+    private int slotOf(int deviceId) {
+        int slot = home(deviceId);
+        while (table[slot] != EMPTY && deviceIds[table[slot]] != deviceId) {
+            slot = (slot + 1) & tableMask;
+        }
+
+        return slot;
+    }
+
+    private int home(int deviceId) {
+        int hash = deviceId * 0x9E3779B9;
+        return (hash ^ hash >>> 16) & tableMask;
+    }
+
+    // Empties deviceId's slot, and shifts back any later entry of its probe sequence, so that
+    // lookups need no tombstones
+    private void unlink(int deviceId) {
+        int hole = slotOf(deviceId);
+        table[hole] = EMPTY;
+
+        for (int slot = (hole + 1) & tableMask; table[slot] != EMPTY;
+                slot = (slot + 1) & tableMask) {
+            int home = home(deviceIds[table[slot]]);
+            boolean reachesHole = hole <= slot
+                    ? home <= hole || home > slot
+                    : home <= hole && home > slot;
+
+            if (reachesHole) {
+                table[hole] = table[slot];
+                table[slot] = EMPTY;
+                hole = slot;
+            }
+        }
+    }
+
+    private void siftUp(int position) {
+        int counter = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] <= counts[counter]) {
+                break;
+            }
+
+            place(heap[parent], position);
+            position = parent;
+        }
+
+        place(counter, position);
+    }
+
+    private void siftDown(int position) {
+        int counter = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+                child++;
+            }
+
+            if (counts[counter] <= counts[heap[child]]) {
+                break;
+            }
+
+            place(heap[child], position);
+            position = child;
+        }
+
+        place(counter, position);
+    }
+
+    private void place(int counter, int position) {
+        heap[position] = counter;
+        heapPositions[counter] = position;
+    }
+}
@@ -0,0 +1,55 @@
+package roofing.coffee.maker.remote;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A BufferPool recycles direct ByteBuffers of one size, so that a ControlServer allocates direct
+ * memory only while its traffic grows, rather than once per read or response.
+ *
+ * <p>
+ * The pool keeps at most {@code maxIdle} released buffers, and leaves the rest to the garbage
+ * collector. A BufferPool is not thread safe: its ControlServer's selector thread is its only user.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class BufferPool {
+
+    private final int bufferBytes;
+    private final int maxIdle;
+    private final ArrayDeque<ByteBuffer> idle = new ArrayDeque<>();
+    private int allocated = 0;
+
+    BufferPool(int bufferBytes, int maxIdle) {
+        this.bufferBytes = bufferBytes;
+        this.maxIdle = maxIdle;
+    }
+
+    // A cleared buffer, recycled if possible
+    ByteBuffer acquire() {
+        ByteBuffer buffer = idle.pollFirst();
+        if (buffer != null) {
+            return buffer;
+        }
+
+        allocated++;
+        return ByteBuffer.allocateDirect(bufferBytes).order(ControlProtocol.BYTE_ORDER);
+    }
+
+    void release(ByteBuffer buffer) {
+        if (idle.size() < maxIdle) {
+            buffer.clear();
+            idle.addFirst(buffer);
+        }
+    }
+
+    int idle() {
+        return idle.size();
+    }
+
+    int allocated() {
+        return allocated;
+    }
+}
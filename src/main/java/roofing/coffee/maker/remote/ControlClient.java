@@ -0,0 +1,151 @@
+package roofing.coffee.maker.remote;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import lombok.NonNull;
+
+/**
+ * A ControlClient controls the CoffeeMakers of a remote fleet through a ControlServer, over one
+ * blocking connection.
+ *
+ * <p>
+ * {@code call()} sends one request and waits for its response. Clients that want throughput
+ * rather than latency should pipeline instead: {@code send()} any number of requests, and then
+ * {@code receive()} their responses in the same order. {@code send()} buffers its requests and
+ * writes them once its buffer fills, and {@code receive()} writes whatever remains before it waits.
+ * Keep at most a few thousand requests in flight, though: the server stops reading from a client
+ * that falls behind on its responses, so a client that only sends eventually waits forever.
+ * </p>
+ *
+ * <p>
+ * A ControlClient is not thread safe.
+ * </p>
+ *
+ * @see roofing.coffee.maker.remote.ControlProtocol
+ * @author nferraro-roofing
+ *
+ */
+public final class ControlClient implements Closeable {
+
+    private static final int BUFFER_BYTES = 8 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer output =
+            ByteBuffer.allocateDirect(BUFFER_BYTES).order(ControlProtocol.BYTE_ORDER);
+    private final ByteBuffer input =
+            ByteBuffer.allocateDirect(BUFFER_BYTES).order(ControlProtocol.BYTE_ORDER);
+
+    private int nextRequestId = 0;
+
+    private ControlClient(SocketChannel channel) {
+        this.channel = channel;
+        input.flip(); // Nothing to read yet
+    }
+
+    /**
+     * Connect to the ControlServer that listens on {@code address}.
+     *
+     * @param address the server's address
+     * @return a client connected to the server
+     * @throws IOException if the client cannot connect.
+     */
+    public static ControlClient connect(@NonNull InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        return new ControlClient(channel);
+    }
+
+    /**
+     * Send {@code command} for the CoffeeMaker of {@code makerId}, and wait for its response.
+     *
+     * @param command what the CoffeeMaker should do
+     * @param makerId the CoffeeMaker's device id
+     * @param argument the command's argument - e.g. the cups to fill - or {@code 0}
+     * @return the server's response.
+     * @throws IOException if the connection fails.
+     */
+    public ControlResponse call(@NonNull ControlCommand command, long makerId, int argument)
+            throws IOException {
+
+        send(nextRequestId++, command, makerId, argument);
+        return receive();
+    }
+
+    /**
+     * Queue a request without waiting for its response, which a later {@code receive()} returns.
+     *
+     * @param requestId the id that the response echoes
+     * @param command what the CoffeeMaker should do
+     * @param makerId the CoffeeMaker's device id
+     * @param argument the command's argument - e.g. the cups to fill - or {@code 0}
+     * @throws IOException if the connection fails.
+     */
+    public void send(int requestId, @NonNull ControlCommand command, long makerId, int argument)
+            throws IOException {
+
+        sendRaw(requestId, command.code(), makerId, argument);
+    }
+
+    /**
+     * Write every queued request, and wait for the response to the earliest request whose
+     * response the client has not received yet.
+     *
+     * @return the server's next response.
+     * @throws EOFException if the server closes the connection first.
+     * @throws IOException if the connection fails.
+     */
+    public ControlResponse receive() throws IOException {
+        flush();
+
+        if (input.remaining() < ControlProtocol.RESPONSE_BYTES) {
+            input.compact();
+            while (input.position() < ControlProtocol.RESPONSE_BYTES) {
+                if (channel.read(input) < 0) {
+                    throw new EOFException("The control server closed the connection");
+                }
+            }
+
+            input.flip();
+        }
+
+        return ControlProtocol.getResponse(input);
+    }
+
+    /**
+     * Write every queued request.
+     *
+     * @throws IOException if the connection fails.
+     */
+    public void flush() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+
+        output.clear();
+    }
+
+    /**
+     * Close the connection.
+     *
+     * @throws IOException if the connection fails to close.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Package-private so that tests can send command codes that stand for no ControlCommand
+    void sendRaw(int requestId, byte command, long makerId, int argument) throws IOException {
+        if (output.remaining() < ControlProtocol.REQUEST_BYTES) {
+            flush();
+        }
+
+        ControlProtocol.putRequest(output, requestId, command, makerId, argument);
+    }
+}
@@ -0,0 +1,74 @@
+package roofing.coffee.maker.remote;
+
+/**
+ * A ControlCommand is what a request of the control protocol asks a CoffeeMaker to do.
+ *
+ * <p>
+ * Each command travels as its one-byte {@code code()}. Commands that take a number of cups read it
+ * from the request's argument; the rest ignore the argument. Whatever the command, the response
+ * carries the CoffeeMaker's state once the command has taken effect.
+ * </p>
+ *
+ * @see roofing.coffee.maker.remote.ControlProtocol
+ * @author nferraro-roofing
+ *
+ */
+public enum ControlCommand {
+
+    /**
+     * Change nothing, and just report the CoffeeMaker's state.
+     */
+    STATUS(0),
+
+    /**
+     * {@code fill()} the argument's cups of water.
+     */
+    FILL(1),
+
+    /**
+     * {@code pressBrewButton()}.
+     */
+    PRESS_BREW_BUTTON(2),
+
+    /**
+     * {@code removePot()}.
+     */
+    REMOVE_POT(3),
+
+    /**
+     * {@code replacePot()}.
+     */
+    REPLACE_POT(4),
+
+    /**
+     * {@code pourOutCoffee()} the argument's cups of coffee from the removed pot.
+     */
+    POUR_OUT_COFFEE(5);
+
+    private static final ControlCommand[] BY_CODE = values();
+
+    private final byte code;
+
+    ControlCommand(int code) {
+        this.code = (byte) code;
+    }
+
+    /**
+     * Returns the byte that stands for this command in a request.
+     *
+     * @return the byte that stands for this command in a request.
+     */
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * Returns the command that {@code code} stands for, or null if none.
+     *
+     * @param code the byte of a request's command
+     * @return the command that {@code code} stands for, or null if none.
+     */
+    public static ControlCommand of(byte code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,121 @@
+package roofing.coffee.maker.remote;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import roofing.coffee.maker.CoffeeMaker;
+
+/**
+ * ControlProtocol documents the binary protocol with which remote clients - e.g. edge gateways -
+ * control the CoffeeMakers of a fleet through a ControlServer.
+ *
+ * <p>
+ * A client connects over TCP and writes requests; the server writes one response per request, in
+ * the order of the requests. Clients may therefore pipeline any number of requests on a connection
+ * before they read the first response, and match responses to requests by their order or by their
+ * request ids. Every number is big-endian - i.e. in network byte order - and every frame has a
+ * fixed size, so neither carries a length.
+ * </p>
+ *
+ * <p>
+ * A request has {@code REQUEST_BYTES} bytes:
+ * </p>
+ *
+ * <ul>
+ * <li>Bytes 0-3: a request id of the client's choosing, which the response echoes</li>
+ * <li>Byte 4: the {@code code()} of a ControlCommand</li>
+ * <li>Bytes 5-12: the device id of the CoffeeMaker within the server's fleet</li>
+ * <li>Bytes 13-16: the command's argument - e.g. the cups to fill - or 0</li>
+ * </ul>
+ *
+ * <p>
+ * A response has {@code RESPONSE_BYTES} bytes:
+ * </p>
+ *
+ * <ul>
+ * <li>Bytes 0-3: the request's id</li>
+ * <li>Byte 4: the {@code code()} of a ControlStatus</li>
+ * <li>Byte 5: the flags {@code BREWING}, {@code WARMER_PLATE_ON}, and {@code HAS_POT}</li>
+ * <li>Bytes 6-9: the cups of water in the CoffeeMaker</li>
+ * <li>Bytes 10-13: the cups of coffee in the CoffeeMaker</li>
+ * </ul>
+ *
+ * @see roofing.coffee.maker.remote.ControlServer
+ * @see roofing.coffee.maker.remote.ControlClient
+ * @author nferraro-roofing
+ *
+ */
+public final class ControlProtocol {
+
+    /**
+     * The byte order of every number in a frame.
+     */
+    public static final ByteOrder BYTE_ORDER = ByteOrder.BIG_ENDIAN;
+
+    /**
+     * The number of bytes in a request.
+     */
+    public static final int REQUEST_BYTES = 17;
+
+    /**
+     * The number of bytes in a response.
+     */
+    public static final int RESPONSE_BYTES = 14;
+
+    /**
+     * The flag of a response whose CoffeeMaker is brewing.
+     */
+    public static final int BREWING = 1;
+
+    /**
+     * The flag of a response whose CoffeeMaker's WarmerPlate is on.
+     */
+    public static final int WARMER_PLATE_ON = 2;
+
+    /**
+     * The flag of a response whose CoffeeMaker's CoffeePot sits on the WarmerPlate.
+     */
+    public static final int HAS_POT = 4;
+
+    private ControlProtocol() { /* Disable construction */ }
+
+    static void putRequest(ByteBuffer buffer,
+            int requestId,
+            byte command,
+            long makerId,
+            int argument) {
+
+        buffer.putInt(requestId).put(command).putLong(makerId).putInt(argument);
+    }
+
+    // A response with the state of coffeeMaker, or an empty state if coffeeMaker is null
+    static void putResponse(ByteBuffer buffer,
+            int requestId,
+            ControlStatus status,
+            CoffeeMaker coffeeMaker) {
+
+        buffer.putInt(requestId).put(status.code());
+
+        if (coffeeMaker == null) {
+            buffer.put((byte) 0).putInt(0).putInt(0);
+            return;
+        }
+
+        int flags = (coffeeMaker.isBrewing() ? BREWING : 0)
+                | (coffeeMaker.isWarmerPlateOn() ? WARMER_PLATE_ON : 0)
+                | (coffeeMaker.hasPot() ? HAS_POT : 0);
+
+        buffer.put((byte) flags)
+                .putInt(coffeeMaker.cupsOfWater())
+                .putInt(coffeeMaker.cupsOfCoffee());
+    }
+
+    static ControlResponse getResponse(ByteBuffer buffer) {
+        int requestId = buffer.getInt();
+        ControlStatus status = ControlStatus.of(buffer.get());
+        int flags = buffer.get();
+        int cupsOfWater = buffer.getInt();
+        int cupsOfCoffee = buffer.getInt();
+
+        return new ControlResponse(requestId, status, cupsOfWater, cupsOfCoffee, flags);
+    }
+}
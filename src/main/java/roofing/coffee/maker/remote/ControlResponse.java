@@ -0,0 +1,40 @@
+package roofing.coffee.maker.remote;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A ControlResponse is a ControlServer's answer to one request of the control protocol: its status,
+ * and the CoffeeMaker's state once the request's command took effect.
+ *
+ * @see roofing.coffee.maker.remote.ControlProtocol
+ * @author nferraro-roofing
+ *
+ */
+@Getter
+@ToString
+public final class ControlResponse {
+
+    private final int requestId;
+    private final ControlStatus status;
+    private final int cupsOfWater;
+    private final int cupsOfCoffee;
+    private final boolean isBrewing;
+    private final boolean isWarmerPlateOn;
+    private final boolean hasPot;
+
+    ControlResponse(int requestId,
+            ControlStatus status,
+            int cupsOfWater,
+            int cupsOfCoffee,
+            int flags) {
+
+        this.requestId = requestId;
+        this.status = status;
+        this.cupsOfWater = cupsOfWater;
+        this.cupsOfCoffee = cupsOfCoffee;
+        this.isBrewing = (flags & ControlProtocol.BREWING) != 0;
+        this.isWarmerPlateOn = (flags & ControlProtocol.WARMER_PLATE_ON) != 0;
+        this.hasPot = (flags & ControlProtocol.HAS_POT) != 0;
+    }
+}
@@ -0,0 +1,338 @@
+package roofing.coffee.maker.remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import lombok.NonNull;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.CoffeeMakerFleet;
+
+/**
+ * A ControlServer lets remote clients control the CoffeeMakers of a fleet over the binary
+ * ControlProtocol - e.g. edge gateways that fill, brew, and check on CoffeeMakers by device id.
+ *
+ * <p>
+ * The server runs a single selector thread that accepts connections, reads requests, runs their
+ * commands against the fleet, and writes the responses, all without blocking. Each read handles
+ * every complete request that arrived, however many a client pipelined, and the server then
+ * writes all of their responses with one gathering write. Commands run on the selector thread, so
+ * a connection's responses follow the order of its requests.
+ * </p>
+ *
+ * <p>
+ * Connections read into, and respond from, direct ByteBuffers that the server recycles through a
+ * BufferPool. A connection whose client stops reading its responses stops being read in turn once
+ * {@code MAX_PENDING_BUFFERS} buffers of responses wait for it, so a slow client cannot make the
+ * server buffer without bound.
+ * </p>
+ *
+ * @see roofing.coffee.maker.remote.ControlProtocol
+ * @author nferraro-roofing
+ *
+ */
+public final class ControlServer implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ControlServer.class);
+
+    static final int BUFFER_BYTES = 8 * 1024;
+    static final int MAX_PENDING_BUFFERS = 16;
+    private static final int MAX_IDLE_BUFFERS = 1_024;
+
+    private final CoffeeMakerFleet fleet;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final BufferPool pool = new BufferPool(BUFFER_BYTES, MAX_IDLE_BUFFERS);
+    private final Thread selectorThread;
+
+    private volatile boolean isRunning = true;
+
+    /**
+     * Bind a ControlServer for {@code fleet} to {@code address} - e.g. port {@code 0} of the
+     * loopback address, which picks a free port.
+     *
+     * <p>
+     * The server accepts connections once the client calls {@code start()}.
+     * </p>
+     *
+     * @param fleet the fleet whose CoffeeMakers the server controls
+     * @param address the address to listen on
+     * @throws IOException if the server cannot bind to {@code address}.
+     */
+    public ControlServer(@NonNull CoffeeMakerFleet fleet, @NonNull InetSocketAddress address)
+            throws IOException {
+
+        this.fleet = fleet;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        selectorThread = new Thread(this::select, "coffee-maker-control-server");
+        selectorThread.setDaemon(true);
+    }
+
+    /**
+     * Start accepting connections on the server's selector thread.
+     */
+    public void start() {
+        LOG.debug("Starting a control server on {}", address());
+        selectorThread.start();
+    }
+
+    /**
+     * Returns the address that the server listens on - e.g. to learn the port that it picked.
+     *
+     * @return the address that the server listens on.
+     */
+    public InetSocketAddress address() {
+        return (InetSocketAddress) serverChannel.socket().getLocalSocketAddress();
+    }
+
+    /**
+     * Stop the server, and close every connection that it accepted. Closing a closed server does
+     * nothing.
+     *
+     * @throws IOException if the server's channels fail to close.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!selector.isOpen()) {
+            return;
+        }
+
+        isRunning = false;
+        selector.wakeup();
+
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+
+        selector.close();
+        serverChannel.close();
+    }
+
+    private void select() {
+        while (isRunning) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                LOG.warn("A control server failed to select. Stopping it.", e);
+                return;
+            }
+
+            Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                SelectionKey key = selected.next();
+                selected.remove();
+                handle(key);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                connection.read();
+            }
+
+            connection.respond();
+        } catch (IOException e) {
+            LOG.debug("A control connection failed. Closing it.", e);
+            connection.close();
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel = serverChannel.accept();
+            if (channel == null) {
+                return;
+            }
+
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException e) {
+            LOG.warn("A control server failed to accept a connection", e);
+        }
+    }
+
+    private ControlStatus run(ControlCommand command, CoffeeMaker coffeeMaker, int argument) {
+        try {
+            switch (command) {
+                case FILL:
+                    coffeeMaker.fill(argument);
+                    break;
+                case PRESS_BREW_BUTTON:
+                    coffeeMaker.pressBrewButton();
+                    break;
+                case REMOVE_POT:
+                    coffeeMaker.removePot();
+                    break;
+                case REPLACE_POT:
+                    coffeeMaker.replacePot();
+                    break;
+                case POUR_OUT_COFFEE:
+                    coffeeMaker.pourOutCoffee(argument);
+                    break;
+                default:
+                    break;
+            }
+
+            return ControlStatus.OK;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            LOG.debug("A coffee maker rejected the remote command {}", command, e);
+            return ControlStatus.REJECTED;
+        }
+    }
+
+    /*
+     * The state of one client's connection, which only the selector thread touches.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final ByteBuffer input = pool.acquire();
+
+        // Buffers of responses that wait to be written, and the one that the next response joins
+        private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+        private final ByteBuffer[] gather = new ByteBuffer[MAX_PENDING_BUFFERS + 1];
+        private ByteBuffer output;
+
+        private SelectionKey key;
+
+        // Whether the client closed its end, after which the connection answers what it has read
+        // and then closes
+        private boolean isEndOfInput = false;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            isEndOfInput = channel.read(input) < 0;
+        }
+
+        // Answer every complete request that has arrived, unless too many responses wait, and then
+        // write as many responses as the socket takes
+        void respond() throws IOException {
+            input.flip();
+            while (input.remaining() >= ControlProtocol.REQUEST_BYTES
+                    && pending.size() < MAX_PENDING_BUFFERS) {
+                answer();
+            }
+
+            input.compact();
+            write();
+        }
+
+        void close() {
+            key.cancel();
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.debug("A control connection failed to close", e);
+            }
+
+            pool.release(input);
+            for (ByteBuffer buffer : pending) {
+                pool.release(buffer);
+            }
+
+            if (output != null) {
+                pool.release(output);
+            }
+        }
+
+        private void answer() {
+            int requestId = input.getInt();
+            ControlCommand command = ControlCommand.of(input.get());
+            long makerId = input.getLong();
+            int argument = input.getInt();
+
+            if (output == null) {
+                output = pool.acquire();
+            }
+
+            if (command == null) {
+                ControlProtocol.putResponse(output, requestId, ControlStatus.UNKNOWN_COMMAND, null);
+            } else {
+                CoffeeMaker coffeeMaker = fleet.lookup(makerId);
+                ControlStatus status = coffeeMaker == null
+                        ? ControlStatus.UNKNOWN_MAKER
+                        : run(command, coffeeMaker, argument);
+
+                ControlProtocol.putResponse(output, requestId, status, coffeeMaker);
+            }
+
+            if (output.remaining() < ControlProtocol.RESPONSE_BYTES) {
+                output.flip();
+                pending.addLast(output);
+                output = null;
+            }
+        }
+
+        private void write() throws IOException {
+            if (output != null && output.position() > 0) {
+                output.flip();
+                pending.addLast(output);
+                output = null;
+            }
+
+            int count = pending.size();
+            if (count > 0) {
+                pending.toArray(gather);
+                channel.write(gather, 0, count);
+            }
+
+            while (!pending.isEmpty() && !pending.peekFirst().hasRemaining()) {
+                pool.release(pending.pollFirst());
+            }
+
+            boolean isAnswered = input.position() < ControlProtocol.REQUEST_BYTES;
+            if (isEndOfInput && isAnswered && pending.isEmpty()) {
+                close();
+                return;
+            }
+
+            // Stop reading while the client falls behind, and wait to write while responses wait
+            boolean isReading = !isEndOfInput && pending.size() < MAX_PENDING_BUFFERS;
+            int interest = isReading ? SelectionKey.OP_READ : 0;
+            if (!pending.isEmpty()) {
+                interest |= SelectionKey.OP_WRITE;
+            }
+
+            key.interestOps(interest);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package roofing.coffee.maker.remote;
+
+/**
+ * A ControlStatus tells a client of the control protocol whether its request took effect.
+ *
+ * @see roofing.coffee.maker.remote.ControlProtocol
+ * @author nferraro-roofing
+ *
+ */
+public enum ControlStatus {
+
+    /**
+     * The command took effect.
+     */
+    OK(0),
+
+    /**
+     * No CoffeeMaker is registered under the request's maker id. The response's state is empty.
+     */
+    UNKNOWN_MAKER(1),
+
+    /**
+     * The request's command code stands for no ControlCommand. The response's state is empty.
+     */
+    UNKNOWN_COMMAND(2),
+
+    /**
+     * The CoffeeMaker refused the command - e.g. a fill that would over-fill it, or a removal of a
+     * pot that is already removed. The response carries the CoffeeMaker's unchanged state.
+     */
+    REJECTED(3);
+
+    private static final ControlStatus[] BY_CODE = values();
+
+    private final byte code;
+
+    ControlStatus(int code) {
+        this.code = (byte) code;
+    }
+
+    /**
+     * Returns the byte that stands for this status in a response.
+     *
+     * @return the byte that stands for this status in a response.
+     */
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * Returns the status that {@code code} stands for.
+     *
+     * @param code the byte of a response's status
+     * @return the status that {@code code} stands for.
+     * @throws IllegalArgumentException if {@code code} stands for no status.
+     */
+    public static ControlStatus of(byte code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Unknown control status %d. Is the server newer than this client?",
+                    code));
+        }
+
+        return BY_CODE[code];
+    }
+}
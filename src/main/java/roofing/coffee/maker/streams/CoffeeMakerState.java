@@ -0,0 +1,54 @@
+package roofing.coffee.maker.streams;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A CoffeeMakerState is an immutable snapshot of a CoffeeMaker's observable state.
+ * 
+ * <p>
+ * A CoffeeMaker streams one CoffeeMakerState after each tick - see
+ * {@link roofing.coffee.maker.CoffeeMaker#stateStream()}. {@code ticks} tells Subscribers how far
+ * the CoffeeMaker's Clock had advanced when it took the snapshot, so that a Subscriber can tell how
+ * many ticks it missed.
+ * </p>
+ * 
+ * @author nferraro-roofing
+ *
+ */
+@Getter
+@ToString
+public final class CoffeeMakerState {
+
+    private final long ticks;
+    private final int cupsOfWater;
+    private final int cupsOfCoffee;
+    private final boolean isBrewing;
+    private final boolean isWarmerPlateOn;
+    private final boolean hasPot;
+
+    /**
+     * Construct a snapshot of a CoffeeMaker's state.
+     * 
+     * @param ticks the ticks that the CoffeeMaker's Clock had advanced by
+     * @param cupsOfWater the cups of water in the CoffeeMaker
+     * @param cupsOfCoffee the cups of coffee in the CoffeeMaker
+     * @param isBrewing whether the CoffeeMaker is brewing
+     * @param isWarmerPlateOn whether the CoffeeMaker's WarmerPlate is on
+     * @param hasPot whether the CoffeePot sits on the WarmerPlate
+     */
+    public CoffeeMakerState(long ticks,
+            int cupsOfWater,
+            int cupsOfCoffee,
+            boolean isBrewing,
+            boolean isWarmerPlateOn,
+            boolean hasPot) {
+
+        this.ticks = ticks;
+        this.cupsOfWater = cupsOfWater;
+        this.cupsOfCoffee = cupsOfCoffee;
+        this.isBrewing = isBrewing;
+        this.isWarmerPlateOn = isWarmerPlateOn;
+        this.hasPot = hasPot;
+    }
+}
@@ -0,0 +1,239 @@
+package roofing.coffee.maker.streams;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import lombok.NonNull;
+
+/**
+ * A ConflatingPublisher streams the latest state of one or more sources to its Subscribers, each at
+ * its own pace.
+ *
+ * <p>
+ * Every item belongs to a key - e.g. the CoffeeMaker that it describes. For each Subscriber, a
+ * ConflatingPublisher holds at most one undelivered item per key. When a Subscriber lags - i.e. it
+ * has not requested another item yet - a newer item for a key simply replaces the undelivered one:
+ * latest state wins. Therefore, a slow Subscriber costs at most one item per key, no matter how
+ * many ticks it misses, and it never slows down the Clock or any other Subscriber.
+ * </p>
+ *
+ * <p>
+ * A ConflatingPublisher honors demand: it never sends a Subscriber more items than it has
+ * requested. It signals each Subscriber serially on the Executor that it was given, never on the
+ * thread that calls {@code publish()}.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ * @param <K> the type of key that identifies the source of an item
+ * @param <T> the type of item published
+ */
+public final class ConflatingPublisher<K, T> implements StateFlow.Publisher<T> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConflatingPublisher.class);
+
+    private final Executor executor;
+    private final List<ConflatingSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong conflatedItems = new AtomicLong();
+
+    private volatile boolean completed = false;
+
+    /**
+     * Construct a ConflatingPublisher that signals its Subscribers on {@code executor}.
+     *
+     * @param executor signals the Subscribers
+     */
+    public ConflatingPublisher(@NonNull Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(@NonNull StateFlow.Subscriber<? super T> subscriber) {
+        ConflatingSubscription subscription = new ConflatingSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscription.signal();
+    }
+
+    /**
+     * Offer {@code item} to every Subscriber, replacing any item for {@code key} that a Subscriber
+     * has yet to receive.
+     *
+     * @param key identifies the source of {@code item}
+     * @param item the latest state of the source
+     */
+    public void publish(@NonNull K key, @NonNull T item) {
+        for (ConflatingSubscription subscription : subscriptions) {
+            subscription.offer(key, item);
+        }
+    }
+
+    /**
+     * Tell every current and future Subscriber that no more items will follow.
+     *
+     * <p>
+     * Each Subscriber first receives any items that it has yet to receive, as its demand allows,
+     * and then {@code onComplete()}.
+     * </p>
+     */
+    public void complete() {
+        completed = true;
+
+        for (ConflatingSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Returns true if this Publisher has at least one Subscriber that has not cancelled.
+     *
+     * <p>
+     * Sources may check this method in order to skip building items that nobody would receive.
+     * </p>
+     *
+     * @return true if this Publisher has at least one Subscriber; false otherwise.
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Returns the number of items that newer items replaced before a Subscriber received them.
+     *
+     * @return the number of items that newer items replaced before a Subscriber received them.
+     */
+    public long conflatedItems() {
+        return conflatedItems.get();
+    }
+
+    private final class ConflatingSubscription implements StateFlow.Subscription {
+
+        private final StateFlow.Subscriber<? super T> subscriber;
+
+        // At most one undelivered item per key. A key sits in the queue while it has an item.
+        private final Map<K, T> undelivered = new ConcurrentHashMap<>();
+        private final Queue<K> undeliveredKeys = new ConcurrentLinkedQueue<>();
+
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+
+        private volatile boolean cancelled = false;
+        private volatile Throwable error = null;
+
+        // Only the thread that drains this subscription reads or writes this field
+        private boolean subscribed = false;
+
+        private ConflatingSubscription(StateFlow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException(String.format(
+                        "Subscribers must request a positive number of items, but requested %d",
+                        n));
+            } else {
+                // Saturate at Long.MAX_VALUE - i.e. unbounded demand
+                requested.accumulateAndGet(n, (current, more) -> {
+                    long sum = current + more;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            undelivered.clear();
+            undeliveredKeys.clear();
+        }
+
+        private void offer(K key, T item) {
+            if (undelivered.put(key, item) == null) {
+                undeliveredKeys.add(key);
+            } else {
+                conflatedItems.incrementAndGet();
+            }
+
+            // Without demand, there is nothing to do until the Subscriber requests more
+            if (requested.get() > 0) {
+                signal();
+            }
+        }
+
+        private void signal() {
+            if (pendingSignals.getAndIncrement() != 0) {
+                return; // The thread that drains this subscription will see this signal
+            }
+
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                LOG.warn("Stream executor rejected a delivery. Delivering in place.", e);
+                drain();
+            }
+        }
+
+        private void drain() {
+            int signals = pendingSignals.get();
+
+            do {
+                if (!subscribed) {
+                    subscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+
+                deliver();
+
+                signals = pendingSignals.addAndGet(-signals);
+            } while (signals != 0);
+        }
+
+        private void deliver() {
+            while (!cancelled && error == null && requested.get() > 0) {
+                K key = undeliveredKeys.poll();
+                if (key == null) {
+                    break;
+                }
+
+                T item = undelivered.remove(key);
+                if (requested.get() != Long.MAX_VALUE) {
+                    requested.decrementAndGet();
+                }
+
+                try {
+                    subscriber.onNext(item);
+                } catch (RuntimeException e) {
+                    LOG.warn("Subscriber {} failed to receive an item. Cancelling it.",
+                            subscriber,
+                            e);
+                    cancel();
+                }
+            }
+
+            if (cancelled) {
+                return;
+            }
+
+            if (error != null) {
+                cancel();
+                subscriber.onError(error);
+            } else if (completed && undeliveredKeys.isEmpty()) {
+                cancel();
+                subscriber.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package roofing.coffee.maker.streams;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import lombok.NonNull;
+import roofing.coffee.maker.CoffeeMaker;
+
+/**
+ * A FleetStatePublisher streams the latest state of every CoffeeMaker in a fleet.
+ * 
+ * <p>
+ * A FleetStatePublisher conflates per CoffeeMaker: a Subscriber that lags receives at most one
+ * FleetStateUpdate per CoffeeMaker - the latest - however many ticks it misses. Therefore, its
+ * memory stays bounded by the size of the fleet.
+ * </p>
+ * 
+ * <p>
+ * A FleetStatePublisher subscribes to each attached CoffeeMaker's
+ * {@link roofing.coffee.maker.CoffeeMaker#stateStream()} with unbounded demand, and then
+ * republishes each state, keyed by the CoffeeMaker, to its own Subscribers.
+ * </p>
+ * 
+ * @see roofing.coffee.maker.streams.ConflatingPublisher
+ * @author nferraro-roofing
+ *
+ * @param <K> the type of key that identifies a CoffeeMaker within the fleet
+ */
+public final class FleetStatePublisher<K> implements StateFlow.Publisher<FleetStateUpdate<K>> {
+
+    private final ConflatingPublisher<K, FleetStateUpdate<K>> publisher;
+    private final Map<K, Attachment> attachments = new ConcurrentHashMap<>();
+
+    /**
+     * Construct a FleetStatePublisher that signals its Subscribers on {@code executor}.
+     * 
+     * @param executor signals the Subscribers
+     */
+    public FleetStatePublisher(@NonNull Executor executor) {
+        this.publisher = new ConflatingPublisher<>(executor);
+    }
+
+    @Override
+    public void subscribe(StateFlow.Subscriber<? super FleetStateUpdate<K>> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Stream the state of {@code coffeeMaker}, identified by {@code key}, to this Publisher's
+     * Subscribers.
+     * 
+     * @param key identifies {@code coffeeMaker} within the fleet
+     * @param coffeeMaker the CoffeeMaker to stream
+     * @throws IllegalStateException if another CoffeeMaker is already attached as {@code key}.
+     */
+    public void attach(@NonNull K key, @NonNull CoffeeMaker coffeeMaker) {
+        attach(key, coffeeMaker.stateStream());
+    }
+
+    /**
+     * Stream the states published by {@code stateStream}, identified by {@code key}, to this
+     * Publisher's Subscribers.
+     * 
+     * <p>
+     * The CoffeeMaker identified by {@code key} detaches itself once {@code stateStream} completes
+     * or fails.
+     * </p>
+     * 
+     * @param key identifies the source of {@code stateStream} within the fleet
+     * @param stateStream the states to stream - e.g. a CoffeeMaker's {@code stateStream()}
+     * @throws IllegalStateException if another CoffeeMaker is already attached as {@code key}.
+     */
+    public void attach(@NonNull K key, @NonNull StateFlow.Publisher<CoffeeMakerState> stateStream) {
+        Attachment attachment = new Attachment(key);
+        if (attachments.putIfAbsent(key, attachment) != null) {
+            throw new IllegalStateException(String.format(
+                    "A coffee maker is already attached as %s. Please detach it first.",
+                    key));
+        }
+
+        stateStream.subscribe(attachment);
+    }
+
+    /**
+     * Stop streaming the state of the CoffeeMaker identified by {@code key}.
+     * 
+     * <p>
+     * Subscribers may still receive one last update for {@code key} if it was already in flight.
+     * </p>
+     * 
+     * @param key identifies a CoffeeMaker within the fleet
+     * @return true if a CoffeeMaker was attached as {@code key}; false otherwise.
+     */
+    public boolean detach(@NonNull K key) {
+        Attachment attachment = attachments.remove(key);
+        if (attachment == null) {
+            return false;
+        }
+
+        attachment.cancel();
+        return true;
+    }
+
+    /**
+     * Returns the number of updates that newer updates replaced before a Subscriber received them.
+     * 
+     * @return the number of updates that newer updates replaced before a Subscriber received them.
+     */
+    public long conflatedUpdates() {
+        return publisher.conflatedItems();
+    }
+
+    private final class Attachment implements StateFlow.Subscriber<CoffeeMakerState> {
+
+        private final K key;
+
+        private volatile StateFlow.Subscription upstream;
+        private volatile boolean cancelled = false;
+
+        private Attachment(K key) {
+            this.key = key;
+        }
+
+        @Override
+        public void onSubscribe(StateFlow.Subscription subscription) {
+            upstream = subscription;
+
+            if (cancelled) {
+                subscription.cancel();
+            } else {
+                subscription.request(Long.MAX_VALUE);
+            }
+        }
+
+        @Override
+        public void onNext(CoffeeMakerState state) {
+            publisher.publish(key, new FleetStateUpdate<>(key, state));
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            attachments.remove(key, this);
+        }
+
+        @Override
+        public void onComplete() {
+            attachments.remove(key, this);
+        }
+
+        private void cancel() {
+            cancelled = true;
+
+            StateFlow.Subscription subscription = upstream;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+    }
+}
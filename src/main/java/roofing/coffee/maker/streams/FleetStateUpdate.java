@@ -0,0 +1,31 @@
+package roofing.coffee.maker.streams;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A FleetStateUpdate carries the latest state of one CoffeeMaker in a fleet.
+ * 
+ * @see roofing.coffee.maker.streams.FleetStatePublisher
+ * @author nferraro-roofing
+ *
+ * @param <K> the type of key that identifies a CoffeeMaker within its fleet
+ */
+@Getter
+@ToString
+public final class FleetStateUpdate<K> {
+
+    private final K key;
+    private final CoffeeMakerState state;
+
+    /**
+     * Construct an update that carries {@code state} for the CoffeeMaker identified by {@code key}.
+     * 
+     * @param key identifies a CoffeeMaker within its fleet
+     * @param state the CoffeeMaker's latest state
+     */
+    public FleetStateUpdate(K key, CoffeeMakerState state) {
+        this.key = key;
+        this.state = state;
+    }
+}
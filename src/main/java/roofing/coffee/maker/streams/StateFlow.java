@@ -0,0 +1,95 @@
+package roofing.coffee.maker.streams;
+
+/**
+ * StateFlow declares the interfaces of a reactive stream of CoffeeMaker state.
+ * 
+ * <p>
+ * These interfaces mirror {@code java.util.concurrent.Flow} - and therefore the Reactive Streams
+ * specification - method for method. This library targets Java 8, which lacks {@code Flow}, so it
+ * declares its own copy. Clients on Java 9 or later can adapt a StateFlow.Publisher to a
+ * {@code Flow.Publisher} with a one-line lambda per method.
+ * </p>
+ * 
+ * <p>
+ * In brief: a Subscriber receives a Subscription via {@code onSubscribe()}, and then receives at
+ * most as many {@code onNext()} signals as it has {@code request()}-ed, followed by at most one of
+ * {@code onError()} or {@code onComplete()}. A Publisher signals each Subscriber serially.
+ * </p>
+ * 
+ * @see roofing.coffee.maker.streams.ConflatingPublisher
+ * @author nferraro-roofing
+ *
+ */
+public final class StateFlow {
+
+    private StateFlow() {/* Disable instantiation */}
+
+    /**
+     * A producer of items that Subscribers receive on demand.
+     * 
+     * @param <T> the type of item published
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        /**
+         * Add {@code subscriber} to this Publisher, which then calls
+         * {@code subscriber.onSubscribe()}.
+         * 
+         * @param subscriber the Subscriber to add
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items from a Publisher.
+     * 
+     * @param <T> the type of item received
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Receive the Subscription through which this Subscriber requests items.
+         * 
+         * @param subscription the link between this Subscriber and its Publisher
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Receive the next item.
+         * 
+         * @param item the next item
+         */
+        void onNext(T item);
+
+        /**
+         * Receive a terminal error. The Publisher sends no more signals.
+         * 
+         * @param throwable the error
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Receive notice that the Publisher is done. The Publisher sends no more signals.
+         */
+        void onComplete();
+    }
+
+    /**
+     * The link between a Publisher and one of its Subscribers.
+     */
+    public interface Subscription {
+
+        /**
+         * Request {@code n} more items.
+         * 
+         * @param n the number of additional items to deliver; must be positive.
+         */
+        void request(long n);
+
+        /**
+         * Stop receiving items. The Publisher may still deliver items that it has already sent.
+         */
+        void cancel();
+    }
+}
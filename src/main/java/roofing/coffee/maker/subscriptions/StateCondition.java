@@ -0,0 +1,185 @@
+package roofing.coffee.maker.subscriptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * A StateCondition is a predicate on a CoffeeMaker's state that a SubscriptionIndex can index.
+ * 
+ * <p>
+ * A StateCondition consists of one or more thresholds, all of which must hold. Each threshold
+ * compares a single StateField to a constant - e.g. "at least 4 cups of coffee" or "the warmer
+ * plate is not hot". Since thresholds compare against constants, a SubscriptionIndex can find the
+ * thresholds that a change crosses without testing any other threshold.
+ * </p>
+ * 
+ * <pre>
+ * StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 4);
+ * StateCondition.is(StateField.IS_HOT, false);
+ * StateCondition.atMost(StateField.CUPS_OF_WATER, 0)
+ *         .and(StateCondition.is(StateField.IS_BREW_REQUESTED, true));
+ * </pre>
+ * 
+ * @see roofing.coffee.maker.subscriptions.SubscriptionIndex
+ * @author nferraro-roofing
+ *
+ */
+@ToString
+public final class StateCondition {
+
+    private final List<Threshold> thresholds;
+
+    private StateCondition(List<Threshold> thresholds) {
+        this.thresholds = Collections.unmodifiableList(thresholds);
+    }
+
+    /**
+     * Returns a condition that holds while {@code field} is at least {@code value}.
+     * 
+     * @param field the StateField to watch
+     * @param value the smallest value of {@code field} for which the condition holds
+     * @return a condition that holds while {@code field} is at least {@code value}.
+     */
+    public static StateCondition atLeast(@NonNull StateField field, int value) {
+        return of(new Threshold(field, true, value));
+    }
+
+    /**
+     * Returns a condition that holds while {@code field} is at most {@code value}.
+     * 
+     * @param field the StateField to watch
+     * @param value the largest value of {@code field} for which the condition holds
+     * @return a condition that holds while {@code field} is at most {@code value}.
+     */
+    public static StateCondition atMost(@NonNull StateField field, int value) {
+        return of(new Threshold(field, false, value));
+    }
+
+    /**
+     * Returns a condition that holds while the flag {@code field} equals {@code value}.
+     * 
+     * @param field the flag to watch
+     * @param value the value of {@code field} for which the condition holds
+     * @return a condition that holds while {@code field} equals {@code value}.
+     * @throws IllegalArgumentException if {@code field} is not a flag.
+     */
+    public static StateCondition is(@NonNull StateField field, boolean value) {
+        if (!field.isFlag()) {
+            throw new IllegalArgumentException(String.format(
+                    "%s is not a flag. Please use atLeast() or atMost() instead.",
+                    field));
+        }
+
+        return value ? atLeast(field, 1) : atMost(field, 0);
+    }
+
+    /**
+     * Returns a condition that holds while both this condition and {@code other} hold.
+     * 
+     * @param other another condition
+     * @return a condition that holds while both this condition and {@code other} hold.
+     */
+    public StateCondition and(@NonNull StateCondition other) {
+        List<Threshold> combined = new ArrayList<>(thresholds.size() + other.thresholds.size());
+        combined.addAll(thresholds);
+        combined.addAll(other.thresholds);
+
+        return new StateCondition(combined);
+    }
+
+    /**
+     * Tests this condition against a CoffeeMaker's state.
+     * 
+     * @param state the value of each StateField, indexed by its ordinal
+     * @return true if this condition holds; false otherwise.
+     */
+    public boolean test(int[] state) {
+        // A plain loop, since alert automata test their conditions on every change of state
+        for (int i = 0; i < thresholds.size(); i++) {
+            Threshold threshold = thresholds.get(i);
+            if (!threshold.test(state[threshold.field.ordinal()])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the thresholds of this condition, all of which must hold.
+     * 
+     * @return the thresholds of this condition.
+     */
+    public List<Threshold> thresholds() {
+        return thresholds;
+    }
+
+    private static StateCondition of(Threshold threshold) {
+        List<Threshold> thresholds = new ArrayList<>(1);
+        thresholds.add(threshold);
+
+        return new StateCondition(thresholds);
+    }
+
+    /**
+     * A Threshold compares a single StateField to a constant - either "at least" or "at most" the
+     * constant.
+     * 
+     * @author nferraro-roofing
+     *
+     */
+    @ToString
+    public static final class Threshold {
+
+        private final StateField field;
+        private final boolean atLeast;
+        private final int value;
+
+        private Threshold(StateField field, boolean atLeast, int value) {
+            this.field = field;
+            this.atLeast = atLeast;
+            this.value = value;
+        }
+
+        /**
+         * Returns the StateField that this threshold watches.
+         * 
+         * @return the StateField that this threshold watches.
+         */
+        public StateField field() {
+            return field;
+        }
+
+        /**
+         * Returns true if this threshold holds while its field is at least its value, or false if
+         * it holds while its field is at most its value.
+         * 
+         * @return true for "at least"; false for "at most".
+         */
+        public boolean isAtLeast() {
+            return atLeast;
+        }
+
+        /**
+         * Returns the constant that this threshold compares its field to.
+         * 
+         * @return the constant that this threshold compares its field to.
+         */
+        public int value() {
+            return value;
+        }
+
+        /**
+         * Tests this threshold against a value of its field.
+         * 
+         * @param fieldValue the value of this threshold's field
+         * @return true if this threshold holds; false otherwise.
+         */
+        public boolean test(int fieldValue) {
+            return atLeast ? fieldValue >= value : fieldValue <= value;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package roofing.coffee.maker.subscriptions;
+
+/**
+ * A StateField names one observable value of a CoffeeMaker's state.
+ * 
+ * <p>
+ * A StateCondition watches one or more StateFields, and a SubscriptionIndex indexes subscriptions
+ * by the StateFields that they watch. Every StateField reads as an {@code int}: flags read as
+ * {@code 1} when true and {@code 0} when false.
+ * </p>
+ * 
+ * @see roofing.coffee.maker.subscriptions.StateCondition
+ * @author nferraro-roofing
+ *
+ */
+public enum StateField {
+
+    /**
+     * The cups of coffee in the CoffeePot - see
+     * {@link roofing.coffee.maker.CoffeeMaker#cupsOfCoffee()}.
+     */
+    CUPS_OF_COFFEE(false),
+
+    /**
+     * The cups of water in the WaterReservoir - see
+     * {@link roofing.coffee.maker.CoffeeMaker#cupsOfWater()}.
+     */
+    CUPS_OF_WATER(false),
+
+    /**
+     * Whether the CoffeeMaker is brewing - see {@link roofing.coffee.maker.CoffeeMaker#isBrewing()}.
+     */
+    IS_BREWING(true),
+
+    /**
+     * Whether the WarmerPlate is hot - see
+     * {@link roofing.coffee.maker.CoffeeMaker#isWarmerPlateOn()}.
+     */
+    IS_HOT(true),
+
+    /**
+     * Whether the CoffeePot sits on the WarmerPlate.
+     */
+    HAS_POT(true),
+
+    /**
+     * Whether the user has requested a brew via the BrewButton.
+     */
+    IS_BREW_REQUESTED(true);
+
+    private final boolean flag;
+
+    private StateField(boolean flag) {
+        this.flag = flag;
+    }
+
+    /**
+     * Returns true if this StateField is a flag - i.e. it reads as either {@code 0} or {@code 1}.
+     * 
+     * @return true if this StateField is a flag; false otherwise.
+     */
+    public boolean isFlag() {
+        return flag;
+    }
+
+    /**
+     * Returns the {@code int} value of a flag.
+     * 
+     * @param value the value of a flag
+     * @return {@code 1} if {@code value} is true; {@code 0} otherwise.
+     */
+    public static int flag(boolean value) {
+        return value ? 1 : 0;
+    }
+}
@@ -0,0 +1,110 @@
+package roofing.coffee.maker.subscriptions;
+
+import lombok.ToString;
+
+/**
+ * A Subscription runs a listener each time that its StateCondition becomes true.
+ * 
+ * <p>
+ * Clients receive a Subscription from
+ * {@link roofing.coffee.maker.subscriptions.SubscriptionIndex#subscribe(StateCondition, Runnable)}
+ * and may {@code cancel()} it at any time.
+ * </p>
+ * 
+ * @author nferraro-roofing
+ *
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class Subscription {
+
+    @ToString.Include
+    private final StateCondition condition;
+    private final Runnable listener;
+    private final SubscriptionIndex index;
+
+    private volatile boolean cancelled = false;
+
+    // Only the publishing thread of the SubscriptionIndex reads or writes these fields
+    private int thresholdsMet = 0;
+    private boolean wasMet = false;
+    private boolean touched = false;
+
+    Subscription(StateCondition condition, Runnable listener, SubscriptionIndex index) {
+        this.condition = condition;
+        this.listener = listener;
+        this.index = index;
+    }
+
+    /**
+     * Stop running this Subscription's listener.
+     * 
+     * <p>
+     * A listener that is already queued on the executor may still run once.
+     * </p>
+     */
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            index.cancel(this);
+        }
+    }
+
+    /**
+     * Returns true if this Subscription has been cancelled.
+     * 
+     * @return true if this Subscription has been cancelled; false otherwise.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the condition that this Subscription watches.
+     * 
+     * @return the condition that this Subscription watches.
+     */
+    public StateCondition condition() {
+        return condition;
+    }
+
+    Runnable listener() {
+        return listener;
+    }
+
+    void activate(int[] state) {
+        thresholdsMet = (int) condition.thresholds()
+                .stream()
+                .filter(t -> t.test(state[t.field().ordinal()]))
+                .count();
+        wasMet = false;
+    }
+
+    /**
+     * Record that one of this Subscription's thresholds has started or stopped holding.
+     * 
+     * @param delta {@code 1} if a threshold started holding; {@code -1} if one stopped holding
+     * @return true if this is the first change to this Subscription in the current publish.
+     */
+    boolean adjust(int delta) {
+        thresholdsMet += delta;
+
+        boolean firstTouch = !touched;
+        touched = true;
+        return firstTouch;
+    }
+
+    /**
+     * Settle this Subscription at the end of a publish.
+     * 
+     * @return true if this Subscription's condition has just become true.
+     */
+    boolean settle() {
+        touched = false;
+
+        boolean isMet = thresholdsMet == condition.thresholds().size();
+        boolean becameMet = isMet && !wasMet;
+        wasMet = isMet;
+
+        return becameMet;
+    }
+}
@@ -0,0 +1,238 @@
+package roofing.coffee.maker.subscriptions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.ToIntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import lombok.NonNull;
+import roofing.coffee.maker.subscriptions.StateCondition.Threshold;
+
+/**
+ * A SubscriptionIndex runs listeners when a CoffeeMaker's state satisfies their StateConditions.
+ * 
+ * <p>
+ * Rather than test every condition on every tick, a SubscriptionIndex files each threshold of each
+ * condition under the StateField that it watches, sorted by the threshold's value. When a field
+ * changes from {@code old} to {@code new}, only the thresholds between {@code old} and {@code new}
+ * can change their outcome, so the index visits only those. Therefore, the cost of a publish grows
+ * with the number of thresholds that a change crosses rather than the number of subscriptions.
+ * </p>
+ * 
+ * <p>
+ * A listener runs each time that its condition <i>becomes</i> true - i.e. once per transition from
+ * false to true - and on the notification Executor rather than on the Clock's thread. A condition
+ * that already holds when its Subscription activates counts as becoming true.
+ * </p>
+ * 
+ * <p>
+ * Any thread may subscribe or cancel, but only the thread that updates the CoffeeMaker's Bus may
+ * {@code publish()}. New subscriptions and cancellations take effect on the next publish - i.e. on
+ * the next tick or evaluation.
+ * </p>
+ * 
+ * <p>
+ * Most CoffeeMakers in a fleet never have a subscription, so a SubscriptionIndex builds its maps on
+ * its first subscription, and publishing costs next to nothing while it has none.
+ * </p>
+ * 
+ * @author nferraro-roofing
+ *
+ */
+public final class SubscriptionIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SubscriptionIndex.class);
+    private static final StateField[] FIELDS = StateField.values();
+
+    private final Executor executor;
+    private final Queue<Subscription> subscribed = new ConcurrentLinkedQueue<>();
+    private final Queue<Subscription> cancelled = new ConcurrentLinkedQueue<>();
+
+    // Only the publishing thread writes the fields below, and only it reads them - except for
+    // filedSubscriptions, which isEmpty() reads. The maps are null until the first subscription
+    // is filed.
+    private List<NavigableMap<Integer, List<Subscription>>> atLeast = null;
+    private List<NavigableMap<Integer, List<Subscription>>> atMost = null;
+    private final List<Subscription> touched = new ArrayList<>();
+    private final int[] state = new int[FIELDS.length];
+    private volatile int filedSubscriptions = 0;
+    private long evaluations = 0;
+
+    /**
+     * Construct a SubscriptionIndex that runs listeners on {@code executor}.
+     * 
+     * @param executor runs the listeners of subscriptions whose conditions become true
+     */
+    public SubscriptionIndex(@NonNull Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run {@code listener} each time that {@code condition} becomes true.
+     * 
+     * @param condition the condition to watch
+     * @param listener what to run when {@code condition} becomes true
+     * @return a Subscription, which the caller may cancel.
+     */
+    public Subscription subscribe(@NonNull StateCondition condition, @NonNull Runnable listener) {
+        Subscription subscription = new Subscription(condition, listener, this);
+        subscribed.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Read the CoffeeMaker's current state and run the listener of each subscription whose
+     * condition has just become true.
+     * 
+     * @param reader reads the current value of a StateField
+     */
+    public void publish(ToIntFunction<StateField> reader) {
+        Subscription subscription;
+        while ((subscription = cancelled.poll()) != null) {
+            file(subscription, false);
+        }
+
+        if (filedSubscriptions == 0) {
+            if (subscribed.isEmpty()) {
+                return; // Nothing to cross, and nothing to activate
+            }
+
+            // Nothing to cross, so new subscriptions start from a fresh snapshot of the state
+            for (StateField field : FIELDS) {
+                state[field.ordinal()] = reader.applyAsInt(field);
+            }
+        } else {
+            for (StateField field : FIELDS) {
+                int value = reader.applyAsInt(field);
+                int previous = state[field.ordinal()];
+
+                if (value != previous) {
+                    state[field.ordinal()] = value;
+                    cross(field, previous, value);
+                }
+            }
+        }
+
+        while ((subscription = subscribed.poll()) != null) {
+            if (!subscription.isCancelled()) {
+                subscription.activate(state);
+                file(subscription, true);
+                touched.add(subscription);
+            }
+        }
+
+        for (Subscription s : touched) {
+            if (s.settle() && !s.isCancelled()) {
+                run(s.listener());
+            }
+        }
+
+        touched.clear();
+    }
+
+    /**
+     * Returns the number of times that publishing has re-evaluated a subscription's threshold.
+     * 
+     * @return the number of times that publishing has re-evaluated a subscription's threshold.
+     */
+    public long evaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Returns true if this SubscriptionIndex holds no live subscriptions - i.e. none that are
+     * filed or waiting to take effect.
+     * 
+     * @return true if this SubscriptionIndex holds no live subscriptions; false otherwise.
+     */
+    public boolean isEmpty() {
+        return filedSubscriptions == 0 && subscribed.isEmpty();
+    }
+
+    void cancel(Subscription subscription) {
+        cancelled.add(subscription);
+    }
+
+    private void cross(StateField field, int previous, int value) {
+        NavigableMap<Integer, List<Subscription>> lowerBounds = atLeast.get(field.ordinal());
+        NavigableMap<Integer, List<Subscription>> upperBounds = atMost.get(field.ordinal());
+
+        if (value > previous) {
+            // "At least t" starts to hold for t in (previous, value]; "at most t" stops holding for
+            // t in [previous, value).
+            adjust(lowerBounds.subMap(previous, false, value, true).values(), 1);
+            adjust(upperBounds.subMap(previous, true, value, false).values(), -1);
+        } else {
+            adjust(lowerBounds.subMap(value, false, previous, true).values(), -1);
+            adjust(upperBounds.subMap(value, true, previous, false).values(), 1);
+        }
+    }
+
+    private void adjust(Collection<List<Subscription>> buckets, int delta) {
+        for (List<Subscription> bucket : buckets) {
+            for (Subscription subscription : bucket) {
+                evaluations++;
+                if (subscription.adjust(delta)) {
+                    touched.add(subscription);
+                }
+            }
+        }
+    }
+
+    private void file(Subscription subscription, boolean add) {
+        if (atLeast == null) {
+            if (!add) {
+                return; // Cancelled before anything was ever filed
+            }
+
+            atLeast = new ArrayList<>(FIELDS.length);
+            atMost = new ArrayList<>(FIELDS.length);
+            for (int i = 0; i < FIELDS.length; i++) {
+                atLeast.add(new TreeMap<>());
+                atMost.add(new TreeMap<>());
+            }
+        }
+
+        boolean removed = false;
+        for (Threshold threshold : subscription.condition().thresholds()) {
+            NavigableMap<Integer, List<Subscription>> thresholds = threshold.isAtLeast()
+                    ? atLeast.get(threshold.field().ordinal())
+                    : atMost.get(threshold.field().ordinal());
+
+            if (add) {
+                thresholds.computeIfAbsent(threshold.value(), v -> new ArrayList<>())
+                        .add(subscription);
+            } else {
+                List<Subscription> bucket = thresholds.get(threshold.value());
+                if (bucket != null) {
+                    removed |= bucket.remove(subscription);
+                    if (bucket.isEmpty()) {
+                        thresholds.remove(threshold.value());
+                    }
+                }
+            }
+        }
+
+        if (add) {
+            filedSubscriptions++;
+        } else if (removed) {
+            filedSubscriptions--;
+        }
+    }
+
+    private void run(Runnable listener) {
+        try {
+            executor.execute(listener);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Subscription executor rejected a listener. Running it in place.", e);
+            listener.run();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package roofing.coffee.maker.timers;
+
+import lombok.ToString;
+
+/**
+ * A Timeout is a task that a TimerWheel runs once its clock reaches the Timeout's expiry tick,
+ * unless someone cancels it first.
+ *
+ * <p>
+ * A Timeout is also its own entry in the wheel: it links itself into the list of the wheel slot
+ * that it waits in, so that scheduling and cancelling it allocate nothing beyond the Timeout
+ * itself, and cancelling it unlinks it at once rather than leaving it for the wheel to skip.
+ * </p>
+ *
+ * <p>
+ * A Timeout is thread safe.
+ * </p>
+ *
+ * @see roofing.coffee.maker.timers.TimerWheel#schedule(long, Runnable)
+ * @author nferraro-roofing
+ *
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public final class Timeout {
+
+    private final TimerWheel wheel;
+
+    @ToString.Include
+    private final long expiryTick;
+
+    final Runnable task;
+
+    // Guarded by wheel. level is -1 unless the Timeout waits in a slot.
+    Timeout previous;
+    Timeout next;
+    int level = -1;
+    int slot;
+    boolean isPending = true;
+
+    Timeout(TimerWheel wheel, long expiryTick, Runnable task) {
+        this.wheel = wheel;
+        this.expiryTick = expiryTick;
+        this.task = task;
+    }
+
+    /**
+     * Returns the tick of the TimerWheel's clock at which this Timeout runs.
+     *
+     * @return the tick at which this Timeout runs.
+     */
+    public long expiryTick() {
+        return expiryTick;
+    }
+
+    /**
+     * Returns true if this Timeout has neither run nor been cancelled; false otherwise.
+     *
+     * @return true if this Timeout is still waiting to run; false otherwise.
+     */
+    @ToString.Include
+    public boolean isPending() {
+        synchronized (wheel) {
+            return isPending;
+        }
+    }
+
+    /**
+     * Cancel this Timeout, so that it never runs. Cancelling a Timeout that has already run, or
+     * that the wheel is about to run, does nothing.
+     *
+     * @return true if this call cancelled the Timeout; false if it had already run or been
+     *         cancelled.
+     */
+    public boolean cancel() {
+        return wheel.cancel(this);
+    }
+}
@@ -0,0 +1,297 @@
+package roofing.coffee.maker.timers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import lombok.NonNull;
+
+/**
+ * A TimerWheel runs Timeouts once its clock reaches their expiry ticks - e.g. to turn a
+ * WarmerPlate off a while after brewing stops, or to start brewing at 7:00.
+ *
+ * <p>
+ * Components register the absolute tick at which they want to hear back, rather than counting
+ * ticks down themselves, so that nothing runs on their behalf while they wait. The wheel's clock
+ * is just a number of ticks that its owner advances - e.g. a CoffeeMaker's Clock by the ticks of
+ * each of its steps, so that the CoffeeMaker's Timeouts fall due by its own ticks however late its
+ * Clock runs.
+ * </p>
+ *
+ * <p>
+ * A wheel that no Timeout has waited on yet costs a few dozen bytes, so every CoffeeMaker of a
+ * fleet may keep one of its own.
+ * </p>
+ *
+ * <p>
+ * The wheel is hierarchical: each of its levels has 64 slots, and a slot of level {@code n} spans
+ * {@code 64^n} ticks. A Timeout waits in the slot of the highest base-64 digit in which its expiry
+ * tick differs from the clock - i.e. nearby Timeouts wait in level 0, one slot per tick, and
+ * distant ones wait in coarser slots. Scheduling and cancelling a Timeout therefore cost the same
+ * however far away it expires. As the clock reaches the start of an occupied coarse slot, the
+ * wheel moves that slot's Timeouts down to finer levels, so that each Timeout moves at most once
+ * per level before it runs.
+ * </p>
+ *
+ * <p>
+ * Each level keeps a bitmap of its occupied slots, so that advancing the clock jumps straight from
+ * one occupied slot to the next, however many ticks lie in between. Advancing a wheel whose
+ * Timeouts lie further away than the advance costs a scan of one word per level.
+ * </p>
+ *
+ * <p>
+ * A TimerWheel is thread safe. It runs due Timeouts on the thread that advances it, in order of
+ * their expiry ticks, once it has released its lock - so a Timeout may schedule or cancel other
+ * Timeouts of the same wheel.
+ * </p>
+ *
+ * @see roofing.coffee.maker.timers.Timeout
+ * @author nferraro-roofing
+ *
+ */
+public final class TimerWheel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimerWheel.class);
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    // Enough levels for every non-negative tick
+    private static final int LEVELS = (Long.SIZE - 1 + SLOT_BITS - 1) / SLOT_BITS;
+
+    // Guarded by this. Allocated once the first Timeout waits, and each level's slots once a
+    // Timeout first waits there.
+    private Timeout[][] slots;
+    private long[] occupied;
+    private long now = 0;
+    private int pending = 0;
+
+    /**
+     * Returns the current tick of this wheel's clock, which starts at {@code 0}.
+     *
+     * @return the current tick of this wheel's clock.
+     */
+    public synchronized long now() {
+        return now;
+    }
+
+    /**
+     * Returns the number of Timeouts that have neither run nor been cancelled.
+     *
+     * @return the number of Timeouts waiting to run.
+     */
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /**
+     * Returns a tick no later than the expiry tick of the earliest pending Timeout - e.g. so that
+     * a lazily evaluated Clock may fold every tick before it into one step.
+     *
+     * @return a tick no later than the earliest pending expiry tick, or {@code Long.MAX_VALUE} if
+     *         no Timeout is pending.
+     */
+    public synchronized long earliestExpiryTick() {
+        return pending == 0 ? Long.MAX_VALUE : nextOccupiedSlotStart();
+    }
+
+    /**
+     * Run {@code task} once this wheel's clock reaches {@code expiryTick}.
+     *
+     * <p>
+     * A Timeout whose expiry tick is not after the current tick runs on the wheel's next advance.
+     * </p>
+     *
+     * @param expiryTick the tick at which to run {@code task}
+     * @param task what to run
+     * @return the Timeout that runs {@code task}, which may cancel it.
+     */
+    public Timeout schedule(long expiryTick, @NonNull Runnable task) {
+        Timeout timeout = new Timeout(this, expiryTick, task);
+
+        synchronized (this) {
+            pending++;
+            place(timeout, Math.max(expiryTick, now + 1));
+        }
+
+        return timeout;
+    }
+
+    /**
+     * Advance this wheel's clock by {@code ticks}, and run every Timeout whose expiry tick it
+     * reaches.
+     *
+     * @param ticks the number of ticks to advance by, which may be {@code 0}
+     * @throws IllegalArgumentException if {@code ticks} is negative.
+     */
+    public void advance(long ticks) {
+        if (ticks < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "A timer wheel's clock only moves forwards, but was asked to advance by %d "
+                            + "ticks",
+                    ticks));
+        }
+
+        Timeout due;
+        synchronized (this) {
+            due = advanceTo(now + ticks);
+        }
+
+        // Each due Timeout's next links the one after it
+        while (due != null) {
+            Timeout current = due;
+            due = current.next;
+            current.next = null;
+
+            try {
+                current.task.run();
+            } catch (RuntimeException e) {
+                LOG.warn("A timeout of a timer wheel failed at tick {}", current.expiryTick(), e);
+            }
+        }
+    }
+
+    synchronized boolean cancel(Timeout timeout) {
+        if (!timeout.isPending) {
+            return false;
+        }
+
+        unlink(timeout);
+        timeout.isPending = false;
+        pending--;
+        return true;
+    }
+
+    // Callers hold this. Returns the chain of Timeouts that fall due, earliest first.
+    private Timeout advanceTo(long target) {
+        Timeout dueHead = null;
+        Timeout dueTail = null;
+
+        while (pending > 0) {
+            long next = nextOccupiedSlotStart();
+            if (next > target) {
+                break;
+            }
+
+            now = next;
+
+            // Move the Timeouts of every coarse slot that starts now down to finer levels, and
+            // collect the Timeouts that expire now
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                int slot = digit(now, level);
+                if (!isOccupied(level, slot) || slotStart(now, level, slot) != now) {
+                    continue;
+                }
+
+                Timeout timeout = slots[level][slot];
+                slots[level][slot] = null;
+                occupied[level] &= ~(1L << slot);
+
+                while (timeout != null) {
+                    Timeout following = timeout.next;
+                    timeout.previous = null;
+                    timeout.next = null;
+                    timeout.level = -1;
+
+                    long expiry = Math.max(timeout.expiryTick(), now);
+                    if (expiry > now) {
+                        place(timeout, expiry);
+                    } else {
+                        timeout.isPending = false;
+                        pending--;
+
+                        if (dueTail == null) {
+                            dueHead = timeout;
+                        } else {
+                            dueTail.next = timeout;
+                        }
+
+                        dueTail = timeout;
+                    }
+
+                    timeout = following;
+                }
+            }
+        }
+
+        now = Math.max(now, target);
+        return dueHead;
+    }
+
+    // The earliest tick at which an occupied slot of any level starts - i.e. at which a Timeout
+    // either expires or moves down a level. Each level's occupied slots lie after the clock's digit
+    // of that level, so that the earliest one starts after the current tick.
+    private long nextOccupiedSlotStart() {
+        long next = Long.MAX_VALUE;
+
+        for (int level = 0; level < LEVELS; level++) {
+            if (occupied[level] != 0) {
+                int slot = Long.numberOfTrailingZeros(occupied[level]);
+                next = Math.min(next, slotStart(now, level, slot));
+            }
+        }
+
+        return next;
+    }
+
+    // Callers hold this. expiry lies after the current tick.
+    private void place(Timeout timeout, long expiry) {
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(expiry ^ now)) / SLOT_BITS;
+        int slot = digit(expiry, level);
+
+        if (slots == null) {
+            slots = new Timeout[LEVELS][];
+            occupied = new long[LEVELS];
+        }
+
+        if (slots[level] == null) {
+            slots[level] = new Timeout[SLOTS];
+        }
+
+        Timeout head = slots[level][slot];
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+
+        slots[level][slot] = timeout;
+        occupied[level] |= 1L << slot;
+    }
+
+    // Callers hold this
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+
+        if (slots[timeout.level][timeout.slot] == null) {
+            occupied[timeout.level] &= ~(1L << timeout.slot);
+        }
+
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private boolean isOccupied(int level, int slot) {
+        return (occupied[level] & 1L << slot) != 0;
+    }
+
+    private static int digit(long tick, int level) {
+        return (int) (tick >>> (level * SLOT_BITS)) & SLOT_MASK;
+    }
+
+    // The first tick of slot of level, among the ticks that share tick's digits above level
+    private static long slotStart(long tick, int level, int slot) {
+        int shift = level * SLOT_BITS;
+        long above = shift + SLOT_BITS >= Long.SIZE ? 0 : tick >>> (shift + SLOT_BITS);
+        return above << (shift + SLOT_BITS) | (long) slot << shift;
+    }
+}
@@ -0,0 +1,177 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.aggregates.AggregateGroup;
+import roofing.coffee.maker.aggregates.GroupMember;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests that AggregateGroups, fed by the transitions of ticking CoffeeMakers, agree with a full
+ * scan of the CoffeeMakers at every level of their hierarchy.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class AggregateGroupTests {
+
+    // Two buildings of two floors of three CoffeeMakers each
+    private static final int MAKERS = 12;
+    private static final int MAKERS_PER_FLOOR = 3;
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(60L, TimeUnit.SECONDS),
+            new PotProps(10),
+            new ReservoirProps(1),
+            new WarmerPlateProps(2));
+
+    private AggregateGroup global;
+    private CoffeeMaker[] makers;
+    private Clock[] clocks;
+    private GroupMember[] members;
+    private int[] cupsFilled;
+
+    @BeforeEach
+    void initMakers() {
+        global = new AggregateGroup("global");
+        makers = new CoffeeMaker[MAKERS];
+        clocks = new Clock[MAKERS];
+        members = new GroupMember[MAKERS];
+        cupsFilled = new int[MAKERS];
+
+        for (int deviceId = 0; deviceId < MAKERS; deviceId++) {
+            ClockBuilder clockBuilder = Clock.builder();
+            members[deviceId] = floorOf(deviceId).join();
+            makers[deviceId] = CoffeeMakerCreator.create(clockBuilder,
+                    PROPS,
+                    Runnable::run,
+                    members[deviceId]);
+            makers[deviceId].releaseOnShutdown(members[deviceId]::leave);
+            clocks[deviceId] = clockBuilder.build();
+        }
+    }
+
+    @Test
+    void testTotalsMatchFullScan() {
+        Random random = new Random(3);
+
+        for (int round = 0; round < 200; round++) {
+            // Given - CoffeeMakers that sometimes fill up, start or stop brewing, and move the pot
+            int deviceId = random.nextInt(MAKERS);
+            CoffeeMaker maker = makers[deviceId];
+            if (maker.cupsOfCoffee() + maker.cupsOfWater() < 10) {
+                cupsFilled[deviceId]++;
+                maker.fill(1);
+            } else if (random.nextBoolean()) {
+                maker.pressBrewButton();
+            }
+
+            // When
+            for (Clock clock : clocks) {
+                clock.tick();
+            }
+
+            // Then
+            assertMatchesFullScan();
+        }
+
+        assertTrue(global.cupsBrewed() > 0);
+
+        // And when - a CoffeeMaker shuts down mid-brew
+        for (int deviceId = 0; deviceId < MAKERS; deviceId++) {
+            if (makers[deviceId].isBrewing()) {
+                long brewing = global.makersBrewing();
+                makers[deviceId].shutdown();
+
+                // Then
+                assertEquals(brewing - 1, global.makersBrewing());
+                assertEquals(MAKERS - 1, global.makers());
+                break;
+            }
+        }
+    }
+
+    @Test
+    void testAggregatedFleet() throws InterruptedException {
+        // Given - a cup every 10 ms
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(10),
+                new ReservoirProps(6_000),
+                new WarmerPlateProps(1));
+
+        global = new AggregateGroup("fleet");
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(MAKERS, props,
+                FleetOptions.builder().groupOf(this::floorOf).build());
+
+        // When
+        fleet.lookup(4).fill(3);
+        fleet.lookup(4).pressBrewButton();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (global.cupsBrewed() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // Then
+        assertEquals(3, global.cupsBrewed());
+        assertEquals(3, global.child("b0").child("f1").cupsBrewed());
+        assertEquals(0, global.child("b1").cupsBrewed());
+        assertEquals(MAKERS, global.makers());
+
+        fleet.shutdown();
+        assertEquals(0, global.makers());
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(-1, props,
+                        FleetOptions.builder().groupOf(this::floorOf).build()));
+    }
+
+    private AggregateGroup floorOf(int deviceId) {
+        int floor = deviceId / MAKERS_PER_FLOOR;
+        return global.child("b" + floor / 2).child("f" + floor % 2);
+    }
+
+    private void assertMatchesFullScan() {
+        assertGroupMatches(global, deviceId -> true);
+
+        for (AggregateGroup building : global.children()) {
+            assertGroupMatches(building, deviceId -> floorOf(deviceId).path()
+                    .startsWith(building.path() + "/"));
+
+            for (AggregateGroup floor : building.children()) {
+                assertGroupMatches(floor, deviceId -> floorOf(deviceId) == floor);
+            }
+        }
+    }
+
+    private void assertGroupMatches(AggregateGroup group, IntPredicate inGroup) {
+        assertEquals(count(inGroup, deviceId -> 1), group.makers());
+        assertEquals(count(inGroup, deviceId -> makers[deviceId].cupsOfCoffee()),
+                group.cupsBrewed());
+        assertEquals(count(inGroup,
+                deviceId -> cupsFilled[deviceId] - makers[deviceId].cupsOfWater()),
+                group.cupsOfWaterDrawn());
+        assertEquals(count(inGroup, deviceId -> makers[deviceId].isBrewing() ? 1 : 0),
+                group.makersBrewing());
+        assertEquals(count(inGroup, deviceId -> makers[deviceId].isWarmerPlateOn() ? 1 : 0),
+                group.warmersOn(), group.path());
+    }
+
+    private static long count(IntPredicate inGroup, ToLongFunction<Integer> value) {
+        return IntStream.range(0, MAKERS).filter(inGroup).boxed().mapToLong(value).sum();
+    }
+}
@@ -0,0 +1,208 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.alerts.Alert;
+import roofing.coffee.maker.alerts.AlertEngine;
+import roofing.coffee.maker.alerts.AlertRule;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.components.CoffeePot;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateField;
+
+/**
+ * Tests that ticking CoffeeMakers raise and clear the alerts of an AlertEngine's rules.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class AlertEngineTests {
+
+    // One tick per minute, one cup per tick, and a WarmerPlate that stays hot for 45 minutes. The
+    // BrewButton's request outlives a brew by a tick, so the empty reservoir rule waits a minute.
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(60L, TimeUnit.SECONDS),
+            new PotProps(10),
+            new ReservoirProps(1),
+            new WarmerPlateProps(45));
+
+    private static final List<AlertRule> RULES = Arrays.asList(
+            AlertRule.when("warmer on with an empty pot",
+                    StateCondition.is(StateField.IS_HOT, true)
+                            .and(StateCondition.atMost(StateField.CUPS_OF_COFFEE, 0)))
+                    .forMinutes(30),
+            AlertRule.when("brew requested with an empty reservoir",
+                    StateCondition.is(StateField.IS_BREW_REQUESTED, true)
+                            .and(StateCondition.atMost(StateField.CUPS_OF_WATER, 0))
+                            .and(StateCondition.is(StateField.IS_BREWING, false)))
+                    .forMinutes(1),
+            AlertRule.when("pot removed mid-brew", StateCondition.is(StateField.HAS_POT, false))
+                    .after(StateCondition.is(StateField.IS_BREWING, true))
+                    .forMinutes(2));
+
+    private ConcurrentLinkedQueue<Alert> alerts;
+    private AlertEngine engine;
+    private CoffeeMaker maker;
+    private Clock clock;
+
+    @BeforeEach
+    void initMaker() {
+        alerts = new ConcurrentLinkedQueue<>();
+        engine = new AlertEngine(RULES, alerts::add);
+
+        ClockBuilder clockBuilder = Clock.builder();
+        maker = TestTimeCoffeeMakerCreator.create(clockBuilder, PROPS, Runnable::run);
+        maker.watchAlerts(engine.watch(3, PROPS.getClockTicksPerMinute()));
+        clock = clockBuilder.build();
+    }
+
+    @Test
+    void testBrewRequestedWithEmptyReservoir() {
+        // When
+        maker.pressBrewButton();
+        tick(1);
+        assertEquals(Arrays.asList(), drain());
+        tick(1);
+
+        // Then
+        assertEquals(Arrays.asList("+brew requested with an empty reservoir"), drain());
+        assertEquals(1, engine.raised());
+
+        // And when - the request waits for water until the user fills the reservoir
+        tick(3);
+        assertEquals(Arrays.asList(), drain());
+
+        maker.fill(1);
+        tick(1);
+
+        // Then
+        assertEquals(Arrays.asList("-brew requested with an empty reservoir"), drain());
+    }
+
+    @Test
+    void testPotRemovedMidBrew() {
+        // Given
+        maker.fill(5);
+        maker.pressBrewButton();
+        tick(2);
+
+        // When
+        CoffeePot pot = maker.removePot();
+        tick(2);
+
+        // Then
+        assertEquals(Arrays.asList(), drain());
+
+        // And when
+        tick(1);
+
+        // Then
+        assertEquals(Arrays.asList("+pot removed mid-brew"), drain());
+
+        // And when - the user pours a cup and replaces the pot
+        pot.pourOutCoffee(1);
+        maker.replacePot();
+        tick(1);
+
+        // Then
+        assertEquals(Arrays.asList("-pot removed mid-brew"), drain());
+    }
+
+    @Test
+    void testWarmerOnWithEmptyPot() {
+        // Given - a brew of two cups, which the user then pours out
+        maker.fill(2);
+        maker.pressBrewButton();
+        tick(5);
+
+        CoffeePot pot = maker.removePot();
+        pot.pourOutCoffee(2);
+        maker.replacePot();
+
+        // When - the WarmerPlate warms the empty pot from the next tick on
+        tick(30);
+
+        // Then
+        assertEquals(Arrays.asList(), drain());
+
+        // And when
+        tick(1);
+
+        // Then
+        assertEquals(Arrays.asList("+warmer on with an empty pot"), drain());
+
+        // And when - the CoffeeMaker shuts down
+        maker.shutdown();
+
+        // Then
+        assertEquals(Arrays.asList("-warmer on with an empty pot"), drain());
+        assertEquals(0, engine.raised());
+    }
+
+    @Test
+    void testFleetWithAlerts() throws InterruptedException {
+        // Given - a rule that needs no minutes, since a minute of a fleet's Clocks lasts a minute
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(5),
+                new ReservoirProps(6_000),
+                new WarmerPlateProps(1));
+
+        AlertEngine fleetEngine = new AlertEngine(
+                Arrays.asList(AlertRule.when("brew requested with an empty reservoir",
+                        StateCondition.is(StateField.IS_BREW_REQUESTED, true)
+                                .and(StateCondition.atMost(StateField.CUPS_OF_WATER, 0)))),
+                alerts::add);
+
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(4, props,
+                FleetOptions.builder().alertEngine(fleetEngine).build());
+
+        // When
+        fleet.lookup(2).pressBrewButton();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (alerts.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // Then
+        Alert alert = alerts.peek();
+        assertEquals("brew requested with an empty reservoir", alert.getRule().name());
+        assertEquals(2, alert.getDeviceId());
+
+        fleet.shutdown();
+        assertEquals(0, fleetEngine.raised());
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(-1, props,
+                        FleetOptions.builder().alertEngine(fleetEngine).build()));
+    }
+
+    private void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            clock.tick();
+        }
+    }
+
+    // The alerts since the last drain, as "+rule" if raised and "-rule" if cleared
+    private List<String> drain() {
+        List<String> drained = alerts.stream()
+                .map(alert -> (alert.isRaised() ? "+" : "-") + alert.getRule().name())
+                .collect(Collectors.toList());
+
+        alerts.clear();
+        return drained;
+    }
+}
@@ -130,4 +130,30 @@ class BasicCoffeeMakerTests {
         // Coffee maker initial state has a pot already in place
         assertThrows(IllegalStateException.class, () -> subject.replacePot());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPourOutCoffeeFromRemovedPot() {
+        // Given
+        subject.fill(4);
+        subject.pressBrewButton();
+        for (int i = 0; i < 8; i++) {
+            clock.tick();
+        }
+
+        // When
+        subject.removePot();
+        subject.pourOutCoffee(3);
+
+        // Then
+        assertFalse(subject.hasPot());
+        assertEquals(1, subject.cupsOfCoffee());
+        assertThrows(IllegalArgumentException.class, () -> subject.pourOutCoffee(-1));
+
+        // And when
+        subject.replacePot();
+
+        // Then
+        assertTrue(subject.hasPot());
+        assertThrows(IllegalStateException.class, () -> subject.pourOutCoffee(1));
+    }
+}
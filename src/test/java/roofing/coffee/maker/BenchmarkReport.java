@@ -0,0 +1,59 @@
+package roofing.coffee.maker;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BenchmarkReport prints the results of the benchmarks that live alongside our tests.
+ * 
+ * Benchmarks are plain classes with a {@code main} method whose names end in "Benchmark". Surefire
+ * ignores them, so they never slow down the build. Run one via the benchmark profile, e.g.
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=roofing.coffee.maker.CommandLatencyBenchmark}.
+ * 
+ * Author's note: these are not JMH benchmarks. They are good enough to compare one approach against
+ * another on the same machine, but please take their absolute numbers with a grain of salt.
+ * 
+ * @author nferraro-roofing
+ *
+ */
+public final class BenchmarkReport {
+
+    private BenchmarkReport() {/* Disable instantiation */}
+
+    public static void latencies(String label, long[] samplesNanos) {
+        long[] sorted = samplesNanos.clone();
+        Arrays.sort(sorted);
+
+        System.out.printf("%-45s n=%-9d p50=%9.2fus p90=%9.2fus p99=%9.2fus p99.9=%9.2fus "
+                + "max=%9.2fus%n",
+                label,
+                sorted.length,
+                micros(percentile(sorted, 0.50)),
+                micros(percentile(sorted, 0.90)),
+                micros(percentile(sorted, 0.99)),
+                micros(percentile(sorted, 0.999)),
+                micros(sorted[sorted.length - 1]));
+    }
+
+    public static void throughput(String label, long operations, long elapsedNanos) {
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.printf("%-45s ops=%-12d time=%9.3fs rate=%,15.0f ops/s%n",
+                label,
+                operations,
+                seconds,
+                operations / seconds);
+    }
+
+    public static void value(String label, String value) {
+        System.out.printf("%-45s %s%n", label, value);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1_000.0;
+    }
+}
@@ -0,0 +1,242 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests for the futures returned by {@code onBrewComplete()} and {@code onCupsAvailable(int)}.
+ *
+ * These tests tick the clock manually, and they complete notifications via a recording executor
+ * so that they can tell the Clock's work apart from the executor's work.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class BrewNotificationTests {
+
+    private static CoffeeMakerProperties props;
+
+    private RecordingExecutor executor;
+    private Clock clock;
+    private CoffeeMaker subject;
+
+    @BeforeAll
+    static void initProps() {
+        ClockProps clock = new ClockProps(60L, TimeUnit.SECONDS);
+        PotProps pot = new PotProps(10);
+        ReservoirProps reservoir = new ReservoirProps(1);
+        WarmerPlateProps warmerPlate = new WarmerPlateProps(10);
+
+        props = new CoffeeMakerProperties(clock, pot, reservoir, warmerPlate);
+    }
+
+    @BeforeEach
+    void initSubjectAndClock() {
+        executor = new RecordingExecutor();
+
+        ClockBuilder clockBuilder = Clock.builder();
+        subject = CoffeeMakerCreator.create(clockBuilder, props, executor);
+        clock = clockBuilder.build();
+    }
+
+    @Test
+    void testBrewComplete() {
+        // Given
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+        CompletableFuture<Integer> brewComplete = subject.onBrewComplete();
+
+        // When
+        int ticks = 0;
+        while (!subject.isBrewing() || subject.cupsOfWater() > 0) {
+            clock.tick();
+            ticks++;
+            executor.runAll();
+            assertFalse(brewComplete.isDone(), "Completed early after tick " + ticks);
+        }
+
+        clock.tick();
+        assertFalse(brewComplete.isDone(), "The executor completes the future, not the Clock");
+        executor.runAll();
+
+        // Then
+        assertFalse(subject.isBrewing());
+        assertTrue(brewComplete.isDone());
+        assertEquals(subject.cupsOfCoffee(), brewComplete.join());
+    }
+
+    @Test
+    void testBrewCompleteWhenUserStopsBrew() {
+        // Given
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+        clock.tick();
+        clock.tick();
+        CompletableFuture<Integer> brewComplete = subject.onBrewComplete();
+
+        // When
+        subject.pressBrewButton();
+        clock.tick();
+        executor.runAll();
+
+        // Then
+        assertTrue(brewComplete.isDone());
+        assertEquals(subject.cupsOfCoffee(), brewComplete.join());
+    }
+
+    @Test
+    void testCupsAvailable() {
+        // Given
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+        CompletableFuture<Integer> threeCups = subject.onCupsAvailable(3);
+
+        // When
+        while (subject.cupsOfCoffee() < 2) {
+            clock.tick();
+            executor.runAll();
+        }
+
+        assertFalse(threeCups.isDone());
+        clock.tick();
+        executor.runAll();
+
+        // Then
+        assertEquals(3, subject.cupsOfCoffee());
+        assertTrue(threeCups.isDone());
+        assertEquals(3, threeCups.join());
+    }
+
+    @Test
+    void testCupsAlreadyAvailable() {
+        // Given
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+        for (int i = 0; i < 4; i++) {
+            clock.tick();
+        }
+
+        // When
+        CompletableFuture<Integer> twoCups = subject.onCupsAvailable(2);
+        executor.runAll();
+
+        // Then
+        assertTrue(twoCups.isDone());
+        assertEquals(subject.cupsOfCoffee(), twoCups.join());
+    }
+
+    @Test
+    void testCupsOutOfRange() {
+        int tooMany = props.getPotMaxCapacityCups() + 1;
+
+        assertThrows(IllegalArgumentException.class, () -> subject.onCupsAvailable(0));
+        assertThrows(IllegalArgumentException.class, () -> subject.onCupsAvailable(tooMany));
+    }
+
+    @Test
+    void testCupsAboveOriginalCapacity() {
+        // Given - a pot that holds more cups than the CoffeeMaker was created with
+        int cups = props.getPotMaxCapacityCups() + 5;
+        subject.overrideSettings(subject.settings().withPotMaxCapacityCups(cups));
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+
+        // When
+        CompletableFuture<Integer> bigPot = subject.onCupsAvailable(cups);
+        while (subject.cupsOfCoffee() < cups - 1) {
+            clock.tick();
+            executor.runAll();
+        }
+
+        assertFalse(bigPot.isDone());
+        clock.tick();
+        executor.runAll();
+
+        // Then
+        assertTrue(bigPot.isDone());
+        assertEquals(cups, bigPot.join());
+        assertThrows(IllegalArgumentException.class, () -> subject.onCupsAvailable(cups + 1));
+    }
+
+    @Test
+    void testManyWaitersCompleteInOneBatchPerCup() {
+        // Given
+        int maxCups = props.getPotMaxCapacityCups();
+        List<CompletableFuture<Integer>> waiters = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            waiters.add(subject.onCupsAvailable(1 + i % maxCups));
+        }
+
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+
+        // When
+        int batches = 0;
+        while (subject.cupsOfCoffee() < maxCups) {
+            clock.tick();
+            batches += executor.runAll();
+        }
+
+        // Then
+        assertEquals(maxCups, batches);
+        assertTrue(waiters.stream().allMatch(CompletableFuture::isDone));
+    }
+
+    @Test
+    void testRejectedNotificationsCompleteInPlace() {
+        // Given
+        ClockBuilder clockBuilder = Clock.builder();
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("Shut down");
+        };
+
+        CoffeeMaker coffeeMaker = CoffeeMakerCreator.create(clockBuilder, props, rejecting);
+        Clock rejectingClock = clockBuilder.build();
+
+        coffeeMaker.fill(coffeeMaker.getMaxWaterCapacityCups());
+        coffeeMaker.pressBrewButton();
+        CompletableFuture<Integer> oneCup = coffeeMaker.onCupsAvailable(1);
+
+        // When
+        rejectingClock.tick();
+        rejectingClock.tick();
+
+        // Then
+        assertTrue(oneCup.isDone());
+    }
+
+    private static class RecordingExecutor implements Executor {
+
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        int runAll() {
+            int ran = tasks.size();
+            tasks.forEach(Runnable::run);
+            tasks.clear();
+            return ran;
+        }
+    }
+}
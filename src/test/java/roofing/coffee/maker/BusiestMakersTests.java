@@ -0,0 +1,149 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+import roofing.coffee.maker.rankings.BusiestMakers;
+import roofing.coffee.maker.rankings.RankedMaker;
+import roofing.coffee.maker.rankings.RankingWindow;
+
+/**
+ * Tests that CoffeeMakers count their brewed cups and started brews in BusiestMakers.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class BusiestMakersTests {
+
+    private static final long BUDGET = 1L << 20;
+
+    @Test
+    void testRanksBrewingMakers() {
+        // Given - CoffeeMakers that brew one cup more than the last
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(60L, TimeUnit.SECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(3));
+
+        BusiestMakers busiest = new BusiestMakers(BUDGET);
+
+        for (int deviceId = 0; deviceId < 6; deviceId++) {
+            ClockBuilder clockBuilder = Clock.builder();
+            CoffeeMaker maker = CoffeeMakerCreator.create(clockBuilder,
+                    props,
+                    Runnable::run,
+                    busiest.eventsOf(deviceId));
+            Clock clock = clockBuilder.build();
+
+            // When
+            maker.fill(deviceId + 1);
+            maker.pressBrewButton();
+            for (int tick = 0; tick < 15; tick++) {
+                clock.tick();
+            }
+        }
+
+        // Then
+        List<RankedMaker> byCups = busiest.byCupsBrewed(RankingWindow.LAST_HOUR, 3);
+        assertEquals(Arrays.asList(5, 4, 3), deviceIds(byCups));
+        assertEquals(Arrays.asList(6L, 5L, 4L),
+                byCups.stream().map(RankedMaker::getCount).collect(Collectors.toList()));
+
+        List<RankedMaker> byBrews = busiest.byBrewsStarted(RankingWindow.LAST_DAY, 10);
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5), deviceIds(byBrews));
+        assertEquals(1, byBrews.get(0).getCount());
+    }
+
+    @Test
+    void testWithdrawnRequestsDoNotCount() {
+        // Given
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(60L, TimeUnit.SECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(3));
+
+        BusiestMakers busiest = new BusiestMakers(BUDGET);
+        ClockBuilder clockBuilder = Clock.builder();
+        CoffeeMaker maker = CoffeeMakerCreator.create(clockBuilder,
+                props,
+                Runnable::run,
+                busiest.eventsOf(7));
+        Clock clock = clockBuilder.build();
+        maker.fill(2);
+
+        // When - the CoffeeMaker notices a request while the pot is away, which the user withdraws
+        maker.removePot();
+        maker.pressBrewButton();
+        clock.tick();
+        clock.tick();
+        maker.pressBrewButton();
+        maker.replacePot();
+        clock.tick();
+
+        // Then
+        assertEquals(0, busiest.byBrewsStarted(RankingWindow.LAST_DAY, 5).size());
+
+        // And when - the next request starts a brew
+        maker.pressBrewButton();
+        clock.tick();
+        clock.tick();
+
+        // Then
+        assertEquals(Arrays.asList(7),
+                deviceIds(busiest.byBrewsStarted(RankingWindow.LAST_DAY, 5)));
+    }
+
+    @Test
+    void testRankedFleet() throws InterruptedException {
+        // Given - a cup every 10 ms
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(5),
+                new ReservoirProps(6_000),
+                new WarmerPlateProps(1));
+
+        BusiestMakers busiest = new BusiestMakers(BUDGET);
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(5, props,
+                FleetOptions.builder().busiestMakers(busiest).build());
+
+        // When
+        fleet.lookup(3).fill(2);
+        fleet.lookup(3).pressBrewButton();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cupsOf(busiest) < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // Then
+        assertEquals(Arrays.asList(3), deviceIds(busiest.byCupsBrewed(RankingWindow.LAST_DAY, 5)));
+        assertEquals(2, cupsOf(busiest));
+
+        fleet.shutdown();
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(-1, props,
+                        FleetOptions.builder().busiestMakers(busiest).build()));
+    }
+
+    private static long cupsOf(BusiestMakers busiest) {
+        List<RankedMaker> top = busiest.byCupsBrewed(RankingWindow.LAST_HOUR, 1);
+        return top.isEmpty() ? 0 : top.get(0).getCount();
+    }
+
+    private static List<Integer> deviceIds(List<RankedMaker> ranked) {
+        return ranked.stream().map(RankedMaker::getDeviceId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,139 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.changes.ChangeFeed;
+import roofing.coffee.maker.changes.ChangeFeed.Changes;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests that ticking CoffeeMakers report their state changes, and only those, to a ChangeFeed.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class ChangeFeedTests {
+
+    private static final int MAKERS = 10;
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(60L, TimeUnit.SECONDS),
+            new PotProps(5),
+            new ReservoirProps(1),
+            new WarmerPlateProps(3));
+
+    private ChangeFeed feed;
+    private CoffeeMaker[] makers;
+    private Clock[] clocks;
+
+    @BeforeEach
+    void initMakers() {
+        feed = new ChangeFeed(MAKERS, 64);
+        makers = new CoffeeMaker[MAKERS];
+        clocks = new Clock[MAKERS];
+
+        for (int deviceId = 0; deviceId < MAKERS; deviceId++) {
+            ClockBuilder clockBuilder = Clock.builder();
+            makers[deviceId] =
+                    TestTimeCoffeeMakerCreator.create(clockBuilder, PROPS, Runnable::run);
+            makers[deviceId].feedChangesTo(feed, deviceId);
+            clocks[deviceId] = clockBuilder.build();
+        }
+    }
+
+    @Test
+    void testOnlyChangedMakers() {
+        // Given - every CoffeeMaker settles into its idle state, once its WarmerPlate turns off
+        for (int tick = 0; tick < 4; tick++) {
+            tickAll();
+        }
+
+        Changes initial = feed.changesSince(0);
+        assertEquals(MAKERS, initial.getDeviceIds().length);
+
+        // When - the fleet ticks idly, and then two CoffeeMakers change
+        tickAll();
+        tickAll();
+        assertArrayEquals(new int[0], feed.changesSince(initial.getVersion()).getDeviceIds());
+
+        makers[2].fill(3);
+        makers[2].pressBrewButton();
+        makers[7].removePot();
+        tickAll();
+        tickAll();
+
+        // Then
+        Changes changes = feed.changesSince(initial.getVersion());
+        assertArrayEquals(new int[] {2, 7}, sorted(changes.getDeviceIds()));
+
+        // And when - a CoffeeMaker is decommissioned
+        makers[4].shutdown();
+
+        // Then
+        assertArrayEquals(new int[] {4}, feed.changesSince(changes.getVersion()).getDeviceIds());
+    }
+
+    @Test
+    void testFleetWithChangeFeed() throws InterruptedException {
+        // Given - a cup every 10 ms
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(5),
+                new ReservoirProps(6_000),
+                new WarmerPlateProps(1));
+
+        ChangeFeed fleetFeed = new ChangeFeed(20, 1_024);
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(20, props,
+                FleetOptions.builder().changeFeed(fleetFeed).build());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fleetFeed.changesSince(0).getDeviceIds().length < 20
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        long version = fleetFeed.version();
+
+        // When
+        fleet.lookup(13).fill(2);
+
+        // Then
+        while (fleetFeed.changesSince(version).getDeviceIds().length == 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertArrayEquals(new int[] {13}, fleetFeed.changesSince(version).getDeviceIds());
+
+        fleet.shutdown();
+        assertEquals(20, fleetFeed.changesSince(version).getDeviceIds().length);
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(21, props,
+                        FleetOptions.builder().changeFeed(fleetFeed).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(-1, props,
+                        FleetOptions.builder().changeFeed(fleetFeed).build()));
+    }
+
+    private void tickAll() {
+        for (Clock clock : clocks) {
+            clock.tick();
+        }
+    }
+
+    private static int[] sorted(int[] deviceIds) {
+        Arrays.sort(deviceIds);
+        return deviceIds;
+    }
+}
@@ -0,0 +1,587 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+import roofing.coffee.maker.streams.CoffeeMakerState;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateField;
+import roofing.coffee.maker.streams.StateFlow;
+
+class CoffeeMakerFleetTest {
+
+    private CoffeeMakerFleet subject;
+    private CoffeeMaker coffeeMaker;
+
+    @BeforeEach
+    void initSubject() {
+        subject = new CoffeeMakerFleet();
+        coffeeMaker = TestTimeCoffeeMakerCreator.create();
+    }
+
+    @Test
+    void testRegisterAndLookup() {
+        // Given
+        CoffeeMaker other = TestTimeCoffeeMakerCreator.create();
+
+        // When
+        subject.register(42L, coffeeMaker);
+        subject.register(-7L, other);
+
+        // Then
+        assertSame(coffeeMaker, subject.lookup(42L));
+        assertSame(other, subject.lookup(-7L));
+        assertNull(subject.lookup(43L));
+        assertEquals(2, subject.size());
+
+        // And when
+        subject.shutdown();
+
+        // Then
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    void testRegisterTwice() {
+        subject.register(Long.MAX_VALUE, coffeeMaker);
+
+        assertThrows(IllegalStateException.class,
+                () -> subject.register(Long.MAX_VALUE, coffeeMaker));
+    }
+
+    @Test
+    void testDecommissionAndRegisterAgain() {
+        // Given
+        subject.register(0L, coffeeMaker);
+
+        // When
+        assertTrue(subject.decommission(0L));
+
+        // Then
+        assertNull(subject.lookup(0L));
+        assertFalse(subject.decommission(0L));
+        assertFalse(subject.decommission(1L));
+        assertEquals(0, subject.size());
+
+        // And when - the id comes back into service with a new CoffeeMaker
+        CoffeeMaker replacement = TestTimeCoffeeMakerCreator.create();
+        subject.register(0L, replacement);
+
+        // Then
+        assertSame(replacement, subject.lookup(0L));
+        assertEquals(1, subject.size());
+    }
+
+    @Test
+    void testGrowsAndPurgesTombstones() {
+        // Given - far more makers than the fleet expects
+        CoffeeMakerFleet small = new CoffeeMakerFleet(1);
+        int makers = 50_000;
+
+        for (long id = 0; id < makers; id++) {
+            small.register(id, coffeeMaker);
+        }
+
+        // When - churn through decommissions and new registrations
+        for (long id = 0; id < makers; id += 2) {
+            assertTrue(small.decommission(id));
+            small.register(id + makers, coffeeMaker);
+        }
+
+        // Then
+        assertEquals(makers, small.size());
+        for (long id = 0; id < 2 * makers; id++) {
+            boolean registered = id >= makers ? id % 2 == 0 : id % 2 == 1;
+            assertEquals(registered, small.lookup(id) != null, "Device " + id);
+        }
+    }
+
+    @Test
+    void testDecommissionShutsDownCoffeeMaker() throws InterruptedException {
+        // Given - a CoffeeMaker whose Clock ticks every millisecond
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        CoffeeMaker ticking = CoffeeMakerCreator.create(props, Runnable::run);
+        AtomicBoolean completed = new AtomicBoolean();
+        ticking.stateStream().subscribe(new StateFlow.Subscriber<CoffeeMakerState>() {
+
+            @Override
+            public void onSubscribe(StateFlow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(CoffeeMakerState item) { /* Ignore */ }
+
+            @Override
+            public void onError(Throwable throwable) { /* Ignore */ }
+
+            @Override
+            public void onComplete() {
+                completed.set(true);
+            }
+        });
+        subject.register(1L, ticking);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (ticking.clockMetrics().steps() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // When
+        subject.decommission(1L);
+        Thread.sleep(20); // Let any tick that was in progress finish
+        long stepsAfterDecommission = ticking.clockMetrics().steps();
+        Thread.sleep(50);
+
+        // Then
+        assertEquals(stepsAfterDecommission, ticking.clockMetrics().steps());
+        assertTrue(completed.get());
+    }
+
+    @Test
+    void testConcurrentLookupsDuringChurn() throws InterruptedException {
+        // Given - stable makers that readers always expect to find
+        int stable = 10_000;
+        for (long id = 0; id < stable; id++) {
+            subject.register(id, coffeeMaker);
+        }
+
+        AtomicBoolean churning = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int w = 0; w < 2; w++) {
+            long base = stable + w * 1_000_000L;
+            threads.add(new Thread(() -> {
+                for (long id = base; id < base + 50_000; id++) {
+                    subject.register(id, coffeeMaker);
+                    if (id - base >= 100) {
+                        subject.decommission(id - 100);
+                    }
+                }
+
+                churning.set(false);
+            }));
+        }
+
+        for (int r = 0; r < 2; r++) {
+            threads.add(new Thread(() -> {
+                while (churning.get()) {
+                    for (long id = 0; id < stable; id++) {
+                        if (subject.lookup(id) != coffeeMaker) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+
+        // When
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertEquals(0, misses.get());
+        for (long id = 0; id < stable; id++) {
+            assertSame(coffeeMaker, subject.lookup(id));
+        }
+    }
+
+    @Test
+    void testCreateFleet() throws InterruptedException {
+        // Given
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        // When
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(500, props);
+
+        // Then - every maker exists, and every maker ticks
+        assertEquals(500, fleet.size());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (long id = 0; id < 500; id++) {
+            CoffeeMaker coffeeMaker = fleet.lookup(id);
+            while (coffeeMaker.clockMetrics().steps() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+
+            assertTrue(coffeeMaker.clockMetrics().steps() > 0, "Device " + id);
+        }
+
+        assertNull(fleet.lookup(500));
+        assertEquals(10, fleet.lookup(0).getMaxWaterCapacityCups() - 1);
+
+        // And when
+        CoffeeMaker first = fleet.lookup(0);
+        fleet.shutdown();
+        Thread.sleep(20); // Let any tick that was in progress finish
+        long stepsAfterShutdown = first.clockMetrics().steps();
+        Thread.sleep(50);
+
+        // Then
+        assertEquals(0, fleet.size());
+        assertEquals(stepsAfterShutdown, first.clockMetrics().steps());
+    }
+
+    @Test
+    void testCreateEmptyFleet() {
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(0, props);
+        assertEquals(0, fleet.size());
+        fleet.shutdown();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(-1, props));
+    }
+
+    @Test
+    void testCreateDormantFleet() throws InterruptedException {
+        // When
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(100,
+                props(1L, TimeUnit.MILLISECONDS),
+                dormantAfter(1L, TimeUnit.HOURS));
+
+        // Then - every maker is dormant until a lookup builds it
+        assertEquals(100, fleet.size());
+        assertEquals(100, fleet.dormantCount());
+        assertNull(fleet.lookup(100));
+
+        CoffeeMaker inflated = fleet.lookup(7);
+        assertSame(inflated, fleet.lookup(7));
+        assertEquals(99, fleet.dormantCount());
+        assertEquals(0, inflated.cupsOfWater());
+        assertFalse(inflated.isWarmerPlateOn());
+        assertTrue(inflated.asBusMessage().getWarmer().hasPot());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (inflated.clockMetrics().steps() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertTrue(inflated.clockMetrics().steps() > 0);
+
+        // And when
+        fleet.shutdown();
+
+        // Then
+        assertEquals(0, fleet.size());
+        assertEquals(0, fleet.dormantCount());
+    }
+
+    @Test
+    void testDeflateIdleKeepsState() throws InterruptedException {
+        // Given - a maker with water in it and its pot removed, that has come to rest
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(4,
+                props(1L, TimeUnit.MILLISECONDS),
+                dormantAfter(1L, TimeUnit.HOURS));
+
+        CoffeeMaker original = fleet.lookup(1);
+        original.fill(3);
+        original.removePot();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!original.isDormantCandidate() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // When
+        long hour = TimeUnit.HOURS.toNanos(1);
+        assertEquals(0, fleet.deflateIdle(System.nanoTime(), hour), "Recently looked up");
+        assertEquals(1, fleet.deflateIdle(System.nanoTime() + 2 * hour, hour));
+
+        // Then
+        assertEquals(4, fleet.dormantCount());
+        Thread.sleep(20); // Let any tick that was in progress finish
+        long stepsAfterDeflate = original.clockMetrics().steps();
+
+        CoffeeMaker rebuilt = fleet.lookup(1);
+        assertNotSame(original, rebuilt);
+        assertEquals(3, rebuilt.cupsOfWater());
+        assertFalse(rebuilt.asBusMessage().getWarmer().hasPot());
+        assertEquals(original.settings(), rebuilt.settings());
+
+        Thread.sleep(50);
+        assertEquals(stepsAfterDeflate, original.clockMetrics().steps());
+        fleet.shutdown();
+    }
+
+    @Test
+    void testDeflateIdleSkipsBusyMakers() {
+        // Given - makers whose Clocks tick only once a minute
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(4,
+                props(60L, TimeUnit.SECONDS),
+                dormantAfter(1L, TimeUnit.HOURS));
+
+        fleet.lookup(0).pressBrewButton();
+        fleet.lookup(1).onCupsAvailable(1);
+        fleet.lookup(2).subscribe(StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 1), () -> { });
+        fleet.lookup(3);
+
+        // When
+        long hour = TimeUnit.HOURS.toNanos(1);
+        int deflated = fleet.deflateIdle(System.nanoTime() + 2 * hour, hour);
+
+        // Then
+        assertEquals(1, deflated);
+        assertEquals(1, fleet.dormantCount());
+        fleet.shutdown();
+    }
+
+    @Test
+    void testDormantMakersSurviveResizeAndDecommission() throws InterruptedException {
+        // Given - a fleet that expects one maker, whose maker goes dormant with some water
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(1,
+                props(1L, TimeUnit.MILLISECONDS),
+                dormantAfter(1L, TimeUnit.HOURS));
+
+        CoffeeMaker original = fleet.lookup(0);
+        original.fill(5);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!original.isDormantCandidate() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        long hour = TimeUnit.HOURS.toNanos(1);
+        assertEquals(1, fleet.deflateIdle(System.nanoTime() + 2 * hour, hour));
+
+        // When - the fleet grows well past its expected size, and a dormant maker leaves
+        for (long id = 1; id < 1_000; id++) {
+            fleet.registerDormant(id, original.settings());
+        }
+
+        assertTrue(fleet.decommission(500));
+        assertFalse(fleet.decommission(500));
+
+        // Then
+        assertEquals(999, fleet.size());
+        assertEquals(999, fleet.dormantCount());
+        assertNull(fleet.lookup(500));
+        assertEquals(5, fleet.lookup(0).cupsOfWater());
+        assertThrows(IllegalStateException.class,
+                () -> fleet.registerDormant(1, original.settings()));
+
+        // And when - the decommissioned id comes back as a live maker
+        fleet.register(500, coffeeMaker);
+
+        // Then
+        assertSame(coffeeMaker, fleet.lookup(500));
+        assertEquals(998, fleet.dormantCount());
+        fleet.shutdown();
+    }
+
+    @Test
+    void testTooManyDistinctSettingsStayLive() {
+        // Given - a fleet whose stripes each hold dormant makers of up to 255 distinct settings
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(0,
+                props(60L, TimeUnit.SECONDS),
+                dormantAfter(1L, TimeUnit.HOURS));
+
+        // When - 256 makers of distinct settings land in a single stripe
+        int registered = 0;
+        for (long id = 0; registered < 256; id++) {
+            if (CoffeeMakerFleet.hash(id) >>> 60 == 0) {
+                fleet.registerDormant(id, ComponentSettings.of(registered++ + 1, 1, 1));
+            }
+        }
+
+        // Then - the last one starts out live
+        assertEquals(256, fleet.size());
+        assertEquals(255, fleet.dormantCount());
+        fleet.shutdown();
+    }
+
+    @Test
+    void testIdleMakersGoDormant() throws InterruptedException {
+        // Given - a fleet that sweeps for idle makers every 50 milliseconds
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(10,
+                props(1L, TimeUnit.MILLISECONDS),
+                dormantAfter(50L, TimeUnit.MILLISECONDS));
+
+        // When
+        for (long id = 0; id < 10; id++) {
+            fleet.lookup(id).fill((int) id);
+        }
+
+        // Then
+        assertEquals(0, fleet.dormantCount());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fleet.dormantCount() < 10 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(10, fleet.dormantCount());
+        for (long id = 0; id < 10; id++) {
+            assertEquals(id, fleet.lookup(id).cupsOfWater(), "Device " + id);
+        }
+
+        fleet.shutdown();
+    }
+
+    @Test
+    void testConcurrentLookupsDuringDeflate() throws InterruptedException {
+        // Given - makers that go dormant as soon as they come to rest
+        int makers = 200;
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(makers,
+                props(1L, TimeUnit.MILLISECONDS),
+                dormantAfter(1L, TimeUnit.HOURS));
+
+        for (long id = 0; id < makers; id++) {
+            fleet.lookup(id).fill((int) (id % 10));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger wrongLevels = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+
+        threads.add(new Thread(() -> {
+            while (running.get()) {
+                fleet.deflateIdle(System.nanoTime(), 0L);
+            }
+        }));
+
+        for (int r = 0; r < 2; r++) {
+            threads.add(new Thread(() -> {
+                for (int pass = 0; pass < 200; pass++) {
+                    for (long id = 0; id < makers; id++) {
+                        if (fleet.lookup(id).cupsOfWater() != id % 10) {
+                            wrongLevels.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+
+        // When
+        threads.forEach(Thread::start);
+        for (Thread thread : threads.subList(1, threads.size())) {
+            thread.join();
+        }
+
+        running.set(false);
+        threads.get(0).join();
+
+        // Then
+        assertEquals(0, wrongLevels.get());
+        assertEquals(makers, fleet.size());
+        fleet.shutdown();
+    }
+
+    @Test
+    void testForEachVisitsLiveAndDormantMakers() throws InterruptedException {
+        // Given - a dormant maker with water in it and its pot removed, a live maker, and a
+        // decommissioned one
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(4,
+                props(1L, TimeUnit.MILLISECONDS),
+                dormantAfter(1L, TimeUnit.HOURS));
+
+        CoffeeMaker deflated = fleet.lookup(1);
+        deflated.fill(1);
+        deflated.removePot();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!deflated.isDormantCandidate() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        long hour = TimeUnit.HOURS.toNanos(1);
+        assertEquals(1, fleet.deflateIdle(System.nanoTime() + 2 * hour, hour));
+        CoffeeMaker live = fleet.lookup(2);
+        fleet.decommission(3);
+
+        // When
+        List<String> visits = new ArrayList<>();
+        fleet.forEach(new CoffeeMakerFleet.Visitor() {
+
+            @Override
+            public void visitLive(long deviceId, CoffeeMaker coffeeMaker) {
+                assertSame(live, coffeeMaker);
+                visits.add(deviceId + " live");
+            }
+
+            @Override
+            public void visitDormant(long deviceId,
+                    int cupsOfWater,
+                    int cupsOfCoffee,
+                    boolean hasPot) {
+
+                visits.add(String.format("%d dormant %d %d %b",
+                        deviceId,
+                        cupsOfWater,
+                        cupsOfCoffee,
+                        hasPot));
+            }
+        });
+
+        // Then - visiting rebuilt nothing
+        visits.sort(null);
+        assertEquals(Arrays.asList("0 dormant 0 0 true", "1 dormant 1 0 false", "2 live"),
+                visits);
+        assertEquals(2, fleet.dormantCount());
+        fleet.shutdown();
+    }
+
+    @Test
+    void testInvalidDormantArguments() {
+        CoffeeMakerProperties props = props(1L, TimeUnit.MILLISECONDS);
+
+        assertThrows(IllegalStateException.class,
+                () -> subject.registerDormant(1L, coffeeMaker.settings()));
+        assertThrows(NullPointerException.class, () -> subject.registerDormant(1L, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(-1, props, dormantAfter(1L, TimeUnit.HOURS)));
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(1, props, dormantAfter(-1L, TimeUnit.HOURS)));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new CoffeeMakerFleet(-1));
+        assertThrows(NullPointerException.class, () -> subject.register(1L, null));
+    }
+
+    private static CoffeeMakerProperties props(long tickDelay, TimeUnit tickDelayUnit) {
+        return new CoffeeMakerProperties(
+                new ClockProps(tickDelay, tickDelayUnit),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+    }
+
+    private static FleetOptions dormantAfter(long idlePeriod, TimeUnit idlePeriodUnit) {
+        return FleetOptions.builder().idlePeriod(idlePeriod).idlePeriodUnit(idlePeriodUnit).build();
+    }
+}
@@ -0,0 +1,70 @@
+package roofing.coffee.maker;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Measures command-to-effect latency - i.e. the time from {@code pressBrewButton()} until
+ * {@code isBrewing()} reflects the press - with and without immediate command evaluation.
+ *
+ * Each sample toggles the brew button and spins until {@code isBrewing()} flips. Without immediate
+ * evaluation, the latency is bounded by the clock's tick delay (10 ms here); with it, the command
+ * takes effect before {@code pressBrewButton()} returns, unless a tick happens to be in progress.
+ *
+ * Between samples, the benchmark waits for two to three ticks at random, which spreads presses
+ * across the tick period.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class CommandLatencyBenchmark {
+
+    private static final long TICK_DELAY_MILLIS = 10;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_DELAY_MILLIS);
+
+    public static void main(String[] args) {
+        measure("tick-driven commands (10 ms tick)", false, 500);
+        measure("immediately evaluated commands (10 ms tick)", true, 1_000);
+
+        System.exit(0);
+    }
+
+    private static void measure(String label, boolean evaluateImmediately, int samples) {
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(TICK_DELAY_MILLIS,
+                        TimeUnit.MILLISECONDS,
+                        CatchUpPolicy.DROP,
+                        evaluateImmediately),
+                new PotProps(10),
+                new ReservoirProps(1), // 6000 ticks per cup, so we never run out of water
+                new WarmerPlateProps(1));
+
+        CoffeeMaker coffeeMaker = CoffeeMakerCreator.create(props);
+        coffeeMaker.fill(coffeeMaker.getMaxWaterCapacityCups());
+
+        long[] latencies = new long[samples];
+
+        for (int i = 0; i < samples; i++) {
+            boolean wasBrewing = coffeeMaker.isBrewing();
+            long start = System.nanoTime();
+
+            coffeeMaker.pressBrewButton();
+            while (coffeeMaker.isBrewing() == wasBrewing) {
+                LockSupport.parkNanos(1_000);
+            }
+
+            latencies[i] = System.nanoTime() - start;
+
+            LockSupport.parkNanos(2 * TICK_NANOS + ThreadLocalRandom.current().nextLong(TICK_NANOS));
+        }
+
+        BenchmarkReport.latencies(label, latencies);
+    }
+}
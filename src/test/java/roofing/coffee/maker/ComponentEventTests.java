@@ -0,0 +1,197 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.events.ComponentEventType;
+import roofing.coffee.maker.events.EventConsumer;
+import roofing.coffee.maker.events.EventRingBuffer;
+import roofing.coffee.maker.events.WaitStrategy;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests for the events that a CoffeeMaker's components raise as it brews.
+ *
+ * These tests tick the clock manually and record events on the Clock's thread - i.e. the test's
+ * thread - except where they route events through an EventRingBuffer.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class ComponentEventTests {
+
+    private static CoffeeMakerProperties props;
+
+    private List<String> events;
+    private Clock clock;
+    private CoffeeMaker subject;
+
+    @BeforeAll
+    static void initProps() {
+        ClockProps clock = new ClockProps(60L, TimeUnit.SECONDS);
+        PotProps pot = new PotProps(3);
+        ReservoirProps reservoir = new ReservoirProps(1);
+        WarmerPlateProps warmerPlate = new WarmerPlateProps(1);
+
+        props = new CoffeeMakerProperties(clock, pot, reservoir, warmerPlate);
+    }
+
+    @BeforeEach
+    void initSubjectAndClock() {
+        events = new ArrayList<>();
+
+        ClockBuilder clockBuilder = Clock.builder();
+        subject = CoffeeMakerCreator.create(clockBuilder,
+                props,
+                Runnable::run,
+                (type, value) -> events.add(type + "=" + value));
+        clock = clockBuilder.build();
+
+        // A new WarmerPlate starts out hot for its stay-hot limit. Let it cool off first.
+        tickUntilIdle();
+        events.clear();
+    }
+
+    @Test
+    void testBrewCycle() {
+        // Given
+        subject.fill(subject.getMaxWaterCapacityCups());
+
+        // When
+        subject.pressBrewButton();
+        tickUntilIdle();
+
+        // Then - events follow the order in which the Bus updates components. E.g. the reservoir
+        // starts brewing in the same tick that the button notices the press, but before it.
+        assertEquals(Arrays.asList(
+                "BREW_STARTED=3",
+                "WATER_DRAWN=1",
+                "BREW_REQUESTED=0",
+                "WATER_DRAWN=1",
+                "BREW_RECEIVED=0",
+                "CUP_BREWED=1",
+                "WARMER_ON=0",
+                "WATER_DRAWN=1",
+                "CUP_BREWED=2",
+                "WATER_DRAWN=1",
+                "CUP_BREWED=3",
+                "BREW_STOPPED=0",
+                "WARMER_OFF=0"),
+                events);
+    }
+
+    @Test
+    void testPotRemovedAndReplaced() {
+        // When
+        subject.removePot();
+        clock.tick();
+        subject.replacePot();
+        clock.tick();
+        clock.tick();
+
+        // Then
+        assertEquals(Arrays.asList("POT_REMOVED=0", "POT_REPLACED=0"), events);
+    }
+
+    @Test
+    void testUnnoticedCommandsRaiseNothing() {
+        // When - the user undoes each command before the next tick
+        subject.pressBrewButton();
+        subject.pressBrewButton();
+        subject.removePot();
+        subject.replacePot();
+        clock.tick();
+
+        // Then
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void testRingBufferCarriesEventsToConsumer() throws Exception {
+        // Given - a ring that holds every event of the brew, and a consumer that runs before the
+        // first tick
+        EventRingBuffer ring = new EventRingBuffer(64);
+        ClockBuilder clockBuilder = Clock.builder();
+        CoffeeMaker coffeeMaker =
+                CoffeeMakerCreator.create(clockBuilder, props, Runnable::run, ring);
+        Clock ringClock = clockBuilder.build();
+
+        List<ComponentEventType> consumed = new ArrayList<>();
+        CountDownLatch brewStopped = new CountDownLatch(1);
+        EventConsumer consumer = ring.addConsumer((event, endOfBatch) -> {
+            consumed.add(event.getType());
+            if (event.getType() == ComponentEventType.BREW_STOPPED) {
+                brewStopped.countDown();
+            }
+        }, WaitStrategy.PARK);
+
+        Thread thread = new Thread(consumer);
+        thread.start();
+
+        for (int tick = 0; tick < 10; tick++) {
+            ringClock.tick();
+        }
+
+        // When
+        coffeeMaker.fill(coffeeMaker.getMaxWaterCapacityCups());
+        coffeeMaker.pressBrewButton();
+        for (int tick = 0; tick < 10; tick++) {
+            ringClock.tick();
+        }
+
+        // Then
+        assertTrue(brewStopped.await(5, TimeUnit.SECONDS));
+        consumer.halt();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(0, ring.droppedEvents());
+        assertEquals(Arrays.asList("WARMER_ON", "WARMER_OFF", "BREW_STARTED", "WATER_DRAWN",
+                "BREW_REQUESTED", "WATER_DRAWN", "BREW_RECEIVED", "CUP_BREWED", "WARMER_ON",
+                "WATER_DRAWN", "CUP_BREWED", "WATER_DRAWN", "CUP_BREWED", "BREW_STOPPED"),
+                consumed.stream().map(Enum::name).limit(14).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFullRingBufferDropsEvents() {
+        // Given - a ring too small for a brew, whose consumer never runs
+        EventRingBuffer ring = new EventRingBuffer(4);
+        ClockBuilder clockBuilder = Clock.builder();
+        CoffeeMaker coffeeMaker =
+                CoffeeMakerCreator.create(clockBuilder, props, Runnable::run, ring);
+        Clock ringClock = clockBuilder.build();
+        EventConsumer consumer = ring.addConsumer((event, endOfBatch) -> { }, WaitStrategy.PARK);
+
+        // When
+        coffeeMaker.fill(coffeeMaker.getMaxWaterCapacityCups());
+        coffeeMaker.pressBrewButton();
+        for (int tick = 0; tick < 10; tick++) {
+            ringClock.tick();
+        }
+
+        // Then - the ring keeps the first events, and counts those that did not fit
+        assertEquals(3, ring.cursor());
+        assertTrue(ring.droppedEvents() > 0);
+        assertEquals(-1, consumer.sequence());
+        consumer.halt();
+    }
+
+    private void tickUntilIdle() {
+        for (int tick = 0; tick < 20; tick++) {
+            clock.tick();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.components.ComponentSettings;
+
+class DormantMakersTest {
+
+    private static final ComponentSettings SETTINGS = ComponentSettings.of(10, 1, 10);
+
+    private DormantMakers subject;
+
+    @BeforeEach
+    void initSubject() {
+        subject = new DormantMakers(100);
+    }
+
+    @Test
+    void testAddAndFind() {
+        // When
+        int slot = subject.add(42L, CoffeeMakerFleet.hash(42L), SETTINGS);
+        subject.words()[DormantMakers.offset(slot)] = 7L;
+
+        // Then
+        assertEquals(slot, subject.find(42L, CoffeeMakerFleet.hash(42L)));
+        assertEquals(-1, subject.find(43L, CoffeeMakerFleet.hash(43L)));
+        assertEquals(42L, subject.deviceId(slot));
+        assertSame(SETTINGS, subject.settings(slot));
+        assertTrue(subject.isTaken(slot));
+        assertEquals(7L, subject.words()[DormantMakers.offset(slot)]);
+        assertEquals(1, subject.size());
+    }
+
+    @Test
+    void testPresizedTableStaysDense() {
+        // When
+        for (long id = 0; id < 100; id++) {
+            subject.add(id, CoffeeMakerFleet.hash(id), SETTINGS);
+        }
+
+        // Then - at least 80% full, without having grown
+        assertTrue(subject.capacity() * 8 <= 100 * 10, "Capacity " + subject.capacity());
+    }
+
+    @Test
+    void testChurnMatchesMap() {
+        // Given - a model of which ids the table should hold, and with which state
+        Map<Long, Long> expected = new HashMap<>();
+        List<Long> ids = new ArrayList<>();
+        Random random = new Random(36);
+        subject = new DormantMakers(0);
+
+        // When - add and remove at random, so that the table grows and shifts entries back,
+        // across its end, too
+        for (int i = 0; i < 20_000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                long id = random.nextInt(2_000);
+                if (!expected.containsKey(id)) {
+                    int slot = subject.add(id, CoffeeMakerFleet.hash(id), SETTINGS);
+                    subject.words()[DormantMakers.offset(slot) + 1] = ~id;
+                    expected.put(id, ~id);
+                    ids.add(id);
+                }
+            } else {
+                long id = ids.remove(random.nextInt(ids.size()));
+                subject.remove(subject.find(id, CoffeeMakerFleet.hash(id)));
+                expected.remove(id);
+            }
+        }
+
+        // Then
+        assertEquals(expected.size(), subject.size());
+        for (long id = 0; id < 2_000; id++) {
+            int slot = subject.find(id, CoffeeMakerFleet.hash(id));
+            if (expected.containsKey(id)) {
+                assertEquals((long) expected.get(id),
+                        subject.words()[DormantMakers.offset(slot) + 1],
+                        "Device " + id);
+            } else {
+                assertEquals(-1, slot, "Device " + id);
+            }
+        }
+    }
+
+    @Test
+    void testPaletteLimit() {
+        // Given - as many distinct settings as the palette holds
+        for (int i = 0; i < 255; i++) {
+            ComponentSettings settings = ComponentSettings.of(i, 1, 1);
+            assertTrue(subject.add(i, CoffeeMakerFleet.hash(i), settings) >= 0);
+        }
+
+        // When
+        ComponentSettings oneTooMany = ComponentSettings.of(1_000, 1, 1);
+        int rejected = subject.add(1_000L, CoffeeMakerFleet.hash(1_000L), oneTooMany);
+
+        // Then
+        assertEquals(-1, rejected);
+        assertEquals(255, subject.size());
+
+        // And when - the last maker with some settings leaves, its palette entry frees up
+        subject.remove(subject.find(0L, CoffeeMakerFleet.hash(0L)));
+        int slot = subject.add(1_000L, CoffeeMakerFleet.hash(1_000L), oneTooMany);
+
+        // Then
+        assertSame(oneTooMany, subject.settings(slot));
+        assertFalse(subject.find(0L, CoffeeMakerFleet.hash(0L)) >= 0);
+    }
+}
@@ -0,0 +1,71 @@
+package roofing.coffee.maker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import roofing.coffee.maker.components.ComponentSettings;
+
+/**
+ * Measures how long a FleetColumnExporter takes to export an OffHeapFleet, and how many bytes the
+ * export takes per CoffeeMaker.
+ *
+ * Pass the fleet size as the first argument. The default of 10 million CoffeeMakers needs around
+ * 320 MiB of direct memory, e.g. {@code -Xmx2g}. The export goes to a stream that only counts its
+ * bytes, so the figures leave out the cost of the disk or the network.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class FleetColumnExportBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        OffHeapFleet fleet = new OffHeapFleet(size, ComponentSettings.of(10, 3, 600));
+
+        // A realistic mix: most makers idle, some brewing, a few without their pots
+        for (int deviceId = 0; deviceId < size; deviceId += 3) {
+            fleet.lookup(deviceId).fill(5);
+        }
+
+        for (int deviceId = 0; deviceId < size; deviceId += 12) {
+            fleet.lookup(deviceId).pressBrewButton();
+        }
+
+        for (int deviceId = 0; deviceId < size; deviceId += 97) {
+            fleet.lookup(deviceId).removePot();
+        }
+
+        for (int i = 0; i < 4; i++) {
+            fleet.tickAll();
+        }
+
+        FleetColumnExporter exporter = new FleetColumnExporter();
+        CountingStream out = new CountingStream();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            out.count = 0;
+            long start = System.nanoTime();
+            exporter.export(fleet, out);
+            BenchmarkReport.throughput("export() coffee makers", size, System.nanoTime() - start);
+        }
+
+        BenchmarkReport.value("export() bytes per coffee maker",
+                String.format("%.2f", out.count / (double) size));
+    }
+
+    private static final class CountingStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
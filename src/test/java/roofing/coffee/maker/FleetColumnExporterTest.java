@@ -0,0 +1,230 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.FleetColumnExporter.Column;
+import roofing.coffee.maker.FleetColumnExporter.Encoding;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.components.ComponentSlots;
+import roofing.coffee.maker.subscriptions.StateField;
+
+class FleetColumnExporterTest {
+
+    private static final ComponentSettings SETTINGS = ComponentSettings.of(10, 3, 2);
+    private static final int SIZE = FleetColumnExporter.ROWS_PER_CHUNK + 100;
+
+    private FleetColumnExporter subject;
+    private OffHeapFleet fleet;
+
+    @BeforeEach
+    void initSubject() {
+        subject = new FleetColumnExporter();
+        fleet = new OffHeapFleet(SIZE, SETTINGS);
+    }
+
+    @Test
+    void testExportMatchesFleet() throws IOException {
+        // Given - makers in every state, on both sides of a chunk boundary
+        for (int deviceId = 0; deviceId < SIZE; deviceId += 7) {
+            fleet.lookup(deviceId).fill(deviceId % 11);
+        }
+
+        for (int deviceId = 0; deviceId < SIZE; deviceId += 5) {
+            fleet.lookup(deviceId).pressBrewButton();
+        }
+
+        for (int deviceId = 0; deviceId < SIZE; deviceId += 13) {
+            fleet.lookup(deviceId).removePot();
+        }
+
+        for (int i = 0; i < 6; i++) {
+            fleet.tickAll();
+        }
+
+        fleet.lookup(SIZE - 1).pressBrewButton();
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = subject.export(fleet, out);
+
+        // Then
+        assertEquals(out.size(), written);
+
+        int[][] columns = decode(out.toByteArray());
+        int[] requests = new int[3];
+        for (int deviceId = 0; deviceId < SIZE; deviceId++) {
+            OffHeapCoffeeMaker coffeeMaker = fleet.lookup(deviceId);
+            int request = fleet.withSlot(deviceId, ComponentSlots::brewRequest);
+            requests[request]++;
+
+            assertEquals(coffeeMaker.cupsOfWater(), columns[0][deviceId]);
+            assertEquals(coffeeMaker.cupsOfCoffee(), columns[1][deviceId]);
+            assertEquals(StateField.flag(coffeeMaker.isBrewing()), columns[2][deviceId]);
+            assertEquals(StateField.flag(coffeeMaker.hasPot()), columns[3][deviceId]);
+            assertEquals(StateField.flag(coffeeMaker.isWarmerPlateOn()), columns[4][deviceId]);
+            assertEquals(request, columns[5][deviceId]);
+        }
+
+        assertTrue(requests[ComponentSlots.NOT_REQUESTED] > 0);
+        assertTrue(requests[ComponentSlots.REQUESTED] > 0);
+        assertTrue(requests[ComponentSlots.RECEIVED] > 0);
+    }
+
+    @Test
+    void testRunLengthEncodingShrinksIdleFleets() throws IOException {
+        // Given - every maker but one is idle, and that one starts its chunk
+        fleet.lookup(FleetColumnExporter.ROWS_PER_CHUNK).removePot();
+        fleet.tickAll();
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        subject.export(fleet, out);
+        subject.export(fleet, out);
+
+        // Then - each export is the header and two plain int columns, plus a few bytes per run
+        // length column
+        int plain = 2 * SIZE * Integer.BYTES;
+        assertTrue(out.size() / 2 < plain + 256, "Export size " + out.size() / 2);
+
+        byte[] second = new byte[out.size() / 2];
+        System.arraycopy(out.toByteArray(), second.length, second, 0, second.length);
+        int[][] columns = decode(second);
+        assertEquals(0, columns[3][FleetColumnExporter.ROWS_PER_CHUNK]);
+        assertEquals(1, columns[3][FleetColumnExporter.ROWS_PER_CHUNK + 1]);
+        assertEquals(1, columns[4][0], "A new warmer plate starts out hot");
+    }
+
+    @Test
+    void testHeader() throws IOException {
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = subject.export(new OffHeapFleet(0, SETTINGS), out);
+
+        // Then
+        byte[] bytes = out.toByteArray();
+        assertEquals(bytes.length, written);
+        assertEquals("CMCOLUMN", new String(bytes, 0, 8, StandardCharsets.US_ASCII));
+
+        ByteBuffer header = ByteBuffer.wrap(bytes).order(FleetColumnExporter.BYTE_ORDER);
+        assertEquals(FleetColumnExporter.MAGIC, header.getLong());
+        assertEquals(1, header.getInt());
+        assertEquals(0, header.getInt());
+        assertEquals(1 << 16, header.getInt());
+        assertEquals(6, header.getInt());
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Encoding encoding = Encoding.values()[header.get()];
+            names.add(getName(header) + ":" + encoding);
+            if (encoding == Encoding.DICTIONARY) {
+                for (int entries = header.get(); entries > 0; entries--) {
+                    names.add(getName(header));
+                }
+            }
+        }
+
+        assertEquals("[CUPS_OF_WATER:PLAIN, CUPS_OF_COFFEE:PLAIN, IS_BREWING:RUN_LENGTH, "
+                + "HAS_POT:RUN_LENGTH, IS_HOT:RUN_LENGTH, BREW_REQUEST:DICTIONARY, "
+                + "NOT_REQUESTED, REQUESTED, RECEIVED]",
+                names.toString());
+        assertFalse(header.hasRemaining(), "An empty fleet has no chunks");
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(NullPointerException.class,
+                () -> subject.export(null, new ByteArrayOutputStream()));
+        assertThrows(NullPointerException.class, () -> subject.export(fleet, null));
+    }
+
+    /*
+     * A reader of the format, as an analytics job would write one. Returns each Column's values,
+     * indexed by device id.
+     */
+    private static int[][] decode(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes).order(FleetColumnExporter.BYTE_ORDER);
+        assertEquals(FleetColumnExporter.MAGIC, in.getLong());
+        assertEquals(FleetColumnExporter.VERSION, in.getInt());
+
+        int rows = in.getInt();
+        int rowsPerChunk = in.getInt();
+        Encoding[] encodings = new Encoding[in.getInt()];
+        for (int i = 0; i < encodings.length; i++) {
+            encodings[i] = Encoding.values()[in.get()];
+            getName(in);
+            if (encodings[i] == Encoding.DICTIONARY) {
+                for (int entries = in.get(); entries > 0; entries--) {
+                    getName(in);
+                }
+            }
+        }
+
+        int[][] columns = new int[encodings.length][rows];
+        for (int first = 0; first < rows; first += rowsPerChunk) {
+            int last = Math.min(first + rowsPerChunk, rows);
+            for (int i = 0; i < encodings.length; i++) {
+                int end = in.getInt() + in.position();
+                decodeChunk(in, encodings[i], columns[i], first, last);
+                assertEquals(end, in.position(), Column.values()[i] + " length");
+            }
+        }
+
+        assertFalse(in.hasRemaining());
+        return columns;
+    }
+
+    private static void decodeChunk(ByteBuffer in,
+            Encoding encoding,
+            int[] column,
+            int first,
+            int last) {
+
+        int row = first;
+        int value = 0;
+        while (row < last) {
+            if (encoding == Encoding.PLAIN) {
+                column[row++] = in.getInt();
+                continue;
+            }
+
+            if (encoding == Encoding.DICTIONARY) {
+                value = getVarint(in);
+            }
+
+            for (int run = getVarint(in); run > 0; run--) {
+                column[row++] = value;
+            }
+
+            if (encoding == Encoding.RUN_LENGTH) {
+                value ^= 1;
+            }
+        }
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte next = in.get();
+            value |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static String getName(ByteBuffer in) {
+        byte[] ascii = new byte[in.get()];
+        in.get(ascii);
+        return new String(ascii, StandardCharsets.US_ASCII);
+    }
+}
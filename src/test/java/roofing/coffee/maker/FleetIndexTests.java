@@ -0,0 +1,216 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.components.CoffeePot;
+import roofing.coffee.maker.indexes.FleetIndex;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests that a FleetIndex, kept up to date by ticking CoffeeMakers, agrees with a full scan of
+ * their state.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class FleetIndexTests {
+
+    private static final int MAKERS = 200;
+    private static final int MAX_CUPS = 10;
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(60L, TimeUnit.SECONDS),
+            new PotProps(MAX_CUPS),
+            new ReservoirProps(1),
+            new WarmerPlateProps(3));
+
+    private FleetIndex index;
+    private CoffeeMaker[] makers;
+    private Clock[] clocks;
+
+    // The pot of each CoffeeMaker whose pot the user holds, or null
+    private CoffeePot[] removedPots;
+
+    // What a full scan cannot see: whether each CoffeeMaker brewed as of its last tick, and
+    // whether its pot went missing mid-brew
+    private boolean[] brewedLastTick;
+    private boolean[] interrupted;
+
+    @BeforeEach
+    void initMakers() {
+        index = new FleetIndex(MAKERS);
+        makers = new CoffeeMaker[MAKERS];
+        clocks = new Clock[MAKERS];
+        removedPots = new CoffeePot[MAKERS];
+        brewedLastTick = new boolean[MAKERS];
+        interrupted = new boolean[MAKERS];
+
+        for (int deviceId = 0; deviceId < MAKERS; deviceId++) {
+            ClockBuilder clockBuilder = Clock.builder();
+            makers[deviceId] =
+                    TestTimeCoffeeMakerCreator.create(clockBuilder, PROPS, Runnable::run);
+            makers[deviceId].indexIn(index, deviceId);
+            clocks[deviceId] = clockBuilder.build();
+        }
+    }
+
+    @Test
+    void testIndexMatchesFullScan() {
+        Random random = new Random(7);
+        int roundsWithInterruptedBrews = 0;
+
+        for (int round = 0; round < 300; round++) {
+            // Given - a few random commands
+            for (int command = 0; command < MAKERS / 4; command++) {
+                actOn(random.nextInt(MAKERS), random);
+            }
+
+            // When
+            for (int deviceId = 0; deviceId < MAKERS; deviceId++) {
+                tick(deviceId);
+            }
+
+            // Then
+            assertMatches(maker -> makers[maker].isBrewing(), index.brewing());
+            assertMatches(maker -> interrupted[maker], index.potRemovedMidBrew());
+            roundsWithInterruptedBrews += index.potRemovedMidBrew().length > 0 ? 1 : 0;
+
+            int cups = 1 + random.nextInt(MAX_CUPS);
+            assertMatches(maker -> makers[maker].cupsOfCoffee() >= cups, index.readyAtLeast(cups));
+        }
+
+        assertTrue(roundsWithInterruptedBrews > 0, "The commands should interrupt some brews");
+
+        // And when - the fleet decommissions half of its CoffeeMakers
+        for (int deviceId = 0; deviceId < MAKERS; deviceId += 2) {
+            makers[deviceId].shutdown();
+        }
+
+        // Then
+        for (int deviceId : index.readyAtLeast(1)) {
+            assertEquals(1, deviceId % 2);
+        }
+    }
+
+    @Test
+    void testPotRemovedMidBrew() {
+        // Given
+        CoffeeMaker subject = makers[0];
+        subject.fill(5);
+        subject.pressBrewButton();
+        tick(0);
+        tick(0);
+
+        // When
+        subject.removePot();
+        tick(0);
+
+        // Then
+        assertArrayEquals(new int[] {0}, index.potRemovedMidBrew());
+        assertArrayEquals(new int[0], index.brewing());
+
+        // And when - the user replaces the pot
+        subject.replacePot();
+        tick(0);
+
+        // Then
+        assertArrayEquals(new int[0], index.potRemovedMidBrew());
+    }
+
+    @Test
+    void testIndexedFleet() throws InterruptedException {
+        // Given - a cup every 10 ms
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(MAX_CUPS),
+                new ReservoirProps(6_000),
+                new WarmerPlateProps(1));
+
+        FleetIndex fleetIndex = new FleetIndex(20);
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(20, props,
+                FleetOptions.builder().index(fleetIndex).build());
+
+        // When
+        fleet.lookup(11).fill(MAX_CUPS);
+        fleet.lookup(11).pressBrewButton();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fleetIndex.readyAtLeast(2).length == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // Then
+        assertArrayEquals(new int[] {11}, fleetIndex.readyAtLeast(2));
+
+        fleet.shutdown();
+        assertEquals(0, fleetIndex.readyAtLeast(1).length);
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(21, props,
+                        FleetOptions.builder().index(fleetIndex).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(-1, props,
+                        FleetOptions.builder().index(fleetIndex).build()));
+    }
+
+    private void actOn(int deviceId, Random random) {
+        CoffeeMaker maker = makers[deviceId];
+
+        switch (random.nextInt(5)) {
+            case 0:
+                int room = maker.getMaxWaterCapacityCups() - maker.cupsOfWater();
+                if (room > 0) {
+                    maker.fill(1 + random.nextInt(room));
+                }
+                break;
+            case 1:
+                maker.pressBrewButton();
+                break;
+            case 2:
+                if (removedPots[deviceId] == null) {
+                    removedPots[deviceId] = maker.removePot();
+                } else {
+                    maker.replacePot();
+                    removedPots[deviceId] = null;
+                }
+                break;
+            case 3:
+                if (removedPots[deviceId] != null) {
+                    removedPots[deviceId].pourOutCoffee(1 + random.nextInt(MAX_CUPS));
+                }
+                break;
+            default:
+                break; // Leave it be
+        }
+    }
+
+    private void tick(int deviceId) {
+        clocks[deviceId].tick();
+
+        boolean hasPot = removedPots[deviceId] == null;
+        interrupted[deviceId] = !hasPot && (interrupted[deviceId] || brewedLastTick[deviceId]);
+        brewedLastTick[deviceId] = makers[deviceId].isBrewing();
+    }
+
+    private static void assertMatches(IntPredicate fullScan, int[] indexed) {
+        int[] scanned = IntStream.range(0, MAKERS).filter(fullScan).toArray();
+        Arrays.sort(indexed);
+
+        assertArrayEquals(scanned, indexed);
+        assertTrue(indexed.length <= MAKERS);
+    }
+}
@@ -0,0 +1,169 @@
+package roofing.coffee.maker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures lookup latency in a fleet of one million CoffeeMakers while other threads register and
+ * decommission CoffeeMakers, against a {@code ConcurrentHashMap<Long, CoffeeMaker>} baseline.
+ *
+ * Every device shares one CoffeeMaker instance, since the benchmark measures the registry rather
+ * than the CoffeeMakers. Readers look up random registered ids and time each lookup on its own, so
+ * the latencies include the cost of {@code System.nanoTime()} - the same for both registries.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class FleetLookupBenchmark {
+
+    private static final int MAKERS = 1_000_000;
+    private static final int READERS = 4;
+    private static final int CHURNERS = 2;
+    private static final int SAMPLES_PER_READER = 2_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        CoffeeMaker coffeeMaker = TestTimeCoffeeMakerCreator.create();
+
+        for (int run = 0; run < 2; run++) {
+            boolean report = run > 0; // The first run warms up
+
+            CoffeeMakerFleet fleet = new CoffeeMakerFleet(MAKERS);
+            measure("CoffeeMakerFleet", report, new Registry() {
+
+                @Override
+                public void register(long deviceId) {
+                    fleet.register(deviceId, coffeeMaker);
+                }
+
+                @Override
+                public CoffeeMaker lookup(long deviceId) {
+                    return fleet.lookup(deviceId);
+                }
+
+                @Override
+                public void decommission(long deviceId) {
+                    fleet.decommission(deviceId);
+                }
+            });
+
+            Map<Long, CoffeeMaker> map = new ConcurrentHashMap<>(MAKERS * 2);
+            measure("ConcurrentHashMap<Long, CoffeeMaker>", report, new Registry() {
+
+                @Override
+                public void register(long deviceId) {
+                    if (map.putIfAbsent(deviceId, coffeeMaker) != null) {
+                        throw new IllegalStateException("Already registered: " + deviceId);
+                    }
+                }
+
+                @Override
+                public CoffeeMaker lookup(long deviceId) {
+                    return map.get(deviceId);
+                }
+
+                @Override
+                public void decommission(long deviceId) {
+                    CoffeeMaker removed = map.remove(deviceId);
+                    if (removed != null) {
+                        removed.shutdown();
+                    }
+                }
+            });
+        }
+
+        System.exit(0);
+    }
+
+    private static void measure(String label, boolean report, Registry registry)
+            throws InterruptedException {
+
+        for (long id = 0; id < MAKERS; id++) {
+            registry.register(id);
+        }
+
+        AtomicBoolean reading = new AtomicBoolean(true);
+        AtomicLong churned = new AtomicLong();
+        List<Thread> churners = new ArrayList<>();
+
+        for (int c = 0; c < CHURNERS; c++) {
+            // Each churner owns its own range of ids above the stable ones
+            long base = MAKERS + c * (long) Integer.MAX_VALUE;
+            churners.add(start(() -> {
+                long next = base;
+                while (reading.get()) {
+                    registry.register(next);
+                    if (next - base >= 1_000) {
+                        registry.decommission(next - 1_000);
+                    }
+
+                    next++;
+                }
+
+                churned.addAndGet(next - base);
+            }));
+        }
+
+        long[][] latencies = new long[READERS][SAMPLES_PER_READER];
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            long[] samples = latencies[r];
+            readers.add(start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < samples.length; i++) {
+                    long id = random.nextLong(MAKERS);
+                    long begin = System.nanoTime();
+                    CoffeeMaker found = registry.lookup(id);
+                    samples[i] = System.nanoTime() - begin;
+
+                    if (found == null) {
+                        throw new IllegalStateException("Lost device " + id);
+                    }
+                }
+            }));
+        }
+
+        long begin = System.nanoTime();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        long elapsed = System.nanoTime() - begin;
+        reading.set(false);
+        for (Thread churner : churners) {
+            churner.join();
+        }
+
+        if (report) {
+            long[] all = new long[READERS * SAMPLES_PER_READER];
+            for (int r = 0; r < READERS; r++) {
+                System.arraycopy(latencies[r], 0, all, r * SAMPLES_PER_READER, SAMPLES_PER_READER);
+            }
+
+            BenchmarkReport.latencies(label + " lookup under churn", all);
+            BenchmarkReport.throughput(label + " lookups", all.length, elapsed);
+            BenchmarkReport.throughput(label + " churn (register + decommission)",
+                    churned.get(),
+                    elapsed);
+        }
+    }
+
+    private static Thread start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.start();
+        return thread;
+    }
+
+    private interface Registry {
+
+        void register(long deviceId);
+
+        CoffeeMaker lookup(long deviceId);
+
+        void decommission(long deviceId);
+    }
+}
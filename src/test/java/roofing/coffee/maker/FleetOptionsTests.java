@@ -0,0 +1,162 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.aggregates.AggregateGroup;
+import roofing.coffee.maker.changes.ChangeFeed;
+import roofing.coffee.maker.history.HistoryBudget;
+import roofing.coffee.maker.indexes.FleetIndex;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+import roofing.coffee.maker.rankings.BusiestMakers;
+import roofing.coffee.maker.rankings.RankingWindow;
+
+/**
+ * Tests that a fleet created with FleetOptions keeps any mix of fleet-wide services up to date,
+ * whether its CoffeeMakers are live or dormant.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class FleetOptionsTests {
+
+    private static final int MAKERS = 4;
+
+    // A cup every 10 ms
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(1L, TimeUnit.MILLISECONDS),
+            new PotProps(10),
+            new ReservoirProps(6_000),
+            new WarmerPlateProps(1));
+
+    @Test
+    void testFleetWiredToSeveralServices() throws InterruptedException {
+        // Given
+        HistoryBudget budget = new HistoryBudget(1 << 20, 1 << 12);
+        FleetIndex index = new FleetIndex(MAKERS);
+        ChangeFeed feed = new ChangeFeed(MAKERS, 64);
+        AggregateGroup group = new AggregateGroup("fleet");
+        BusiestMakers busiest = new BusiestMakers(1 << 20);
+
+        FleetOptions options = FleetOptions.builder()
+                .historyBudget(budget)
+                .index(index)
+                .changeFeed(feed)
+                .groupOf(deviceId -> group)
+                .busiestMakers(busiest)
+                .build();
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(MAKERS, PROPS, options);
+        long created = feed.version();
+
+        // When
+        fleet.lookup(3).fill(2);
+        fleet.lookup(3).pressBrewButton();
+
+        awaitTrue(() -> index.readyAtLeast(2).length == 1 && group.cupsBrewed() == 2);
+
+        // Then - every service saw the same brew
+        assertArrayEquals(new int[] {3}, index.readyAtLeast(2));
+        assertTrue(contains(feed.changesSince(created).getDeviceIds(), 3));
+        assertEquals(2, group.cupsBrewed());
+        assertEquals(MAKERS, group.makers());
+        assertEquals(3, busiest.byBrewsStarted(RankingWindow.LAST_DAY, 1).get(0).getDeviceId());
+        assertTrue(fleet.lookup(3).history().records() > 0);
+
+        // And when
+        fleet.shutdown();
+
+        // Then
+        assertEquals(0, index.readyAtLeast(1).length);
+        assertEquals(0, group.makers());
+    }
+
+    @Test
+    void testDormantFleetStaysWired() throws InterruptedException {
+        // Given - a dormant fleet, whose maker 1 goes dormant again once it comes to rest
+        HistoryBudget budget = new HistoryBudget(1 << 20, 1 << 12);
+        FleetIndex index = new FleetIndex(MAKERS);
+        ChangeFeed feed = new ChangeFeed(MAKERS, 64);
+        AggregateGroup group = new AggregateGroup("fleet");
+
+        FleetOptions options = FleetOptions.builder()
+                .historyBudget(budget)
+                .index(index)
+                .changeFeed(feed)
+                .groupOf(deviceId -> group)
+                .idlePeriod(1L)
+                .idlePeriodUnit(TimeUnit.HOURS)
+                .build();
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(MAKERS, PROPS, options);
+
+        CoffeeMaker original = fleet.lookup(1);
+        original.fill(3);
+        awaitTrue(original::isDormantCandidate);
+
+        // When
+        long hour = TimeUnit.HOURS.toNanos(1);
+        assertEquals(1, fleet.deflateIdle(System.nanoTime() + 2 * hour, hour));
+
+        // Then - the groups count every maker, dormant or not
+        assertEquals(MAKERS, fleet.dormantCount());
+        assertEquals(MAKERS, group.makers());
+
+        // When - a lookup wakes maker 1 up, and it brews
+        CoffeeMaker rebuilt = fleet.lookup(1);
+        rebuilt.pressBrewButton();
+        awaitTrue(() -> index.readyAtLeast(3).length == 1 && group.cupsBrewed() == 3);
+
+        // Then - it reports to every service again
+        assertArrayEquals(new int[] {1}, index.readyAtLeast(3));
+        assertEquals(3, group.cupsBrewed());
+        assertNotNull(rebuilt.history());
+
+        // And when - a dormant maker leaves the fleet
+        long beforeDecommission = feed.version();
+        assertTrue(fleet.decommission(2));
+
+        // Then - it leaves every service, too
+        assertTrue(contains(feed.changesSince(beforeDecommission).getDeviceIds(), 2));
+        assertEquals(MAKERS - 1, group.makers());
+        assertNull(fleet.lookup(2));
+
+        fleet.shutdown();
+        assertEquals(0, group.makers());
+        assertEquals(0, index.readyAtLeast(1).length);
+    }
+
+    @Test
+    void testInvalidOptions() {
+        assertThrows(NullPointerException.class,
+                () -> CoffeeMakerCreator.createFleet(MAKERS, PROPS, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(MAKERS, PROPS,
+                        FleetOptions.builder().idlePeriod(1L).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(MAKERS, PROPS, FleetOptions.builder()
+                        .idlePeriod(-1L)
+                        .idlePeriodUnit(TimeUnit.HOURS)
+                        .build()));
+    }
+
+    private static boolean contains(int[] deviceIds, int deviceId) {
+        return IntStream.of(deviceIds).anyMatch(id -> id == deviceId);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
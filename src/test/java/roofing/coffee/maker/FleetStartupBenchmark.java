@@ -0,0 +1,82 @@
+package roofing.coffee.maker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Measures how long a fleet of one million CoffeeMakers takes to start up - i.e. the time from
+ * {@code createFleet()} until every CoffeeMaker's Clock has ticked at least once.
+ *
+ * For comparison, the benchmark also creates a few thousand CoffeeMakers one at a time via
+ * {@code create()}, each with a Clock thread of its own. A million threads would not fit in this
+ * benchmark's heap - nor in most machines - so that figure is reported per CoffeeMaker.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class FleetStartupBenchmark {
+
+    private static final int FLEET_SIZE = 1_000_000;
+    private static final int ONE_AT_A_TIME = 2_000;
+
+    public static void main(String[] args) {
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.SECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        oneAtATime(props);
+        fleet(props);
+
+        System.exit(0);
+    }
+
+    private static void oneAtATime(CoffeeMakerProperties props) {
+        long begin = System.nanoTime();
+        List<CoffeeMaker> coffeeMakers = new ArrayList<>(ONE_AT_A_TIME);
+        for (int i = 0; i < ONE_AT_A_TIME; i++) {
+            coffeeMakers.add(CoffeeMakerCreator.create(props));
+        }
+
+        long created = System.nanoTime() - begin;
+        coffeeMakers.forEach(FleetStartupBenchmark::awaitFirstTick);
+        long firstTicks = System.nanoTime() - begin;
+
+        BenchmarkReport.throughput("create() one at a time, created", ONE_AT_A_TIME, created);
+        BenchmarkReport.throughput("create() one at a time, all ticked", ONE_AT_A_TIME, firstTicks);
+
+        coffeeMakers.forEach(CoffeeMaker::shutdown);
+    }
+
+    private static void fleet(CoffeeMakerProperties props) {
+        long begin = System.nanoTime();
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(FLEET_SIZE, props);
+        long created = System.nanoTime() - begin;
+
+        for (long deviceId = 0; deviceId < FLEET_SIZE; deviceId++) {
+            awaitFirstTick(fleet.lookup(deviceId));
+        }
+
+        long firstTicks = System.nanoTime() - begin;
+
+        BenchmarkReport.throughput("createFleet(), created", FLEET_SIZE, created);
+        BenchmarkReport.throughput("createFleet(), all ticked", FLEET_SIZE, firstTicks);
+        BenchmarkReport.value("createFleet() time-to-first-tick",
+                String.format("%.3fs", firstTicks / 1e9));
+
+        fleet.shutdown();
+    }
+
+    private static void awaitFirstTick(CoffeeMaker coffeeMaker) {
+        while (coffeeMaker.clockMetrics().steps() == 0) {
+            Thread.yield();
+        }
+    }
+}
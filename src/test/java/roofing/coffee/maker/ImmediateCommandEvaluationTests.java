@@ -0,0 +1,140 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests for user commands that take effect immediately rather than on the clock's next tick.
+ * 
+ * Like the other CoffeeMaker tests, these tests tick the clock manually. However, each test wires
+ * the CoffeeMaker's commands to {@code Clock::evaluate} just as CoffeeMakerCreator would.
+ * 
+ * @author nferraro-roofing
+ *
+ */
+class ImmediateCommandEvaluationTests {
+
+    private static CoffeeMakerProperties props;
+
+    private Clock clock;
+    private CoffeeMaker subject;
+
+    @BeforeAll
+    static void initProps() {
+        ClockProps clock = new ClockProps(60L, TimeUnit.SECONDS, CatchUpPolicy.BURST, true);
+        PotProps pot = new PotProps(10);
+        ReservoirProps reservoir = new ReservoirProps(1);
+        WarmerPlateProps warmerPlate = new WarmerPlateProps(10);
+
+        props = new CoffeeMakerProperties(clock, pot, reservoir, warmerPlate);
+    }
+
+    @BeforeEach
+    void initSubjectAndClock() {
+        ClockBuilder clockBuilder = Clock.builder();
+        subject = CoffeeMakerCreator.create(clockBuilder, props);
+        clock = clockBuilder.build();
+        subject.evaluateCommandsWith(clock::evaluate);
+    }
+
+    @Test
+    void testBrewStartsWithoutTick() {
+        // When
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+
+        // Then - brewing has started, but no time has elapsed
+        assertTrue(subject.isBrewing());
+        assertTrue(subject.isWarmerPlateOn());
+        assertEquals(subject.getMaxWaterCapacityCups(), subject.cupsOfWater());
+        assertEquals(0, subject.cupsOfCoffee());
+        assertEquals(0, subject.clockMetrics().ticks());
+        assertEquals(2, subject.clockMetrics().evaluations());
+    }
+
+    @Test
+    void testFillStartsRequestedBrew() {
+        // When - request a brew before there is any water to brew
+        subject.pressBrewButton();
+        assertFalse(subject.isBrewing());
+
+        subject.fill(subject.getMaxWaterCapacityCups());
+
+        // Then
+        assertTrue(subject.isBrewing());
+    }
+
+    @Test
+    void testBrewStopsWithoutTick() {
+        // Given
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+        clock.tick();
+        clock.tick();
+
+        // When
+        subject.removePot();
+
+        // Then
+        assertFalse(subject.isBrewing());
+        assertEquals(subject.getMaxWaterCapacityCups() - 2, subject.cupsOfWater());
+
+        // And once a tick has passed, replacing the pot does not resume the brew - just like the
+        // ticking CoffeeMaker
+        clock.tick();
+        subject.replacePot();
+        assertFalse(subject.isBrewing());
+    }
+
+    @Test
+    void testEvaluationsDoNotSpeedUpBrewing() {
+        // Given
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+
+        // When - evaluate many times between each tick
+        int ticks = 5;
+        for (int tick = 0; tick < ticks; tick++) {
+            for (int i = 0; i < 10; i++) {
+                clock.evaluate();
+            }
+
+            clock.tick();
+        }
+
+        // Then - the reservoir lost exactly one cup per tick
+        assertEquals(subject.getMaxWaterCapacityCups() - ticks, subject.cupsOfWater());
+        assertEquals(ticks, subject.clockMetrics().ticks());
+    }
+
+    @Test
+    void testCreatorWiresImmediateEvaluation() throws InterruptedException {
+        // Given - a real, asynchronous clock that ticks once per minute
+        CoffeeMaker coffeeMaker = CoffeeMakerCreator.create(props);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        // When
+        coffeeMaker.fill(coffeeMaker.getMaxWaterCapacityCups());
+        coffeeMaker.pressBrewButton();
+
+        // Then - usually true right away, but the clock's first tick may have been in progress
+        while (!coffeeMaker.isBrewing() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertTrue(coffeeMaker.isBrewing());
+    }
+}
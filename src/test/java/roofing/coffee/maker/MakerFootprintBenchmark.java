@@ -0,0 +1,70 @@
+package roofing.coffee.maker;
+
+import java.util.concurrent.TimeUnit;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Measures the heap that each CoffeeMaker in a fleet retains, including its share of the fleet's
+ * registry.
+ *
+ * The benchmark compares the used heap after a full GC before and after creating the fleet, so it
+ * reports an average over every CoffeeMaker rather than a per-object layout. Run it with a fixed
+ * heap and no other load for stable figures. It measures both a live fleet and a larger fleet of
+ * dormant CoffeeMakers, after a small fleet of each kind has loaded the classes that it needs.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class MakerFootprintBenchmark {
+
+    private static final int FLEET_SIZE = 200_000;
+    private static final int DORMANT_FLEET_SIZE = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.SECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        FleetOptions dormantOptions =
+                FleetOptions.builder().idlePeriod(1L).idlePeriodUnit(TimeUnit.HOURS).build();
+
+        CoffeeMakerCreator.createFleet(1_000, props, dormantOptions).shutdown();
+        CoffeeMakerCreator.createFleet(1_000, props).shutdown();
+
+        long before = usedHeap();
+        CoffeeMakerFleet dormant =
+                CoffeeMakerCreator.createFleet(DORMANT_FLEET_SIZE, props, dormantOptions);
+        long after = usedHeap();
+
+        BenchmarkReport.value("createFleet() bytes per dormant coffee maker",
+                String.format("%,.1f", (after - before) / (double) DORMANT_FLEET_SIZE));
+
+        dormant.shutdown();
+
+        before = usedHeap();
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(FLEET_SIZE, props);
+        after = usedHeap();
+
+        BenchmarkReport.value("createFleet() bytes per coffee maker",
+                String.format("%,d", (after - before) / FLEET_SIZE));
+
+        fleet.shutdown();
+        System.exit(0);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
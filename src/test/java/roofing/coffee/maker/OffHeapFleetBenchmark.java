@@ -0,0 +1,114 @@
+package roofing.coffee.maker;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Compares the heap, and the garbage collection pauses, of a CoffeeMakerFleet against those of an
+ * OffHeapFleet of the same size.
+ *
+ * For each fleet, the benchmark reports the heap that the fleet retains, the average pause of a
+ * full collection, and the time spent collecting while the application churns through short-lived
+ * garbage. Pass the fleet size as the first argument - e.g. tens of millions for the OffHeapFleet
+ * alone, given {@code -XX:MaxDirectMemorySize} to match. Run it with a fixed heap, e.g.
+ * {@code -Xmx2g}, and no other load for stable figures.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class OffHeapFleetBenchmark {
+
+    private static final int FULL_COLLECTIONS = 5;
+    private static final long CHURN_BYTES = 4L << 30;
+
+    // Keeps the churn's allocations from being optimized away
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.SECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        long before = usedHeap();
+        OffHeapFleet offHeap = CoffeeMakerCreator.createOffHeapFleet(size, props);
+        report("createOffHeapFleet()", size, before);
+
+        long start = System.nanoTime();
+        offHeap.tickAll();
+        BenchmarkReport.throughput("createOffHeapFleet() tickAll", size, System.nanoTime() - start);
+
+        offHeap.shutdown();
+        offHeap = null;
+
+        before = usedHeap();
+        CoffeeMakerFleet onHeap = CoffeeMakerCreator.createFleet(size, props);
+        report("createFleet()", size, before);
+
+        onHeap.shutdown();
+        System.exit(0);
+    }
+
+    private static void report(String label, int size, long heapBefore)
+            throws InterruptedException {
+
+        BenchmarkReport.value(label + " heap bytes per coffee maker",
+                String.format("%,d", (usedHeap() - heapBefore) / size));
+
+        long collectionMillis = collectionMillis();
+        for (int i = 0; i < FULL_COLLECTIONS; i++) {
+            System.gc();
+        }
+
+        BenchmarkReport.value(label + " average full GC pause",
+                String.format("%,.1f ms",
+                        (collectionMillis() - collectionMillis) / (double) FULL_COLLECTIONS));
+
+        collectionMillis = collectionMillis();
+        long collections = collections();
+        for (long allocated = 0; allocated < CHURN_BYTES; allocated += 1_024) {
+            sink = new byte[1_024];
+        }
+
+        BenchmarkReport.value(label + " GC time while churning 4 GiB",
+                String.format("%,d ms over %,d collections",
+                        collectionMillis() - collectionMillis,
+                        collections() - collections));
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += collector.getCollectionTime();
+        }
+
+        return millis;
+    }
+
+    private static long collections() {
+        long collections = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += collector.getCollectionCount();
+        }
+
+        return collections;
+    }
+}
@@ -0,0 +1,151 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+class OffHeapFleetTest {
+
+    private static final ComponentSettings SETTINGS = ComponentSettings.of(10, 1, 2);
+
+    private OffHeapFleet subject;
+
+    @BeforeEach
+    void initSubject() {
+        subject = new OffHeapFleet(3_000, SETTINGS);
+    }
+
+    @Test
+    void testBrewThroughFacade() {
+        // Given
+        OffHeapCoffeeMaker coffeeMaker = subject.lookup(2_999);
+        coffeeMaker.fill(4);
+        coffeeMaker.pressBrewButton();
+
+        // When
+        subject.tickAll();
+        subject.tickAll();
+
+        // Then
+        assertTrue(coffeeMaker.isBrewing());
+        assertTrue(coffeeMaker.isWarmerPlateOn());
+
+        // And when
+        for (int i = 0; i < 10; i++) {
+            subject.tickAll();
+        }
+
+        // Then
+        assertFalse(coffeeMaker.isBrewing());
+        assertEquals(0, coffeeMaker.cupsOfWater());
+        assertEquals(4, coffeeMaker.cupsOfCoffee());
+        assertEquals(4, subject.lookup(2_999).cupsOfCoffee(), "Facades share the slot");
+        assertEquals(0, subject.lookup(0).cupsOfCoffee(), "Other makers stay put");
+        assertEquals(11, coffeeMaker.getMaxWaterCapacityCups());
+
+        // And when
+        coffeeMaker.removePot();
+        coffeeMaker.pourOutCoffee(3);
+        coffeeMaker.replacePot();
+
+        // Then
+        assertTrue(coffeeMaker.hasPot());
+        assertEquals(1, coffeeMaker.cupsOfCoffee());
+    }
+
+    @Test
+    void testIllegalCommands() {
+        OffHeapCoffeeMaker coffeeMaker = subject.lookup(0);
+
+        assertThrows(IllegalArgumentException.class, () -> coffeeMaker.fill(12));
+        assertThrows(IllegalStateException.class, coffeeMaker::replacePot);
+
+        coffeeMaker.removePot();
+        assertFalse(coffeeMaker.hasPot());
+        assertThrows(IllegalStateException.class, coffeeMaker::removePot);
+    }
+
+    @Test
+    void testLookup() {
+        assertEquals(3_000, subject.size());
+        assertEquals(1_234, subject.lookup(1_234).deviceId());
+        assertEquals("OffHeapCoffeeMaker(deviceId=1234)", subject.lookup(1_234).toString());
+        assertNull(subject.lookup(-1));
+        assertNull(subject.lookup(3_000));
+    }
+
+    @Test
+    void testSpansSeveralBuffers() {
+        // Given - more makers than one buffer holds
+        OffHeapFleet large = new OffHeapFleet((1 << 20) + 5, SETTINGS);
+        large.lookup((1 << 20) - 1).fill(1);
+        large.lookup(1 << 20).fill(2);
+        large.lookup((1 << 20) + 4).fill(3);
+
+        // When
+        large.tickAll();
+
+        // Then
+        assertEquals(1, large.lookup((1 << 20) - 1).cupsOfWater());
+        assertEquals(2, large.lookup(1 << 20).cupsOfWater());
+        assertEquals(3, large.lookup((1 << 20) + 4).cupsOfWater());
+        assertEquals(0, large.lookup((1 << 20) + 3).cupsOfWater());
+    }
+
+    @Test
+    void testCreateOffHeapFleetTicks() throws InterruptedException {
+        // Given
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        OffHeapFleet fleet = CoffeeMakerCreator.createOffHeapFleet(100, props);
+        OffHeapCoffeeMaker coffeeMaker = fleet.lookup(42);
+
+        // When
+        coffeeMaker.fill(3);
+        coffeeMaker.pressBrewButton();
+
+        // Then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!coffeeMaker.isBrewing() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertTrue(coffeeMaker.isBrewing());
+        assertTrue(coffeeMaker.isWarmerPlateOn());
+        assertEquals(60_000, fleet.settings().getTicksPerCupBrewed());
+        assertThrows(IllegalStateException.class,
+                () -> fleet.start(1L, TimeUnit.MILLISECONDS));
+
+        fleet.shutdown();
+        subject.shutdown();
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapFleet(-1, SETTINGS));
+        assertThrows(NullPointerException.class, () -> new OffHeapFleet(1, null));
+        assertEquals(0, new OffHeapFleet(0, SETTINGS).size());
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.forEachSlot(-1, 1, (deviceId, slots, offset) -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.forEachSlot(0, 3_001, (deviceId, slots, offset) -> { }));
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.forEachSlot(2, 1, (deviceId, slots, offset) -> { }));
+        assertThrows(NullPointerException.class, () -> subject.forEachSlot(0, 1, null));
+    }
+}
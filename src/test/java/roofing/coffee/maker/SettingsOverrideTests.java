@@ -0,0 +1,114 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests that CoffeeMakers created from the same properties share their component settings, and
+ * that overriding one CoffeeMaker's settings leaves the others alone.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class SettingsOverrideTests {
+
+    private static CoffeeMakerProperties props;
+
+    private Clock overriddenClock;
+    private CoffeeMaker overridden;
+
+    private Clock sharedClock;
+    private CoffeeMaker shared;
+
+    @BeforeAll
+    static void initProps() {
+        ClockProps clock = new ClockProps(60L, TimeUnit.SECONDS);
+        PotProps pot = new PotProps(10);
+        ReservoirProps reservoir = new ReservoirProps(1);
+        WarmerPlateProps warmerPlate = new WarmerPlateProps(10);
+
+        props = new CoffeeMakerProperties(clock, pot, reservoir, warmerPlate);
+    }
+
+    @BeforeEach
+    void initSubjectsAndClocks() {
+        ClockBuilder overriddenClockBuilder = Clock.builder();
+        overridden = CoffeeMakerCreator.create(overriddenClockBuilder, props);
+        overriddenClock = overriddenClockBuilder.build();
+
+        ClockBuilder sharedClockBuilder = Clock.builder();
+        shared = CoffeeMakerCreator.create(sharedClockBuilder, props);
+        sharedClock = sharedClockBuilder.build();
+    }
+
+    @Test
+    void testMakersShareSettings() {
+        // Then
+        assertSame(shared.settings(), overridden.settings());
+        assertEquals(props.getPotMaxCapacityCups(), shared.settings().getPotMaxCapacityCups());
+        assertEquals(props.getReservoirTicksPerCupBrewed(),
+                shared.settings().getTicksPerCupBrewed());
+        assertEquals(props.getWarmerPlateStayHotForTickLimit(),
+                shared.settings().getWarmerPlateStayHotTickLimit());
+    }
+
+    @Test
+    void testOverrideAffectsOneMaker() {
+        // Given
+        ComponentSettings original = shared.settings();
+
+        // When - one maker brews a cup every 3 ticks rather than every tick
+        overridden.overrideSettings(overridden.settings().withTicksPerCupBrewed(3));
+        brew(overridden, overriddenClock, 6);
+        brew(shared, sharedClock, 6);
+
+        // Then
+        assertEquals(3, overridden.settings().getTicksPerCupBrewed());
+        assertSame(original, shared.settings());
+        assertEquals(1, original.getTicksPerCupBrewed());
+
+        assertEquals(1, overridden.cupsOfCoffee());
+        assertEquals(5, shared.cupsOfCoffee());
+    }
+
+    @Test
+    void testOverridePotCapacity() {
+        // When - one maker gets a bigger pot
+        overridden.overrideSettings(overridden.settings().withPotMaxCapacityCups(20));
+        brew(overridden, overriddenClock, 25);
+        brew(shared, sharedClock, 25);
+
+        // Then
+        assertEquals(21, overridden.getMaxWaterCapacityCups());
+        assertEquals(20, overridden.cupsOfCoffee());
+        assertEquals(props.getPotMaxCapacityCups(), shared.cupsOfCoffee());
+    }
+
+    @Test
+    void testOverrideNullSettings() {
+        assertThrows(NullPointerException.class, () -> overridden.overrideSettings(null));
+        assertSame(shared.settings(), overridden.settings());
+    }
+
+    private static void brew(CoffeeMaker coffeeMaker, Clock clock, int ticks) {
+        coffeeMaker.fill(coffeeMaker.getMaxWaterCapacityCups());
+        coffeeMaker.pressBrewButton();
+
+        for (int i = 0; i < ticks; i++) {
+            clock.tick();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package roofing.coffee.maker;
+
+import java.nio.file.Paths;
+import roofing.coffee.maker.SharedFleetReader.Snapshot;
+
+/**
+ * The reader process of SharedFleetReaderTest's cross-process test.
+ *
+ * Given a shared fleet file, whose writer keeps each CoffeeMaker's water plus coffee within one
+ * cup of what it was filled with, this process reads every CoffeeMaker over and over, and checks
+ * that no read ever sees a torn slot. It prints its counts, and exits with 0 if every read was
+ * consistent, or 1 otherwise.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class SharedFleetReaderProcess {
+
+    public static void main(String[] args) throws Exception {
+        SharedFleetReader reader = SharedFleetReader.open(Paths.get(args[0]));
+        int filled = Integer.parseInt(args[1]);
+        long minTicks = Long.parseLong(args[2]);
+
+        Snapshot snapshot = new Snapshot();
+        long reads = 0;
+        long torn = 0;
+        long startTicks = reader.ticks();
+
+        while (reader.ticks() - startTicks < minTicks) {
+            for (int deviceId = 0; deviceId < reader.size(); deviceId++) {
+                reader.read(deviceId, snapshot);
+                int missing = filled - snapshot.cupsOfWater() - snapshot.cupsOfCoffee();
+                if (missing != 0 && missing != 1) {
+                    torn++;
+                    System.out.println("Torn read: " + snapshot);
+                }
+
+                reads++;
+            }
+        }
+
+        System.out.printf("reads=%d retries=%d torn=%d ticks=%d%n",
+                reads,
+                snapshot.retries(),
+                torn,
+                reader.ticks() - startTicks);
+
+        System.exit(torn == 0 && reads > 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,246 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import roofing.coffee.maker.SharedFleetReader.Snapshot;
+import roofing.coffee.maker.components.ComponentSettings;
+import roofing.coffee.maker.components.ComponentSlots;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+class SharedFleetReaderTest {
+
+    private static final ComponentSettings SETTINGS = ComponentSettings.of(10, 1, 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadsWriterState() throws IOException {
+        // Given
+        Path file = directory.resolve("fleet.bin");
+        OffHeapFleet fleet = new OffHeapFleet(3_000, SETTINGS, file);
+        SharedFleetReader subject = SharedFleetReader.open(file);
+        Snapshot snapshot = new Snapshot();
+
+        // When
+        fleet.lookup(2_999).fill(4);
+        fleet.lookup(2_999).pressBrewButton();
+        fleet.lookup(7).removePot();
+        fleet.tickAll();
+        fleet.tickAll();
+
+        // Then
+        assertEquals(3_000, subject.size());
+        assertEquals(SETTINGS, subject.settings());
+        assertEquals(2, subject.ticks());
+        assertEquals(-1, snapshot.deviceId());
+
+        subject.read(2_999, snapshot);
+        assertEquals(2_999, snapshot.deviceId());
+        assertTrue(snapshot.isBrewing());
+        assertTrue(snapshot.isWarmerPlateOn());
+        assertTrue(snapshot.hasPot());
+        assertEquals(2, snapshot.cupsOfWater());
+        assertEquals(1, snapshot.cupsOfCoffee());
+        assertEquals(8, snapshot.sequence(), "Two writes and two ticks, of two increments each");
+        assertEquals(0, snapshot.retries());
+        assertEquals("SharedFleetReader.Snapshot(deviceId=2999, sequence=8, cupsOfWater=2, "
+                + "cupsOfCoffee=1, isBrewing=true, isWarmerPlateOn=true, hasPot=true)",
+                snapshot.toString());
+
+        assertFalse(subject.read(7, snapshot).hasPot());
+        assertEquals(0, subject.read(0, snapshot).cupsOfWater());
+        assertEquals(0, subject.read(0, snapshot).cupsOfCoffee());
+    }
+
+    @Test
+    void testHeaderLayout() throws IOException {
+        // Given
+        Path file = directory.resolve("fleet.bin");
+        new OffHeapFleet(5, SETTINGS, file).tickAll();
+
+        // When
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Then
+        assertEquals(SharedFleetLayout.HEADER_BYTES + 5 * 40, bytes.capacity());
+        assertEquals("COFFEEMK", new String(bytes.array(), 0, 8, "US-ASCII"));
+        assertEquals(SharedFleetLayout.MAGIC, bytes.getLong(0));
+        assertEquals(1, bytes.getInt(8));
+        assertEquals(40, bytes.getInt(12));
+        assertEquals(5, bytes.getInt(16));
+        assertEquals(10, bytes.getInt(20));
+        assertEquals(1, bytes.getLong(24));
+        assertEquals(2, bytes.getLong(32));
+        assertEquals(1, bytes.getLong(40));
+        assertEquals(2, bytes.getLong(SharedFleetLayout.HEADER_BYTES + 4 * 40),
+                "The last slot's sequence");
+    }
+
+    @Test
+    void testSpansSeveralBuffers() throws IOException {
+        // Given - more makers than one buffer holds
+        Path file = directory.resolve("fleet.bin");
+        OffHeapFleet fleet = new OffHeapFleet((1 << 20) + 5, SETTINGS, file);
+        fleet.lookup((1 << 20) - 1).fill(1);
+        fleet.lookup((1 << 20) + 4).fill(3);
+
+        // When
+        SharedFleetReader subject = SharedFleetReader.open(file);
+
+        // Then
+        assertEquals(1, subject.read((1 << 20) - 1, new Snapshot()).cupsOfWater());
+        assertEquals(3, subject.read((1 << 20) + 4, new Snapshot()).cupsOfWater());
+        assertEquals(0, subject.read(1 << 20, new Snapshot()).cupsOfWater());
+    }
+
+    @Test
+    void testRejectsOtherFiles() throws IOException {
+        Path shortFile = Files.write(directory.resolve("short.bin"), new byte[10]);
+        assertThrows(IllegalArgumentException.class, () -> SharedFleetReader.open(shortFile));
+
+        Path unfinished = Files.write(directory.resolve("unfinished.bin"),
+                new byte[SharedFleetLayout.HEADER_BYTES]);
+        assertThrows(IllegalArgumentException.class, () -> SharedFleetReader.open(unfinished));
+
+        Path file = directory.resolve("fleet.bin");
+        new OffHeapFleet(1, SETTINGS, file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[8] = 2;
+        Path otherVersion = Files.write(directory.resolve("version.bin"), bytes);
+        assertThrows(IllegalArgumentException.class, () -> SharedFleetReader.open(otherVersion));
+
+        bytes[8] = 1;
+        bytes[12] = 32;
+        Path otherStride = Files.write(directory.resolve("stride.bin"), bytes);
+        assertThrows(IllegalArgumentException.class, () -> SharedFleetReader.open(otherStride));
+
+        assertThrows(IOException.class,
+                () -> SharedFleetReader.open(directory.resolve("missing.bin")));
+    }
+
+    @Test
+    void testInvalidArguments() throws IOException {
+        Path file = directory.resolve("fleet.bin");
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapFleet(-1, SETTINGS, file));
+        assertThrows(NullPointerException.class, () -> new OffHeapFleet(1, SETTINGS, null));
+
+        new OffHeapFleet(2, SETTINGS, file);
+        SharedFleetReader subject = SharedFleetReader.open(file);
+        assertThrows(IllegalArgumentException.class, () -> subject.read(-1, new Snapshot()));
+        assertThrows(IllegalArgumentException.class, () -> subject.read(2, new Snapshot()));
+        assertThrows(NullPointerException.class, () -> subject.read(0, null));
+        assertThrows(NullPointerException.class, () -> SharedFleetReader.open(null));
+    }
+
+    @Test
+    void testCreateSharedFleetTicks() throws IOException, InterruptedException {
+        // Given
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        Path file = directory.resolve("fleet.bin");
+        OffHeapFleet fleet = CoffeeMakerCreator.createSharedFleet(100, props, file);
+        SharedFleetReader subject = SharedFleetReader.open(file);
+
+        // When
+        fleet.lookup(42).fill(3);
+        fleet.lookup(42).pressBrewButton();
+
+        // Then
+        Snapshot snapshot = new Snapshot();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        // The writer bumps the tick count only once it has ticked every CoffeeMaker
+        while ((!subject.read(42, snapshot).isBrewing() || subject.ticks() == 0)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertTrue(snapshot.isBrewing());
+        assertTrue(subject.ticks() > 0);
+        assertEquals(60_000, subject.settings().getTicksPerCupBrewed());
+
+        fleet.shutdown();
+    }
+
+    /*
+     * The writer - this process - ticks a fleet as fast as it can, and refills every CoffeeMaker
+     * that finishes brewing and cools down in a single write. Each CoffeeMaker's water plus coffee
+     * therefore always lies within a cup of FILLED - the reservoir gives up a cup a tick before the
+     * pot gets it. A reader process checks that invariant on every read; a torn read would break
+     * it.
+     */
+    @Test
+    void testConsistentAcrossProcesses() throws Exception {
+        // Given
+        final int size = 2_000;
+        final int filled = 10;
+        Path file = directory.resolve("fleet.bin");
+        OffHeapFleet fleet = new OffHeapFleet(size, ComponentSettings.of(10, 1, 2), file);
+        for (int deviceId = 0; deviceId < size; deviceId++) {
+            fleet.lookup(deviceId).fill(filled);
+            fleet.lookup(deviceId).pressBrewButton();
+        }
+
+        // When
+        Process reader = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp",
+                System.getProperty("java.class.path"),
+                SharedFleetReaderProcess.class.getName(),
+                file.toString(),
+                Integer.toString(filled),
+                "500")
+                        .redirectErrorStream(true)
+                        .redirectOutput(directory.resolve("reader.log").toFile())
+                        .start();
+
+        long refills = 0;
+        while (reader.isAlive()) {
+            fleet.tickAll();
+            for (int deviceId = 0; deviceId < size; deviceId++) {
+                refills += fleet.withSlot(deviceId,
+                        (slots, offset) -> refill(slots, offset, filled));
+            }
+        }
+
+        // Then
+        File log = directory.resolve("reader.log").toFile();
+        String output = new String(Files.readAllBytes(log.toPath()), "UTF-8");
+        assertEquals(0, reader.exitValue(), output);
+        assertTrue(output.contains("torn=0"), output);
+        assertTrue(refills > size, output + " refills=" + refills);
+    }
+
+    private static int refill(ByteBuffer slots, int offset, int filled) {
+        // Once the WarmerPlate cools, the BrewButton has long since released the last request
+        if (ComponentSlots.cupsOfCoffee(slots, offset) < filled
+                || ComponentSlots.isHot(slots, offset)) {
+            return 0;
+        }
+
+        ComponentSlots.pourOutCoffee(slots, offset, filled);
+        ComponentSlots.fill(slots, offset, SETTINGS, filled);
+        ComponentSlots.pressBrewButton(slots, offset);
+        return 1;
+    }
+}
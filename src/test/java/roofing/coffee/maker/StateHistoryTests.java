@@ -0,0 +1,129 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.history.HistoryBudget;
+import roofing.coffee.maker.history.StateHistory;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+import roofing.coffee.maker.streams.CoffeeMakerState;
+
+/**
+ * Tests for the history of a ticking CoffeeMaker's state.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class StateHistoryTests {
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(60L, TimeUnit.SECONDS),
+            new PotProps(10),
+            new ReservoirProps(1),
+            new WarmerPlateProps(1));
+
+    private HistoryBudget budget;
+    private Clock clock;
+    private CoffeeMaker subject;
+
+    @BeforeEach
+    void initSubjectAndClock() {
+        budget = new HistoryBudget(1 << 20, 1 << 10);
+
+        ClockBuilder clockBuilder = Clock.builder();
+        subject = TestTimeCoffeeMakerCreator.create(clockBuilder, PROPS, Runnable::run);
+        subject.recordHistoryIn(new StateHistory(budget));
+        clock = clockBuilder.build();
+    }
+
+    @Test
+    void testHistoryFollowsBrew() {
+        // Given
+        subject.fill(3);
+        subject.pressBrewButton();
+
+        // When - a full brew, and then enough idle ticks for the warmer plate to cool down
+        for (int tick = 0; tick < 20; tick++) {
+            clock.tick();
+        }
+
+        // Then
+        List<CoffeeMakerState> states = subject.history().between(0, Long.MAX_VALUE);
+        CoffeeMakerState first = states.get(0);
+        CoffeeMakerState last = states.get(states.size() - 1);
+
+        // One state per cup, one as brewing stops, and one as the warmer plate turns off
+        assertEquals(5, states.size(), "Only changes are recorded: " + states);
+        assertEquals(1, first.getTicks());
+        assertEquals(2, first.getCupsOfWater());
+        assertTrue(first.isBrewing());
+        assertEquals(6, last.getTicks());
+        assertEquals(0, last.getCupsOfWater());
+        assertEquals(3, last.getCupsOfCoffee());
+        assertFalse(last.isWarmerPlateOn());
+
+        // And when - the CoffeeMaker shuts down
+        assertTrue(budget.usedBytes() > 0);
+        subject.shutdown();
+
+        // Then
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void testIdleTicksRecordNothing() {
+        for (int tick = 0; tick < 1_000; tick++) {
+            clock.tick();
+        }
+
+        // The warmer plate starts out hot, then cools down once
+        assertEquals(2, subject.history().records());
+    }
+
+    @Test
+    void testCoffeeMakerWithoutHistory() {
+        CoffeeMaker plain = TestTimeCoffeeMakerCreator.create();
+        assertThrows(IllegalStateException.class, plain::history);
+        plain.shutdown();
+    }
+
+    @Test
+    void testFleetWithHistory() throws InterruptedException {
+        // Given
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(1));
+
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(10, props,
+                FleetOptions.builder().historyBudget(budget).build());
+
+        // When
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fleet.lookup(9).history().records() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // Then
+        assertTrue(fleet.lookup(9).history().records() > 0);
+        assertTrue(budget.usedBytes() > 0);
+
+        fleet.shutdown();
+        assertEquals(0, budget.usedBytes());
+        assertThrows(IllegalArgumentException.class,
+                () -> CoffeeMakerCreator.createFleet(-1, props,
+                        FleetOptions.builder().historyBudget(budget).build()));
+    }
+}
@@ -0,0 +1,74 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateField;
+
+/**
+ * Tests for subscriptions to a ticking CoffeeMaker's state.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class StateSubscriptionTests {
+
+    private Clock clock;
+    private CoffeeMaker subject;
+
+    @BeforeEach
+    void initSubjectAndClock() {
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(60L, TimeUnit.SECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(1));
+
+        ClockBuilder clockBuilder = Clock.builder();
+        subject = TestTimeCoffeeMakerCreator.create(clockBuilder, props, Runnable::run);
+        clock = clockBuilder.build();
+    }
+
+    @Test
+    void testSubscriptionsFollowBrew() {
+        // Given
+        AtomicInteger fourCups = new AtomicInteger();
+        AtomicInteger warmerOff = new AtomicInteger();
+        AtomicInteger emptyWhileRequested = new AtomicInteger();
+
+        subject.subscribe(StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 4),
+                fourCups::incrementAndGet);
+        subject.subscribe(StateCondition.is(StateField.IS_HOT, false),
+                warmerOff::incrementAndGet);
+        subject.subscribe(StateCondition.atMost(StateField.CUPS_OF_WATER, 0)
+                .and(StateCondition.is(StateField.IS_BREW_REQUESTED, true)),
+                emptyWhileRequested::incrementAndGet);
+
+        // When - a full brew, and then enough idle ticks for the warmer plate to cool down
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+        while (!subject.isBrewing()) {
+            clock.tick();
+        }
+
+        int warmerOffBeforeBrew = warmerOff.get();
+        for (int tick = 0; tick < 20; tick++) {
+            clock.tick();
+        }
+
+        // Then
+        assertEquals(1, fourCups.get());
+        assertEquals(1, emptyWhileRequested.get());
+        assertEquals(warmerOffBeforeBrew + 1, warmerOff.get());
+    }
+}
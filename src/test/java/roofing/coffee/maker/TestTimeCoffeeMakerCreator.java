@@ -1,5 +1,6 @@
 package roofing.coffee.maker;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import roofing.coffee.maker.busses.Clock;
 import roofing.coffee.maker.busses.Clock.ClockBuilder;
@@ -41,4 +42,15 @@ public final class TestTimeCoffeeMakerCreator {
         ClockBuilder clockBuilder = Clock.builder();
         return CoffeeMakerCreator.create(clockBuilder, props);
     }
+
+    public static CoffeeMaker create(ClockBuilder clockBuilder, CoffeeMakerProperties props) {
+        return CoffeeMakerCreator.create(clockBuilder, props);
+    }
+
+    public static CoffeeMaker create(ClockBuilder clockBuilder,
+            CoffeeMakerProperties props,
+            Executor notificationExecutor) {
+
+        return CoffeeMakerCreator.create(clockBuilder, props, notificationExecutor);
+    }
 }
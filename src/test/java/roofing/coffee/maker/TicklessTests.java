@@ -0,0 +1,168 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests that a tickless CoffeeMaker computes exactly what a CoffeeMaker whose Clock ticks one tick
+ * at a time does, at a cost per interaction rather than per tick.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class TicklessTests {
+
+    // 60 ticks per minute: each cup takes 8 ticks, and the warmer plate stays hot for 60 ticks
+    private static final long PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong nanoTime = new AtomicLong(1_000);
+    private boolean isPotRemoved = false;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testMatchesTickingCoffeeMaker(boolean evaluateCommandsImmediately) {
+        // Given - the same CoffeeMaker, once tickless and once ticked a tick at a time
+        CoffeeMakerProperties props = props(evaluateCommandsImmediately);
+        CoffeeMaker subject = CoffeeMakerCreator.createTickless(props, nanoTime::get);
+
+        ClockBuilder clockBuilder = Clock.builder();
+        CoffeeMaker reference = TestTimeCoffeeMakerCreator.create(clockBuilder, props);
+        Clock clock = clockBuilder.build();
+        if (evaluateCommandsImmediately) {
+            reference.evaluateCommandsWith(clock::evaluate);
+        }
+
+        Random random = new Random(47);
+        for (int round = 0; round < 3_000; round++) {
+            // When - a gap of quiet ticks, short or long, and then a random command
+            int gap = random.nextBoolean() ? random.nextInt(10) : random.nextInt(500);
+            nanoTime.addAndGet(gap * PERIOD_NANOS);
+            for (int tick = 0; tick < gap; tick++) {
+                clock.tick();
+            }
+
+            // Then
+            assertSameState(reference, subject, round);
+
+            // And when
+            command(reference, subject, random.nextInt(7), random.nextInt(8) + 1);
+
+            // Then
+            assertSameState(reference, subject, round);
+        }
+    }
+
+    @Test
+    void testCostsStepsPerInteractionRatherThanPerTick() {
+        // Given
+        CoffeeMaker subject = CoffeeMakerCreator.createTickless(props(false), nanoTime::get);
+        subject.resetAfterIdle(30_000);
+        subject.fill(10);
+        subject.pressBrewButton();
+
+        // When - a month of ticks passes without a read
+        nanoTime.addAndGet(2_600_000 * PERIOD_NANOS);
+
+        // Then - the brew, warmer shutoff, and idle reset all happened, in few steps
+        assertEquals(0, subject.cupsOfWater());
+        assertEquals(0, subject.cupsOfCoffee());
+        assertFalse(subject.isWarmerPlateOn());
+        assertEquals(2_600_000, subject.clockMetrics().ticks());
+        assertTrue(subject.clockMetrics().steps() < 100, subject.clockMetrics().toString());
+
+        // And when - repeated reads at the same time cost nothing
+        long steps = subject.clockMetrics().steps();
+        subject.isBrewing();
+        subject.cupsOfCoffee();
+
+        // Then
+        assertEquals(steps, subject.clockMetrics().steps());
+    }
+
+    @Test
+    void testShutdownStopsCatchingUp() {
+        // Given
+        CoffeeMaker subject = CoffeeMakerCreator.createTickless(props(true), nanoTime::get);
+        subject.fill(2);
+        subject.pressBrewButton();
+
+        // When
+        subject.shutdown();
+        nanoTime.addAndGet(100 * PERIOD_NANOS);
+
+        // Then
+        assertTrue(subject.isBrewing());
+        assertEquals(0, subject.clockMetrics().ticks());
+    }
+
+    private static CoffeeMakerProperties props(boolean evaluateCommandsImmediately) {
+        return new CoffeeMakerProperties(
+                new ClockProps(1L,
+                        TimeUnit.SECONDS,
+                        CatchUpPolicy.COALESCE,
+                        evaluateCommandsImmediately),
+                new PotProps(12),
+                new ReservoirProps(7),
+                new WarmerPlateProps(1));
+    }
+
+    private void command(CoffeeMaker reference, CoffeeMaker subject, int command, int amount) {
+        switch (command) {
+            case 0:
+                int cups = Math.min(amount,
+                        reference.getMaxWaterCapacityCups() - reference.cupsOfWater());
+                reference.fill(cups);
+                subject.fill(cups);
+                break;
+            case 1:
+            case 2:
+                reference.pressBrewButton();
+                subject.pressBrewButton();
+                break;
+            case 3:
+                if (isPotRemoved) {
+                    reference.replacePot();
+                    subject.replacePot();
+                } else {
+                    reference.removePot().pourOutCoffee(amount);
+                    subject.removePot().pourOutCoffee(amount);
+                }
+
+                isPotRemoved = !isPotRemoved;
+                break;
+            case 4:
+                reference.scheduleBrew(amount * 10);
+                subject.scheduleBrew(amount * 10);
+                break;
+            default:
+                reference.resetAfterIdle(amount * 40);
+                subject.resetAfterIdle(amount * 40);
+                break;
+        }
+    }
+
+    private static void assertSameState(CoffeeMaker reference, CoffeeMaker subject, int round) {
+        String message = String.format("Round %d: %s", round, subject);
+
+        assertEquals(reference.cupsOfWater(), subject.cupsOfWater(), message);
+        assertEquals(reference.cupsOfCoffee(), subject.cupsOfCoffee(), message);
+        assertEquals(reference.isBrewing(), subject.isBrewing(), message);
+        assertEquals(reference.isWarmerPlateOn(), subject.isWarmerPlateOn(), message);
+        assertEquals(reference.clockMetrics().ticks(), subject.clockMetrics().ticks(), message);
+    }
+}
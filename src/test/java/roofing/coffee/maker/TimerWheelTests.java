@@ -0,0 +1,207 @@
+package roofing.coffee.maker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+import roofing.coffee.maker.timers.Timeout;
+
+/**
+ * Tests the scheduled brews and idle resets that a CoffeeMaker's TimerWheel drives.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class TimerWheelTests {
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(60L, TimeUnit.SECONDS),
+            new PotProps(10),
+            new ReservoirProps(1),
+            new WarmerPlateProps(1));
+
+    private Clock clock;
+    private CoffeeMaker subject;
+
+    @BeforeEach
+    void initSubjectAndClock() {
+        ClockBuilder clockBuilder = Clock.builder();
+        subject = TestTimeCoffeeMakerCreator.create(clockBuilder, PROPS);
+        clock = clockBuilder.build();
+    }
+
+    @Test
+    void testScheduledBrew() {
+        // Given
+        subject.fill(4);
+
+        // When
+        subject.scheduleBrew(5);
+        tick(4);
+
+        // Then
+        assertFalse(subject.isBrewing());
+
+        // And when
+        tick(2);
+
+        // Then
+        assertTrue(subject.isBrewing());
+    }
+
+    @Test
+    void testRescheduledAndCancelledBrews() {
+        // Given
+        subject.fill(4);
+        Timeout first = subject.scheduleBrew(3);
+
+        // When - the second brew replaces the first, and the user cancels it
+        Timeout second = subject.scheduleBrew(10);
+        second.cancel();
+        tick(20);
+
+        // Then
+        assertFalse(first.isPending());
+        assertFalse(subject.isBrewing());
+        assertEquals(0, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testScheduledBrewLeavesRequestedBrewAlone() {
+        // Given - the user requests a brew before the scheduled one
+        subject.fill(4);
+        subject.scheduleBrew(2);
+        subject.pressBrewButton();
+
+        // When
+        tick(3);
+
+        // Then
+        assertTrue(subject.isBrewing());
+    }
+
+    @Test
+    void testResetAfterIdle() {
+        // Given - a brewed pot
+        subject.resetAfterIdle(30);
+        subject.fill(3);
+        subject.pressBrewButton();
+        tick(10);
+        assertEquals(3, subject.cupsOfCoffee());
+
+        // When - some idle ticks, then a command that restarts the wait
+        tick(15);
+        subject.removePot();
+        subject.replacePot();
+        tick(25);
+
+        // Then
+        assertEquals(3, subject.cupsOfCoffee());
+
+        // And when
+        tick(5);
+
+        // Then
+        assertEquals(0, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testResetAfterIdleWaitsForBrewing() {
+        // Given - a brew that outlasts the idle period, since each cup takes a tick
+        subject.resetAfterIdle(3);
+        subject.fill(8);
+        subject.pressBrewButton();
+
+        // When
+        tick(9);
+
+        // Then
+        assertEquals(8, subject.cupsOfCoffee());
+
+        // And when
+        tick(3);
+
+        // Then
+        assertEquals(0, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testResetCancelsWaitingBrewRequest() {
+        // Given - a request without water
+        subject.resetAfterIdle(2);
+        subject.pressBrewButton();
+
+        // When
+        tick(3);
+        subject.fill(2);
+        tick(2);
+
+        // Then
+        assertFalse(subject.isBrewing());
+
+        // And when - the user turns the reset off
+        subject.resetAfterIdle(0);
+        subject.pressBrewButton();
+        tick(5);
+
+        // Then
+        assertEquals(2, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testFleetMakersKeepTheirOwnTimerWheels() throws InterruptedException {
+        // Given
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(1L, TimeUnit.MILLISECONDS),
+                new PotProps(10),
+                new ReservoirProps(6_000),
+                new WarmerPlateProps(1));
+
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(4, props);
+        CoffeeMaker maker = fleet.lookup(2);
+        maker.fill(5);
+
+        // When
+        maker.scheduleBrew(20);
+
+        // Then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (maker.cupsOfCoffee() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertTrue(maker.cupsOfCoffee() > 0);
+
+        // And when - a decommissioned maker's scheduled brew never runs
+        CoffeeMaker other = fleet.lookup(3);
+        other.fill(5);
+        Timeout cancelled = other.scheduleBrew(1_000_000);
+        other.resetAfterIdle(1_000_000);
+        fleet.shutdown();
+
+        // Then
+        assertFalse(cancelled.isPending());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> subject.scheduleBrew(0));
+        assertThrows(IllegalArgumentException.class, () -> subject.resetAfterIdle(-1));
+    }
+
+    private void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            clock.tick();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package roofing.coffee.maker.aggregates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class AggregateGroupTest {
+
+    @Test
+    void testHierarchy() {
+        // Given
+        AggregateGroup global = new AggregateGroup("global");
+        AggregateGroup hq = global.child("hq");
+        AggregateGroup third = hq.child("3");
+        AggregateGroup fourth = hq.child("4");
+
+        // Then
+        assertSame(third, global.child("hq").child("3"));
+        assertEquals("global/hq/3", third.path());
+        assertEquals("3", third.name());
+        assertEquals(Arrays.asList("3", "4"), hq.children().stream()
+                .map(AggregateGroup::name)
+                .sorted()
+                .collect(Collectors.toList()));
+        assertEquals("AggregateGroup(name=4)", fourth.toString());
+    }
+
+    @Test
+    void testMembersRollUp() {
+        // Given
+        AggregateGroup global = new AggregateGroup("global");
+        AggregateGroup hq = global.child("hq");
+        AggregateGroup third = hq.child("3");
+        AggregateGroup annex = global.child("annex");
+
+        // When
+        GroupMember first = third.join();
+        third.join();
+        annex.join();
+        hq.join();
+        first.leave();
+
+        // Then
+        assertEquals(1, third.makers());
+        assertEquals(2, hq.makers());
+        assertEquals(1, annex.makers());
+        assertEquals(3, global.makers());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(NullPointerException.class, () -> new AggregateGroup(null));
+        assertThrows(NullPointerException.class, () -> new AggregateGroup("global").child(null));
+    }
+}
@@ -0,0 +1,81 @@
+package roofing.coffee.maker.aggregates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.events.ComponentEventType;
+
+class GroupMemberTest {
+
+    private AggregateGroup global;
+    private AggregateGroup floor;
+    private GroupMember subject;
+
+    @BeforeEach
+    void initSubject() {
+        global = new AggregateGroup("global");
+        floor = global.child("hq").child("3");
+        subject = floor.join();
+    }
+
+    @Test
+    void testTotalsTransitions() {
+        // When
+        subject.raise(ComponentEventType.BREW_REQUESTED, 0);
+        subject.raise(ComponentEventType.BREW_STARTED, 4);
+        subject.raise(ComponentEventType.BREW_STARTED, 4);
+        subject.raise(ComponentEventType.WATER_DRAWN, 1);
+        subject.raise(ComponentEventType.WARMER_ON, 0);
+        subject.raise(ComponentEventType.WATER_DRAWN, 2);
+        subject.raise(ComponentEventType.CUP_BREWED, 1);
+        subject.raise(ComponentEventType.CUP_BREWED, 2);
+
+        // Then
+        for (AggregateGroup group : new AggregateGroup[] {floor, global}) {
+            assertEquals(1, group.makers());
+            assertEquals(1, group.makersBrewing());
+            assertEquals(1, group.warmersOn());
+            assertEquals(3, group.cupsOfWaterDrawn());
+            assertEquals(2, group.cupsBrewed());
+        }
+
+        // And when
+        subject.raise(ComponentEventType.BREW_STOPPED, 0);
+        subject.raise(ComponentEventType.BREW_STOPPED, 0);
+        subject.raise(ComponentEventType.WARMER_OFF, 0);
+        subject.raise(ComponentEventType.WARMER_OFF, 0);
+
+        // Then
+        assertEquals(0, global.makersBrewing());
+        assertEquals(0, global.warmersOn());
+        assertEquals(2, global.cupsBrewed());
+    }
+
+    @Test
+    void testLeave() {
+        // Given
+        subject.raise(ComponentEventType.BREW_STARTED, 4);
+        subject.raise(ComponentEventType.WARMER_ON, 0);
+        subject.raise(ComponentEventType.CUP_BREWED, 1);
+
+        // When
+        subject.leave();
+        subject.leave();
+        subject.raise(ComponentEventType.CUP_BREWED, 2);
+        subject.raise(ComponentEventType.BREW_STOPPED, 0);
+
+        // Then - the group keeps what the member brewed
+        assertEquals(0, global.makers());
+        assertEquals(0, global.makersBrewing());
+        assertEquals(0, global.warmersOn());
+        assertEquals(1, global.cupsBrewed());
+
+        // And when - a member leaves with its plate cold
+        GroupMember idle = floor.join();
+        idle.leave();
+
+        // Then
+        assertEquals(0, floor.makers());
+        assertEquals(0, floor.warmersOn());
+    }
+}
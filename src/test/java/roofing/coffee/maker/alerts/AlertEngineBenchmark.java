@@ -0,0 +1,160 @@
+package roofing.coffee.maker.alerts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+import roofing.coffee.maker.BenchmarkReport;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateField;
+
+/**
+ * Measures what an AlertEngine of 10,000 rules costs a fleet of 1,000,000 CoffeeMakers per tick,
+ * per transition, and in memory.
+ *
+ * Each rule watches an exact state - cups of coffee, cups of water, and all four flags - with
+ * a duration of up to 30 minutes, and every fifth rule waits for a brew. First, every
+ * CoffeeMaker publishes ticks that change nothing. Then, each publish changes one random field
+ * of a random CoffeeMaker's state by one step - i.e. a cup, or a flag - as a tick would.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class AlertEngineBenchmark {
+
+    private static final int RULES = 10_000;
+    private static final int MAKERS = 1_000_000;
+    private static final int IDLE_ROUNDS = 10;
+    private static final int TRANSITIONS = 200_000;
+
+    private static final StateField[] FIELDS = StateField.values();
+    private static final StateField[] FLAGS = {
+        StateField.IS_BREWING, StateField.IS_HOT, StateField.HAS_POT, StateField.IS_BREW_REQUESTED
+    };
+
+    public static void main(String[] args) {
+        LongAdder alerts = new LongAdder();
+        AlertEngine engine = new AlertEngine(rules(), alert -> alerts.increment());
+
+        long heapBefore = usedHeap();
+        MakerAlerts[] makers = new MakerAlerts[MAKERS];
+        int[] states = new int[MAKERS * FIELDS.length];
+        for (int deviceId = 0; deviceId < MAKERS; deviceId++) {
+            makers[deviceId] = engine.watch(deviceId, 60);
+            states[deviceId * FIELDS.length + StateField.HAS_POT.ordinal()] = 1;
+        }
+
+        StateReader reader = new StateReader(states);
+        long ticks = 0;
+
+        // Warm up, and then measure, ticks that change nothing
+        for (int round = 0; round < 2 * IDLE_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int deviceId = 0; deviceId < MAKERS; deviceId++) {
+                reader.base = deviceId * FIELDS.length;
+                makers[deviceId].publish(ticks, reader);
+            }
+
+            ticks++;
+            if (round == 2 * IDLE_ROUNDS - 1) {
+                BenchmarkReport.throughput("publish() unchanged ticks", MAKERS,
+                        System.nanoTime() - start);
+            }
+        }
+
+        BenchmarkReport.value("heap per idle maker",
+                String.format("%,d bytes", (usedHeap() - heapBefore) / MAKERS));
+
+        Random random = new Random(42);
+        long[] latencies = new long[TRANSITIONS];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < TRANSITIONS; i++) {
+                int deviceId = random.nextInt(MAKERS);
+                reader.base = deviceId * FIELDS.length;
+                change(states, reader.base, random);
+
+                long start = System.nanoTime();
+                makers[deviceId].publish(ticks + i / 1_000, reader);
+                latencies[i] = System.nanoTime() - start;
+            }
+
+            ticks += TRANSITIONS / 1_000;
+        }
+
+        BenchmarkReport.latencies("publish() one transition", latencies);
+
+        long active = 0;
+        for (MakerAlerts maker : makers) {
+            active += maker.active();
+        }
+
+        BenchmarkReport.value("active automata per maker",
+                String.format("%.2f", active / (double) MAKERS));
+        BenchmarkReport.value("alerts raised or cleared", String.format("%,d", alerts.sum()));
+    }
+
+    private static List<AlertRule> rules() {
+        List<AlertRule> rules = new ArrayList<>(RULES);
+        for (int rule = 0; rule < RULES; rule++) {
+            int coffee = rule % 11;
+            int water = rule / 11 % 12;
+            int flags = rule / 132 % (1 << FLAGS.length);
+
+            StateCondition condition = exactly(StateField.CUPS_OF_COFFEE, coffee)
+                    .and(exactly(StateField.CUPS_OF_WATER, water));
+            for (int flag = 0; flag < FLAGS.length; flag++) {
+                condition = condition.and(StateCondition.is(FLAGS[flag], (flags >> flag & 1) != 0));
+            }
+
+            AlertRule alertRule = AlertRule.when("rule " + rule, condition).forMinutes(rule % 31);
+            rules.add(rule % 5 == 0
+                    ? alertRule.after(StateCondition.is(StateField.IS_BREWING, true))
+                    : alertRule);
+        }
+
+        return rules;
+    }
+
+    private static StateCondition exactly(StateField field, int value) {
+        return StateCondition.atLeast(field, value).and(StateCondition.atMost(field, value));
+    }
+
+    private static void change(int[] states, int base, Random random) {
+        StateField field = FIELDS[random.nextInt(FIELDS.length)];
+        if (field == StateField.CUPS_OF_COFFEE) {
+            states[base + field.ordinal()] = step(states[base + field.ordinal()], 10, random);
+        } else if (field == StateField.CUPS_OF_WATER) {
+            states[base + field.ordinal()] = step(states[base + field.ordinal()], 11, random);
+        } else {
+            states[base + field.ordinal()] ^= 1;
+        }
+    }
+
+    // One cup more or less, within 0 and max
+    private static int step(int cups, int max, Random random) {
+        return cups == 0 || (cups < max && random.nextBoolean()) ? cups + 1 : cups - 1;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Reads the state of the CoffeeMaker whose fields start at base
+    private static final class StateReader implements ToIntFunction<StateField> {
+
+        private final int[] states;
+        private int base;
+
+        private StateReader(int[] states) {
+            this.states = states;
+        }
+
+        @Override
+        public int applyAsInt(StateField field) {
+            return states[base + field.ordinal()];
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package roofing.coffee.maker.alerts;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateField;
+
+class AlertEngineTest {
+
+    // Rules 0 through 3
+    private static final List<AlertRule> RULES = Arrays.asList(
+            AlertRule.when("at least 4 cups", StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 4)),
+            AlertRule.when("at most 2 cups", StateCondition.atMost(StateField.CUPS_OF_COFFEE, 2)),
+            AlertRule.when("pot removed", StateCondition.is(StateField.HAS_POT, false))
+                    .after(StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 6)),
+            AlertRule.when("water and cups", StateCondition.atLeast(StateField.CUPS_OF_WATER, 1)
+                    .and(StateCondition.atMost(StateField.CUPS_OF_COFFEE, 8))));
+
+    private final AlertEngine subject = new AlertEngine(RULES, alert -> { });
+
+    @Test
+    void testMatchesRulesThatHold() {
+        assertArrayEquals(new int[] {1}, match(state(0, 0, 1), state(0, 0, 1)));
+        assertArrayEquals(new int[] {1, 3}, match(state(0, 0, 1), state(2, 1, 1)));
+        assertArrayEquals(new int[] {3}, match(state(0, 0, 1), state(3, 1, 1)));
+        assertArrayEquals(new int[] {0, 3}, match(state(0, 0, 1), state(8, 1, 1)));
+        assertArrayEquals(new int[] {0}, match(state(0, 0, 1), state(Integer.MAX_VALUE, 0, 1)));
+        assertArrayEquals(new int[] {1}, match(state(0, 0, 1), state(Integer.MIN_VALUE, 0, 1)));
+    }
+
+    @Test
+    void testMatchesPreconditionInEitherState() {
+        // Then - "pot removed" holds only if the pot held at least 6 cups before or after
+        assertArrayEquals(new int[] {1}, match(state(2, 0, 1), state(2, 0, 0)));
+        assertArrayEquals(new int[] {0, 2}, match(state(6, 0, 1), state(5, 0, 0)));
+        assertArrayEquals(new int[] {0, 2}, match(state(5, 0, 1), state(6, 0, 0)));
+        assertArrayEquals(new int[] {0}, match(state(6, 0, 0), state(6, 0, 1)));
+        assertEquals(4, subject.rules());
+        assertEquals(0, subject.raised());
+        assertEquals("pot removed", subject.rule(2).name());
+    }
+
+    @Test
+    void testManyRules() {
+        // Given - 200 rules, i.e. several words of bits, of which every tenth holds at 5 cups
+        List<AlertRule> rules = new ArrayList<>();
+        for (int rule = 0; rule < 200; rule++) {
+            rules.add(AlertRule.when("rule " + rule,
+                    StateCondition.atLeast(StateField.CUPS_OF_COFFEE, rule % 10 == 0 ? 5 : 6)
+                            .and(StateCondition.atMost(StateField.CUPS_OF_COFFEE, 5))));
+        }
+
+        AlertEngine engine = new AlertEngine(rules, alert -> { });
+
+        // When
+        List<Integer> holding = new ArrayList<>();
+        engine.match(state(0, 0, 1), state(5, 0, 1), holding::add);
+
+        // Then
+        assertEquals(20, holding.size());
+        for (int i = 0; i < holding.size(); i++) {
+            assertEquals(10 * i, holding.get(i).intValue());
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> subject.watch(1, 0));
+        assertThrows(NullPointerException.class, () -> new AlertEngine(null, alert -> { }));
+        assertThrows(NullPointerException.class, () -> new AlertEngine(RULES, null));
+    }
+
+    private int[] match(int[] previous, int[] state) {
+        List<Integer> holding = new ArrayList<>();
+        subject.match(previous, state, holding::add);
+
+        return holding.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] state(int cupsOfCoffee, int cupsOfWater, int hasPot) {
+        int[] state = AlertEngine.initialState();
+        state[StateField.CUPS_OF_COFFEE.ordinal()] = cupsOfCoffee;
+        state[StateField.CUPS_OF_WATER.ordinal()] = cupsOfWater;
+        state[StateField.HAS_POT.ordinal()] = hasPot;
+        return state;
+    }
+}
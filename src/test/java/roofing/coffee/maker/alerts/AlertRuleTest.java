@@ -0,0 +1,44 @@
+package roofing.coffee.maker.alerts;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateField;
+
+class AlertRuleTest {
+
+    private static final StateCondition NO_POT = StateCondition.is(StateField.HAS_POT, false);
+    private static final StateCondition BREWING = StateCondition.is(StateField.IS_BREWING, true);
+
+    @Test
+    void testBuildsCopies() {
+        // Given
+        AlertRule plain = AlertRule.when("pot removed", NO_POT);
+
+        // When
+        AlertRule midBrew = plain.after(BREWING).forMinutes(2);
+
+        // Then
+        assertEquals("pot removed", midBrew.name());
+        assertSame(NO_POT, midBrew.condition());
+        assertSame(BREWING, midBrew.precondition());
+        assertEquals(2, midBrew.minutes());
+
+        assertNull(plain.precondition());
+        assertEquals(0, plain.minutes());
+        assertEquals("AlertRule(name=pot removed)", plain.toString());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        AlertRule rule = AlertRule.when("pot removed", NO_POT);
+
+        assertThrows(IllegalArgumentException.class, () -> rule.forMinutes(-1));
+        assertThrows(NullPointerException.class, () -> AlertRule.when(null, NO_POT));
+        assertThrows(NullPointerException.class, () -> AlertRule.when("pot removed", null));
+        assertThrows(NullPointerException.class, () -> rule.after(null));
+    }
+}
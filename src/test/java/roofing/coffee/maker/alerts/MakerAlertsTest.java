@@ -0,0 +1,233 @@
+package roofing.coffee.maker.alerts;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.subscriptions.StateCondition;
+import roofing.coffee.maker.subscriptions.StateField;
+
+class MakerAlertsTest {
+
+    private static final List<AlertRule> RULES = Arrays.asList(
+            AlertRule.when("warmer on with an empty pot",
+                    StateCondition.is(StateField.IS_HOT, true)
+                            .and(StateCondition.atMost(StateField.CUPS_OF_COFFEE, 0)))
+                    .forMinutes(30),
+            AlertRule.when("brew requested with an empty reservoir",
+                    StateCondition.is(StateField.IS_BREW_REQUESTED, true)
+                            .and(StateCondition.atMost(StateField.CUPS_OF_WATER, 0))),
+            AlertRule.when("pot removed mid-brew", StateCondition.is(StateField.HAS_POT, false))
+                    .after(StateCondition.is(StateField.IS_BREWING, true))
+                    .forMinutes(2));
+
+    private List<Alert> alerts;
+    private AlertEngine engine;
+    private MakerAlerts subject;
+    private int[] state;
+
+    @BeforeEach
+    void initSubject() {
+        alerts = new ArrayList<>();
+        engine = new AlertEngine(RULES, alerts::add);
+        subject = engine.watch(7, 1);
+
+        // An idle CoffeeMaker with its pot in place
+        state = new int[StateField.values().length];
+        state[StateField.HAS_POT.ordinal()] = 1;
+        state[StateField.CUPS_OF_WATER.ordinal()] = 3;
+    }
+
+    @Test
+    void testImmediateRule() {
+        // Given
+        publish(0);
+        assertEquals(0, alerts.size());
+
+        // When
+        set(StateField.CUPS_OF_WATER, 0);
+        set(StateField.IS_BREW_REQUESTED, 1);
+        publish(1);
+        publish(2);
+
+        // Then
+        assertAlerts("brew requested with an empty reservoir", 1, true);
+        assertEquals(1, engine.raised());
+
+        // And when
+        set(StateField.IS_BREW_REQUESTED, 0);
+        publish(3);
+
+        // Then
+        assertAlerts("brew requested with an empty reservoir", 3, false);
+        assertEquals(0, engine.raised());
+        assertEquals(0, subject.active());
+    }
+
+    @Test
+    void testRuleThatHoldsForMinutes() {
+        // Given
+        publish(0);
+        set(StateField.IS_HOT, 1);
+
+        // When
+        for (int ticks = 5; ticks < 35; ticks++) {
+            publish(ticks);
+        }
+
+        // Then
+        assertEquals(0, alerts.size());
+
+        // And when
+        publish(35);
+
+        // Then
+        assertAlerts("warmer on with an empty pot", 35, true);
+        assertEquals(7, alerts.get(0).getDeviceId());
+
+        // And when
+        set(StateField.IS_HOT, 0);
+        publish(40);
+
+        // Then
+        assertAlerts("warmer on with an empty pot", 40, false);
+    }
+
+    @Test
+    void testBrokenConditionRestartsItsMinutes() {
+        // Given
+        set(StateField.IS_HOT, 1);
+        publish(0);
+        set(StateField.IS_HOT, 0);
+        publish(10);
+
+        // When
+        set(StateField.IS_HOT, 1);
+        publish(20);
+        publish(30);
+
+        // Then
+        assertEquals(0, alerts.size());
+
+        // And when
+        publish(50);
+
+        // Then
+        assertAlerts("warmer on with an empty pot", 50, true);
+    }
+
+    @Test
+    void testFastForwardPastDeadline() {
+        // Given
+        set(StateField.IS_HOT, 1);
+        publish(0);
+
+        // When
+        publish(100);
+
+        // Then - the alert dates from its deadline
+        assertAlerts("warmer on with an empty pot", 30, true);
+    }
+
+    @Test
+    void testPrecondition() {
+        // Given - a pot removed while idle
+        publish(0);
+        set(StateField.HAS_POT, 0);
+        for (int ticks = 1; ticks < 10; ticks++) {
+            publish(ticks);
+        }
+
+        set(StateField.HAS_POT, 1);
+        publish(10);
+        assertEquals(0, alerts.size());
+
+        // When - a pot removed mid-brew, which stops the brew
+        set(StateField.IS_BREWING, 1);
+        publish(20);
+        set(StateField.HAS_POT, 0);
+        set(StateField.IS_BREWING, 0);
+        publish(21);
+        publish(22);
+        publish(23);
+
+        // Then
+        assertAlerts("pot removed mid-brew", 23, true);
+
+        // And when - the user replaces the pot, and the brew resumes and completes
+        set(StateField.HAS_POT, 1);
+        set(StateField.IS_BREWING, 1);
+        publish(25);
+        set(StateField.IS_BREWING, 0);
+        publish(26);
+
+        // Then
+        assertAlerts("pot removed mid-brew", 25, false);
+        assertEquals(0, subject.active());
+    }
+
+    @Test
+    void testStopClearsAlerts() {
+        // Given
+        set(StateField.CUPS_OF_WATER, 0);
+        set(StateField.IS_BREW_REQUESTED, 1);
+        set(StateField.IS_HOT, 1);
+        publish(4);
+        assertEquals(2, subject.active());
+
+        // When
+        subject.stop();
+        subject.stop();
+        publish(100);
+
+        // Then
+        assertAlerts("brew requested with an empty reservoir", 4, false);
+        assertEquals(2, alerts.size());
+        assertEquals(0, engine.raised());
+        assertEquals(0, subject.active());
+    }
+
+    @Test
+    void testMinutesInTicks() {
+        // Given - a Clock that ticks every second
+        MakerAlerts seconds = engine.watch(8, 60);
+        set(StateField.IS_HOT, 1);
+        seconds.publish(0, field -> state[field.ordinal()]);
+
+        // When
+        seconds.publish(30 * 60 - 1, field -> state[field.ordinal()]);
+
+        // Then
+        assertEquals(0, alerts.size());
+
+        // And when
+        seconds.publish(30 * 60, field -> state[field.ordinal()]);
+
+        // Then
+        assertAlerts("warmer on with an empty pot", 30 * 60, true);
+        assertEquals(8, alerts.get(0).getDeviceId());
+    }
+
+    private void set(StateField field, int value) {
+        state[field.ordinal()] = value;
+    }
+
+    private void publish(long ticks) {
+        subject.publish(ticks, field -> state[field.ordinal()]);
+    }
+
+    // Asserts that the latest alert matches
+    private void assertAlerts(String rule, long ticks, boolean raised) {
+        assertFalse(alerts.isEmpty());
+
+        Alert latest = alerts.get(alerts.size() - 1);
+        assertEquals(rule, latest.getRule().name());
+        assertEquals(ticks, latest.getTicks());
+        assertEquals(raised, latest.isRaised());
+        assertTrue(latest.toString().startsWith("Alert(rule=AlertRule(name=" + rule));
+    }
+}
@@ -3,6 +3,7 @@ package roofing.coffee.maker.busses;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import roofing.coffee.maker.busses.BusMessage.BusMessageBuilder;
@@ -71,4 +72,10 @@ class BusMessageBuilderTest {
         BusMessageBuilder subject = subjectSupplier.get();
         assertThrows(IllegalStateException.class, () -> subject.build());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testNegativeTicksElapsed() {
+        BusMessageBuilder subject = BusMessage.builder();
+        assertThrows(IllegalArgumentException.class, () -> subject.withTicksElapsed(-1));
+    }
+}
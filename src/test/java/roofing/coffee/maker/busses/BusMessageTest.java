@@ -38,7 +38,7 @@ class BusMessageTest {
 
         // Then
         assertEquals(
-                "BusMessage(reservoir=WaterReservoir(ticksPerCupBrewed=0, maxCapacityCups=11, cupsOfWater=0, isBrewing=false, ticksSinceLastCupBrewed=0), button=BrewButton(brewState=NOT_REQUESTED), pot=CoffeePot(maxCapacityCups=10, ticksPerCupBrewed=1, cupsOfCoffee=0, ticksSinceLastCupBrewed=0), warmer=WarmerPlate(stayHotTickLimit=10, cyclesAfterBrewStopped=0, hasPot=true, isHot=false))",
+                "BusMessage(reservoir=WaterReservoir(ticksPerCupBrewed=1, maxCapacityCups=11, cupsOfWater=0, isBrewing=false, ticksSinceLastCupBrewed=0), button=BrewButton(brewState=NOT_REQUESTED), pot=CoffeePot(maxCapacityCups=10, ticksPerCupBrewed=1, cupsOfCoffee=0, ticksSinceLastCupBrewed=0), warmer=WarmerPlate(stayHotTickLimit=10, hasCooled=false, hasPot=true, isHot=false), ticksElapsed=1)",
                 actual);
     }
 }
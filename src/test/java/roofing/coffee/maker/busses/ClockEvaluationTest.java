@@ -0,0 +1,103 @@
+package roofing.coffee.maker.busses;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.TestTimeCoffeeMakerCreator;
+
+/**
+ * Tests for evaluations that coalesce with a tick that is already in progress.
+ * 
+ * These tests block a tick part-way through its Bus update via a BusComponent that waits on a
+ * latch. Doing so lets us request evaluations at a known point during the tick.
+ * 
+ * @author nferraro-roofing
+ *
+ */
+class ClockEvaluationTest {
+
+    @Test
+    void testEvaluationsCoalesceWithTickInProgress() throws InterruptedException {
+        // Given
+        CountDownLatch tickStarted = new CountDownLatch(1);
+        CountDownLatch releaseTick = new CountDownLatch(1);
+        CoffeeMaker coffeeMaker = TestTimeCoffeeMakerCreator.create();
+        Clock subject = Clock.builder()
+                .coffeeMaker(coffeeMaker)
+                .bus(new Bus(new BlockingComponent(tickStarted, releaseTick)))
+                .build();
+
+        Thread ticker = new Thread(subject::tick);
+        ticker.start();
+        assertTrue(tickStarted.await(10, TimeUnit.SECONDS));
+
+        // When - request several evaluations while the tick holds the Bus
+        subject.evaluate();
+        subject.evaluate();
+        subject.evaluate();
+
+        // Then - nothing happens until the tick finishes, at which point the ticking thread
+        // performs one evaluation on our behalf
+        assertEquals(0, coffeeMaker.clockMetrics().evaluations());
+
+        releaseTick.countDown();
+        ticker.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertEquals(1, coffeeMaker.clockMetrics().steps());
+        assertEquals(1, coffeeMaker.clockMetrics().evaluations());
+    }
+
+    @Test
+    void testTickSatisfiesPendingEvaluation() {
+        // Given
+        CoffeeMaker coffeeMaker = TestTimeCoffeeMakerCreator.create();
+        Clock subject = Clock.builder().coffeeMaker(coffeeMaker).bus(new Bus()).build();
+
+        // When
+        subject.evaluate();
+        subject.tick();
+
+        // Then
+        assertEquals(1, coffeeMaker.clockMetrics().evaluations());
+        assertEquals(1, coffeeMaker.clockMetrics().steps());
+    }
+
+    /*
+     * Blocks the first Bus update that it reads until the test releases it.
+     */
+    private static final class BlockingComponent implements BusComponent<BlockingComponent> {
+
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        private BlockingComponent(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void readBusMessage(BusMessage message) {
+            if (started.getCount() > 0) {
+                started.countDown();
+                awaitRelease();
+            }
+        }
+
+        @Override
+        public void refreshFrom(BlockingComponent from) { /* Stateless */ }
+
+        @Override
+        public void reset() { /* Stateless */ }
+
+        private void awaitRelease() {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package roofing.coffee.maker.busses;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for ClockMetrics logic in isolation.
+ * 
+ * Developers should stray away from such fine-grained tests unless certain execution paths are
+ * tricky to test from coarser-grained perspective. In general, please write tests from a
+ * feature-level perspective and use unit tests for edge cases or special cases only.
+ * 
+ * @author nferraro-roofing
+ *
+ */
+class ClockMetricsTest {
+
+    /**
+     * Ensure that the messaging of {@code toString()) is appropriate for a logging message.
+     * 
+     * It may seem odd to unit test {@code toString()), as it implements has no real logic. However,
+     * {@code toString()) may come into play during logging time. We want to ensure that any 
+     * downstream tools (or even just developer / production support eyes) that hook into our 
+     * enjoy a consistent experience.
+     * 
+     * This may be overkill, though.
+     * 
+     */
+    @Test
+    void testToString() {
+        // Given
+        ClockMetrics subject = new ClockMetrics();
+        subject.recordStep(3);
+        subject.recordLag(5);
+        subject.recordCatchUp(CatchUpPolicy.COALESCE, 2);
+
+        // When
+        String actual = subject.toString();
+
+        // Then
+        assertEquals(
+                "ClockMetrics(ticks=3, steps=1, evaluations=0, lastLagNanos=5, maxLagNanos=5, totalLagNanos=5, missedTicks=2, burstTicks=0, coalescedTicks=2, droppedTicks=0)",
+                actual);
+    }
+}
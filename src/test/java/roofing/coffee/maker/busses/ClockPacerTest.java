@@ -0,0 +1,323 @@
+package roofing.coffee.maker.busses;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.TestTimeCoffeeMakerCreator;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.busses.Clock.Pacer;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests for the Clock's pacing and catch-up logic.
+ * 
+ * We cannot let a Clock tick on a real scheduler at test-time, else our tests may become
+ * non-deterministic. Instead, these tests drive the Clock's Pacer with a fake time source and
+ * pretend that the Clock woke up late, and start the Clock on a ManualScheduler, whose ticks run
+ * only when a test asks.
+ * 
+ * @author nferraro-roofing
+ *
+ */
+class ClockPacerTest {
+
+    private static final long PERIOD = TimeUnit.SECONDS.toNanos(60);
+    private static final long ORIGIN = 1_000L;
+
+    private CoffeeMaker subject;
+    private Clock clock;
+
+    @BeforeEach
+    void initSubjectAndClock() {
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(60L, TimeUnit.SECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10));
+
+        ClockBuilder clockBuilder = Clock.builder();
+        subject = TestTimeCoffeeMakerCreator.create(clockBuilder, props);
+        clock = clockBuilder.build();
+    }
+
+    @Test
+    void testOnTimeTick() {
+        // Given
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.BURST, ORIGIN);
+
+        // When
+        long delay = pacer.advance(ORIGIN);
+
+        // Then
+        assertEquals(PERIOD, delay);
+        assertEquals(1, subject.clockMetrics().steps());
+        assertEquals(1, subject.clockMetrics().ticks());
+        assertEquals(0, subject.clockMetrics().missedTicks());
+        assertEquals(0, subject.clockMetrics().lastLagNanos());
+        assertEquals(1, subject.clockMetrics().lagBucketCount(0));
+    }
+
+    @Test
+    void testLateTickStaysOnSchedule() {
+        // Given
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.BURST, ORIGIN);
+
+        // When - wake up a quarter period late, though not late enough to miss a tick
+        long delay = pacer.advance(ORIGIN + PERIOD / 4);
+
+        // Then - the next tick remains due one period after the origin
+        assertEquals(PERIOD - PERIOD / 4, delay);
+        assertEquals(0, subject.clockMetrics().missedTicks());
+        assertEquals(PERIOD / 4, subject.clockMetrics().maxLagNanos());
+        assertEquals(1, subject.clockMetrics().lagBucketCount(ClockMetrics.LAG_BUCKETS - 1));
+    }
+
+    @Test
+    void testBurstCatchUp() {
+        // Given
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.BURST, ORIGIN);
+        startBrewing(pacer);
+
+        // When - wake up three and a half periods late
+        long delay = pacer.advance(ORIGIN + 3 * PERIOD + 3 * PERIOD + PERIOD / 2);
+
+        // Then
+        assertEquals(PERIOD / 2, delay);
+        assertEquals(3, subject.clockMetrics().missedTicks());
+        assertEquals(3, subject.clockMetrics().burstTicks());
+        assertEquals(7, subject.clockMetrics().steps());
+        assertEquals(7, subject.clockMetrics().ticks());
+        assertEquals(subject.getMaxWaterCapacityCups() - 7, subject.cupsOfWater());
+        assertEquals(6, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testCoalesceCatchUp() {
+        // Given
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.COALESCE, ORIGIN);
+        startBrewing(pacer);
+
+        // When - wake up three and a half periods late
+        long delay = pacer.advance(ORIGIN + 3 * PERIOD + 3 * PERIOD + PERIOD / 2);
+
+        // Then - same brew progress as a burst. Every tick brews a cup, so no step folds a tick.
+        assertEquals(PERIOD / 2, delay);
+        assertEquals(3, subject.clockMetrics().missedTicks());
+        assertEquals(3, subject.clockMetrics().coalescedTicks());
+        assertEquals(7, subject.clockMetrics().steps());
+        assertEquals(7, subject.clockMetrics().ticks());
+        assertEquals(subject.getMaxWaterCapacityCups() - 7, subject.cupsOfWater());
+        assertEquals(6, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testCoalesceRunsOutOfWater() {
+        // Given - 4 cups of water, 2 of which brew on time
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.COALESCE, ORIGIN);
+        subject.fill(4);
+        subject.pressBrewButton();
+        pacer.advance(ORIGIN);
+        pacer.advance(ORIGIN + PERIOD);
+
+        // When - wake up 20 periods late, long after the water runs out
+        pacer.advance(ORIGIN + 22 * PERIOD);
+
+        // Then - the pot holds only the coffee that the water made, as after a burst
+        assertEquals(23, subject.clockMetrics().ticks());
+        assertEquals(0, subject.cupsOfWater());
+        assertEquals(4, subject.cupsOfCoffee());
+        assertFalse(subject.isBrewing());
+    }
+
+    @Test
+    void testCoalesceFoldsTicksBetweenCups() {
+        // Given - a CoffeeMaker that brews a cup every 10 ticks
+        ClockBuilder clockBuilder = Clock.builder();
+        subject = TestTimeCoffeeMakerCreator.create(clockBuilder, new CoffeeMakerProperties(
+                new ClockProps(6L, TimeUnit.SECONDS),
+                new PotProps(10),
+                new ReservoirProps(1),
+                new WarmerPlateProps(10)));
+        clock = clockBuilder.build();
+
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.COALESCE, ORIGIN);
+        subject.fill(2);
+        subject.pressBrewButton();
+
+        // When - wake up 100 periods late, long after the water runs out
+        pacer.advance(ORIGIN + 100 * PERIOD);
+
+        // Then - a handful of steps around each cup, rather than one per tick
+        assertEquals(101, subject.clockMetrics().ticks());
+        assertTrue(subject.clockMetrics().steps() < 20);
+        assertEquals(0, subject.cupsOfWater());
+        assertEquals(2, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testDropCatchUp() {
+        // Given
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.DROP, ORIGIN);
+        startBrewing(pacer);
+
+        // When - wake up three and a half periods late
+        long delay = pacer.advance(ORIGIN + 3 * PERIOD + 3 * PERIOD + PERIOD / 2);
+
+        // Then - the missed ticks are simply gone
+        assertEquals(PERIOD / 2, delay);
+        assertEquals(3, subject.clockMetrics().missedTicks());
+        assertEquals(3, subject.clockMetrics().droppedTicks());
+        assertEquals(4, subject.clockMetrics().steps());
+        assertEquals(4, subject.clockMetrics().ticks());
+        assertEquals(subject.getMaxWaterCapacityCups() - 4, subject.cupsOfWater());
+        assertEquals(3, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testCoalescedWarmerPlateTurnsOff() {
+        // Given - a warmer plate that has never seen a brew stays hot for 10 ticks
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.COALESCE, ORIGIN);
+
+        // When - wake up 15 periods late
+        pacer.advance(ORIGIN + 15 * PERIOD);
+
+        // Then
+        assertEquals(16, subject.clockMetrics().ticks());
+        assertEquals(false, subject.isWarmerPlateOn());
+    }
+
+    @Test
+    void testDroppedTicksDoNotCoolTheWarmerPlate() {
+        // Given - a warmer plate that has never seen a brew stays hot for 10 ticks
+        Pacer pacer = clock.pacer(PERIOD, CatchUpPolicy.DROP, ORIGIN);
+        pacer.advance(ORIGIN);
+
+        // When - wake up 15 periods late, and drop the missed ticks
+        pacer.advance(ORIGIN + 15 * PERIOD);
+
+        // Then - the warmer plate's shutoff counts only the CoffeeMaker's own ticks
+        assertEquals(2, subject.clockMetrics().ticks());
+        assertTrue(subject.isWarmerPlateOn());
+
+        // And when - the CoffeeMaker's own ticks reach the shutoff
+        for (int i = 16; i < 25; i++) {
+            pacer.advance(ORIGIN + i * PERIOD);
+        }
+
+        // Then
+        assertEquals(11, subject.clockMetrics().ticks());
+        assertFalse(subject.isWarmerPlateOn());
+    }
+
+    @Test
+    void testStart() {
+        // Given
+        ManualScheduler scheduler = new ManualScheduler();
+
+        // When
+        clock.start(60L, TimeUnit.SECONDS, CatchUpPolicy.DROP, scheduler);
+
+        // Then - the first tick is due at once, and each tick schedules the next on the clock's
+        // absolute schedule. The scheduler runs each tick early, so tick i is due i periods on.
+        assertEquals(0, scheduler.nextDelayNanos());
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(scheduler.runNext());
+            assertEquals(i, subject.clockMetrics().steps());
+            assertEquals(1, scheduler.pending());
+            assertTrue(scheduler.nextDelayNanos() > (i - 1) * PERIOD);
+            assertTrue(scheduler.nextDelayNanos() <= i * PERIOD);
+        }
+
+        assertTrue(clock.stop());
+    }
+
+    @Test
+    void testStop() {
+        // Given
+        ManualScheduler scheduler = new ManualScheduler();
+        clock.start(60L, TimeUnit.SECONDS, CatchUpPolicy.DROP, scheduler);
+        assertThrows(IllegalStateException.class,
+                () -> clock.start(60L, TimeUnit.SECONDS, CatchUpPolicy.DROP, scheduler));
+        assertThrows(IllegalStateException.class,
+                () -> clock.start(60L, TimeUnit.SECONDS, CatchUpPolicy.DROP));
+        scheduler.runNext();
+
+        // When
+        assertTrue(clock.stop());
+
+        // Then - the next tick never runs, and the scheduler that the clock shared keeps running
+        assertEquals(0, scheduler.pending());
+        assertFalse(scheduler.runNext());
+        assertEquals(1, subject.clockMetrics().steps());
+        assertFalse(scheduler.isShutdown());
+        assertFalse(clock.stop());
+
+        // And a stopped clock may start again
+        clock.start(60L, TimeUnit.SECONDS, CatchUpPolicy.DROP, scheduler);
+        scheduler.runNext();
+        assertEquals(2, subject.clockMetrics().steps());
+        assertTrue(clock.stop());
+    }
+
+    @Test
+    void testStopDuringTick() {
+        // Given - a clock that stops while its first tick schedules the next
+        ManualScheduler scheduler = new ManualScheduler();
+        clock.start(60L, TimeUnit.SECONDS, CatchUpPolicy.DROP, scheduler);
+        scheduler.onNextSchedule(clock::stop);
+
+        // When
+        scheduler.runNext();
+
+        // Then - the tick completes, but cancels the tick that it scheduled
+        assertEquals(1, subject.clockMetrics().steps());
+        assertEquals(0, scheduler.pending());
+        assertFalse(clock.stop());
+    }
+
+    @Test
+    void testStartOnShutDownScheduler() {
+        // Given
+        ManualScheduler scheduler = new ManualScheduler();
+        scheduler.shutdown();
+
+        // When
+        clock.start(60L, TimeUnit.SECONDS, CatchUpPolicy.DROP, scheduler);
+
+        // Then - the clock never ticks
+        assertEquals(0, scheduler.pending());
+        assertEquals(0, subject.clockMetrics().steps());
+        assertTrue(clock.stop());
+    }
+
+    @Test
+    void testLagBucketUpperBounds() {
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1), ClockMetrics.lagBucketUpperBoundNanos(0));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1024),
+                ClockMetrics.lagBucketUpperBoundNanos(10));
+        assertEquals(Long.MAX_VALUE,
+                ClockMetrics.lagBucketUpperBoundNanos(ClockMetrics.LAG_BUCKETS - 1));
+    }
+
+    /*
+     * Fill the CoffeeMaker, press its brew button, and tick on time three times so that both the
+     * reservoir and the pot are brewing.
+     */
+    private void startBrewing(Pacer pacer) {
+        subject.fill(subject.getMaxWaterCapacityCups());
+        subject.pressBrewButton();
+
+        for (int i = 0; i < 3; i++) {
+            pacer.advance(ORIGIN + i * PERIOD);
+        }
+    }
+}
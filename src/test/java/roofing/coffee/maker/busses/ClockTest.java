@@ -1,7 +1,11 @@
 package roofing.coffee.maker.busses;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.CoffeeMaker;
 import roofing.coffee.maker.TestTimeCoffeeMakerCreator;
 import roofing.coffee.maker.busses.Clock.ClockBuilder;
 import roofing.coffee.maker.components.BrewButton;
@@ -45,8 +49,46 @@ class ClockTest {
 
         // Then
         assertEquals(
-                "Clock.ClockBuilder(bus=Bus(synchedComponents=[BrewButton(brewState=NOT_REQUESTED)]), coffeeMaker=CoffeeMaker(reservoir=WaterReservoir(ticksPerCupBrewed=1, maxCapacityCups=11, cupsOfWater=0, isBrewing=false, ticksSinceLastCupBrewed=0), button=BrewButton(brewState=NOT_REQUESTED), pot=CoffeePot(maxCapacityCups=10, ticksPerCupBrewed=1, cupsOfCoffee=0, ticksSinceLastCupBrewed=0), warmer=WarmerPlate(stayHotTickLimit=10, cyclesAfterBrewStopped=0, hasPot=true, isHot=false)))",
+                "Clock.ClockBuilder(bus=Bus(synchedComponents=[BrewButton(brewState=NOT_REQUESTED)]), coffeeMaker=CoffeeMaker(reservoir=WaterReservoir(ticksPerCupBrewed=1, maxCapacityCups=11, cupsOfWater=0, isBrewing=false, ticksSinceLastCupBrewed=0), button=BrewButton(brewState=NOT_REQUESTED), pot=CoffeePot(maxCapacityCups=10, ticksPerCupBrewed=1, cupsOfCoffee=0, ticksSinceLastCupBrewed=0), warmer=WarmerPlate(stayHotTickLimit=10, hasCooled=false, hasPot=true, isHot=false)), timers=null)",
                 actual);
     }
 
+    @Test
+    void testTickManyTimes() {
+        // Given
+        CoffeeMaker coffeeMaker = TestTimeCoffeeMakerCreator.create();
+        Clock subject = Clock.builder()
+                .coffeeMaker(coffeeMaker)
+                .bus(new Bus(new BrewButton()))
+                .build();
+
+        // When
+        subject.tick(5);
+
+        // Then - one tick shows that the idle CoffeeMaker is steady, and one step folds the rest
+        assertEquals(5, coffeeMaker.clockMetrics().ticks());
+        assertEquals(2, coffeeMaker.clockMetrics().steps());
+        assertThrows(IllegalArgumentException.class, () -> subject.tick(0));
+    }
+
+    @Test
+    void testStartRejectsNonPositivePeriod() {
+        // Given
+        Clock subject = Clock.builder()
+                .coffeeMaker(TestTimeCoffeeMakerCreator.create())
+                .bus(new Bus(new BrewButton()))
+                .build();
+        ManualScheduler scheduler = new ManualScheduler();
+
+        // When / Then - the clock refuses to start, rather than fail on its first tick
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.start(0L, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.start(-1L, TimeUnit.SECONDS, CatchUpPolicy.DROP));
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.start(0L, TimeUnit.SECONDS, CatchUpPolicy.BURST, scheduler));
+
+        assertEquals(0, scheduler.pending());
+        assertFalse(subject.stop());
+    }
 }
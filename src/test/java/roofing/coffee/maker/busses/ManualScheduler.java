@@ -0,0 +1,218 @@
+package roofing.coffee.maker.busses;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ManualScheduler queues the one-shot tasks that a Clock schedules, and runs them only when a
+ * test calls {@code runNext()} - on the test's own thread, however long their delay.
+ *
+ * <p>
+ * Tests pass a ManualScheduler to {@code Clock::start} so that they may start and stop a Clock
+ * deterministically, without real threads or sleeps. ManualScheduler supports only
+ * {@code schedule(Runnable, long, TimeUnit)} - the one method that a Clock calls.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+final class ManualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final Deque<ManualTask> tasks = new ArrayDeque<>();
+    private boolean isShutdown = false;
+    private Runnable onNextSchedule = null;
+
+    /**
+     * Run the oldest task that is still pending, which may schedule further tasks.
+     *
+     * @return true if a task ran; false if none was pending.
+     */
+    boolean runNext() {
+        ManualTask next = nextPending();
+        if (next == null) {
+            return false;
+        }
+
+        tasks.remove(next);
+        next.isDone = true;
+        next.command.run();
+        return true;
+    }
+
+    /**
+     * Run {@code action} within the next call to {@code schedule()}, once it has queued its task
+     * but before it returns - e.g. to stop a Clock just as it schedules its next tick.
+     *
+     * @param action what to run
+     */
+    void onNextSchedule(Runnable action) {
+        onNextSchedule = action;
+    }
+
+    /**
+     * Returns the number of tasks that are scheduled and not cancelled.
+     *
+     * @return the number of pending tasks.
+     */
+    int pending() {
+        return (int) tasks.stream().filter(task -> !task.isCancelled).count();
+    }
+
+    /**
+     * Returns the delay, in nanoseconds, with which the oldest pending task was scheduled.
+     *
+     * @return the delay of the oldest pending task.
+     * @throws IllegalStateException if no task is pending.
+     */
+    long nextDelayNanos() {
+        ManualTask next = nextPending();
+        if (next == null) {
+            throw new IllegalStateException("No task is pending");
+        }
+
+        return next.delayNanos;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (isShutdown) {
+            throw new RejectedExecutionException("The scheduler is shut down");
+        }
+
+        ManualTask task = new ManualTask(command, unit.toNanos(delay));
+        tasks.add(task);
+
+        Runnable action = onNextSchedule;
+        onNextSchedule = null;
+        if (action != null) {
+            action.run();
+        }
+
+        return task;
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+            long initialDelay,
+            long period,
+            TimeUnit unit) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+            long initialDelay,
+            long delay,
+            TimeUnit unit) {
+
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void shutdown() {
+        isShutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        isShutdown = true;
+        tasks.clear();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return isShutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isShutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isShutdown;
+    }
+
+    private ManualTask nextPending() {
+        return tasks.stream().filter(task -> !task.isCancelled).findFirst().orElse(null);
+    }
+
+    /*
+     * A task that runs only when its ManualScheduler's runNext() reaches it.
+     */
+    private static final class ManualTask implements ScheduledFuture<Void> {
+
+        private final Runnable command;
+        private final long delayNanos;
+
+        private boolean isCancelled = false;
+        private boolean isDone = false;
+
+        private ManualTask(Runnable command, long delayNanos) {
+            this.command = command;
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(delayNanos, other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone || isCancelled) {
+                return false;
+            }
+
+            isCancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return isCancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return isDone || isCancelled;
+        }
+
+        @Override
+        public Void get() {
+            return null;
+        }
+
+        @Override
+        public Void get(long timeout, TimeUnit unit) {
+            return null;
+        }
+    }
+}
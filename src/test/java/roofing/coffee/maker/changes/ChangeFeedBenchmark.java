@@ -0,0 +1,69 @@
+package roofing.coffee.maker.changes;
+
+import java.util.Random;
+import roofing.coffee.maker.BenchmarkReport;
+
+/**
+ * Measures how long a ChangeFeed takes to list the CoffeeMakers that changed since a client's last
+ * poll, as the fleet grows.
+ *
+ * For each fleet size, every CoffeeMaker first reports its state. Each round, 1% of the fleet -
+ * or, separately, a fixed 100 CoffeeMakers - then changes its state, some CoffeeMakers more than
+ * once, before a client polls the feed for the changes since its previous poll. The poll's cost
+ * should follow the number of changes rather than the size of the fleet.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class ChangeFeedBenchmark {
+
+    private static final int[] FLEET_SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ROUNDS = 2_000;
+
+    // Keeps the polls' results from being optimized away
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        for (int makers : FLEET_SIZES) {
+            measure(makers, makers / 100, "1% changed");
+            measure(makers, 100, "100 changed");
+        }
+    }
+
+    private static void measure(int makers, int changesPerRound, String label) {
+        ChangeFeed feed = new ChangeFeed(makers, changesPerRound * 4);
+        for (int deviceId = 0; deviceId < makers; deviceId++) {
+            feed.update(deviceId, 0, 0, false, false, true);
+        }
+
+        Random random = new Random(42);
+        long[] latencies = new long[ROUNDS];
+        long listed = 0;
+        int cups = 0;
+
+        for (int round = 0; round < 2; round++) {
+            long version = feed.version();
+            listed = 0;
+
+            for (int i = 0; i < ROUNDS; i++) {
+                cups++;
+                for (int change = 0; change < changesPerRound; change++) {
+                    feed.update(random.nextInt(makers), 0, cups, true, true, true);
+                }
+
+                long start = System.nanoTime();
+                ChangeFeed.Changes changes = feed.changesSince(version);
+                latencies[i] = System.nanoTime() - start;
+
+                version = changes.getVersion();
+                listed += changes.getDeviceIds().length;
+                sink += changes.getDeviceIds().length;
+            }
+        }
+
+        String fleet = String.format("%,d makers", makers);
+        BenchmarkReport.latencies("changesSince() " + label + ", " + fleet, latencies);
+        BenchmarkReport.value("changesSince() makers listed, " + label + ", " + fleet,
+                String.format("%,d", listed / ROUNDS));
+    }
+}
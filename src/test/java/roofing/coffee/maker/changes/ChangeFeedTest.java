@@ -0,0 +1,149 @@
+package roofing.coffee.maker.changes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.changes.ChangeFeed.Changes;
+
+class ChangeFeedTest {
+
+    private ChangeFeed subject;
+
+    @BeforeEach
+    void initSubject() {
+        subject = new ChangeFeed(100, 16);
+    }
+
+    @Test
+    void testChangesSinceVersion() {
+        // Given
+        subject.update(3, 5, 0, false, false, true);
+        subject.update(40, 0, 0, false, false, true);
+        long version = subject.changesSince(0).getVersion();
+
+        // When
+        subject.update(40, 0, 0, true, false, true);
+        subject.update(7, 2, 0, false, false, true);
+
+        // Then
+        Changes changes = subject.changesSince(version);
+        assertEquals(4, changes.getVersion());
+        assertEquals(4, subject.version());
+        assertArrayEquals(new int[] {7, 40}, sorted(changes.getDeviceIds()));
+        assertArrayEquals(new int[] {3, 7, 40}, sorted(subject.changesSince(0).getDeviceIds()));
+        assertArrayEquals(new int[0], subject.changesSince(4).getDeviceIds());
+    }
+
+    @Test
+    void testEachDeviceOncePerCall() {
+        // Given
+        subject.update(1, 5, 0, true, false, true);
+        subject.update(2, 5, 0, false, false, true);
+
+        // When - one CoffeeMaker brews several cups in between polls
+        for (int cups = 1; cups <= 5; cups++) {
+            subject.update(1, 5 - cups, cups, true, cups > 0, true);
+        }
+
+        // Then
+        assertEquals(7, subject.version());
+        assertArrayEquals(new int[] {2, 1}, subject.changesSince(0).getDeviceIds());
+        assertArrayEquals(new int[] {1}, subject.changesSince(2).getDeviceIds());
+    }
+
+    @Test
+    void testUnchangedStateLogsNothing() {
+        // Given
+        subject.update(9, 0, 0, false, false, true);
+
+        // When
+        subject.update(9, 0, 0, false, false, true);
+        subject.update(9, 0, 0, false, false, true);
+
+        // Then
+        assertEquals(1, subject.version());
+
+        // And when - any part of the state changes
+        subject.update(9, 0, 0, false, false, false);
+        subject.update(9, 0, 0, false, true, false);
+        subject.update(9, 1, 0, false, true, false);
+        subject.update(9, 1, 1, false, true, false);
+
+        // Then
+        assertEquals(5, subject.version());
+    }
+
+    @Test
+    void testRemoveIsAChange() {
+        // Given
+        subject.update(5, 0, 2, false, true, true);
+        long version = subject.version();
+
+        // When
+        subject.remove(5);
+        subject.remove(5);
+        subject.remove(6);
+        subject.update(5, 0, 3, false, true, true);
+
+        // Then
+        assertEquals(version + 2, subject.version());
+        assertArrayEquals(new int[] {5, 6}, sorted(subject.changesSince(version).getDeviceIds()));
+    }
+
+    @Test
+    void testScansOnceTheLogWraps() {
+        // Given
+        subject.update(0, 1, 0, false, false, true);
+        long version = subject.version();
+
+        // When - more changes than the log holds
+        for (int change = 0; change < 50; change++) {
+            subject.update(10 + change % 20, change, 0, false, false, true);
+        }
+
+        // Then
+        Changes changes = subject.changesSince(version);
+        assertEquals(51, changes.getVersion());
+        assertEquals(20, changes.getDeviceIds().length);
+        for (int deviceId : changes.getDeviceIds()) {
+            assertTrue(deviceId >= 10 && deviceId < 30);
+        }
+
+        assertEquals(21, subject.changesSince(0).getDeviceIds().length);
+        assertEquals(16, subject.changesSince(35).getDeviceIds().length);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ChangeFeed(-1, 16));
+        assertThrows(IllegalArgumentException.class, () -> new ChangeFeed(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ChangeFeed(10, (1 << 30) + 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.update(-1, 0, 0, false, false, true));
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.update(100, 0, 0, false, false, true));
+        assertThrows(IllegalArgumentException.class, () -> subject.remove(100));
+        assertThrows(IllegalArgumentException.class, () -> subject.changesSince(-1));
+        assertThrows(IllegalArgumentException.class, () -> subject.changesSince(1));
+    }
+
+    @Test
+    void testToString() {
+        // Given
+        subject.update(4, 0, 0, false, false, true);
+
+        // Then
+        assertEquals(100, subject.capacity());
+        assertEquals("ChangeFeed.Changes(version=1, deviceIds=[4])",
+                subject.changesSince(0).toString());
+    }
+
+    private static int[] sorted(int[] deviceIds) {
+        Arrays.sort(deviceIds);
+        return deviceIds;
+    }
+}
@@ -1,7 +1,13 @@
 package roofing.coffee.maker.components;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.BusMessage;
 
 /**
  * Tests for CoffeePot logic in isolation.
@@ -39,4 +45,79 @@ class CoffeePotTest {
                 "CoffeePot(maxCapacityCups=3, ticksPerCupBrewed=4, cupsOfCoffee=0, ticksSinceLastCupBrewed=0)",
                 actual);
     }
+
+    @Test
+    void testConcurrentPoursWhileBrewingLoseNothing() throws InterruptedException {
+        // Given - a pot with some coffee in it, and a message that brews one cup per read
+        int initialCups = 40_000;
+        int brewedCups = 40_000;
+        CoffeePot subject = new CoffeePot(initialCups + brewedCups, 1);
+        BusMessage brewing = brewingMessage();
+
+        for (int i = 0; i < initialCups; i++) {
+            subject.readBusMessage(brewing);
+        }
+
+        // When - pourers drink exactly the initial coffee while the pot brews more
+        int pourers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < pourers; i++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int cup = 0; cup < initialCups / pourers; cup++) {
+                    subject.pourOutCoffee(1);
+                }
+            }));
+        }
+
+        threads.add(new Thread(() -> {
+            await(start);
+            for (int cup = 0; cup < brewedCups; cup++) {
+                subject.readBusMessage(brewing);
+            }
+        }));
+
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then - the level never dipped below zero, so neither a pour nor a brewed cup went missing
+        assertEquals(brewedCups, subject.cupsOfCoffee());
+    }
+
+    @Test
+    void testPourFloorsAtZero() {
+        // Given
+        CoffeePot subject = new CoffeePot(3, 1);
+        BusMessage brewing = brewingMessage();
+        subject.readBusMessage(brewing);
+        subject.readBusMessage(brewing);
+
+        // When
+        subject.pourOutCoffee(5);
+
+        // Then
+        assertEquals(0, subject.cupsOfCoffee());
+    }
+
+    private static BusMessage brewingMessage() {
+        WaterReservoir reservoir = mock(WaterReservoir.class);
+        when(reservoir.isBrewing()).thenReturn(true);
+
+        BusMessage message = mock(BusMessage.class);
+        when(message.getReservoir()).thenReturn(reservoir);
+        when(message.getTicksElapsed()).thenReturn(1L);
+        return message;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
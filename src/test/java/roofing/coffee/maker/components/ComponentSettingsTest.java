@@ -0,0 +1,94 @@
+package roofing.coffee.maker.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for ComponentSettings in isolation.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class ComponentSettingsTest {
+
+    @Test
+    void testOfSharesInstances() {
+        // When
+        ComponentSettings first = ComponentSettings.of(10, 4, 7);
+        ComponentSettings second = ComponentSettings.of(10, 4, 7);
+
+        // Then
+        assertSame(first, second);
+        assertSame(ComponentSettings.NONE, ComponentSettings.of(0, 0, 0));
+    }
+
+    @Test
+    void testWithLeavesOriginalAlone() {
+        // Given
+        ComponentSettings original = ComponentSettings.of(10, 4, 7);
+
+        // When
+        ComponentSettings pot = original.withPotMaxCapacityCups(12);
+        ComponentSettings rate = original.withTicksPerCupBrewed(5);
+        ComponentSettings warmer = original.withWarmerPlateStayHotTickLimit(8);
+
+        // Then
+        assertEquals(ComponentSettings.of(10, 4, 7), original);
+        assertSame(ComponentSettings.of(12, 4, 7), pot);
+        assertSame(ComponentSettings.of(10, 5, 7), rate);
+        assertSame(ComponentSettings.of(10, 4, 8), warmer);
+        assertNotEquals(original, pot);
+        assertNotEquals(original, null);
+        assertNotEquals(original, "ComponentSettings");
+        assertSame(original, original.withTicksPerCupBrewed(4));
+    }
+
+    @Test
+    void testRefreshFromCopiesSettings() {
+        // Given
+        ComponentSettings settings = ComponentSettings.of(10, 4, 7);
+        CoffeePot pot = CoffeePot.busMessageInstance();
+        WaterReservoir reservoir = WaterReservoir.busMessageInstance();
+        WarmerPlate warmer = WarmerPlate.busMessageInstance();
+
+        // When
+        pot.refreshFrom(new CoffeePot(settings, null));
+        reservoir.refreshFrom(new WaterReservoir(settings, null));
+        warmer.refreshFrom(new WarmerPlate(settings, null));
+
+        // Then
+        assertSame(settings, pot.settings());
+        assertSame(settings, reservoir.settings());
+        assertSame(settings, warmer.settings());
+        assertEquals(11, reservoir.maxCapacityCups());
+    }
+
+    @Test
+    void testNullSettings() {
+        // Given
+        CoffeePot pot = CoffeePot.busMessageInstance();
+        WaterReservoir reservoir = WaterReservoir.busMessageInstance();
+        WarmerPlate warmer = WarmerPlate.busMessageInstance();
+
+        // When / Then
+        assertThrows(NullPointerException.class, () -> new CoffeePot(null, null));
+        assertThrows(NullPointerException.class, () -> new WaterReservoir(null, null));
+        assertThrows(NullPointerException.class, () -> new WarmerPlate(null, null));
+        assertThrows(NullPointerException.class, () -> pot.overrideSettings(null));
+        assertThrows(NullPointerException.class, () -> reservoir.overrideSettings(null));
+        assertThrows(NullPointerException.class, () -> warmer.overrideSettings(null));
+    }
+
+    @Test
+    void testToString() {
+        // When
+        String actual = ComponentSettings.of(10, 4, 7).toString();
+
+        // Then
+        assertEquals("ComponentSettings(potMaxCapacityCups=10, ticksPerCupBrewed=4, "
+                + "warmerPlateStayHotTickLimit=7)", actual);
+    }
+}
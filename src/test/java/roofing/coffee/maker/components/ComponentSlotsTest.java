@@ -0,0 +1,177 @@
+package roofing.coffee.maker.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Bus;
+import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.events.ComponentEventSink;
+
+/**
+ * Tests that ComponentSlots ticks a slot exactly as the Bus ticks the components that it mirrors.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class ComponentSlotsTest {
+
+    private static final ComponentSettings SETTINGS = ComponentSettings.of(4, 2, 3);
+    private static final int OFFSET = ComponentSlots.SLOT_BYTES;
+
+    private WaterReservoir reservoir;
+    private BrewButton button;
+    private CoffeePot pot;
+    private WarmerPlate warmer;
+    private Bus bus;
+
+    private ByteBuffer slots;
+
+    @BeforeEach
+    void initSubjects() {
+        reservoir = new WaterReservoir(SETTINGS, ComponentEventSink.NONE);
+        button = new BrewButton();
+        pot = new CoffeePot(SETTINGS, ComponentEventSink.NONE);
+        warmer = new WarmerPlate(SETTINGS, ComponentEventSink.NONE);
+        bus = new Bus(reservoir, button, pot, warmer);
+
+        // The slot under test sits between two others, which must stay untouched
+        slots = ByteBuffer.allocateDirect(3 * ComponentSlots.SLOT_BYTES);
+    }
+
+    @Test
+    void testSlotMatchesComponents() {
+        // Brew, pausing once for a removed pot
+        fill(5);
+        pressBrewButton();
+        tickAndCompare(3);
+        movePot(false);
+        tickAndCompare(2);
+        movePot(true);
+        tickAndCompare(12);
+
+        // Pour, refill, and brew until the pot is full
+        pourOutCoffee(3);
+        fill(reservoir.maxCapacityCups() - reservoir.cupsOfWater());
+        pressBrewButton();
+        tickAndCompare(20);
+
+        // Cancel a brew part way through
+        pourOutCoffee(10);
+        pressBrewButton();
+        tickAndCompare(3);
+        pressBrewButton();
+        tickAndCompare(6);
+
+        // A request that waits for water
+        while (reservoir.cupsOfWater() > 0) {
+            pourOutCoffee(10);
+            pressBrewButton();
+            tickAndCompare(30);
+        }
+
+        pressBrewButton();
+        tickAndCompare(2);
+        fill(2);
+        tickAndCompare(10);
+
+        for (int slot = 0; slot < 3 * ComponentSlots.SLOT_BYTES; slot += 4) {
+            if (slot < OFFSET || slot >= 2 * OFFSET) {
+                assertEquals(0, slots.getInt(slot), "Byte " + slot);
+            }
+        }
+    }
+
+    @Test
+    void testOverfill() {
+        // Given
+        ComponentSlots.fill(slots, OFFSET, SETTINGS, 4);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> ComponentSlots.fill(slots, OFFSET, SETTINGS, 2));
+        assertEquals(4, ComponentSlots.cupsOfWater(slots, OFFSET));
+
+        ComponentSlots.fill(slots, OFFSET, SETTINGS, 1);
+        assertEquals(5, ComponentSlots.cupsOfWater(slots, OFFSET));
+    }
+
+    @Test
+    void testMovePotTwice() {
+        assertTrue(ComponentSlots.hasPot(slots, OFFSET));
+        assertFalse(ComponentSlots.movePot(slots, OFFSET, true));
+
+        assertTrue(ComponentSlots.movePot(slots, OFFSET, false));
+        assertFalse(ComponentSlots.movePot(slots, OFFSET, false));
+        assertFalse(ComponentSlots.hasPot(slots, OFFSET));
+    }
+
+    @Test
+    void testZeroTicksPerCupNeverBrewsACup() {
+        // Given
+        ComponentSettings stalled = SETTINGS.withTicksPerCupBrewed(0);
+        ComponentSlots.fill(slots, OFFSET, stalled, 2);
+        ComponentSlots.pressBrewButton(slots, OFFSET);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            ComponentSlots.tick(slots, OFFSET, stalled);
+        }
+
+        // Then
+        assertTrue(ComponentSlots.isBrewing(slots, OFFSET));
+        assertEquals(2, ComponentSlots.cupsOfWater(slots, OFFSET));
+        assertEquals(0, ComponentSlots.cupsOfCoffee(slots, OFFSET));
+    }
+
+    private void fill(int cups) {
+        reservoir.fill(cups);
+        ComponentSlots.fill(slots, OFFSET, SETTINGS, cups);
+    }
+
+    private void pressBrewButton() {
+        button.pressBrewButton();
+        ComponentSlots.pressBrewButton(slots, OFFSET);
+    }
+
+    private void pourOutCoffee(int cups) {
+        pot.pourOutCoffee(cups);
+        ComponentSlots.pourOutCoffee(slots, OFFSET, cups);
+    }
+
+    private void movePot(boolean hasPot) {
+        if (hasPot) {
+            warmer.replacePot();
+        } else {
+            warmer.removePot();
+        }
+
+        assertTrue(ComponentSlots.movePot(slots, OFFSET, hasPot));
+    }
+
+    private void tickAndCompare(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            bus.update(BusMessage.builder()
+                    .withBrewButton(button)
+                    .withCoffeePot(pot)
+                    .withWarmerPlate(warmer)
+                    .withWaterReservoir(reservoir)
+                    .withTicksElapsed(1)
+                    .build());
+            ComponentSlots.tick(slots, OFFSET, SETTINGS);
+
+            assertEquals(reservoir.cupsOfWater(), ComponentSlots.cupsOfWater(slots, OFFSET));
+            assertEquals(pot.cupsOfCoffee(), ComponentSlots.cupsOfCoffee(slots, OFFSET));
+            assertEquals(reservoir.isBrewing(), ComponentSlots.isBrewing(slots, OFFSET));
+            assertEquals(warmer.isHot(), ComponentSlots.isHot(slots, OFFSET));
+            assertEquals(warmer.hasPot(), ComponentSlots.hasPot(slots, OFFSET));
+            assertEquals(button.isBrewRequested(),
+                    ComponentSlots.brewRequest(slots, OFFSET) != ComponentSlots.NOT_REQUESTED);
+            assertEquals(reservoir.ticksSinceLastCupBrewed(), slots.getLong(OFFSET + 8));
+            assertEquals(pot.ticksSinceLastCupBrewed(), slots.getLong(OFFSET + 16));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package roofing.coffee.maker.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Bus;
+import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.events.ComponentEventSink;
+
+/**
+ * Tests for DormantState in isolation.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class DormantStateTest {
+
+    private static final ComponentSettings SETTINGS = ComponentSettings.of(10, 1, 3);
+
+    private WaterReservoir reservoir;
+    private BrewButton button;
+    private CoffeePot pot;
+    private WarmerPlate warmer;
+    private Bus bus;
+
+    @BeforeEach
+    void initComponents() {
+        reservoir = new WaterReservoir(SETTINGS, ComponentEventSink.NONE);
+        button = new BrewButton();
+        pot = new CoffeePot(SETTINGS, ComponentEventSink.NONE);
+        warmer = new WarmerPlate(SETTINGS, ComponentEventSink.NONE);
+        bus = new Bus(reservoir, button, pot, warmer);
+    }
+
+    @Test
+    void testPackAndUnpack() {
+        // Given - a maker that brewed, cooled down, and then lost its pot
+        reservoir.fill(5);
+        button.pressBrewButton();
+        tick(10);
+        pot.pourOutCoffee(2);
+        warmer.removePot();
+        tick(1);
+        reservoir.fill(4);
+        assertTrue(DormantState.isAtRest(reservoir, button, pot, warmer));
+
+        long[] words = new long[1 + DormantState.WORDS];
+
+        // When
+        DormantState.pack(reservoir, pot, warmer, words, 1);
+        WaterReservoir restoredReservoir = new WaterReservoir(SETTINGS, ComponentEventSink.NONE);
+        CoffeePot restoredPot = new CoffeePot(SETTINGS, ComponentEventSink.NONE);
+        WarmerPlate restoredWarmer = new WarmerPlate(SETTINGS, ComponentEventSink.NONE);
+        DormantState.unpack(words, 1, restoredReservoir, restoredPot, restoredWarmer);
+
+        // Then
+        assertEquals(0L, words[0]);
+        assertEquals(4, DormantState.cupsOfWater(words, 1));
+        assertEquals(3, DormantState.cupsOfCoffee(words, 1));
+        assertFalse(DormantState.hasPot(words, 1));
+        assertEquals(reservoir.toString(), restoredReservoir.toString());
+        assertEquals(pot.toString(), restoredPot.toString());
+        assertEquals(warmer.toString(), restoredWarmer.toString());
+        assertEquals(4, restoredReservoir.cupsOfWater());
+        assertEquals(3, restoredPot.cupsOfCoffee());
+        assertFalse(restoredWarmer.hasPot());
+        assertTrue(DormantState.isAtRest(restoredReservoir, button, restoredPot, restoredWarmer));
+    }
+
+    @Test
+    void testAtRestMakerIgnoresTicks() {
+        // Given
+        reservoir.fill(2);
+        button.pressBrewButton();
+        tick(10);
+        assertTrue(DormantState.isAtRest(reservoir, button, pot, warmer));
+
+        long[] before = new long[DormantState.WORDS];
+        DormantState.pack(reservoir, pot, warmer, before, 0);
+
+        // When
+        tick(100);
+
+        // Then
+        long[] after = new long[DormantState.WORDS];
+        DormantState.pack(reservoir, pot, warmer, after, 0);
+        assertEquals(before[0], after[0]);
+        assertEquals(before[1], after[1]);
+    }
+
+    @Test
+    void testUnpackAllZeros() {
+        // When
+        DormantState.unpack(new long[DormantState.WORDS], 0, reservoir, pot, warmer);
+
+        // Then - a new maker whose WarmerPlate has cooled down
+        assertEquals(0, reservoir.cupsOfWater());
+        assertEquals(0, pot.cupsOfCoffee());
+        assertTrue(warmer.hasPot());
+        assertFalse(warmer.isHot());
+        assertTrue(DormantState.isAtRest(reservoir, button, pot, warmer));
+    }
+
+    @Test
+    void testNotAtRest() {
+        // A new WarmerPlate has not cooled down yet
+        assertFalse(DormantState.isAtRest(reservoir, button, pot, warmer));
+        tick(4);
+        assertTrue(DormantState.isAtRest(reservoir, button, pot, warmer));
+
+        // A brew request that waits for water
+        button.pressBrewButton();
+        assertFalse(DormantState.isAtRest(reservoir, button, pot, warmer));
+        tick(1);
+        assertFalse(DormantState.isAtRest(reservoir, button, pot, warmer));
+
+        // Brewing
+        reservoir.fill(3);
+        tick(1);
+        assertTrue(reservoir.isBrewing());
+        assertFalse(DormantState.isAtRest(reservoir, button, pot, warmer));
+        tick(4);
+
+        // A hot WarmerPlate
+        assertFalse(warmer.isAtRest());
+        tick(10);
+        assertTrue(DormantState.isAtRest(reservoir, button, pot, warmer));
+
+        // A removed pot that the WarmerPlate has not yet noticed
+        warmer.removePot();
+        assertFalse(DormantState.isAtRest(reservoir, button, pot, warmer));
+        tick(1);
+        assertTrue(DormantState.isAtRest(reservoir, button, pot, warmer));
+    }
+
+    @Test
+    void testTooManyTicksToPack() {
+        // Given
+        tick(4);
+        long tooMany = Integer.MAX_VALUE + 1L;
+
+        // When / Then
+        reservoir.restore(0, tooMany);
+        assertFalse(DormantState.isAtRest(reservoir, button, pot, warmer));
+
+        reservoir.restore(0, 0);
+        pot.restore(0, tooMany);
+        assertFalse(DormantState.isAtRest(reservoir, button, pot, warmer));
+    }
+
+    private void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            BusMessage message = BusMessage.builder()
+                    .withBrewButton(button)
+                    .withCoffeePot(pot)
+                    .withWarmerPlate(warmer)
+                    .withWaterReservoir(reservoir)
+                    .withTicksElapsed(1)
+                    .build();
+            bus.update(message);
+        }
+    }
+}
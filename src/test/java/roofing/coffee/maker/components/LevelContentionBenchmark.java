@@ -0,0 +1,116 @@
+package roofing.coffee.maker.components;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import roofing.coffee.maker.BenchmarkReport;
+import roofing.coffee.maker.busses.BusMessage;
+
+/**
+ * Measures pour throughput on one CoffeePot while many threads pour from it and the Clock's thread
+ * keeps brewing into it.
+ *
+ * Each run pits lock-free pours against the same pours with a lock around every pour and every
+ * brewed cup - i.e. what the Clock's thread would have to take if the levels were guarded by a lock
+ * rather than updated via compare-and-set.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class LevelContentionBenchmark {
+
+    private static final int POURS_PER_THREAD = 2_000_000;
+    private static final int[] POURER_COUNTS = {1, 4, 16, 64};
+
+    public static void main(String[] args) throws InterruptedException {
+        BusMessage brewing = brewingMessage();
+
+        // Warm up
+        measure(4, brewing, false);
+        measure(4, brewing, true);
+
+        for (int pourers : POURER_COUNTS) {
+            long ops = (long) pourers * POURS_PER_THREAD;
+            BenchmarkReport.throughput("lock-free pours, " + pourers + " pourers",
+                    ops,
+                    measure(pourers, brewing, false));
+            BenchmarkReport.throughput("locked pours, " + pourers + " pourers",
+                    ops,
+                    measure(pourers, brewing, true));
+        }
+
+        System.exit(0);
+    }
+
+    private static long measure(int pourers, BusMessage brewing, boolean locked)
+            throws InterruptedException {
+
+        CoffeePot pot = new CoffeePot(Integer.MAX_VALUE, 1);
+        Object lock = new Object();
+        AtomicBoolean pouring = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread brewer = new Thread(() -> {
+            while (pouring.get()) {
+                if (locked) {
+                    synchronized (lock) {
+                        pot.readBusMessage(brewing);
+                    }
+                } else {
+                    pot.readBusMessage(brewing);
+                }
+            }
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < pourers; i++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int pour = 0; pour < POURS_PER_THREAD; pour++) {
+                    if (locked) {
+                        synchronized (lock) {
+                            pot.pourOutCoffee(1);
+                        }
+                    } else {
+                        pot.pourOutCoffee(1);
+                    }
+                }
+            }));
+        }
+
+        brewer.start();
+        threads.forEach(Thread::start);
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long elapsed = System.nanoTime() - begin;
+        pouring.set(false);
+        brewer.join();
+        return elapsed;
+    }
+
+    private static BusMessage brewingMessage() {
+        WaterReservoir reservoir = mock(WaterReservoir.class);
+        when(reservoir.isBrewing()).thenReturn(true);
+
+        BusMessage message = mock(BusMessage.class);
+        when(message.getReservoir()).thenReturn(reservoir);
+        when(message.getTicksElapsed()).thenReturn(1L);
+        return message;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
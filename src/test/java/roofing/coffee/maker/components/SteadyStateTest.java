@@ -0,0 +1,116 @@
+package roofing.coffee.maker.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.Bus;
+import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.events.ComponentEventSink;
+
+/**
+ * Tests for SteadyState in isolation.
+ *
+ * @author nferraro-roofing
+ *
+ */
+class SteadyStateTest {
+
+    private static final ComponentSettings SETTINGS = ComponentSettings.of(10, 8, 3);
+
+    private WaterReservoir reservoir;
+    private BrewButton button;
+    private CoffeePot pot;
+    private WarmerPlate warmer;
+    private Bus bus;
+
+    @BeforeEach
+    void initComponents() {
+        initComponents(SETTINGS);
+    }
+
+    @Test
+    void testSignatureIgnoresProgressTowardsNextCup() {
+        // Given - a brew under way, once the BrewButton has settled
+        reservoir.fill(3);
+        button.pressBrewButton();
+        tick(4);
+        long brewing = signature();
+        long untilNextCup = SteadyState.ticksUntilNextCup(reservoir, pot);
+
+        // When
+        tick(1);
+
+        // Then - only the ticks towards the next cup changed
+        assertEquals(brewing, signature());
+        assertEquals(untilNextCup - 1, SteadyState.ticksUntilNextCup(reservoir, pot));
+
+        // And when - the next cup falls due
+        tick((int) untilNextCup - 1);
+
+        // Then
+        assertNotEquals(brewing, signature());
+    }
+
+    @Test
+    void testSignatureTracksEveryOtherChange() {
+        long initial = signature();
+
+        // A brew request
+        button.pressBrewButton();
+        long requested = signature();
+        assertNotEquals(initial, requested);
+
+        // The BrewButton noticing the request
+        tick(1);
+        long noticed = signature();
+        assertNotEquals(requested, noticed);
+
+        // The WarmerPlate cooling down
+        tick(3);
+        long cooled = signature();
+        assertNotEquals(noticed, cooled);
+
+        // A removed pot
+        warmer.removePot();
+        assertNotEquals(cooled, signature());
+    }
+
+    @Test
+    void testNoCupDue() {
+        // A CoffeeMaker that does not brew
+        assertEquals(Long.MAX_VALUE, SteadyState.ticksUntilNextCup(reservoir, pot));
+
+        // And one whose components never brew a cup
+        initComponents(ComponentSettings.of(10, 0, 3));
+        reservoir.fill(3);
+        button.pressBrewButton();
+        tick(2);
+        assertEquals(Long.MAX_VALUE, SteadyState.ticksUntilNextCup(reservoir, pot));
+    }
+
+    private void initComponents(ComponentSettings settings) {
+        reservoir = new WaterReservoir(settings, ComponentEventSink.NONE);
+        button = new BrewButton();
+        pot = new CoffeePot(settings, ComponentEventSink.NONE);
+        warmer = new WarmerPlate(settings, ComponentEventSink.NONE);
+        bus = new Bus(reservoir, button, pot, warmer);
+    }
+
+    private long signature() {
+        return SteadyState.signature(reservoir, button, pot, warmer);
+    }
+
+    private void tick(int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            BusMessage message = BusMessage.builder()
+                    .withBrewButton(button)
+                    .withCoffeePot(pot)
+                    .withWarmerPlate(warmer)
+                    .withWaterReservoir(reservoir)
+                    .withTicksElapsed(1)
+                    .build();
+            bus.update(message);
+        }
+    }
+}
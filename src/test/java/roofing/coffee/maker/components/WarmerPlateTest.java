@@ -1,7 +1,12 @@
 package roofing.coffee.maker.components;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.busses.BusMessage;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.timers.TimerWheel;
 
 /**
  * Tests for WarmerPlate logic in isolation.
@@ -36,7 +41,50 @@ class WarmerPlateTest {
 
         // Then
         assertEquals(
-                "WarmerPlate(stayHotTickLimit=10, cyclesAfterBrewStopped=0, hasPot=true, isHot=false)",
+                "WarmerPlate(stayHotTickLimit=10, hasCooled=false, hasPot=true, isHot=false)",
                 actual);
     }
+
+    /**
+     * A WarmerPlate that shares a TimerWheel leaves the wheel to its owner, and turns off on the
+     * first message after its shutoff expires - however many messages arrive before then.
+     */
+    @Test
+    void testSharedTimerWheel() {
+        // Given
+        TimerWheel timers = new TimerWheel();
+        WarmerPlate subject =
+                new WarmerPlate(ComponentSettings.of(10, 1, 3), ComponentEventSink.NONE, timers);
+
+        // When - messages, but no advance of the wheel
+        for (int i = 0; i < 10; i++) {
+            subject.readBusMessage(message(1));
+        }
+
+        // Then
+        assertTrue(subject.isHot());
+        assertEquals(0, timers.now());
+        assertEquals(1, timers.pending());
+
+        // And when - the wheel's owner advances it up to the shutoff
+        timers.advance(2);
+        subject.readBusMessage(message(0));
+
+        // Then
+        assertTrue(subject.isHot());
+        timers.advance(1);
+        subject.readBusMessage(message(0));
+        assertFalse(subject.isHot());
+        assertEquals(0, timers.pending());
+    }
+
+    private static BusMessage message(long ticksElapsed) {
+        return BusMessage.builder()
+                .withBrewButton(new BrewButton())
+                .withCoffeePot(CoffeePot.busMessageInstance())
+                .withWarmerPlate(WarmerPlate.busMessageInstance())
+                .withWaterReservoir(WaterReservoir.busMessageInstance())
+                .withTicksElapsed(ticksElapsed)
+                .build();
+    }
 }
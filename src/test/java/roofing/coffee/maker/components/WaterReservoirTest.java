@@ -1,6 +1,10 @@
 package roofing.coffee.maker.components;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -39,4 +43,37 @@ class WaterReservoirTest {
                 "WaterReservoir(ticksPerCupBrewed=60, maxCapacityCups=11, cupsOfWater=0, isBrewing=false, ticksSinceLastCupBrewed=0)",
                 actual);
     }
+
+    @Test
+    void testConcurrentFillsNeverOverfill() throws InterruptedException {
+        // Given
+        WaterReservoir subject = new WaterReservoir(50_000, 60);
+        int maxCups = subject.maxCapacityCups();
+        AtomicInteger filled = new AtomicInteger();
+
+        // When - fillers race to fill one cup at a time until the reservoir refuses
+        List<Thread> fillers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            fillers.add(new Thread(() -> {
+                try {
+                    while (true) {
+                        subject.fill(1);
+                        filled.incrementAndGet();
+                    }
+                } catch (IllegalArgumentException e) {
+                    // Full
+                }
+            }));
+        }
+
+        fillers.forEach(Thread::start);
+        for (Thread filler : fillers) {
+            filler.join();
+        }
+
+        // Then
+        assertEquals(maxCups, filled.get());
+        assertEquals(maxCups, subject.cupsOfWater());
+        assertThrows(IllegalArgumentException.class, () -> subject.fill(1));
+    }
 }
@@ -0,0 +1,286 @@
+package roofing.coffee.maker.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class EventRingBufferTest {
+
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<EventConsumer> consumers = new ArrayList<>();
+
+    @AfterEach
+    void haltConsumers() throws InterruptedException {
+        consumers.forEach(EventConsumer::halt);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(WaitStrategy.class)
+    void testEveryConsumerSeesEveryEventInOrder(WaitStrategy strategy) throws Exception {
+        // Given - a small ring, so that the producer wraps around many times
+        EventRingBuffer subject = new EventRingBuffer(8);
+        int events = 10_000;
+
+        List<RecordingHandler> handlers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RecordingHandler handler = new RecordingHandler(events);
+            handlers.add(handler);
+            start(subject.addConsumer(handler, strategy));
+        }
+
+        // When - the producer retries each event that the full ring drops
+        for (int i = 0; i < events; i++) {
+            raiseUntilPublished(subject, ComponentEventType.CUP_BREWED, i);
+        }
+
+        // Then
+        for (RecordingHandler handler : handlers) {
+            assertTrue(handler.done.await(10, TimeUnit.SECONDS));
+            assertEquals(events, handler.values.size());
+            for (int i = 0; i < events; i++) {
+                assertEquals(i, handler.values.get(i));
+                assertEquals(i, handler.sequences.get(i));
+            }
+        }
+
+        assertEquals(events - 1, subject.cursor());
+    }
+
+    @Test
+    void testProducerDropsEventsWhenFull() throws Exception {
+        // Given - a consumer that blocks on the first event
+        EventRingBuffer subject = new EventRingBuffer(4);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingHandler handler = new RecordingHandler(5);
+        EventConsumer consumer = subject.addConsumer((event, endOfBatch) -> {
+            await(release);
+            handler.onEvent(event, endOfBatch);
+        }, WaitStrategy.PARK);
+        start(consumer);
+
+        // When - the producer publishes more events than the ring holds
+        for (int i = 0; i < 6; i++) {
+            subject.raise(ComponentEventType.WARMER_ON, i);
+        }
+
+        // Then - the producer returns at once, and drops the events that do not fit rather than
+        // overwrite those that the consumer has yet to consume
+        assertEquals(3, subject.cursor());
+        assertEquals(2, subject.droppedEvents());
+
+        // And when - the consumer catches up, and the producer publishes again
+        release.countDown();
+        while (consumer.sequence() < 3) {
+            Thread.sleep(1);
+        }
+
+        subject.raise(ComponentEventType.WARMER_OFF, 6);
+
+        // Then - the consumer sees every event that the producer kept, with no gaps in sequence
+        assertTrue(handler.done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 6), handler.values);
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), handler.sequences);
+        assertEquals(2, subject.droppedEvents());
+    }
+
+    @Test
+    void testAddedConsumersAreNeverLapped() throws Exception {
+        // Given - a producer that laps a tiny ring as fast as it can
+        EventRingBuffer subject = new EventRingBuffer(2);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        Thread producer = new Thread(() -> {
+            while (producing.get()) {
+                subject.raise(ComponentEventType.CUP_BREWED, 0);
+            }
+        });
+        producer.start();
+
+        // When - consumers join while it runs
+        AtomicInteger lapped = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            EventConsumer consumer = subject.addConsumer(new EventHandler() {
+                private long expected = -1;
+
+                @Override
+                public void onEvent(ComponentEvent event, boolean endOfBatch) {
+                    if (expected >= 0 && event.getSequence() != expected) {
+                        lapped.incrementAndGet();
+                    }
+
+                    expected = event.getSequence() + 1;
+                }
+            }, WaitStrategy.YIELD);
+
+            // Then - each consumer starts after events that the producer has already published
+            assertTrue(consumer.sequence() <= subject.cursor());
+            start(consumer);
+            Thread.sleep(1);
+        }
+
+        producing.set(false);
+        producer.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Then - no consumer ever read a slot that the producer had reused
+        assertEquals(0, lapped.get());
+        assertTrue(subject.droppedEvents() > 0);
+    }
+
+    @Test
+    void testHaltedConsumerNoLongerHoldsBackProducer() {
+        // Given - a consumer that never runs
+        EventRingBuffer subject = new EventRingBuffer(2);
+        EventConsumer consumer = subject.addConsumer((event, endOfBatch) -> { }, WaitStrategy.YIELD);
+
+        // When
+        consumer.halt();
+        for (int i = 0; i < 10; i++) {
+            subject.raise(ComponentEventType.BREW_REQUESTED, 0);
+        }
+
+        // Then
+        assertEquals(9, subject.cursor());
+        assertEquals(-1, consumer.sequence());
+
+        // And a halted consumer returns at once
+        consumer.run();
+    }
+
+    @Test
+    void testConsumerStartsAtCursor() throws Exception {
+        // Given
+        EventRingBuffer subject = new EventRingBuffer(16);
+        subject.raise(ComponentEventType.BREW_STARTED, 10);
+
+        // When
+        RecordingHandler handler = new RecordingHandler(1);
+        start(subject.addConsumer(handler, WaitStrategy.BUSY_SPIN));
+        subject.raise(ComponentEventType.BREW_STOPPED, 7);
+
+        // Then - the consumer missed the event raised before it was added
+        assertTrue(handler.done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, handler.values.size());
+        assertEquals(ComponentEventType.BREW_STOPPED, handler.types.get(0));
+        assertEquals(7, handler.values.get(0));
+    }
+
+    @Test
+    void testFailingHandlerSkipsEvent() throws Exception {
+        // Given
+        EventRingBuffer subject = new EventRingBuffer(16);
+        RecordingHandler handler = new RecordingHandler(2);
+        start(subject.addConsumer((event, endOfBatch) -> {
+            if (event.getValue() == 1) {
+                throw new IllegalStateException("Boom");
+            }
+
+            handler.onEvent(event, endOfBatch);
+        }, WaitStrategy.PARK));
+
+        // When
+        subject.raise(ComponentEventType.CUP_BREWED, 0);
+        subject.raise(ComponentEventType.CUP_BREWED, 1);
+        subject.raise(ComponentEventType.CUP_BREWED, 2);
+
+        // Then
+        assertTrue(handler.done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, handler.values.get(0));
+        assertEquals(2, handler.values.get(1));
+    }
+
+    @Test
+    void testCapacity() {
+        assertEquals(1, new EventRingBuffer(1).capacity());
+        assertEquals(1024, new EventRingBuffer(1024).capacity());
+
+        assertThrows(IllegalArgumentException.class, () -> new EventRingBuffer(0));
+        assertThrows(IllegalArgumentException.class, () -> new EventRingBuffer(-4));
+        assertThrows(IllegalArgumentException.class, () -> new EventRingBuffer(12));
+    }
+
+    @Test
+    void testNullArguments() {
+        EventRingBuffer subject = new EventRingBuffer(2);
+
+        assertThrows(NullPointerException.class,
+                () -> subject.addConsumer(null, WaitStrategy.PARK));
+        assertThrows(NullPointerException.class,
+                () -> subject.addConsumer((event, endOfBatch) -> { }, null));
+    }
+
+    @Test
+    void testEventToString() {
+        EventRingBuffer subject = new EventRingBuffer(2);
+        subject.raise(ComponentEventType.POT_REMOVED, 0);
+
+        assertTrue(subject.get(0).toString().contains("POT_REMOVED"));
+    }
+
+    @Test
+    void testNoneDiscardsEvents() {
+        ComponentEventSink.NONE.raise(ComponentEventType.POT_REPLACED, 0);
+    }
+
+    private void start(EventConsumer consumer) {
+        consumers.add(consumer);
+        Thread thread = new Thread(consumer, "event-consumer-" + threads.size());
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    // Raise an event again and again until the ring has room for it
+    private static void raiseUntilPublished(EventRingBuffer subject,
+            ComponentEventType type,
+            int value) {
+
+        long cursor = subject.cursor();
+        subject.raise(type, value);
+        while (subject.cursor() == cursor) {
+            Thread.yield();
+            subject.raise(type, value);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class RecordingHandler implements EventHandler {
+
+        private final List<ComponentEventType> types = new ArrayList<>();
+        private final List<Integer> values = new ArrayList<>();
+        private final List<Long> sequences = new ArrayList<>();
+        private final CountDownLatch done;
+
+        private RecordingHandler(int expected) {
+            this.done = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onEvent(ComponentEvent event, boolean endOfBatch) {
+            types.add(event.getType());
+            values.add(event.getValue());
+            sequences.add(event.getSequence());
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package roofing.coffee.maker.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import roofing.coffee.maker.BenchmarkReport;
+
+/**
+ * Measures how quickly an EventRingBuffer fans component events out to three consumers, once per
+ * WaitStrategy, against a baseline of one ArrayBlockingQueue per consumer.
+ *
+ * The producer raises events as fast as it can, so the benchmark measures the ring buffer rather
+ * than a CoffeeMaker's Clock. Each run counts the time from the first event raised until every
+ * consumer has consumed the last one.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class RingBufferBenchmark {
+
+    private static final int CONSUMERS = 3;
+    private static final int EVENTS = 20_000_000;
+    private static final int CAPACITY = 1 << 14;
+    private static final int WARM_UP_RUNS = 2;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (int run = 0; run < WARM_UP_RUNS; run++) {
+            ringBuffer(WaitStrategy.YIELD);
+            blockingQueues();
+        }
+
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            BenchmarkReport.throughput("ring buffer, " + strategy + ", 3 consumers",
+                    EVENTS,
+                    ringBuffer(strategy));
+        }
+
+        BenchmarkReport.throughput("ArrayBlockingQueue per consumer, 3 consumers",
+                EVENTS,
+                blockingQueues());
+
+        System.exit(0);
+    }
+
+    private static long ringBuffer(WaitStrategy strategy) throws InterruptedException {
+        EventRingBuffer ring = new EventRingBuffer(CAPACITY);
+        CountDownLatch done = new CountDownLatch(CONSUMERS);
+        List<EventConsumer> consumers = new ArrayList<>();
+
+        for (int i = 0; i < CONSUMERS; i++) {
+            EventConsumer consumer = ring.addConsumer(new CountingHandler(done), strategy);
+            consumers.add(consumer);
+            start(consumer);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            ring.raise(ComponentEventType.CUP_BREWED, i);
+        }
+
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        consumers.forEach(EventConsumer::halt);
+        return elapsed;
+    }
+
+    private static long blockingQueues() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CONSUMERS);
+        List<BlockingQueue<Integer>> queues = new ArrayList<>();
+
+        for (int i = 0; i < CONSUMERS; i++) {
+            BlockingQueue<Integer> queue = new ArrayBlockingQueue<>(CAPACITY);
+            queues.add(queue);
+            start(() -> {
+                try {
+                    int value;
+                    do {
+                        value = queue.take();
+                    } while (value != EVENTS - 1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                done.countDown();
+            });
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            for (BlockingQueue<Integer> queue : queues) {
+                queue.put(i);
+            }
+        }
+
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    private static void start(Runnable consumer) {
+        Thread thread = new Thread(consumer);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static final class CountingHandler implements EventHandler {
+
+        private final CountDownLatch done;
+
+        private CountingHandler(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void onEvent(ComponentEvent event, boolean endOfBatch) {
+            if (event.getValue() == EVENTS - 1) {
+                done.countDown();
+            }
+        }
+    }
+}
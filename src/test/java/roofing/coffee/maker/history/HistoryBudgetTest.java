@@ -0,0 +1,40 @@
+package roofing.coffee.maker.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class HistoryBudgetTest {
+
+    @Test
+    void testAcquireAndRelease() {
+        // Given - room for two and a half pages, rounded down to two
+        HistoryBudget subject = new HistoryBudget(HistoryBudget.PAGE_BYTES * 5 / 2,
+                HistoryBudget.PAGE_BYTES);
+
+        // Then
+        assertEquals(2 * HistoryBudget.PAGE_BYTES, subject.maxBytes());
+        assertEquals(1, subject.maxPagesPerMaker());
+        assertTrue(subject.tryAcquirePage());
+        assertTrue(subject.tryAcquirePage());
+        assertFalse(subject.tryAcquirePage());
+        assertEquals(2 * HistoryBudget.PAGE_BYTES, subject.usedBytes());
+
+        // And when
+        subject.releasePages(1);
+
+        // Then
+        assertEquals(HistoryBudget.PAGE_BYTES, subject.usedBytes());
+        assertTrue(subject.tryAcquirePage());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HistoryBudget(1_000_000, HistoryBudget.PAGE_BYTES - 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new HistoryBudget(HistoryBudget.PAGE_BYTES, 2 * HistoryBudget.PAGE_BYTES));
+    }
+}
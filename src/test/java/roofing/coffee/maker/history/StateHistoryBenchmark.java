@@ -0,0 +1,92 @@
+package roofing.coffee.maker.history;
+
+import java.util.Random;
+import roofing.coffee.maker.BenchmarkReport;
+
+/**
+ * Measures what a StateHistory costs the Clock's thread per tick, and how long its range queries
+ * take.
+ *
+ * The benchmark simulates a day of one tick per second - 86,400 ticks - for each of many
+ * CoffeeMakers, each of which brews a 10 cup pot every half hour, within a budget of 4 KiB per
+ * CoffeeMaker. It then queries random one-hour windows of each CoffeeMaker's history.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class StateHistoryBenchmark {
+
+    private static final int MAKERS = 1_000;
+    private static final int TICKS_PER_DAY = 86_400;
+    private static final int TICKS_PER_HOUR = 3_600;
+    private static final int QUERIES = 100_000;
+
+    // Keeps the queries' results from being optimized away
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        HistoryBudget budget = new HistoryBudget(MAKERS * 4_096L, 4_096);
+        StateHistory[] histories = new StateHistory[MAKERS];
+        for (int i = 0; i < MAKERS; i++) {
+            histories[i] = new StateHistory(budget);
+        }
+
+        // Warm up, and then measure, a day of ticks per maker
+        simulateDay(histories, 0);
+        budget = new HistoryBudget(MAKERS * 4_096L, 4_096);
+        for (int i = 0; i < MAKERS; i++) {
+            histories[i] = new StateHistory(budget);
+        }
+
+        long start = System.nanoTime();
+        simulateDay(histories, 0);
+        long elapsed = System.nanoTime() - start;
+
+        BenchmarkReport.throughput("record() ticks", (long) MAKERS * TICKS_PER_DAY, elapsed);
+        BenchmarkReport.value("record() average cost per tick",
+                String.format("%.1f ns", elapsed / (double) MAKERS / TICKS_PER_DAY));
+
+        long records = 0;
+        for (StateHistory history : histories) {
+            records += history.records();
+        }
+
+        BenchmarkReport.value("record() changes recorded per maker per day",
+                String.format("%,d", records / MAKERS));
+        BenchmarkReport.value("history bytes used per maker",
+                String.format("%,d", budget.usedBytes() / MAKERS));
+        BenchmarkReport.value("history window held per maker",
+                String.format("%.1f hours", (TICKS_PER_DAY - histories[0].oldestTicks())
+                        / (double) TICKS_PER_HOUR));
+
+        Random random = new Random(42);
+        long[] latencies = new long[QUERIES];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < QUERIES; i++) {
+                StateHistory history = histories[random.nextInt(MAKERS)];
+                long from = history.oldestTicks()
+                        + random.nextInt((int) (TICKS_PER_DAY - history.oldestTicks()));
+
+                long queryStart = System.nanoTime();
+                sink += history.between(from, from + TICKS_PER_HOUR).size();
+                latencies[i] = System.nanoTime() - queryStart;
+            }
+        }
+
+        BenchmarkReport.latencies("between() one-hour window", latencies);
+    }
+
+    private static void simulateDay(StateHistory[] histories, long firstTick) {
+        for (int tick = 0; tick < TICKS_PER_DAY; tick++) {
+            // A 10 cup brew every 30 minutes, a cup a minute, and then 10 minutes of warming
+            int minuteOfCycle = (tick / 60) % 30;
+            boolean brewing = minuteOfCycle < 10;
+            int brewed = Math.min(minuteOfCycle, 10);
+            boolean hot = minuteOfCycle < 20;
+
+            for (StateHistory history : histories) {
+                history.record(firstTick + tick, 10 - brewed, brewed, brewing, hot, true);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package roofing.coffee.maker.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.streams.CoffeeMakerState;
+
+class StateHistoryTest {
+
+    private HistoryBudget budget;
+    private StateHistory subject;
+
+    @BeforeEach
+    void initSubject() {
+        budget = new HistoryBudget(64 * HistoryBudget.PAGE_BYTES, 4 * HistoryBudget.PAGE_BYTES);
+        subject = new StateHistory(budget);
+    }
+
+    @Test
+    void testRecordsOnlyChanges() {
+        // Given
+        subject.record(10, 5, 0, false, true, true);
+        subject.record(11, 5, 0, false, true, true);
+        subject.record(12, 5, 0, true, true, true);
+        subject.record(12, 5, 0, true, true, true);
+        subject.record(300, 4, 1, true, true, false);
+        subject.record(70_000, 0, 5, false, false, true);
+
+        // When
+        List<CoffeeMakerState> states = subject.between(0, Long.MAX_VALUE);
+
+        // Then
+        assertEquals(4, subject.records());
+        assertEquals(4, states.size());
+        assertState(10, 5, 0, false, true, true, states.get(0));
+        assertState(12, 5, 0, true, true, true, states.get(1));
+        assertState(300, 4, 1, true, true, false, states.get(2));
+        assertState(70_000, 0, 5, false, false, true, states.get(3));
+        assertEquals(10, subject.oldestTicks());
+        assertEquals(HistoryBudget.PAGE_BYTES, subject.sizeBytes());
+    }
+
+    @Test
+    void testBetweenStartsWithStateInEffect() {
+        // Given
+        for (int tick = 0; tick < 100; tick += 10) {
+            subject.record(tick, tick, 100 - tick, tick % 20 == 0, true, true);
+        }
+
+        // When
+        List<CoffeeMakerState> states = subject.between(35, 60);
+
+        // Then
+        assertEquals(4, states.size());
+        assertState(30, 30, 70, false, true, true, states.get(0));
+        assertState(40, 40, 60, true, true, true, states.get(1));
+        assertState(60, 60, 40, true, true, true, states.get(3));
+
+        assertEquals(1, subject.between(95, 200).size(), "Only the state in effect");
+        assertEquals(90, subject.between(95, 200).get(0).getTicks());
+        assertEquals(1, subject.between(0, 0).size());
+        assertTrue(subject.between(-10, -1).isEmpty(), "Before the first record");
+        assertEquals(1, subject.between(-10, 0).size());
+    }
+
+    @Test
+    void testNegativeDeltas() {
+        // Given - water drops, and coffee rises and then falls
+        subject.record(1, 12, 3, false, false, true);
+        subject.record(2, 2, 13, false, false, true);
+        subject.record(3, 2, 0, false, false, false);
+
+        // Then
+        List<CoffeeMakerState> states = subject.between(0, 3);
+        assertState(2, 2, 13, false, false, true, states.get(1));
+        assertState(3, 2, 0, false, false, false, states.get(2));
+    }
+
+    @Test
+    void testRecyclesOldestPageWhenFull() {
+        // When - far more records than four pages hold
+        for (int tick = 1; tick <= 10_000; tick++) {
+            subject.record(tick, tick % 11, tick % 7, tick % 2 == 0, true, true);
+        }
+
+        // Then
+        assertEquals(10_000, subject.records());
+        assertEquals(0, subject.droppedRecords());
+        assertEquals(4 * HistoryBudget.PAGE_BYTES, subject.sizeBytes());
+        assertEquals(4 * HistoryBudget.PAGE_BYTES, budget.usedBytes());
+
+        long oldest = subject.oldestTicks();
+        assertTrue(oldest > 9_000 && oldest < 10_000, "Oldest " + oldest);
+
+        List<CoffeeMakerState> states = subject.between(0, Long.MAX_VALUE);
+        assertEquals(10_000 - oldest + 1, states.size());
+        for (CoffeeMakerState state : states) {
+            long tick = state.getTicks();
+            assertState(tick, (int) (tick % 11), (int) (tick % 7), tick % 2 == 0, true, true,
+                    state);
+        }
+
+        List<CoffeeMakerState> range = subject.between(9_990, 9_995);
+        assertEquals(6, range.size());
+        assertEquals(9_990, range.get(0).getTicks());
+        assertEquals(9_995, range.get(5).getTicks());
+    }
+
+    @Test
+    void testSharesBudget() {
+        // Given - a budget of two pages, both held by another history
+        HistoryBudget small = new HistoryBudget(2 * HistoryBudget.PAGE_BYTES,
+                2 * HistoryBudget.PAGE_BYTES);
+        StateHistory greedy = new StateHistory(small);
+        for (int tick = 0; tick < 1_000; tick++) {
+            greedy.record(tick, tick % 2, 0, false, false, true);
+        }
+
+        StateHistory starved = new StateHistory(small);
+
+        // When
+        starved.record(1, 1, 0, false, false, true);
+        starved.record(2, 2, 0, false, false, true);
+
+        // Then
+        assertEquals(2 * HistoryBudget.PAGE_BYTES, small.usedBytes());
+        assertEquals(2, starved.droppedRecords());
+        assertEquals(0, starved.records());
+        assertEquals(-1, starved.oldestTicks());
+        assertTrue(starved.between(0, 10).isEmpty());
+
+        // And when
+        greedy.release();
+        greedy.record(1_000, 0, 0, false, false, true);
+        starved.record(3, 3, 0, false, false, true);
+
+        // Then
+        assertEquals(1, starved.records());
+        assertEquals(0, greedy.sizeBytes());
+        assertEquals(HistoryBudget.PAGE_BYTES, small.usedBytes());
+        assertTrue(greedy.between(0, 1_000).isEmpty());
+        assertState(3, 3, 0, false, false, true, starved.between(3, 3).get(0));
+    }
+
+    @Test
+    void testRecordsNothingAfterRelease() {
+        subject.record(1, 1, 0, false, false, true);
+        subject.release();
+        subject.record(2, 2, 0, false, false, true);
+
+        assertEquals(1, subject.records());
+        assertTrue(subject.between(0, 10).isEmpty());
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(NullPointerException.class, () -> new StateHistory(null));
+    }
+
+    private static void assertState(long ticks,
+            int cupsOfWater,
+            int cupsOfCoffee,
+            boolean isBrewing,
+            boolean isWarmerPlateOn,
+            boolean hasPot,
+            CoffeeMakerState actual) {
+
+        assertEquals(new CoffeeMakerState(ticks,
+                cupsOfWater,
+                cupsOfCoffee,
+                isBrewing,
+                isWarmerPlateOn,
+                hasPot).toString(),
+                actual.toString());
+    }
+}
@@ -0,0 +1,54 @@
+package roofing.coffee.maker.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.events.ComponentEventType;
+
+class ChangeBatchTest {
+
+    @Test
+    void testDrainsEventsInOrder() {
+        // Given - more events than the batch's initial capacity
+        ChangeBatch<String> subject = new ChangeBatch<>(4_096);
+        for (int i = 0; i < 3_000; i++) {
+            subject.add("maker " + i % 3, ComponentEventType.CUP_BREWED, i - 1_500);
+        }
+
+        // When
+        int drained = subject.drain();
+
+        // Then
+        assertEquals(3_000, drained);
+        assertEquals("maker 2", subject.topic(2_999));
+        assertEquals(ComponentEventType.CUP_BREWED, subject.type(2_999));
+        assertEquals(-1_500, subject.value(0));
+        assertEquals(1_499, subject.value(2_999));
+
+        // And when - events added after the drain
+        subject.add("maker 0", ComponentEventType.WARMER_OFF, 0);
+
+        // Then - the drained events stay readable until the next drain
+        assertEquals(1_499, subject.value(2_999));
+        assertEquals(1, subject.drain());
+        assertEquals(ComponentEventType.WARMER_OFF, subject.type(0));
+        assertEquals(0, subject.drain());
+        assertNull(subject.topic(0), "The drain lets go of the last drain's topics");
+    }
+
+    @Test
+    void testDropsEventsBeyondMax() {
+        // Given
+        ChangeBatch<String> subject = new ChangeBatch<>(3);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            subject.add("maker", ComponentEventType.BREW_STARTED, i);
+        }
+
+        // Then
+        assertEquals(3, subject.drain());
+        assertEquals(2, subject.value(2));
+        assertEquals(2, subject.dropped());
+    }
+}
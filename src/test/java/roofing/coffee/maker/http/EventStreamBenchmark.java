@@ -0,0 +1,282 @@
+package roofing.coffee.maker.http;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import roofing.coffee.maker.BenchmarkReport;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.CoffeeMakerCreator;
+import roofing.coffee.maker.CoffeeMakerFleet;
+import roofing.coffee.maker.FleetOptions;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Measures how an EventStreamServer fans a ticking fleet's changes out to tens of thousands of
+ * dashboard connections over loopback: the events, batches and bytes that reach the dashboards
+ * per second, the server's heap per connection, and the latency from a brew button press until a
+ * dashboard receives the brew's start - which includes the wait for the next tick's batch.
+ *
+ * A process may only open so many files, so EventStreamClientProcesses hold the dashboard
+ * connections - up to 9,000 each - and the server's own process only holds their other ends. Each
+ * dashboard subscribes to 10 random CoffeeMakers. A driver thread starts the brews of that many
+ * CoffeeMakers per second, while a probe dashboard times the brews of CoffeeMaker 0.
+ *
+ * Pass {@code connections makers brewsPerSecond seconds} to measure another scenario than the
+ * default 18,000 connections to 2,000 CoffeeMakers, which brew 200 times per second for 20 seconds.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class EventStreamBenchmark {
+
+    private static final int CONNECTIONS_PER_PROCESS = 9_000;
+    private static final int MAKERS_PER_CONNECTION = 10;
+    private static final long TICK_MILLIS = 100L;
+    private static final int CUPS_PER_BREW = 2;
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(TICK_MILLIS, TimeUnit.MILLISECONDS, CatchUpPolicy.COALESCE, true),
+            new PotProps(10),
+            new ReservoirProps(600),
+            new WarmerPlateProps(1));
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length == 4 ? Integer.parseInt(args[0]) : 18_000;
+        int makers = args.length == 4 ? Integer.parseInt(args[1]) : 2_000;
+        int brewsPerSecond = args.length == 4 ? Integer.parseInt(args[2]) : 200;
+        int seconds = args.length == 4 ? Integer.parseInt(args[3]) : 20;
+
+        try (EventStreamServer server = new EventStreamServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                TICK_MILLIS,
+                TimeUnit.MILLISECONDS)) {
+
+            server.start();
+            CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(makers, PROPS,
+                    FleetOptions.builder().eventStreams(server).build());
+            long heapBefore = usedHeap();
+
+            // Connect the dashboards
+            long start = System.nanoTime();
+            List<Process> clients = new ArrayList<>();
+            for (int opened = 0; opened < connections; opened += CONNECTIONS_PER_PROCESS) {
+                clients.add(startClient(server.address(),
+                        Math.min(CONNECTIONS_PER_PROCESS, connections - opened),
+                        makers,
+                        opened));
+            }
+
+            List<BufferedReader> outputs = new ArrayList<>();
+            for (Process client : clients) {
+                BufferedReader output = new BufferedReader(new InputStreamReader(
+                        client.getInputStream(), StandardCharsets.US_ASCII));
+                expect(output, "connected");
+                outputs.add(output);
+            }
+
+            while (server.subscribedConnections() < connections) {
+                Thread.sleep(10);
+            }
+
+            long connected = System.nanoTime() - start;
+            long heapPerConnection = (usedHeap() - heapBefore) / connections;
+
+            // Drive the fleet, and count what the dashboards receive meanwhile
+            Driver driver = new Driver(fleet, brewsPerSecond);
+            driver.start();
+            tell(clients, "go");
+            start = System.nanoTime();
+            long[] latencies = probe(server.address(), fleet.lookup(0), seconds);
+            tell(clients, "stop");
+            long elapsed = System.nanoTime() - start;
+            driver.interrupt();
+            driver.join();
+
+            long messages = 0;
+            long events = 0;
+            long bytes = 0;
+            long closed = 0;
+            for (BufferedReader output : outputs) {
+                String[] counts = expect(output, "received").split(" ");
+                messages += Long.parseLong(counts[1]);
+                events += Long.parseLong(counts[2]);
+                bytes += Long.parseLong(counts[3]);
+                closed += Long.parseLong(counts[4]);
+            }
+
+            fleet.shutdown();
+
+            String label = String.format("%,d dashboards", connections);
+            BenchmarkReport.throughput(label + ", connect", connections, connected);
+            BenchmarkReport.value(label + ", server heap per connection",
+                    String.format("%,d bytes", heapPerConnection));
+            BenchmarkReport.throughput(label + ", brews started", driver.brews, elapsed);
+            BenchmarkReport.throughput(label + ", events received", events, elapsed);
+            BenchmarkReport.throughput(label + ", batches received", messages, elapsed);
+            BenchmarkReport.throughput(label + ", bytes received", bytes, elapsed);
+            BenchmarkReport.value(label + ", closed by the server",
+                    String.format("%,d connections, %,d dropped events",
+                            closed,
+                            server.droppedEvents()));
+            BenchmarkReport.latencies(label + ", press to push", latencies);
+        }
+    }
+
+    private static Process startClient(InetSocketAddress address,
+            int connections,
+            int makers,
+            long seed) throws IOException {
+
+        return new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx256m",
+                "-cp",
+                System.getProperty("java.class.path"),
+                EventStreamClientProcess.class.getName(),
+                address.getHostString(),
+                Integer.toString(address.getPort()),
+                Integer.toString(connections),
+                Integer.toString(makers),
+                Integer.toString(MAKERS_PER_CONNECTION),
+                Long.toString(seed))
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+    }
+
+    private static String expect(BufferedReader output, String prefix) throws IOException {
+        String line = output.readLine();
+        if (line == null || !line.startsWith(prefix)) {
+            throw new IllegalStateException(String.format(
+                    "A client process printed %s rather than %s", line, prefix));
+        }
+
+        return line;
+    }
+
+    private static void tell(List<Process> clients, String command) throws IOException {
+        for (Process client : clients) {
+            Writer input = new OutputStreamWriter(client.getOutputStream(),
+                    StandardCharsets.US_ASCII);
+            input.write(command + "\n");
+            input.flush();
+        }
+    }
+
+    // Brew a cup on the given CoffeeMaker over and over, and time each press until its dashboard
+    // receives the brew's start
+    private static long[] probe(InetSocketAddress address, CoffeeMaker coffeeMaker, int seconds)
+            throws IOException, InterruptedException {
+
+        long[] latencies = new long[seconds * 1_000];
+        int samples = 0;
+
+        try (Socket socket = new Socket()) {
+            socket.setSoTimeout(60_000);
+            socket.connect(address);
+            socket.getOutputStream().write("GET /events?makers=0 HTTP/1.1\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            BufferedReader events = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.US_ASCII));
+
+            // The server subscribes the probe before it answers
+            for (String line = events.readLine(); !line.isEmpty(); line = events.readLine()) {
+                // Skip the response's head
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            while (System.nanoTime() < deadline && samples < latencies.length) {
+                while (coffeeMaker.isBrewing() || coffeeMaker.cupsOfWater() > 0) {
+                    Thread.sleep(1);
+                }
+
+                coffeeMaker.removePot();
+                coffeeMaker.pourOutCoffee(Integer.MAX_VALUE);
+                coffeeMaker.replacePot();
+                coffeeMaker.fill(1);
+
+                long pressed = System.nanoTime();
+                coffeeMaker.pressBrewButton();
+                for (String line = events.readLine(); !line.contains("\"BREW_STARTED\"");
+                        line = events.readLine()) {
+                    // Skip the batches before the brew's
+                }
+
+                latencies[samples++] = System.nanoTime() - pressed;
+            }
+        }
+
+        return Arrays.copyOf(latencies, samples);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /*
+     * Starts brewsPerSecond brews per second, round-robin across the fleet's idle CoffeeMakers but
+     * CoffeeMaker 0, which the probe brews.
+     */
+    private static final class Driver extends Thread {
+
+        private final CoffeeMakerFleet fleet;
+        private final int brewsPerSecond;
+        private volatile long brews = 0;
+
+        Driver(CoffeeMakerFleet fleet, int brewsPerSecond) {
+            super("event-stream-benchmark-driver");
+            this.fleet = fleet;
+            this.brewsPerSecond = brewsPerSecond;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            int deviceId = 0;
+
+            while (!isInterrupted()) {
+                long due = (System.nanoTime() - start) * brewsPerSecond
+                        / TimeUnit.SECONDS.toNanos(1);
+                for (int tries = 0; brews < due && tries < fleet.size(); tries++) {
+                    deviceId = deviceId % (fleet.size() - 1) + 1;
+                    CoffeeMaker coffeeMaker = fleet.lookup(deviceId);
+                    if (!coffeeMaker.isBrewing() && coffeeMaker.cupsOfWater() == 0) {
+                        coffeeMaker.removePot();
+                        coffeeMaker.pourOutCoffee(Integer.MAX_VALUE);
+                        coffeeMaker.replacePot();
+                        coffeeMaker.fill(CUPS_PER_BREW);
+                        coffeeMaker.pressBrewButton();
+                        brews++;
+                    }
+                }
+
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package roofing.coffee.maker.http;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * A client process of EventStreamBenchmark: it holds thousands of dashboard connections to an
+ * EventStreamServer on a single thread, since one process cannot hold them all.
+ *
+ * Given {@code host port connections makers makersPerConnection seed}, the process opens the
+ * connections, each subscribed to {@code makersPerConnection} random CoffeeMakers out of the first
+ * {@code makers}, and prints "connected". It counts the messages, events and bytes that it
+ * receives between the lines "go" and "stop" on its standard input, prints them, and exits.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class EventStreamClientProcess {
+
+    private static volatile boolean isCounting = false;
+    private static volatile boolean isStopped = false;
+
+    public static void main(String[] args) throws Exception {
+        InetSocketAddress address =
+                new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+        int connections = Integer.parseInt(args[2]);
+        int makers = Integer.parseInt(args[3]);
+        int makersPerConnection = Integer.parseInt(args[4]);
+        Random random = new Random(Long.parseLong(args[5]));
+
+        Selector selector = Selector.open();
+        for (int i = 0; i < connections; i++) {
+            StringBuilder request = new StringBuilder("GET /events?makers=");
+            for (int j = 0; j < makersPerConnection; j++) {
+                request.append(j == 0 ? "" : ",").append(1 + random.nextInt(makers - 1));
+            }
+
+            request.append(" HTTP/1.1\r\nAccept: text/event-stream\r\n\r\n");
+
+            SocketChannel channel = SocketChannel.open(address);
+            channel.write(ByteBuffer.wrap(request.toString().getBytes(StandardCharsets.US_ASCII)));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+        }
+
+        System.out.println("connected " + connections);
+
+        Thread commands = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(System.in,
+                    StandardCharsets.US_ASCII))) {
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    if ("go".equals(line)) {
+                        isCounting = true;
+                    } else if ("stop".equals(line)) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+
+            isStopped = true;
+            selector.wakeup();
+        });
+        commands.setDaemon(true);
+        commands.start();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        long messages = 0;
+        long events = 0;
+        long bytes = 0;
+        long closed = 0;
+
+        while (!isStopped) {
+            selector.select();
+            boolean counting = isCounting;
+
+            for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    keys.hasNext();) {
+                SelectionKey key = keys.next();
+                keys.remove();
+
+                buffer.clear();
+                int read = ((SocketChannel) key.channel()).read(buffer);
+                if (read < 0) {
+                    closed++;
+                    key.cancel();
+                    key.channel().close();
+                    continue;
+                }
+
+                if (counting) {
+                    bytes += read;
+                    for (int i = 0; i < read; i++) {
+                        byte b = buffer.get(i);
+                        if (b == '[') {
+                            messages++;
+                        } else if (b == '{') {
+                            events++;
+                        }
+                    }
+                }
+            }
+        }
+
+        System.out.printf("received %d %d %d %d%n", messages, events, bytes, closed);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,379 @@
+package roofing.coffee.maker.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.CoffeeMakerCreator;
+import roofing.coffee.maker.CoffeeMakerFleet;
+import roofing.coffee.maker.FleetOptions;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.events.ComponentEventSink;
+import roofing.coffee.maker.events.ComponentEventType;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests an EventStreamServer over loopback.
+ *
+ * <p>
+ * Most tests raise events straight into the server's sinks. The server flushes every half second,
+ * so that events that a test raises back-to-back almost always share a batch - and never span more
+ * than two.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+class EventStreamServerTest {
+
+    private EventStreamServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new EventStreamServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                500L,
+                TimeUnit.MILLISECONDS);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void testBatchesSubscribedChanges() throws IOException {
+        // Given
+        ComponentEventSink seven = server.eventsOf(7);
+        ComponentEventSink eight = server.eventsOf(8);
+        ComponentEventSink nine = server.eventsOf(-9);
+
+        try (Client client = new Client("/events?makers=7,-9%2C7")) {
+            assertEquals("HTTP/1.1 200 OK", client.status);
+            assertTrue(client.headers.contains("Content-Type: text/event-stream"));
+            assertEquals(1, server.subscribedConnections());
+
+            // When
+            seven.raise(ComponentEventType.BREW_STARTED, 4);
+            eight.raise(ComponentEventType.BREW_STARTED, 2);
+            seven.raise(ComponentEventType.WATER_DRAWN, 1);
+            nine.raise(ComponentEventType.WARMER_OFF, 0);
+            for (int cups = 1; cups <= 50; cups++) {
+                seven.raise(ComponentEventType.CUP_BREWED, cups);
+            }
+
+            seven.raise(ComponentEventType.BREW_STOPPED, 0);
+
+            // Then - the subscribed makers' streamed events, in order, in at most two batches
+            StringBuilder expected = new StringBuilder("{\"id\":7,\"type\":\"BREW_STARTED\","
+                    + "\"value\":4},{\"id\":-9,\"type\":\"WARMER_OFF\",\"value\":0}");
+            for (int cups = 1; cups <= 50; cups++) {
+                expected.append(",{\"id\":7,\"type\":\"CUP_BREWED\",\"value\":")
+                        .append(cups)
+                        .append('}');
+            }
+
+            expected.append(",{\"id\":7,\"type\":\"BREW_STOPPED\",\"value\":0}");
+
+            List<String> batches = new ArrayList<>();
+            StringBuilder received = new StringBuilder();
+            while (received.length() < expected.length()) {
+                String batch = client.nextBatch();
+                batches.add(batch);
+                received.append(received.length() == 0 ? "" : ",").append(batch);
+            }
+
+            assertEquals(expected.toString(), received.toString());
+            assertTrue(batches.size() <= 2, batches.toString());
+            assertEquals(0, server.droppedEvents());
+        }
+
+        // And then - the server drops the client that left, and its subscriptions
+        awaitTrue(() -> server.subscribedConnections() == 0);
+    }
+
+    @Test
+    void testFleetStreamsChanges() throws IOException {
+        // Given - a fleet that brews a cup every tick
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(10L, TimeUnit.MILLISECONDS, CatchUpPolicy.COALESCE, true),
+                new PotProps(10),
+                new ReservoirProps(6_000),
+                new WarmerPlateProps(1));
+
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(3, props,
+                FleetOptions.builder().eventStreams(server).build());
+        try (Client client = new Client("/events?makers=1")) {
+            // When
+            CoffeeMaker coffeeMaker = fleet.lookup(1);
+            coffeeMaker.fill(2);
+            coffeeMaker.pressBrewButton();
+            fleet.lookup(2).fill(2);
+            fleet.lookup(2).pressBrewButton();
+
+            // Then - maker 1's changes, until its pot holds both cups
+            String lastCup = "{\"id\":1,\"type\":\"CUP_BREWED\",\"value\":2}";
+            StringBuilder received = new StringBuilder();
+            while (received.indexOf(lastCup) < 0) {
+                received.append(client.nextBatch()).append(',');
+            }
+
+            String changes = received.toString();
+            assertTrue(changes.contains("{\"id\":1,\"type\":\"BREW_STARTED\","), changes);
+            assertTrue(changes.contains("{\"id\":1,\"type\":\"CUP_BREWED\",\"value\":1}"),
+                    changes);
+            assertTrue(changes.contains("{\"id\":1,\"type\":\"BREW_STOPPED\",\"value\":0}"),
+                    changes);
+            assertTrue(!changes.contains("\"id\":2"), changes);
+        } finally {
+            fleet.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectsBadRequests() throws IOException {
+        // Given
+        server.eventsOf(1);
+
+        // When
+        List<String> responses = new ArrayList<>();
+        for (String request : new String[] {
+                "GET /events?makers=1,2 HTTP/1.1",
+                "GET /events?makers=1,x HTTP/1.1",
+                "GET /events?other=1 HTTP/1.1",
+                "GET /events?makers= HTTP/1.1",
+                "GET /status?makers=1 HTTP/1.1",
+                "POST /events?makers=1 HTTP/1.1",
+                "GET"}) {
+
+            try (Client client = new Client(request, "")) {
+                responses.add(client.status + " " + client.readBody());
+            }
+        }
+
+        // Then
+        assertEquals("HTTP/1.1 404 Not Found {\"error\":\"No coffee maker streams its events "
+                + "under device id 2\"}", responses.get(0));
+        assertEquals("HTTP/1.1 400 Bad Request {\"error\":\"'x' is not a device id\"}",
+                responses.get(1));
+        assertEquals("HTTP/1.1 400 Bad Request {\"error\":\"Please subscribe to "
+                + "makers=<device id>,...\"}", responses.get(2));
+        assertEquals(responses.get(2), responses.get(3));
+        assertEquals("HTTP/1.1 404 Not Found {\"error\":\"No /status\"}", responses.get(4));
+        assertEquals("HTTP/1.1 405 Method Not Allowed {\"error\":\"Only GET is supported\"}",
+                responses.get(5));
+        assertEquals("HTTP/1.1 400 Bad Request {\"error\":\"The request line is malformed\"}",
+                responses.get(6));
+        assertEquals(0, server.subscribedConnections());
+    }
+
+    @Test
+    void testRejectsOversizedRequests() throws IOException {
+        // Given
+        StringBuilder header = new StringBuilder("X-Padding: ");
+        while (header.length() < EventStreamServer.MAX_REQUEST_BYTES) {
+            header.append('x');
+        }
+
+        // When
+        try (Client client = new Client("GET /events?makers=1 HTTP/1.1", header + "\r\n")) {
+            // Then
+            assertEquals("HTTP/1.1 431 Request Header Fields Too Large", client.status);
+        }
+    }
+
+    @Test
+    void testUnsubscribesClientsThatLeave() throws IOException {
+        // Given - a client that leaves before it requests anything
+        server.eventsOf(1);
+        new Socket(server.address().getAddress(), server.address().getPort()).close();
+
+        // And - a client whose request arrives in pieces, followed by stray bytes
+        try (Socket first = new Socket(); Client second = new Client("/events?makers=1")) {
+            first.connect(server.address());
+            first.getOutputStream().write(ascii("GET /events?makers=1 HTTP/1.1\r\n"));
+            sleep(50);
+            first.getOutputStream().write(ascii("\r\n"));
+            awaitTrue(() -> server.subscribedConnections() == 2);
+            first.getOutputStream().write(ascii("stray bytes"));
+
+            // When - the later subscriber leaves first
+            second.close();
+            awaitTrue(() -> server.subscribedConnections() == 1);
+        }
+
+        // Then
+        awaitTrue(() -> server.subscribedConnections() == 0);
+    }
+
+    @Test
+    void testCatchesUpWithClientsThatReadSlowly() throws IOException {
+        // Given - a client that reads nothing for a while
+        ComponentEventSink sink = server.eventsOf(1);
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4 * 1024);
+            socket.setSoTimeout(10_000);
+            socket.connect(server.address());
+            socket.getOutputStream().write(ascii("GET /events?makers=1 HTTP/1.1\r\n\r\n"));
+            awaitTrue(() -> server.subscribedConnections() == 1);
+
+            // When - a batch bigger than the socket buffers
+            int events = 4_000;
+            for (int i = 0; i < events; i++) {
+                sink.raise(ComponentEventType.CUP_BREWED, i);
+            }
+
+            sleep(1_000);
+
+            // Then - the client still receives the whole batch
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.US_ASCII));
+            int received = 0;
+            while (received < events) {
+                String line = reader.readLine();
+                if (line.startsWith("data: ")) {
+                    received += line.split("\\{").length - 1;
+                }
+            }
+
+            assertEquals(events, received);
+            assertEquals(1, server.subscribedConnections());
+        }
+    }
+
+    @Test
+    void testClosesClientsThatFallBehind() throws IOException {
+        // Given - a client that never reads
+        ComponentEventSink sink = server.eventsOf(1);
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4 * 1024);
+            socket.connect(server.address());
+            socket.getOutputStream().write(
+                    "GET /events?makers=1 HTTP/1.1\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            awaitTrue(() -> server.subscribedConnections() == 1);
+
+            // When - far more changes than the socket and the server buffer for it
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (server.subscribedConnections() > 0 && System.nanoTime() < deadline) {
+                for (int i = 0; i < 10_000; i++) {
+                    sink.raise(ComponentEventType.CUP_BREWED, i);
+                }
+
+                sleep(10);
+            }
+
+            // Then
+            assertEquals(0, server.subscribedConnections());
+        }
+    }
+
+    @Test
+    void testInvalidArguments() throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> new EventStreamServer(address, 0L, TimeUnit.MILLISECONDS));
+        assertThrows(NullPointerException.class,
+                () -> new EventStreamServer(null, 1L, TimeUnit.MILLISECONDS));
+        assertThrows(NullPointerException.class,
+                () -> new EventStreamServer(address, 1L, null));
+
+        server.close();
+        server.close();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            sleep(1);
+        }
+
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * A blocking client that sends a request, and reads the response's status and headers.
+     */
+    private final class Client implements AutoCloseable {
+
+        private final Socket socket = new Socket();
+        private final BufferedReader reader;
+        private final String status;
+        private final String headers;
+
+        Client(String path) throws IOException {
+            this("GET " + path + " HTTP/1.1", "Accept: text/event-stream\r\n");
+        }
+
+        Client(String requestLine, String headers) throws IOException {
+            socket.setSoTimeout(10_000);
+            socket.connect(server.address());
+            socket.getOutputStream().write((requestLine + "\r\n" + headers + "\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+
+            reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII));
+            status = reader.readLine();
+
+            StringBuilder responseHeaders = new StringBuilder();
+            for (String line = reader.readLine(); line != null && !line.isEmpty();
+                    line = reader.readLine()) {
+                responseHeaders.append(line).append('\n');
+            }
+
+            this.headers = responseHeaders.toString();
+        }
+
+        // The changes of the next batch, without their brackets
+        String nextBatch() throws IOException {
+            assertEquals("event: changes", reader.readLine());
+            String data = reader.readLine();
+            assertEquals("", reader.readLine());
+            assertTrue(data.startsWith("data: [") && data.endsWith("]"), data);
+            return data.substring("data: [".length(), data.length() - 1);
+        }
+
+        String readBody() throws IOException {
+            StringBuilder body = new StringBuilder();
+            for (int c = reader.read(); c >= 0; c = reader.read()) {
+                body.append((char) c);
+            }
+
+            return body.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
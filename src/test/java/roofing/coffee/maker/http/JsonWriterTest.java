@@ -0,0 +1,59 @@
+package roofing.coffee.maker.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class JsonWriterTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    void testNestedValues() throws IOException {
+        // Given - a buffer smaller than the output
+        JsonWriter subject = new JsonWriter(out, 24);
+
+        // When
+        subject.beginObject()
+                .name("numbers").beginArray()
+                .value(0).value(-42).value(Long.MAX_VALUE).value(Long.MIN_VALUE)
+                .endArray()
+                .name("flags").beginArray().value(true).value(false).endArray()
+                .name("empty").beginObject().endObject()
+                .name("text").value("Joe's \"Diner\"\\\né")
+                .endObject()
+                .flush();
+
+        // Then
+        assertEquals("{\"numbers\":[0,-42,9223372036854775807,-9223372036854775808],"
+                + "\"flags\":[true,false],\"empty\":{},"
+                + "\"text\":\"Joe's \\\"Diner\\\"\\\\\\u000a\\u00e9\"}",
+                new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void testDeepNesting() throws IOException {
+        // Given
+        JsonWriter subject = new JsonWriter(out, 1024);
+        StringBuilder expected = new StringBuilder();
+
+        // When - deeper than the writer's initial nesting
+        for (int depth = 0; depth < 40; depth++) {
+            subject.beginArray().value(depth);
+            expected.append('[').append(depth).append(',');
+        }
+
+        for (int depth = 0; depth < 40; depth++) {
+            subject.endArray();
+            expected.append(']');
+        }
+
+        subject.flush();
+
+        // Then
+        assertEquals(expected.toString().replace(",]", "]"),
+                new String(out.toByteArray(), StandardCharsets.US_ASCII));
+    }
+}
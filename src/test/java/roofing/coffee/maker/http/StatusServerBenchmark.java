@@ -0,0 +1,150 @@
+package roofing.coffee.maker.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import roofing.coffee.maker.BenchmarkReport;
+import roofing.coffee.maker.CoffeeMakerCreator;
+import roofing.coffee.maker.CoffeeMakerFleet;
+import roofing.coffee.maker.FleetOptions;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Measures how fast a StatusServer lists a whole fleet over loopback: the listings per second,
+ * the CoffeeMakers per second that those listings cover, and the latency of each listing from its
+ * request until the client has read its last byte.
+ *
+ * Each client runs on its own thread, and lists the fleet back-to-back for a few seconds. The
+ * benchmark lists a fleet of 100,000 ticking CoffeeMakers, and then a fleet of as many dormant
+ * CoffeeMakers, whose listing reads their packed state instead of their components.
+ *
+ * Pass {@code makers clients seconds} to measure a single scenario, of ticking CoffeeMakers,
+ * instead of the defaults.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class StatusServerBenchmark {
+
+    private static final int MAKERS = 100_000;
+    private static final int MAX_SAMPLES_PER_CLIENT = 100_000;
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(1L, TimeUnit.SECONDS),
+            new PotProps(10),
+            new ReservoirProps(60),
+            new WarmerPlateProps(1));
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3) {
+            measure(CoffeeMakerCreator.createFleet(Integer.parseInt(args[0]), PROPS),
+                    "ticking",
+                    Integer.parseInt(args[1]),
+                    Integer.parseInt(args[2]));
+            return;
+        }
+
+        CoffeeMakerFleet ticking = CoffeeMakerCreator.createFleet(MAKERS, PROPS);
+        measure(ticking, "ticking", 1, 5);
+        measure(ticking, "ticking", 4, 5);
+        ticking.shutdown();
+
+        FleetOptions dormantOptions =
+                FleetOptions.builder().idlePeriod(1L).idlePeriodUnit(TimeUnit.HOURS).build();
+        CoffeeMakerFleet dormant = CoffeeMakerCreator.createFleet(MAKERS, PROPS, dormantOptions);
+        measure(dormant, "dormant", 1, 5);
+        measure(dormant, "dormant", 4, 5);
+        dormant.shutdown();
+    }
+
+    private static void measure(CoffeeMakerFleet fleet, String kind, int clients, int seconds)
+            throws Exception {
+
+        try (StatusServer server = new StatusServer(fleet,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+
+            server.start();
+            InetSocketAddress address = server.address();
+            URL url = new URL("http", address.getHostString(), address.getPort(), "/makers");
+
+            // Warm up, and learn the size of a listing
+            long bytesPerListing = 0;
+            for (int i = 0; i < 5; i++) {
+                bytesPerListing = list(url);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            long start = System.nanoTime();
+
+            ExecutorService threads = Executors.newFixedThreadPool(clients);
+            CompletableFuture<?>[] runs = new CompletableFuture<?>[clients];
+            long[][] samples = new long[clients][];
+            AtomicLong bytes = new AtomicLong();
+            for (int i = 0; i < clients; i++) {
+                int client = i;
+                runs[i] = CompletableFuture.runAsync(() -> samples[client] =
+                        run(url, deadline, bytes), threads);
+            }
+
+            CompletableFuture.allOf(runs).get();
+            threads.shutdown();
+            long elapsed = System.nanoTime() - start;
+
+            long[] latencies = Arrays.stream(samples).flatMapToLong(Arrays::stream).toArray();
+            String label = String.format("%,d %s makers, %d clients", fleet.size(), kind, clients);
+            BenchmarkReport.value(label + ", bytes per listing",
+                    String.format("%,d", bytesPerListing));
+            BenchmarkReport.throughput(label + ", listings", latencies.length, elapsed);
+            BenchmarkReport.throughput(label + ", makers listed",
+                    (long) latencies.length * fleet.size(),
+                    elapsed);
+            BenchmarkReport.throughput(label + ", bytes", bytes.get(), elapsed);
+            BenchmarkReport.latencies(label + ", listing", latencies);
+        }
+    }
+
+    private static long[] run(URL url, long deadline, AtomicLong bytes) {
+        long[] latencies = new long[MAX_SAMPLES_PER_CLIENT];
+        int samples = 0;
+
+        try {
+            while (System.nanoTime() < deadline && samples < latencies.length) {
+                long start = System.nanoTime();
+                bytes.addAndGet(list(url));
+                latencies[samples++] = System.nanoTime() - start;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return Arrays.copyOf(latencies, samples);
+    }
+
+    // Read a whole listing, and return its length in bytes
+    private static long list(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        byte[] buffer = new byte[64 * 1024];
+        long length = 0;
+
+        try (InputStream body = connection.getInputStream()) {
+            for (int read; (read = body.read(buffer)) >= 0;) {
+                length += read;
+            }
+        }
+
+        return length;
+    }
+}
@@ -0,0 +1,252 @@
+package roofing.coffee.maker.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.CoffeeMakerCreator;
+import roofing.coffee.maker.CoffeeMakerFleet;
+import roofing.coffee.maker.FleetOptions;
+import roofing.coffee.maker.aggregates.AggregateGroup;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests a StatusServer over loopback.
+ *
+ * <p>
+ * The fleet's four CoffeeMakers start dormant, and go dormant again only after an hour without a
+ * lookup. The tests look up CoffeeMaker 1 - which rebuilds it - and fill it, but leave the rest
+ * dormant.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+class StatusServerTest {
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(1L, TimeUnit.MILLISECONDS, CatchUpPolicy.COALESCE, true),
+            new PotProps(10),
+            new ReservoirProps(10),
+            new WarmerPlateProps(10));
+
+    private CoffeeMakerFleet fleet;
+    private AggregateGroup global;
+    private StatusServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        fleet = CoffeeMakerCreator.createFleet(4, PROPS,
+                FleetOptions.builder().idlePeriod(1L).idlePeriodUnit(TimeUnit.HOURS).build());
+        fleet.lookup(1).fill(3);
+
+        global = new AggregateGroup("global");
+        global.child("hq").child("3").join();
+
+        server = new StatusServer(fleet,
+                global,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+        fleet.shutdown();
+    }
+
+    @Test
+    void testListMakers() throws IOException {
+        // When
+        String listing = get("/makers", HttpURLConnection.HTTP_OK);
+
+        // Then - each maker once, and listing rebuilt no dormant maker
+        assertTrue(listing.startsWith("[{") && listing.endsWith("}]"), listing);
+        assertEquals(4, listing.split("\"id\":").length - 1, listing);
+        assertTrue(listing.contains("{\"id\":1,\"cupsOfWater\":3,\"cupsOfCoffee\":0,"
+                + "\"brewing\":false,\"warmerPlateOn\":false,\"hasPot\":true,\"dormant\":false}"),
+                listing);
+        for (int deviceId : new int[] {0, 2, 3}) {
+            assertTrue(listing.contains("{\"id\":" + deviceId + ",\"cupsOfWater\":0,"
+                    + "\"cupsOfCoffee\":0,\"brewing\":false,\"warmerPlateOn\":false,"
+                    + "\"hasPot\":true,\"dormant\":true}"),
+                    listing);
+        }
+
+        assertEquals(3, fleet.dormantCount());
+        assertEquals(listing, get("/makers/", HttpURLConnection.HTTP_OK));
+    }
+
+    @Test
+    void testMakerStatus() throws IOException {
+        // Given
+        CoffeeMaker coffeeMaker = fleet.lookup(1);
+        coffeeMaker.pressBrewButton();
+
+        // When
+        String status = get("/makers/1", HttpURLConnection.HTTP_OK);
+
+        // Then
+        assertTrue(status.startsWith("{\"id\":1,\"cupsOfWater\":"), status);
+        assertTrue(status.contains("\"brewing\":true"), status);
+        assertTrue(status.contains(",\"clock\":{\"ticks\":"), status);
+        assertTrue(status.contains("\"evaluations\":"), status);
+        assertTrue(status.endsWith(",\"droppedTicks\":0}}"), status);
+    }
+
+    @Test
+    void testFleetTotals() throws IOException {
+        // When
+        String totals = get("/fleet", HttpURLConnection.HTTP_OK);
+
+        // Then
+        assertEquals("{\"makers\":4,\"dormant\":3,\"brewing\":0,\"warmersOn\":0,"
+                + "\"potsRemoved\":0,\"cupsOfWater\":3,\"cupsOfCoffee\":0,"
+                + "\"groups\":{\"name\":\"global\",\"path\":\"global\",\"makers\":1,"
+                + "\"cupsBrewed\":0,\"cupsOfWaterDrawn\":0,\"makersBrewing\":0,\"warmersOn\":0,"
+                + "\"children\":[{\"name\":\"hq\",\"path\":\"global/hq\",\"makers\":1,"
+                + "\"cupsBrewed\":0,\"cupsOfWaterDrawn\":0,\"makersBrewing\":0,\"warmersOn\":0,"
+                + "\"children\":[{\"name\":\"3\",\"path\":\"global/hq/3\",\"makers\":1,"
+                + "\"cupsBrewed\":0,\"cupsOfWaterDrawn\":0,\"makersBrewing\":0,\"warmersOn\":0,"
+                + "\"children\":[]}]}]}}",
+                totals);
+    }
+
+    @Test
+    void testFleetTotalsWithoutAggregates() throws IOException {
+        try (StatusServer other = new StatusServer(fleet,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+
+            other.start();
+
+            // When
+            String totals = get(other, "/fleet", HttpURLConnection.HTTP_OK);
+
+            // Then
+            assertTrue(totals.endsWith("\"cupsOfCoffee\":0}"), totals);
+        }
+    }
+
+    @Test
+    void testPrometheusMetrics() throws IOException, InterruptedException {
+        // Given - a maker whose Clock has woken up at least once
+        CoffeeMaker coffeeMaker = fleet.lookup(1);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (coffeeMaker.clockMetrics().steps() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // When
+        HttpURLConnection connection = open(server, "/metrics");
+        String metrics = read(connection, HttpURLConnection.HTTP_OK);
+
+        // Then
+        assertEquals(FleetSummary.PROMETHEUS_CONTENT_TYPE,
+                connection.getHeaderField("Content-Type"));
+        assertTrue(metrics.contains("# TYPE coffee_maker_fleet_makers gauge\n"
+                + "coffee_maker_fleet_makers 4\n"), metrics);
+        assertTrue(metrics.contains("coffee_maker_fleet_dormant_makers 3\n"), metrics);
+        assertTrue(metrics.contains("coffee_maker_fleet_cups_of_water 3\n"), metrics);
+        assertTrue(metrics.contains("# TYPE coffee_maker_clock_ticks_total counter\n"), metrics);
+        assertTrue(metrics.contains(
+                "coffee_maker_clock_caught_up_ticks_total{policy=\"drop\"} 0\n"), metrics);
+        assertTrue(metrics.contains("# TYPE coffee_maker_clock_lag_seconds histogram\n"
+                + "coffee_maker_clock_lag_seconds_bucket{le=\"0.000001\"} "), metrics);
+        assertTrue(metrics.contains("coffee_maker_clock_lag_seconds_bucket{le=\"0.000002\"} "),
+                metrics);
+        assertTrue(metrics.contains("coffee_maker_clock_lag_seconds_bucket{le=\"+Inf\"} "),
+                metrics);
+        assertTrue(metrics.contains("coffee_maker_clock_lag_seconds_sum "), metrics);
+        assertTrue(metrics.endsWith("\n"), metrics);
+
+        long infinite = sample(metrics, "coffee_maker_clock_lag_seconds_bucket{le=\"+Inf\"}");
+        assertTrue(infinite > 0, metrics);
+        assertEquals(infinite, sample(metrics, "coffee_maker_clock_lag_seconds_count"));
+    }
+
+    @Test
+    void testErrors() throws IOException {
+        // When
+        String unknownMaker = get("/makers/99", HttpURLConnection.HTTP_NOT_FOUND);
+        String badId = get("/makers/abc", HttpURLConnection.HTTP_BAD_REQUEST);
+        String unknownPath = get("/makersx", HttpURLConnection.HTTP_NOT_FOUND);
+
+        HttpURLConnection post = open(server, "/fleet");
+        post.setRequestMethod("POST");
+        String badMethod = read(post, HttpURLConnection.HTTP_BAD_METHOD);
+
+        // Then
+        assertEquals("{\"error\":\"No coffee maker is registered under device id 99\"}",
+                unknownMaker);
+        assertEquals("{\"error\":\"'abc' is not a device id\"}", badId);
+        assertEquals("{\"error\":\"No /makersx\"}", unknownPath);
+        assertEquals("{\"error\":\"Only GET is supported\"}", badMethod);
+        assertEquals("GET", post.getHeaderField("Allow"));
+    }
+
+    @Test
+    void testCloseTwice() {
+        // When
+        server.close();
+        server.close();
+
+        // Then
+        assertEquals(4, fleet.size());
+    }
+
+    private String get(String path, int expectedStatus) throws IOException {
+        return get(server, path, expectedStatus);
+    }
+
+    private static String get(StatusServer server, String path, int expectedStatus)
+            throws IOException {
+
+        return read(open(server, path), expectedStatus);
+    }
+
+    private static HttpURLConnection open(StatusServer server, String path) throws IOException {
+        InetSocketAddress address = server.address();
+        URL url = new URL("http", address.getHostString(), address.getPort(), path);
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    private static String read(HttpURLConnection connection, int expectedStatus)
+            throws IOException {
+
+        assertEquals(expectedStatus, connection.getResponseCode());
+        InputStream body = expectedStatus == HttpURLConnection.HTTP_OK
+                ? connection.getInputStream()
+                : connection.getErrorStream();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = body.read(buffer)) >= 0;) {
+            out.write(buffer, 0, read);
+        }
+
+        body.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // The value of the sample of series in metrics
+    private static long sample(String metrics, String series) {
+        int start = metrics.indexOf(series + " ") + series.length() + 1;
+        return Long.parseLong(metrics.substring(start, metrics.indexOf('\n', start)));
+    }
+}
@@ -0,0 +1,134 @@
+package roofing.coffee.maker.indexes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FleetIndexTest {
+
+    private FleetIndex subject;
+
+    @BeforeEach
+    void initSubject() {
+        subject = new FleetIndex(100);
+    }
+
+    @Test
+    void testBrewing() {
+        // Given
+        subject.update(3, true, 0, true);
+        subject.update(50, true, 0, true);
+        subject.update(99, false, 0, true);
+        subject.update(0, true, 0, true);
+
+        // When
+        subject.update(50, false, 0, true);
+
+        // Then
+        assertEquals(100, subject.capacity());
+        assertArrayEquals(new int[] {0, 3}, sorted(subject.brewing()));
+    }
+
+    @Test
+    void testReadyAtLeast() {
+        // Given
+        subject.update(1, true, 1, true);
+        subject.update(2, true, 4, true);
+        subject.update(3, false, 10, true);
+        subject.update(4, false, 0, true);
+
+        // When - a cup is brewed, and another pot is poured out
+        subject.update(1, true, 2, true);
+        subject.update(3, false, 0, false);
+
+        // Then
+        assertArrayEquals(new int[] {1, 2}, sorted(subject.readyAtLeast(1)));
+        assertArrayEquals(new int[] {1, 2}, sorted(subject.readyAtLeast(2)));
+        assertArrayEquals(new int[] {2}, sorted(subject.readyAtLeast(3)));
+        assertArrayEquals(new int[0], subject.readyAtLeast(5));
+        assertArrayEquals(new int[0], subject.readyAtLeast(1_000));
+    }
+
+    @Test
+    void testPotRemovedMidBrew() {
+        // Given - one pot removed mid-brew, and another removed once brewing was done
+        subject.update(1, true, 3, true);
+        subject.update(1, false, 3, false);
+        subject.update(2, false, 3, true);
+        subject.update(2, false, 3, false);
+
+        // Then
+        assertArrayEquals(new int[] {1}, subject.potRemovedMidBrew());
+
+        // And when - the pot stays missing for a few more ticks
+        subject.update(1, false, 3, false);
+        subject.update(1, false, 2, false);
+
+        // Then
+        assertArrayEquals(new int[] {1}, subject.potRemovedMidBrew());
+
+        // And when - the user replaces it
+        subject.update(1, false, 2, true);
+
+        // Then
+        assertArrayEquals(new int[0], subject.potRemovedMidBrew());
+    }
+
+    @Test
+    void testRemoveIgnoresLaterUpdates() {
+        // Given
+        subject.update(7, true, 2, true);
+        subject.update(7, false, 2, false);
+
+        // When
+        subject.remove(7);
+        subject.remove(7);
+        subject.update(7, true, 5, true);
+
+        // Then
+        assertArrayEquals(new int[0], subject.brewing());
+        assertArrayEquals(new int[0], subject.readyAtLeast(1));
+        assertArrayEquals(new int[0], subject.potRemovedMidBrew());
+    }
+
+    @Test
+    void testManyMembers() {
+        // Given - more members than a set's initial capacity
+        FleetIndex large = new FleetIndex(1_000);
+        for (int deviceId = 0; deviceId < 1_000; deviceId++) {
+            large.update(deviceId, deviceId % 2 == 0, deviceId % 11, true);
+        }
+
+        // When
+        for (int deviceId = 0; deviceId < 1_000; deviceId += 4) {
+            large.update(deviceId, false, 0, true);
+        }
+
+        // Then
+        assertEquals(250, large.brewing().length);
+        for (int deviceId : large.brewing()) {
+            assertEquals(2, deviceId % 4);
+        }
+
+        for (int deviceId : large.readyAtLeast(10)) {
+            assertEquals(10, deviceId % 11);
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new FleetIndex(-1));
+        assertThrows(IllegalArgumentException.class, () -> subject.update(-1, true, 0, true));
+        assertThrows(IllegalArgumentException.class, () -> subject.update(100, true, 0, true));
+        assertThrows(IllegalArgumentException.class, () -> subject.remove(100));
+        assertThrows(IllegalArgumentException.class, () -> subject.readyAtLeast(0));
+    }
+
+    private static int[] sorted(int[] deviceIds) {
+        Arrays.sort(deviceIds);
+        return deviceIds;
+    }
+}
@@ -1,6 +1,7 @@
 package roofing.coffee.maker.plugins.properties;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.concurrent.TimeUnit;
@@ -11,6 +12,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import roofing.coffee.maker.busses.CatchUpPolicy;
 import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
 import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
 import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
@@ -33,11 +35,50 @@ class CoffeeMakerPropertiesTest {
         // Then
         assertEquals(1, subject.getClockTickDelay());
         assertEquals(TimeUnit.SECONDS, subject.getClockTickDelayUnit());
+        assertEquals(CatchUpPolicy.BURST, subject.getClockCatchUpPolicy());
         assertEquals(1, subject.getPotMaxCapacityCups());
         assertEquals(60, subject.getReservoirTicksPerCupBrewed());
         assertEquals(60, subject.getWarmerPlateStayHotForTickLimit());
     }
 
+    @Test
+    void testCatchUpPolicy() {
+        // Given
+        ClockProps clock = new ClockProps(1, TimeUnit.SECONDS, CatchUpPolicy.COALESCE);
+
+        // When
+        CoffeeMakerProperties subject = new CoffeeMakerProperties(clock,
+                new PotProps(1),
+                new ReservoirProps(1),
+                new WarmerPlateProps(1));
+
+        // Then
+        assertEquals(CatchUpPolicy.COALESCE, subject.getClockCatchUpPolicy());
+        assertFalse(subject.isClockEvaluatingCommandsImmediately());
+    }
+
+    @Test
+    void testEvaluateCommandsImmediately() {
+        // Given
+        ClockProps clock = new ClockProps(1, TimeUnit.SECONDS, CatchUpPolicy.DROP, true);
+
+        // When
+        CoffeeMakerProperties subject = new CoffeeMakerProperties(clock,
+                new PotProps(1),
+                new ReservoirProps(1),
+                new WarmerPlateProps(1));
+
+        // Then
+        assertEquals(CatchUpPolicy.DROP, subject.getClockCatchUpPolicy());
+        assertTrue(subject.isClockEvaluatingCommandsImmediately());
+    }
+
+    @Test
+    void testNullCatchUpPolicy() {
+        assertThrows(NullPointerException.class,
+                () -> new ClockProps(1, TimeUnit.SECONDS, null));
+    }
+
     @ParameterizedTest
     @MethodSource("provideNullProperties")
     void testNullProps(ClockProps clock,
@@ -142,7 +183,7 @@ class CoffeeMakerPropertiesTest {
 
         // Then
         assertEquals(
-                "CoffeeMakerProperties(clock=CoffeeMakerProperties.ClockProps(tickDelay=60, delayUnit=SECONDS, ticksPerMinute=1), pot=CoffeeMakerProperties.PotProps(maxCapacityCups=10), reservoir=CoffeeMakerProperties.ReservoirProps(cupsPerMinuteBrewRate=1), warmerPlate=CoffeeMakerProperties.WarmerPlateProps(stayHotDurationMinutes=10), getReservoirTicksPerCupBrewed=1, getWarmerPlateStayHotForTickLimit=10)",
+                "CoffeeMakerProperties(clock=CoffeeMakerProperties.ClockProps(tickDelay=60, delayUnit=SECONDS, ticksPerMinute=1, catchUpPolicy=BURST, evaluateCommandsImmediately=false), pot=CoffeeMakerProperties.PotProps(maxCapacityCups=10), reservoir=CoffeeMakerProperties.ReservoirProps(cupsPerMinuteBrewRate=1), warmerPlate=CoffeeMakerProperties.WarmerPlateProps(stayHotDurationMinutes=10), getReservoirTicksPerCupBrewed=1, getWarmerPlateStayHotForTickLimit=10)",
                 actual);
     }
 
@@ -0,0 +1,173 @@
+package roofing.coffee.maker.rankings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.events.ComponentEventType;
+
+class BusiestMakersTest {
+
+    private static final int MAKERS = 20_000;
+    private static final int TOP = 100;
+
+    // Enough memory for 1,000 counters per step
+    private static final long BUDGET =
+            1_000L * SpaceSavingSketch.BYTES_PER_COUNTER * 2 * (12 + 24);
+
+    private long now;
+    private BusiestMakers subject;
+
+    @BeforeEach
+    void initSubject() {
+        now = 0;
+        subject = new BusiestMakers(BUDGET, () -> now);
+    }
+
+    @Test
+    void testAccuracyAgainstExactCounts() {
+        // Given - a Zipf-like fleet, in which a few CoffeeMakers brew far more than the rest
+        double[] cumulativeWeights = new double[MAKERS];
+        double weights = 0;
+        for (int deviceId = 0; deviceId < MAKERS; deviceId++) {
+            weights += 1 / Math.pow(deviceId + 1, 1.1);
+            cumulativeWeights[deviceId] = weights;
+        }
+
+        // Spread device ids, so that the busiest CoffeeMakers are not simply the lowest ids
+        int[] deviceIds = IntStream.range(0, MAKERS).toArray();
+        shuffle(deviceIds, new Random(3));
+
+        long[] exactCups = new long[MAKERS];
+        long[] exactBrews = new long[MAKERS];
+        Random random = new Random(5);
+
+        // When - 50 minutes of cups and brews
+        int transitions = 300_000;
+        for (int i = 0; i < transitions; i++) {
+            now = TimeUnit.MINUTES.toNanos(50) * i / transitions;
+
+            int rank = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * weights);
+            int deviceId = deviceIds[rank < 0 ? -rank - 1 : rank];
+
+            if (random.nextInt(4) == 0) {
+                exactBrews[deviceId]++;
+                subject.eventsOf(deviceId).raise(ComponentEventType.BREW_RECEIVED, 0);
+            } else {
+                exactCups[deviceId]++;
+                subject.eventsOf(deviceId).raise(ComponentEventType.CUP_BREWED, 1);
+            }
+        }
+
+        // Then
+        for (RankingWindow window : RankingWindow.values()) {
+            assertAccurate(exactCups, subject.byCupsBrewed(window, TOP));
+            assertAccurate(exactBrews, subject.byBrewsStarted(window, TOP));
+        }
+    }
+
+    @Test
+    void testWindowsSlide() {
+        // Given
+        subject.eventsOf(1).raise(ComponentEventType.CUP_BREWED, 1);
+        subject.eventsOf(1).raise(ComponentEventType.BREW_RECEIVED, 0);
+
+        // When
+        now = TimeUnit.HOURS.toNanos(2);
+        subject.eventsOf(2).raise(ComponentEventType.CUP_BREWED, 1);
+
+        // Then
+        assertEquals(Arrays.asList(2), deviceIds(subject.byCupsBrewed(RankingWindow.LAST_HOUR, 5)));
+        assertEquals(Arrays.asList(1, 2),
+                deviceIds(subject.byCupsBrewed(RankingWindow.LAST_DAY, 5)));
+        assertEquals(0, subject.byBrewsStarted(RankingWindow.LAST_HOUR, 5).size());
+        assertEquals(Arrays.asList(1),
+                deviceIds(subject.byBrewsStarted(RankingWindow.LAST_DAY, 5)));
+
+        // And when
+        now = TimeUnit.HOURS.toNanos(30);
+
+        // Then
+        assertEquals(0, subject.byCupsBrewed(RankingWindow.LAST_DAY, 5).size());
+    }
+
+    @Test
+    void testIgnoresOtherTransitions() {
+        // When
+        for (ComponentEventType type : ComponentEventType.values()) {
+            if (type != ComponentEventType.CUP_BREWED
+                    && type != ComponentEventType.BREW_RECEIVED) {
+                subject.eventsOf(3).raise(type, 1);
+            }
+        }
+
+        // Then
+        assertEquals(0, subject.byCupsBrewed(RankingWindow.LAST_DAY, 5).size());
+        assertEquals(0, subject.byBrewsStarted(RankingWindow.LAST_DAY, 5).size());
+    }
+
+    @Test
+    void testBudget() {
+        assertEquals(1_000, subject.countersPerStep());
+        assertEquals(1, new BusiestMakers(BUDGET / 1_000).countersPerStep());
+        assertThrows(IllegalArgumentException.class, () -> new BusiestMakers(BUDGET / 1_001));
+        assertThrows(IllegalArgumentException.class, () -> new BusiestMakers(Long.MAX_VALUE));
+        assertThrows(NullPointerException.class, () -> new BusiestMakers(BUDGET, null));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> subject.byCupsBrewed(RankingWindow.LAST_HOUR, -1));
+        assertThrows(NullPointerException.class, () -> subject.byBrewsStarted(null, 1));
+        assertEquals("RankedMaker(deviceId=4, count=2, error=1)",
+                new RankedMaker(4, 2, 1).toString());
+    }
+
+    // Asserts that the ranking finds nearly all of the exact top CoffeeMakers, with nearly exact
+    // counts, and that each count's lower bound holds
+    private static void assertAccurate(long[] exact, List<RankedMaker> ranked) {
+        assertEquals(TOP, ranked.size());
+
+        Set<Integer> exactTop = IntStream.range(0, MAKERS)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer deviceId) -> exact[deviceId]).reversed())
+                .limit(TOP)
+                .collect(Collectors.toSet());
+
+        Set<Integer> found = new HashSet<>(deviceIds(ranked));
+        found.retainAll(exactTop);
+        assertTrue(found.size() >= TOP * 95 / 100,
+                String.format("Found only %d of the top %d", found.size(), TOP));
+
+        for (RankedMaker maker : ranked) {
+            long actual = exact[maker.getDeviceId()];
+            assertTrue(maker.getCount() - maker.getError() <= actual);
+            assertTrue(Math.abs(maker.getCount() - actual) <= actual / 20 + 1,
+                    String.format("Counted %s, but it made %d", maker, actual));
+        }
+    }
+
+    private static List<Integer> deviceIds(List<RankedMaker> ranked) {
+        return ranked.stream().map(RankedMaker::getDeviceId).collect(Collectors.toList());
+    }
+
+    private static void shuffle(int[] values, Random random) {
+        for (int i = values.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
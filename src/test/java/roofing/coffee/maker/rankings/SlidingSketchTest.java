@@ -0,0 +1,89 @@
+package roofing.coffee.maker.rankings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class SlidingSketchTest {
+
+    private static final long STEP = TimeUnit.MINUTES.toNanos(5);
+
+    @Test
+    void testRanksBusiestFirst() {
+        // Given
+        SlidingSketch subject = new SlidingSketch(RankingWindow.LAST_HOUR, 8, 0);
+        add(subject, 4, 2, 0);
+        add(subject, 9, 5, STEP);
+        add(subject, 1, 2, 2 * STEP);
+        add(subject, 4, 2, 3 * STEP);
+
+        // When
+        List<RankedMaker> top = subject.top(3, 3 * STEP);
+
+        // Then - ties rank by device id
+        assertEquals(3, top.size());
+        assertEquals(9, top.get(0).getDeviceId());
+        assertEquals(5, top.get(0).getCount());
+        assertEquals(4, top.get(1).getDeviceId());
+        assertEquals(4, top.get(1).getCount());
+        assertEquals(1, top.get(2).getDeviceId());
+        assertEquals(0, top.get(2).getError());
+        assertEquals(1, subject.top(1, 3 * STEP).size());
+        assertEquals(3, subject.top(10, 3 * STEP).size());
+    }
+
+    @Test
+    void testOldStepsSlideOut() {
+        // Given
+        SlidingSketch subject = new SlidingSketch(RankingWindow.LAST_HOUR, 8, 0);
+        add(subject, 1, 3, 0);
+        add(subject, 2, 1, 6 * STEP);
+
+        // Then - the first step slides out after a whole window
+        assertEquals(2, subject.top(5, 11 * STEP + STEP - 1).size());
+        assertEquals(1, subject.top(5, 12 * STEP).size());
+        assertEquals(2, subject.top(5, 12 * STEP).get(0).getDeviceId());
+
+        // And when - the sketch sits idle for longer than its window
+        // Then
+        assertEquals(0, subject.top(5, 100 * STEP).size());
+    }
+
+    @Test
+    void testClockMovingBackwards() {
+        // Given
+        SlidingSketch subject = new SlidingSketch(RankingWindow.LAST_HOUR, 8, 5 * STEP);
+
+        // When
+        add(subject, 3, 2, 5 * STEP);
+        add(subject, 3, 1, 2 * STEP);
+
+        // Then
+        assertEquals(3, subject.top(1, 5 * STEP).get(0).getCount());
+    }
+
+    @Test
+    void testMergesErrors() {
+        // Given - one counter per step, so that each step's later device inherits the count
+        SlidingSketch subject = new SlidingSketch(RankingWindow.LAST_DAY, 1, 0);
+        long step = TimeUnit.HOURS.toNanos(1);
+        add(subject, 1, 2, 0);
+        add(subject, 2, 1, 0);
+        add(subject, 2, 1, step);
+
+        // When
+        RankedMaker top = subject.top(1, step).get(0);
+
+        // Then
+        assertEquals(2, top.getDeviceId());
+        assertEquals(4, top.getCount());
+        assertEquals(2, top.getError());
+    }
+
+    private static void add(SlidingSketch subject, int deviceId, int times, long nowNanos) {
+        for (int i = 0; i < times; i++) {
+            subject.add(deviceId, nowNanos);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package roofing.coffee.maker.rankings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void testExactWhileCountersRemain() {
+        // Given
+        SpaceSavingSketch subject = new SpaceSavingSketch(4);
+
+        // When
+        subject.add(7);
+        subject.add(7);
+        subject.add(-3);
+        subject.add(1_000_000);
+        subject.add(7);
+
+        // Then
+        assertEquals(3, subject.estimate(7));
+        assertEquals(1, subject.estimate(-3));
+        assertEquals(1, subject.estimate(1_000_000));
+        assertEquals(0, subject.estimate(8));
+        assertEquals(0, subject.error(7));
+        assertEquals(0, subject.error(8));
+        assertEquals(0, subject.minCount());
+        assertEquals(3, subject.size());
+        assertEquals(4, subject.counters());
+        assertEquals(5, subject.total());
+    }
+
+    @Test
+    void testNewDeviceTakesOverSmallestCounter() {
+        // Given
+        SpaceSavingSketch subject = new SpaceSavingSketch(2);
+        subject.add(1);
+        subject.add(1);
+        subject.add(1);
+        subject.add(2);
+        subject.add(2);
+
+        // When
+        subject.add(3);
+
+        // Then
+        assertEquals(3, subject.estimate(1));
+        assertEquals(0, subject.estimate(2));
+        assertEquals(3, subject.estimate(3));
+        assertEquals(2, subject.error(3));
+        assertEquals(3, subject.minCount());
+    }
+
+    @Test
+    void testClear() {
+        // Given
+        SpaceSavingSketch subject = new SpaceSavingSketch(2);
+        subject.add(1);
+        subject.add(2);
+        subject.add(3);
+
+        // When
+        subject.clear();
+        subject.add(4);
+
+        // Then
+        assertEquals(0, subject.estimate(1));
+        assertEquals(0, subject.estimate(3));
+        assertEquals(1, subject.estimate(4));
+        assertEquals(1, subject.size());
+        assertEquals(1, subject.total());
+    }
+
+    @Test
+    void testBoundsAgainstExactCounts() {
+        // Given - a skewed stream of many more device ids than counters
+        SpaceSavingSketch subject = new SpaceSavingSketch(64);
+        long[] exact = new long[5_000];
+        Random random = new Random(11);
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            int deviceId = random.nextBoolean()
+                    ? random.nextInt(20)
+                    : random.nextInt(exact.length);
+            exact[deviceId]++;
+            subject.add(deviceId);
+        }
+
+        // Then - the sketch never undercounts, overcounts by at most its error, and holds every
+        // frequent device id
+        long total = subject.total();
+        for (int counter = 0; counter < subject.size(); counter++) {
+            int deviceId = subject.deviceIdAt(counter);
+            assertTrue(subject.countAt(counter) >= exact[deviceId]);
+            assertTrue(subject.countAt(counter) - subject.errorAt(counter) <= exact[deviceId]);
+            assertTrue(subject.errorAt(counter) <= total / subject.counters());
+        }
+
+        for (int deviceId = 0; deviceId < exact.length; deviceId++) {
+            if (exact[deviceId] > total / subject.counters()) {
+                assertTrue(subject.estimate(deviceId) >= exact[deviceId]);
+            } else if (subject.estimate(deviceId) == 0) {
+                assertTrue(exact[deviceId] <= subject.minCount());
+            }
+        }
+    }
+
+    @Test
+    void testInvalidCounters() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingSketch(0));
+    }
+}
@@ -0,0 +1,36 @@
+package roofing.coffee.maker.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class BufferPoolTest {
+
+    private final BufferPool subject = new BufferPool(64, 1);
+
+    @Test
+    void testRecyclesReleasedBuffers() {
+        // Given
+        ByteBuffer first = subject.acquire();
+        ByteBuffer second = subject.acquire();
+        first.putInt(42);
+
+        // When
+        subject.release(first);
+        subject.release(second);
+
+        // Then - the pool keeps one cleared buffer, and drops the other
+        assertEquals(1, subject.idle());
+        ByteBuffer recycled = subject.acquire();
+        assertSame(first, recycled);
+        assertEquals(0, recycled.position());
+        assertTrue(recycled.isDirect());
+        assertEquals(ControlProtocol.BYTE_ORDER, recycled.order());
+
+        assertNotSame(first, subject.acquire());
+        assertEquals(3, subject.allocated());
+    }
+}
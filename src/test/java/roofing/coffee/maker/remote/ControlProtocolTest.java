@@ -0,0 +1,57 @@
+package roofing.coffee.maker.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class ControlProtocolTest {
+
+    @Test
+    void testRequestLayout() {
+        // When
+        ByteBuffer buffer = ByteBuffer.allocate(ControlProtocol.REQUEST_BYTES);
+        ControlProtocol.putRequest(buffer, 3, ControlCommand.FILL.code(), 1L << 40, 5);
+
+        // Then
+        assertEquals(0, buffer.remaining());
+        assertEquals(3, buffer.getInt(0));
+        assertEquals(1, buffer.get(4));
+        assertEquals(1L << 40, buffer.getLong(5));
+        assertEquals(5, buffer.getInt(13));
+    }
+
+    @Test
+    void testEmptyResponse() {
+        // Given
+        ByteBuffer buffer = ByteBuffer.allocate(ControlProtocol.RESPONSE_BYTES);
+        ControlProtocol.putResponse(buffer, 9, ControlStatus.UNKNOWN_MAKER, null);
+        buffer.flip();
+
+        // When
+        ControlResponse actual = ControlProtocol.getResponse(buffer);
+
+        // Then
+        assertEquals(
+                "ControlResponse(requestId=9, status=UNKNOWN_MAKER, cupsOfWater=0, cupsOfCoffee=0, "
+                        + "isBrewing=false, isWarmerPlateOn=false, hasPot=false)",
+                actual.toString());
+    }
+
+    @Test
+    void testCodes() {
+        for (ControlCommand command : ControlCommand.values()) {
+            assertEquals(command, ControlCommand.of(command.code()));
+        }
+
+        for (ControlStatus status : ControlStatus.values()) {
+            assertEquals(status, ControlStatus.of(status.code()));
+        }
+
+        assertNull(ControlCommand.of((byte) -1));
+        assertNull(ControlCommand.of((byte) 6));
+        assertThrows(IllegalArgumentException.class, () -> ControlStatus.of((byte) -1));
+        assertThrows(IllegalArgumentException.class, () -> ControlStatus.of((byte) 4));
+    }
+}
@@ -0,0 +1,132 @@
+package roofing.coffee.maker.remote;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import roofing.coffee.maker.BenchmarkReport;
+import roofing.coffee.maker.CoffeeMakerCreator;
+import roofing.coffee.maker.CoffeeMakerFleet;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * A load generator for a ControlServer over loopback: it reports the requests per second that the
+ * server answers, and the latency of each request from its send until its response arrives.
+ *
+ * Each connection runs on its own thread against a fleet of 10,000 ticking CoffeeMakers. It sends
+ * a window of {@code depth} requests - mostly status checks, with the odd fill, brew, or pot
+ * removal - and then receives their responses, for a few seconds. A depth of 1 measures the round
+ * trip of a single request; deeper windows measure what pipelining buys.
+ *
+ * Pass {@code connections depth seconds} to measure a single scenario instead of the defaults.
+ *
+ * @author nferraro-roofing
+ *
+ */
+public final class ControlServerBenchmark {
+
+    private static final int MAKERS = 10_000;
+    private static final int MAX_SAMPLES_PER_CONNECTION = 4_000_000;
+
+    private static final ControlCommand[] COMMANDS = {
+            ControlCommand.FILL,
+            ControlCommand.PRESS_BREW_BUTTON,
+            ControlCommand.REMOVE_POT,
+            ControlCommand.REPLACE_POT,
+            ControlCommand.POUR_OUT_COFFEE};
+
+    public static void main(String[] args) throws Exception {
+        CoffeeMakerProperties props = new CoffeeMakerProperties(
+                new ClockProps(100L, TimeUnit.MILLISECONDS, CatchUpPolicy.COALESCE, true),
+                new PotProps(10),
+                new ReservoirProps(60),
+                new WarmerPlateProps(1));
+
+        CoffeeMakerFleet fleet = CoffeeMakerCreator.createFleet(MAKERS, props);
+        try (ControlServer server = new ControlServer(fleet,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+
+            server.start();
+
+            if (args.length == 3) {
+                measure(server.address(),
+                        Integer.parseInt(args[0]),
+                        Integer.parseInt(args[1]),
+                        Integer.parseInt(args[2]));
+            } else {
+                measure(server.address(), 1, 1, 3);
+                measure(server.address(), 4, 1, 3);
+                measure(server.address(), 1, 64, 3);
+                measure(server.address(), 4, 64, 3);
+                measure(server.address(), 16, 256, 3);
+            }
+        } finally {
+            fleet.shutdown();
+        }
+    }
+
+    private static void measure(InetSocketAddress address, int connections, int depth, int seconds)
+            throws Exception {
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long start = System.nanoTime();
+
+        // A thread per connection, since each client blocks on its socket
+        ExecutorService threads = Executors.newFixedThreadPool(connections);
+        CompletableFuture<?>[] runs = new CompletableFuture<?>[connections];
+        long[][] samples = new long[connections][];
+        for (int i = 0; i < connections; i++) {
+            int connection = i;
+            runs[i] = CompletableFuture.runAsync(() -> samples[connection] =
+                    run(address, depth, deadline, new Random(connection)), threads);
+        }
+
+        CompletableFuture.allOf(runs).get();
+        threads.shutdown();
+        long elapsed = System.nanoTime() - start;
+
+        long[] latencies = Arrays.stream(samples).flatMapToLong(Arrays::stream).toArray();
+        String label = String.format("%d connections, depth %d", connections, depth);
+        BenchmarkReport.throughput(label, latencies.length, elapsed);
+        BenchmarkReport.latencies(label, latencies);
+    }
+
+    private static long[] run(InetSocketAddress address, int depth, long deadline, Random random) {
+        long[] latencies = new long[MAX_SAMPLES_PER_CONNECTION];
+        long[] sentAt = new long[depth];
+        int samples = 0;
+
+        try (ControlClient client = ControlClient.connect(address)) {
+            while (System.nanoTime() < deadline && samples + depth <= latencies.length) {
+                for (int i = 0; i < depth; i++) {
+                    ControlCommand command = random.nextInt(10) == 0
+                            ? COMMANDS[random.nextInt(COMMANDS.length)]
+                            : ControlCommand.STATUS;
+
+                    sentAt[i] = System.nanoTime();
+                    client.send(i, command, random.nextInt(MAKERS), 1);
+                }
+
+                client.flush();
+                for (int i = 0; i < depth; i++) {
+                    int requestId = client.receive().getRequestId();
+                    latencies[samples++] = System.nanoTime() - sentAt[requestId];
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return Arrays.copyOf(latencies, samples);
+    }
+}
@@ -0,0 +1,224 @@
+package roofing.coffee.maker.remote;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.CoffeeMakerCreator;
+import roofing.coffee.maker.CoffeeMakerFleet;
+import roofing.coffee.maker.busses.CatchUpPolicy;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+/**
+ * Tests a ControlServer and ControlClient over loopback.
+ *
+ * <p>
+ * The fleet's CoffeeMakers are tickless, and evaluate commands immediately - so that each command
+ * takes effect before its response. They tick every millisecond and brew a cup every 10 ticks, but
+ * their WarmerPlates stay hot for ten minutes, so that nothing changes once a brew completes.
+ * </p>
+ *
+ * @author nferraro-roofing
+ *
+ */
+class ControlServerTest {
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(1L, TimeUnit.MILLISECONDS, CatchUpPolicy.COALESCE, true),
+            new PotProps(10),
+            new ReservoirProps(6_000),
+            new WarmerPlateProps(10));
+
+    private CoffeeMakerFleet fleet;
+    private ControlServer server;
+    private ControlClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        fleet = new CoffeeMakerFleet();
+        for (long makerId = 0; makerId < 4; makerId++) {
+            fleet.register(makerId, CoffeeMakerCreator.createTickless(PROPS));
+        }
+
+        server = new ControlServer(fleet,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = ControlClient.connect(server.address());
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        client.close();
+        server.close();
+        fleet.shutdown();
+    }
+
+    @Test
+    void testCommands() throws IOException, InterruptedException {
+        // When
+        ControlResponse filled = client.call(ControlCommand.FILL, 2, 5);
+        ControlResponse pressed = client.call(ControlCommand.PRESS_BREW_BUTTON, 2, 0);
+
+        // Then
+        assertEquals(ControlStatus.OK, filled.getStatus());
+        assertEquals(5, filled.getCupsOfWater());
+        assertFalse(filled.isBrewing());
+        assertTrue(filled.isHasPot());
+        assertTrue(pressed.isBrewing());
+        assertEquals(1, pressed.getRequestId());
+
+        // And when - the brew completes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (client.call(ControlCommand.STATUS, 2, 0).isBrewing()
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        ControlResponse removed = client.call(ControlCommand.REMOVE_POT, 2, 0);
+        ControlResponse poured = client.call(ControlCommand.POUR_OUT_COFFEE, 2, 2);
+        ControlResponse replaced = client.call(ControlCommand.REPLACE_POT, 2, 0);
+        ControlResponse status = client.call(ControlCommand.STATUS, 2, 0);
+
+        // Then
+        assertFalse(removed.isHasPot());
+        assertEquals(5, removed.getCupsOfCoffee());
+        assertEquals(3, poured.getCupsOfCoffee());
+        assertTrue(replaced.isHasPot());
+        assertEquals(ControlStatus.OK, status.getStatus());
+        assertEquals(3, status.getCupsOfCoffee());
+        assertEquals(0, status.getCupsOfWater());
+        assertTrue(status.isWarmerPlateOn());
+        assertEquals(fleet.lookup(2).cupsOfCoffee(), status.getCupsOfCoffee());
+    }
+
+    @Test
+    void testErrors() throws IOException {
+        // When
+        ControlResponse unknownMaker = client.call(ControlCommand.STATUS, 99, 0);
+        client.sendRaw(7, (byte) 42, 2, 0);
+        ControlResponse unknownCommand = client.receive();
+        ControlResponse overFilled = client.call(ControlCommand.FILL, 2, 1_000);
+        ControlResponse replaced = client.call(ControlCommand.REPLACE_POT, 2, 0);
+
+        // Then
+        assertEquals(ControlStatus.UNKNOWN_MAKER, unknownMaker.getStatus());
+        assertFalse(unknownMaker.isHasPot());
+        assertEquals(ControlStatus.UNKNOWN_COMMAND, unknownCommand.getStatus());
+        assertEquals(7, unknownCommand.getRequestId());
+        assertEquals(ControlStatus.REJECTED, overFilled.getStatus());
+        assertEquals(0, overFilled.getCupsOfWater());
+        assertEquals(ControlStatus.REJECTED, replaced.getStatus());
+        assertTrue(replaced.isHasPot());
+    }
+
+    @Test
+    void testPipelinedRequests() throws IOException {
+        // When - rounds of requests, each pipelined before reading any response
+        client.call(ControlCommand.FILL, 1, 4);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 3_000; i++) {
+                client.send(i, ControlCommand.STATUS, i % 4, 0);
+            }
+
+            // Then - responses arrive in order of their requests
+            for (int i = 0; i < 3_000; i++) {
+                ControlResponse response = client.receive();
+                assertEquals(i, response.getRequestId());
+                assertEquals(i % 4 == 1 ? 4 : 0, response.getCupsOfWater());
+            }
+        }
+    }
+
+    @Test
+    void testClientThatFallsBehind() throws Exception {
+        // Given - more responses than the server buffers for a connection, and than a socket holds
+        int requests = 300_000;
+        ByteBuffer output = ByteBuffer.allocate(requests * ControlProtocol.REQUEST_BYTES);
+        for (int i = 0; i < requests; i++) {
+            ControlProtocol.putRequest(output, i, ControlCommand.STATUS.code(), 3, 0);
+        }
+
+        output.flip();
+
+        try (SocketChannel channel = SocketChannel.open(server.address())) {
+            // When - the client writes every request, and then closes its end, before it reads
+            CompletableFuture<Void> written = CompletableFuture.runAsync(() -> {
+                try {
+                    while (output.hasRemaining()) {
+                        channel.write(output);
+                    }
+
+                    channel.shutdownOutput();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            Thread.sleep(200);
+
+            // Then - every response arrives, and then the server closes the connection
+            ByteBuffer input = ByteBuffer.allocate(requests * ControlProtocol.RESPONSE_BYTES + 1);
+            while (channel.read(input) >= 0) {
+                // Read until the server closes
+            }
+
+            written.get(10, TimeUnit.SECONDS);
+            input.flip();
+            assertEquals(requests * ControlProtocol.RESPONSE_BYTES, input.remaining());
+            for (int i = 0; i < requests; i++) {
+                assertEquals(i, ControlProtocol.getResponse(input).getRequestId());
+            }
+        }
+    }
+
+    @Test
+    void testServerClosesConnections() throws IOException {
+        // Given
+        client.call(ControlCommand.STATUS, 0, 0);
+
+        // When
+        server.close();
+
+        // Then
+        assertThrows(IOException.class, () -> client.call(ControlCommand.STATUS, 0, 0));
+    }
+
+    @Test
+    void testServerDropsClosedConnections() throws IOException {
+        // Given
+        ControlClient other = ControlClient.connect(server.address());
+        other.call(ControlCommand.FILL, 0, 2);
+
+        // When
+        other.close();
+
+        // Then - other clients carry on
+        assertEquals(2, client.call(ControlCommand.STATUS, 0, 0).getCupsOfWater());
+    }
+
+    @Test
+    void testEndOfStreamMidRequest() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(server.address())) {
+            // When - half a request, and then the end of the stream
+            channel.write(ByteBuffer.allocate(ControlProtocol.REQUEST_BYTES / 2));
+            channel.shutdownOutput();
+
+            // Then - the server closes the connection without a response
+            assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package roofing.coffee.maker.streams;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConflatingPublisherTest {
+
+    private ConflatingPublisher<String, Integer> subject;
+    private RecordingSubscriber<Integer> subscriber;
+
+    @BeforeEach
+    void initSubject() {
+        subject = new ConflatingPublisher<>(Runnable::run);
+        subscriber = new RecordingSubscriber<>();
+        subject.subscribe(subscriber);
+    }
+
+    @Test
+    void testHonorsDemand() {
+        // Given
+        assertNotNull(subscriber.subscription);
+        assertTrue(subject.hasSubscribers());
+
+        // When - nothing requested yet
+        subject.publish("a", 1);
+
+        // Then
+        assertTrue(subscriber.items.isEmpty());
+
+        // And when
+        subscriber.subscription.request(1);
+        subject.publish("a", 2);
+
+        // Then
+        assertEquals(Arrays.asList(1), subscriber.items);
+    }
+
+    @Test
+    void testLatestStateWins() {
+        // When - a slow subscriber misses many ticks
+        for (int tick = 0; tick < 1_000; tick++) {
+            subject.publish("a", tick);
+        }
+
+        subscriber.subscription.request(10);
+
+        // Then
+        assertEquals(Arrays.asList(999), subscriber.items);
+        assertEquals(999, subject.conflatedItems());
+    }
+
+    @Test
+    void testConflatesPerKey() {
+        // Given
+        for (int tick = 0; tick < 100; tick++) {
+            subject.publish("a", tick);
+            subject.publish("b", 1_000 + tick);
+        }
+
+        // When
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        // Then - one item per key, in the order in which the keys first became pending
+        assertEquals(Arrays.asList(99, 1_099), subscriber.items);
+
+        // And unbounded demand keeps every later item flowing
+        subject.publish("a", 100);
+        subject.publish("a", 101);
+        assertEquals(Arrays.asList(99, 1_099, 100, 101), subscriber.items);
+    }
+
+    @Test
+    void testNonPositiveRequestFails() {
+        // When
+        subscriber.subscription.request(0);
+        subject.publish("a", 1);
+
+        // Then
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.items.isEmpty());
+        assertFalse(subject.hasSubscribers());
+    }
+
+    @Test
+    void testCancel() {
+        // When
+        subscriber.subscription.request(5);
+        subscriber.subscription.cancel();
+        subject.publish("a", 1);
+
+        // Then
+        assertTrue(subscriber.items.isEmpty());
+        assertFalse(subject.hasSubscribers());
+    }
+
+    @Test
+    void testCompleteAfterDelivery() {
+        // Given
+        subject.publish("a", 1);
+
+        // When
+        subject.complete();
+
+        // Then - the subscriber still has an item to receive
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(1);
+        assertEquals(Arrays.asList(1), subscriber.items);
+        assertTrue(subscriber.completed);
+
+        // And late subscribers complete right away
+        RecordingSubscriber<Integer> late = new RecordingSubscriber<>();
+        subject.subscribe(late);
+        assertTrue(late.completed);
+    }
+
+    @Test
+    void testFailingSubscriberIsCancelled() {
+        // Given
+        RecordingSubscriber<Integer> failing = new RecordingSubscriber<Integer>() {
+            @Override
+            public void onNext(Integer item) {
+                throw new IllegalStateException("Boom");
+            }
+        };
+
+        subject.subscribe(failing);
+        failing.subscription.request(1);
+        subscriber.subscription.request(2);
+
+        // When
+        subject.publish("a", 1);
+        subject.publish("a", 2);
+
+        // Then - the healthy subscriber is unaffected
+        assertEquals(Arrays.asList(1, 2), subscriber.items);
+        assertNull(failing.error);
+    }
+
+    @Test
+    void testRejectedDeliveryRunsInPlace() {
+        // Given
+        ConflatingPublisher<String, Integer> rejecting = new ConflatingPublisher<>(task -> {
+            throw new RejectedExecutionException("Shut down");
+        });
+
+        RecordingSubscriber<Integer> recording = new RecordingSubscriber<>();
+        rejecting.subscribe(recording);
+
+        // When
+        recording.subscription.request(1);
+        rejecting.publish("a", 1);
+
+        // Then
+        assertEquals(Arrays.asList(1), recording.items);
+    }
+
+    @Test
+    void testNullArguments() {
+        assertThrows(NullPointerException.class,
+                () -> new ConflatingPublisher<String, Integer>(null));
+        assertThrows(NullPointerException.class, () -> subject.subscribe(null));
+        assertThrows(NullPointerException.class, () -> subject.publish(null, 1));
+        assertThrows(NullPointerException.class, () -> subject.publish("a", null));
+    }
+
+    @Test
+    void testSignalsAreSerialUnderConcurrentPublishers() throws InterruptedException {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ConflatingPublisher<Integer, Integer> concurrent = new ConflatingPublisher<>(executor);
+        List<Integer> received = new ArrayList<>();
+        CountDownLatch lastItems = new CountDownLatch(4);
+
+        concurrent.subscribe(new RecordingSubscriber<Integer>() {
+            private int inFlight = 0;
+
+            @Override
+            public void onSubscribe(StateFlow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                assertEquals(1, ++inFlight, "onNext must never run concurrently");
+                received.add(item);
+                if (item % 10_000 == 9_999) {
+                    lastItems.countDown();
+                }
+
+                inFlight--;
+            }
+        });
+
+        // When - four sources publish to their own keys at once
+        for (int source = 0; source < 4; source++) {
+            int key = source;
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    concurrent.publish(key, key * 10_000 + i);
+                }
+            });
+        }
+
+        // Then - every source's latest item arrives
+        assertTrue(lastItems.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(received.size() <= 40_000);
+    }
+}
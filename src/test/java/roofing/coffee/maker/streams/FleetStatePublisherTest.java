@@ -0,0 +1,168 @@
+package roofing.coffee.maker.streams;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import roofing.coffee.maker.CoffeeMaker;
+import roofing.coffee.maker.TestTimeCoffeeMakerCreator;
+import roofing.coffee.maker.busses.Clock;
+import roofing.coffee.maker.busses.Clock.ClockBuilder;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ClockProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.PotProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.ReservoirProps;
+import roofing.coffee.maker.plugins.properties.CoffeeMakerProperties.WarmerPlateProps;
+
+class FleetStatePublisherTest {
+
+    private static final CoffeeMakerProperties PROPS = new CoffeeMakerProperties(
+            new ClockProps(60L, TimeUnit.SECONDS),
+            new PotProps(10),
+            new ReservoirProps(1),
+            new WarmerPlateProps(10));
+
+    private Clock firstClock;
+    private Clock secondClock;
+    private CoffeeMaker first;
+    private CoffeeMaker second;
+
+    private FleetStatePublisher<Long> subject;
+    private RecordingSubscriber<FleetStateUpdate<Long>> subscriber;
+
+    @BeforeEach
+    void initFleet() {
+        ClockBuilder firstBuilder = Clock.builder();
+        first = TestTimeCoffeeMakerCreator.create(firstBuilder, PROPS, Runnable::run);
+        firstClock = firstBuilder.build();
+
+        ClockBuilder secondBuilder = Clock.builder();
+        second = TestTimeCoffeeMakerCreator.create(secondBuilder, PROPS, Runnable::run);
+        secondClock = secondBuilder.build();
+
+        subject = new FleetStatePublisher<>(Runnable::run);
+        subject.attach(1L, first);
+        subject.attach(2L, second);
+
+        subscriber = new RecordingSubscriber<>();
+        subject.subscribe(subscriber);
+    }
+
+    @Test
+    void testSlowSubscriberReceivesLatestStatePerMaker() {
+        // Given
+        first.fill(first.getMaxWaterCapacityCups());
+        first.pressBrewButton();
+
+        // When - the subscriber misses many ticks of both makers
+        for (int tick = 0; tick < 5; tick++) {
+            firstClock.tick();
+            secondClock.tick();
+        }
+
+        subscriber.subscription.request(10);
+
+        // Then
+        assertEquals(2, subscriber.items.size());
+        assertEquals(8, subject.conflatedUpdates());
+
+        FleetStateUpdate<Long> firstUpdate = subscriber.items.get(0);
+        assertEquals(1L, firstUpdate.getKey());
+        assertEquals(5, firstUpdate.getState().getTicks());
+        assertTrue(firstUpdate.getState().isBrewing());
+        assertEquals(first.cupsOfCoffee(), firstUpdate.getState().getCupsOfCoffee());
+
+        assertEquals(2L, subscriber.last().getKey());
+        assertFalse(subscriber.last().getState().isBrewing());
+    }
+
+    @Test
+    void testDetach() {
+        // When
+        assertTrue(subject.detach(2L));
+        assertFalse(subject.detach(2L));
+
+        subscriber.subscription.request(10);
+        firstClock.tick();
+        secondClock.tick();
+
+        // Then
+        assertEquals(1, subscriber.items.size());
+        assertEquals(1L, subscriber.last().getKey());
+    }
+
+    @Test
+    void testAttachTwice() {
+        assertThrows(IllegalStateException.class, () -> subject.attach(1L, second));
+    }
+
+    @Test
+    void testCompletedStreamDetachesItself() {
+        // Given
+        ConflatingPublisher<Long, CoffeeMakerState> stream =
+                new ConflatingPublisher<>(Runnable::run);
+        subject.attach(3L, stream);
+
+        // When
+        stream.complete();
+
+        // Then
+        assertFalse(subject.detach(3L));
+    }
+
+    @Test
+    void testDetachBeforeSubscribed() {
+        // Given - a stream that has yet to call onSubscribe()
+        List<StateFlow.Subscriber<? super CoffeeMakerState>> attached = new ArrayList<>();
+        subject.attach(3L, attached::add);
+
+        // When
+        subject.detach(3L);
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        attached.get(0).onSubscribe(new StateFlow.Subscription() {
+            @Override
+            public void request(long n) {
+                throw new AssertionError("A detached CoffeeMaker must not request states");
+            }
+
+            @Override
+            public void cancel() {
+                cancelled.set(true);
+            }
+        });
+
+        attached.get(0).onError(new IllegalStateException("Ignored"));
+
+        // Then
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    void testNullArguments() {
+        StateFlow.Publisher<CoffeeMakerState> stream = s -> { };
+
+        assertThrows(NullPointerException.class, () -> new FleetStatePublisher<Long>(null));
+        assertThrows(NullPointerException.class, () -> subject.attach(null, first));
+        assertThrows(NullPointerException.class, () -> subject.attach(null, stream));
+        assertThrows(NullPointerException.class, () -> subject.attach(4L, (CoffeeMaker) null));
+        assertThrows(NullPointerException.class,
+                () -> subject.attach(4L, (StateFlow.Publisher<CoffeeMakerState>) null));
+        assertThrows(NullPointerException.class, () -> subject.detach(null));
+    }
+
+    @Test
+    void testToString() {
+        CoffeeMakerState state = new CoffeeMakerState(3, 7, 4, true, true, false);
+        String expected = "FleetStateUpdate(key=9, state=CoffeeMakerState(ticks=3, cupsOfWater=7, "
+                + "cupsOfCoffee=4, isBrewing=true, isWarmerPlateOn=true, hasPot=false))";
+
+        assertEquals(expected, new FleetStateUpdate<>(9L, state).toString());
+    }
+}
@@ -0,0 +1,42 @@
+package roofing.coffee.maker.streams;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Subscriber that records every signal it receives, for tests only.
+ * 
+ * @author nferraro-roofing
+ *
+ */
+class RecordingSubscriber<T> implements StateFlow.Subscriber<T> {
+
+    final List<T> items = new ArrayList<>();
+    StateFlow.Subscription subscription;
+    Throwable error;
+    boolean completed;
+
+    @Override
+    public void onSubscribe(StateFlow.Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(T item) {
+        items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        this.error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+        this.completed = true;
+    }
+
+    T last() {
+        return items.get(items.size() - 1);
+    }
+}
@@ -0,0 +1,58 @@
+package roofing.coffee.maker.subscriptions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class StateConditionTest {
+
+    @Test
+    void testIsRequiresFlag() {
+        assertThrows(IllegalArgumentException.class,
+                () -> StateCondition.is(StateField.CUPS_OF_COFFEE, true));
+    }
+
+    @Test
+    void testIsTranslatesToThresholds() {
+        assertEquals(StateCondition.atLeast(StateField.IS_HOT, 1).toString(),
+                StateCondition.is(StateField.IS_HOT, true).toString());
+        assertEquals(StateCondition.atMost(StateField.IS_HOT, 0).toString(),
+                StateCondition.is(StateField.IS_HOT, false).toString());
+    }
+
+    @Test
+    void testNullArguments() {
+        StateCondition condition = StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 1);
+
+        assertThrows(NullPointerException.class, () -> StateCondition.atLeast(null, 1));
+        assertThrows(NullPointerException.class, () -> StateCondition.atMost(null, 1));
+        assertThrows(NullPointerException.class, () -> StateCondition.is(null, true));
+        assertThrows(NullPointerException.class, () -> condition.and(null));
+    }
+
+    @Test
+    void testAnd() {
+        // Given
+        StateCondition subject = StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 2)
+                .and(StateCondition.is(StateField.HAS_POT, true));
+
+        int[] state = new int[StateField.values().length];
+        state[StateField.CUPS_OF_COFFEE.ordinal()] = 2;
+
+        // When & Then
+        assertFalse(subject.test(state));
+
+        state[StateField.HAS_POT.ordinal()] = StateField.flag(true);
+        assertTrue(subject.test(state));
+    }
+
+    @Test
+    void testToString() {
+        String expected = "StateCondition(thresholds=[StateCondition.Threshold(field=CUPS_OF_COFFEE, "
+                + "atLeast=true, value=4)])";
+
+        assertEquals(expected, StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 4).toString());
+    }
+}
@@ -0,0 +1,243 @@
+package roofing.coffee.maker.subscriptions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SubscriptionIndexTest {
+
+    private int[] state;
+    private SubscriptionIndex subject;
+
+    @BeforeEach
+    void initSubject() {
+        state = new int[StateField.values().length];
+        subject = new SubscriptionIndex(Runnable::run);
+        publish();
+    }
+
+    @Test
+    void testAtLeastFiresOnceWhenCrossed() {
+        // Given
+        AtomicInteger fired = new AtomicInteger();
+        subject.subscribe(StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 4),
+                fired::incrementAndGet);
+        publish();
+
+        // When & Then
+        for (int cups = 1; cups <= 3; cups++) {
+            set(StateField.CUPS_OF_COFFEE, cups);
+            assertEquals(0, fired.get());
+        }
+
+        set(StateField.CUPS_OF_COFFEE, 4);
+        assertEquals(1, fired.get());
+
+        set(StateField.CUPS_OF_COFFEE, 6);
+        assertEquals(1, fired.get(), "Still true, so no new transition");
+
+        set(StateField.CUPS_OF_COFFEE, 0);
+        set(StateField.CUPS_OF_COFFEE, 10);
+        assertEquals(2, fired.get(), "Fires again once the condition becomes true again");
+    }
+
+    @Test
+    void testFlagCondition() {
+        // Given
+        AtomicInteger warmerOff = new AtomicInteger();
+        set(StateField.IS_HOT, 1);
+        subject.subscribe(StateCondition.is(StateField.IS_HOT, false), warmerOff::incrementAndGet);
+        publish();
+
+        // When
+        set(StateField.IS_HOT, 0);
+
+        // Then
+        assertEquals(1, warmerOff.get());
+    }
+
+    @Test
+    void testAlreadyTrueConditionFiresOnActivation() {
+        // Given
+        AtomicInteger fired = new AtomicInteger();
+        set(StateField.CUPS_OF_WATER, 3);
+
+        // When
+        subject.subscribe(StateCondition.atMost(StateField.CUPS_OF_WATER, 5),
+                fired::incrementAndGet);
+        assertEquals(0, fired.get(), "Subscriptions take effect on the next publish");
+        publish();
+
+        // Then
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void testCompoundCondition() {
+        // Given - reservoir empty while brew requested
+        AtomicInteger fired = new AtomicInteger();
+        set(StateField.CUPS_OF_WATER, 2);
+        subject.subscribe(StateCondition.atMost(StateField.CUPS_OF_WATER, 0)
+                .and(StateCondition.is(StateField.IS_BREW_REQUESTED, true)),
+                fired::incrementAndGet);
+        publish();
+
+        // When
+        set(StateField.CUPS_OF_WATER, 0);
+        assertEquals(0, fired.get());
+
+        set(StateField.IS_BREW_REQUESTED, 1);
+
+        // Then
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void testSimultaneousChangesDoNotFireSpuriously() {
+        // Given - the condition holds only while both fields change together
+        AtomicInteger fired = new AtomicInteger();
+        state[StateField.IS_BREWING.ordinal()] = 1;
+        subject.subscribe(StateCondition.is(StateField.IS_BREWING, true)
+                .and(StateCondition.is(StateField.HAS_POT, true)),
+                fired::incrementAndGet);
+        publish();
+
+        // When - one threshold starts holding as the other stops
+        state[StateField.IS_BREWING.ordinal()] = 0;
+        state[StateField.HAS_POT.ordinal()] = 1;
+        publish();
+
+        // Then
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    void testOnlyCrossedThresholdsAreEvaluated() {
+        // Given - thousands of subscriptions spread over ten thresholds
+        for (int i = 0; i < 10_000; i++) {
+            subject.subscribe(StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 1 + i % 10),
+                    () -> { });
+        }
+
+        publish();
+
+        // When - a change that crosses one threshold, and a change that crosses none
+        long before = subject.evaluations();
+        set(StateField.CUPS_OF_COFFEE, 1);
+        set(StateField.CUPS_OF_WATER, 7);
+
+        // Then
+        assertEquals(1_000, subject.evaluations() - before);
+    }
+
+    @Test
+    void testCancel() {
+        // Given
+        AtomicInteger fired = new AtomicInteger();
+        Subscription subscription = subject.subscribe(
+                StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 1),
+                fired::incrementAndGet);
+        publish();
+
+        // When
+        subscription.cancel();
+        subscription.cancel();
+        set(StateField.CUPS_OF_COFFEE, 1);
+
+        // Then
+        assertTrue(subscription.isCancelled());
+        assertEquals(0, fired.get());
+        assertEquals(0, subject.evaluations());
+    }
+
+    @Test
+    void testCancelBeforeActivation() {
+        // Given
+        AtomicInteger fired = new AtomicInteger();
+        set(StateField.CUPS_OF_COFFEE, 5);
+        Subscription subscription = subject.subscribe(
+                StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 1),
+                fired::incrementAndGet);
+
+        // When
+        subscription.cancel();
+        publish();
+
+        // Then
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    void testCancelBeforeActivationBesideActiveSubscription() {
+        // Given
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger cancelled = new AtomicInteger();
+        subject.subscribe(StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 2),
+                active::incrementAndGet);
+        publish();
+
+        Subscription subscription = subject.subscribe(
+                StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 1),
+                cancelled::incrementAndGet);
+
+        // When
+        subscription.cancel();
+        publish();
+        set(StateField.CUPS_OF_COFFEE, 2);
+
+        // Then
+        assertEquals(1, active.get());
+        assertEquals(0, cancelled.get());
+    }
+
+    @Test
+    void testRejectedListenerRunsInPlace() {
+        // Given
+        AtomicInteger fired = new AtomicInteger();
+        SubscriptionIndex rejecting = new SubscriptionIndex(task -> {
+            throw new RejectedExecutionException("Shut down");
+        });
+
+        rejecting.subscribe(StateCondition.atMost(StateField.CUPS_OF_COFFEE, 0),
+                fired::incrementAndGet);
+
+        // When
+        rejecting.publish(field -> 0);
+
+        // Then
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void testNullArguments() {
+        StateCondition condition = StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 1);
+
+        assertThrows(NullPointerException.class, () -> new SubscriptionIndex(null));
+        assertThrows(NullPointerException.class, () -> subject.subscribe(null, () -> { }));
+        assertThrows(NullPointerException.class, () -> subject.subscribe(condition, null));
+    }
+
+    @Test
+    void testSubscriptionToString() {
+        Subscription subscription = subject.subscribe(
+                StateCondition.atLeast(StateField.CUPS_OF_COFFEE, 4),
+                () -> { });
+
+        String expected = "Subscription(condition=StateCondition(thresholds=["
+                + "StateCondition.Threshold(field=CUPS_OF_COFFEE, atLeast=true, value=4)]))";
+        assertEquals(expected, subscription.toString());
+    }
+
+    private void set(StateField field, int value) {
+        state[field.ordinal()] = value;
+        publish();
+    }
+
+    private void publish() {
+        subject.publish(field -> state[field.ordinal()]);
+    }
+}
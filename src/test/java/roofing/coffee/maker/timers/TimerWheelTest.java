@@ -0,0 +1,188 @@
+package roofing.coffee.maker.timers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+
+    private TimerWheel subject;
+
+    // The tick of the wheel's clock at which each Timeout ran, in order of running
+    private List<Long> ranAt;
+
+    @BeforeEach
+    void initSubject() {
+        subject = new TimerWheel();
+        ranAt = new ArrayList<>();
+    }
+
+    @Test
+    void testRunsAtExpiryTick() {
+        // Given - Timeouts in several levels of the wheel
+        long[] expiries = {3, 63, 64, 65, 4_095, 4_097, 300_000, 1L << 40};
+        for (int i = expiries.length - 1; i >= 0; i--) {
+            long expiry = expiries[i];
+            subject.schedule(expiry, () -> ranAt.add(expiry));
+        }
+
+        // When
+        subject.advance(2);
+        subject.advance(1);
+
+        // Then
+        assertEquals(3, subject.now());
+        assertEquals(7, subject.pending());
+        assertEquals(Arrays.asList(3L), ranAt);
+
+        // And when - a single advance past every other Timeout
+        subject.advance((1L << 40) - 3);
+
+        // Then
+        assertArrayEquals(expiries, ranAt.stream().mapToLong(Long::longValue).toArray());
+        assertEquals(0, subject.pending());
+        assertEquals(1L << 40, subject.now());
+    }
+
+    @Test
+    void testMatchesSortedDeadlines() {
+        // Given
+        Random random = new Random(11);
+        List<Timeout> timeouts = new ArrayList<>();
+
+        for (int round = 0; round < 2_000; round++) {
+            // When - a few Timeouts near and far, a cancellation, and an advance
+            for (int i = 0; i < 3; i++) {
+                int bits = 1 + random.nextInt(20);
+                long expiry = subject.now() + random.nextInt(1 << bits);
+                timeouts.add(subject.schedule(expiry, () -> ranAt.add(subject.now())));
+            }
+
+            Timeout cancelled = timeouts.get(random.nextInt(timeouts.size()));
+            boolean wasPending = cancelled.isPending();
+            assertEquals(wasPending, cancelled.cancel());
+            assertFalse(cancelled.isPending());
+
+            long advance = random.nextInt(1 << (1 + random.nextInt(14)));
+            long target = subject.now() + advance;
+            long expected = advance == 0 ? 0
+                    : timeouts.stream()
+                            .filter(timeout -> timeout.isPending()
+                                    && timeout.expiryTick() <= target)
+                            .count();
+
+            ranAt.clear();
+            subject.advance(advance);
+
+            // Then - exactly the pending Timeouts that expired by now ran, at the advance's tick
+            assertEquals(expected, ranAt.size());
+            for (long tick : ranAt) {
+                assertEquals(target, tick);
+            }
+
+            timeouts.removeIf(timeout -> !timeout.isPending());
+            for (Timeout timeout : timeouts) {
+                assertTrue(advance == 0 || timeout.expiryTick() > target, timeout.toString());
+            }
+
+            assertEquals(timeouts.size(), subject.pending());
+        }
+    }
+
+    @Test
+    void testCancel() {
+        // Given
+        Timeout cancelled = subject.schedule(10, () -> ranAt.add(subject.now()));
+        Timeout sibling = subject.schedule(10, () -> ranAt.add(subject.now()));
+        Timeout ran = subject.schedule(5, () -> ranAt.add(subject.now()));
+
+        // When
+        boolean first = cancelled.cancel();
+        boolean second = cancelled.cancel();
+        subject.advance(20);
+
+        // Then
+        assertTrue(first);
+        assertFalse(second);
+        assertFalse(ran.cancel());
+        assertFalse(sibling.isPending());
+        assertEquals(Arrays.asList(20L, 20L), ranAt);
+        assertEquals("Timeout(expiryTick=5, isPending=false)", ran.toString());
+    }
+
+    @Test
+    void testPastExpiryRunsOnNextAdvance() {
+        // Given
+        subject.advance(100);
+
+        // When
+        Timeout timeout = subject.schedule(40, () -> ranAt.add(subject.now()));
+        subject.advance(0);
+
+        // Then
+        assertTrue(timeout.isPending());
+        assertEquals(40, timeout.expiryTick());
+
+        // And when
+        subject.advance(1);
+
+        // Then
+        assertEquals(Arrays.asList(101L), ranAt);
+    }
+
+    @Test
+    void testTimeoutSchedulesAnother() {
+        // Given - a Timeout that reschedules itself every 7 ticks, and one that fails
+        subject.schedule(3, () -> {
+            throw new IllegalStateException("Timeouts may fail");
+        });
+        subject.schedule(7, new Runnable() {
+            @Override
+            public void run() {
+                ranAt.add(subject.now());
+                subject.schedule(subject.now() + 7, this);
+            }
+        });
+
+        // When
+        for (int tick = 0; tick < 21; tick++) {
+            subject.advance(1);
+        }
+
+        // Then
+        assertEquals(Arrays.asList(7L, 14L, 21L), ranAt);
+        assertEquals(1, subject.pending());
+    }
+
+    @Test
+    void testEarliestExpiryTick() {
+        // Given
+        assertEquals(Long.MAX_VALUE, subject.earliestExpiryTick());
+        subject.schedule(5, () -> { });
+        Timeout distant = subject.schedule(300_000, () -> { });
+
+        // When / Then - never later than the earliest expiry
+        assertEquals(5, subject.earliestExpiryTick());
+
+        subject.advance(5);
+        long bound = subject.earliestExpiryTick();
+        assertTrue(bound > 5 && bound <= 300_000, Long.toString(bound));
+
+        distant.cancel();
+        assertEquals(Long.MAX_VALUE, subject.earliestExpiryTick());
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> subject.advance(-1));
+        assertThrows(NullPointerException.class, () -> subject.schedule(1, null));
+    }
+}